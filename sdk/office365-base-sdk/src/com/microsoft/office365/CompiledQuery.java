@@ -0,0 +1,237 @@
+/*
+Copyright (c) Microsoft Open Technologies, Inc.
+All Rights Reserved
+Apache 2.0 License
+ 
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+ 
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ 
+See the Apache Version 2.0 License for specific language governing permissions and limitations under the License.
+ */
+package com.microsoft.office365;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable, precompiled form of a query: the filter is kept as text segments
+ * around parameter slots, and the rowset's modifiers as encoded text, so that
+ * rendering does not walk the query again.
+ */
+public final class CompiledQuery {
+
+	private static final String FILTER = "$filter=";
+
+	/**
+	 * Filter text before, between and after parameters
+	 */
+	private final String[] mSegments;
+
+	/**
+	 * Parameter names, in order of appearance
+	 */
+	private final String[] mParameterNames;
+
+	/**
+	 * Encoded rowset's modifiers, starting with "&" unless empty
+	 */
+	private final String mRowSetModifiers;
+
+	/**
+	 * Length of the rendered filter, parameter values excluded
+	 */
+	private final int mFixedLength;
+
+	/**
+	 * Compiles the given query; as it happens when querying, the id property is
+	 * added to its projection, if any
+	 * 
+	 * @param query
+	 *            The query to compile
+	 */
+	CompiledQuery(Query query) {
+		query.ensureIdProperty();
+
+		StringBuilder filter = new StringBuilder();
+		List<Integer> slotPositions = new ArrayList<Integer>();
+		List<String> slotNames = new ArrayList<String>();
+		query.appendTo(filter, slotPositions, slotNames);
+
+		mParameterNames = slotNames.toArray(new String[slotNames.size()]);
+		mSegments = new String[mParameterNames.length + 1];
+		int from = 0;
+		for (int i = 0; i < mParameterNames.length; i++) {
+			int to = slotPositions.get(i);
+			mSegments[i] = filter.substring(from, to);
+			from = to;
+		}
+		mSegments[mParameterNames.length] = filter.substring(from);
+
+		String rowSetModifiers = query.getRowSetModifiers().trim();
+		if (rowSetModifiers.length() > 0 && !rowSetModifiers.startsWith("&")) {
+			rowSetModifiers = "&" + rowSetModifiers;
+		}
+		mRowSetModifiers = rowSetModifiers;
+
+		int fixedLength = 0;
+		for (String segment : mSegments) {
+			fixedLength += segment.length();
+		}
+		mFixedLength = fixedLength;
+	}
+
+	/**
+	 * Encodes the text as query strings do by default: white spaces become "+"
+	 * 
+	 * @param sb
+	 *            The builder to append to
+	 * @param text
+	 *            The text to encode
+	 */
+	private static void appendEncoded(StringBuilder sb, CharSequence text) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch (c) {
+			case ' ':
+			case '\t':
+			case '\n':
+			case '\u000B':
+			case '\f':
+			case '\r':
+				sb.append('+');
+				break;
+
+			default:
+				sb.append(c);
+			}
+		}
+	}
+
+	/**
+	 * Appends the value, formatted as QueryOperations.val does
+	 * 
+	 * @param sb
+	 *            The builder to append to
+	 * @param name
+	 *            The parameter name
+	 * @param value
+	 *            The value
+	 */
+	private static void appendValue(StringBuilder sb, String name, Object value) {
+		if (value == null) {
+			sb.append("null");
+		} else if (value instanceof Number) {
+			sb.append(value.toString());
+		} else if (value instanceof Boolean) {
+			sb.append(value.toString().toLowerCase(Locale.getDefault()));
+		} else if (value instanceof String) {
+			sb.append('\'');
+			sb.append(QueryOperations.sanitize((String) value));
+			sb.append('\'');
+		} else {
+			throw new IllegalArgumentException("Unsupported value type for parameter " + name + ": "
+					+ value.getClass().getName());
+		}
+	}
+
+	/**
+	 * Returns the names of the parameters of the query, in order of appearance
+	 */
+	public List<String> getParameterNames() {
+		List<String> names = new ArrayList<String>(mParameterNames.length);
+		Collections.addAll(names, mParameterNames);
+		return Collections.unmodifiableList(names);
+	}
+
+	/**
+	 * Renders the OData query string of a query without parameters
+	 * 
+	 * @return The query string
+	 */
+	public String render() {
+		return render(Collections.<String, Object> emptyMap());
+	}
+
+	/**
+	 * Renders the OData query string, with the given parameter values: numbers,
+	 * booleans, strings or null
+	 * 
+	 * @param values
+	 *            The parameter values, by name
+	 * @return The query string
+	 */
+	public String render(Map<String, ?> values) {
+		String filter = renderFilter(values);
+		StringBuilder sb = new StringBuilder(FILTER.length() + filter.length() + mRowSetModifiers.length());
+
+		sb.append(FILTER);
+		appendEncoded(sb, filter);
+		sb.append(mRowSetModifiers);
+
+		return sb.toString();
+	}
+
+	/**
+	 * Renders the filter, with the given parameter values, not encoded yet
+	 * 
+	 * @param values
+	 *            The parameter values, by name
+	 * @return The filter
+	 */
+	String renderFilter(Map<String, ?> values) {
+		StringBuilder sb = new StringBuilder(mFixedLength + 16 * mParameterNames.length);
+
+		sb.append(mSegments[0]);
+		for (int i = 0; i < mParameterNames.length; i++) {
+			String name = mParameterNames[i];
+			if (!values.containsKey(name)) {
+				throw new IllegalArgumentException("No value for parameter " + name);
+			}
+
+			appendValue(sb, name, values.get(name));
+			sb.append(mSegments[i + 1]);
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the encoded rowset's modifiers, starting with "&" unless empty
+	 */
+	String getRowSetModifiers() {
+		return mRowSetModifiers;
+	}
+
+	/**
+	 * Returns the OData query string, parameters represented as @name
+	 */
+	@Override
+	public String toString() {
+		StringBuilder filter = new StringBuilder(mFixedLength + 16 * mParameterNames.length);
+
+		filter.append(mSegments[0]);
+		for (int i = 0; i < mParameterNames.length; i++) {
+			filter.append('@').append(mParameterNames[i]);
+			filter.append(mSegments[i + 1]);
+		}
+
+		StringBuilder sb = new StringBuilder(FILTER.length() + filter.length() + mRowSetModifiers.length());
+		sb.append(FILTER);
+		appendEncoded(sb, filter);
+		sb.append(mRowSetModifiers);
+
+		return sb.toString();
+	}
+}
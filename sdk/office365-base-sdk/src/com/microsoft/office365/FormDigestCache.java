@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.json.JSONObject;
+
+/**
+ * Caches the form digests of SharePoint sites, by site URL, until they
+ * expire. Concurrent requests for the digest of a site share a single
+ * contextinfo request.
+ */
+public class FormDigestCache {
+
+	/**
+	 * Digest lifetime assumed when the service does not send one, in seconds
+	 */
+	private static final long DEFAULT_TIMEOUT_SECONDS = 1800;
+
+	/**
+	 * Digests are renewed up to this long before they expire, in milliseconds
+	 */
+	private static final long MAX_EXPIRY_MARGIN = 60 * 1000;
+
+	private static final Map<Credentials, FormDigestCache> sCaches = new WeakHashMap<Credentials, FormDigestCache>();
+
+	private final Map<String, Entry> mEntries = new HashMap<String, Entry>();
+
+	private static class Entry {
+		String mDigest;
+		long mExpiresAt;
+		OfficeFuture<String> mRefresh;
+	}
+
+	/**
+	 * Gets the cache shared by all the clients using the given credentials
+	 * 
+	 * @param credentials
+	 *            The credentials digests are requested with
+	 * @return The cache
+	 */
+	public static FormDigestCache forCredentials(Credentials credentials) {
+		synchronized (sCaches) {
+			FormDigestCache cache = sCaches.get(credentials);
+			if (cache == null) {
+				cache = new FormDigestCache();
+				sCaches.put(credentials, cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Gets the digest of a site: the cached one if not expired, otherwise a
+	 * new one, requested once for all concurrent callers
+	 * 
+	 * @param siteUrl
+	 *            The site URL
+	 * @param contextInfo
+	 *            Requests the context information of a site, given its URL
+	 * @return The digest
+	 */
+	public OfficeFuture<String> get(String siteUrl, Function<String, OfficeFuture<JSONObject>> contextInfo) {
+		final OfficeFuture<String> result = new OfficeFuture<String>();
+
+		Entry entry;
+		OfficeFuture<String> shared;
+		boolean refresh = false;
+		synchronized (mEntries) {
+			entry = mEntries.get(siteUrl);
+			if (entry == null) {
+				entry = new Entry();
+				mEntries.put(siteUrl, entry);
+			}
+
+			if (entry.mDigest != null && System.currentTimeMillis() < entry.mExpiresAt) {
+				result.setResult(entry.mDigest);
+				return result;
+			}
+
+			if (entry.mRefresh == null) {
+				entry.mRefresh = new OfficeFuture<String>();
+				refresh = true;
+			}
+			shared = entry.mRefresh;
+		}
+
+		// callers get their own future, so that cancelling one does not
+		// cancel the shared refresh
+		shared.done(new Action<String>() {
+
+			@Override
+			public void run(String digest) {
+				result.setResult(digest);
+			}
+		});
+
+		shared.onError(new ErrorCallback() {
+
+			@Override
+			public void onError(Throwable error) {
+				result.triggerError(error);
+			}
+		});
+
+		shared.onCancelled(new Runnable() {
+
+			@Override
+			public void run() {
+				result.cancel();
+			}
+		});
+
+		if (refresh) {
+			refresh(siteUrl, entry, shared, contextInfo);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Drops the cached digest of a site, unless it was already replaced by a
+	 * different one
+	 * 
+	 * @param siteUrl
+	 *            The site URL
+	 * @param digest
+	 *            The digest found to be expired
+	 */
+	public void invalidate(String siteUrl, String digest) {
+		synchronized (mEntries) {
+			Entry entry = mEntries.get(siteUrl);
+			if (entry != null && digest.equals(entry.mDigest)) {
+				entry.mDigest = null;
+			}
+		}
+	}
+
+	private void refresh(String siteUrl, final Entry entry, final OfficeFuture<String> shared,
+			Function<String, OfficeFuture<JSONObject>> contextInfo) {
+		OfficeFuture<JSONObject> request;
+		try {
+			request = contextInfo.apply(siteUrl);
+		} catch (Throwable error) {
+			fail(entry, shared, error);
+			return;
+		}
+
+		request.done(new Action<JSONObject>() {
+
+			@Override
+			public void run(JSONObject json) {
+				String digest;
+				long timeout;
+				try {
+					JSONObject info = json.getJSONObject("d").getJSONObject("GetContextWebInformation");
+					digest = info.getString("FormDigestValue");
+					timeout = info.optLong("FormDigestTimeoutSeconds", DEFAULT_TIMEOUT_SECONDS) * 1000;
+				} catch (Throwable error) {
+					fail(entry, shared, error);
+					return;
+				}
+
+				synchronized (mEntries) {
+					entry.mDigest = digest;
+					entry.mExpiresAt = System.currentTimeMillis() + timeout
+							- Math.min(MAX_EXPIRY_MARGIN, timeout / 10);
+					entry.mRefresh = null;
+				}
+				shared.setResult(digest);
+			}
+		});
+
+		request.onError(new ErrorCallback() {
+
+			@Override
+			public void onError(Throwable error) {
+				fail(entry, shared, error);
+			}
+		});
+
+		request.onCancelled(new Runnable() {
+
+			@Override
+			public void run() {
+				synchronized (mEntries) {
+					entry.mRefresh = null;
+				}
+				shared.cancel();
+			}
+		});
+	}
+
+	private void fail(Entry entry, OfficeFuture<String> shared, Throwable error) {
+		synchronized (mEntries) {
+			entry.mRefresh = null;
+		}
+		shared.triggerError(error);
+	}
+}
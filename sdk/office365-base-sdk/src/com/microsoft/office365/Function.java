@@ -0,0 +1,22 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365;
+
+/**
+ * Represents a function that transforms a value
+ * @param <T> The function parameter type
+ * @param <R> The function result type
+ */
+public interface Function<T, R> {
+	
+	/**
+	 * Applies the function
+	 * @param obj The function parameter
+	 * @return The function result
+	 * @throws Exception An Exception is thrown if there is an error applying the function
+	 */
+	public R apply(T obj) throws Exception;
+}
@@ -0,0 +1,442 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Pull parser reading a JSON document one token at a time, so that large
+ * responses can be processed without holding the whole body in memory.
+ * Values read with nextValue use the org.json types.
+ */
+public class JsonStreamReader implements Closeable {
+
+	/**
+	 * JSON token types
+	 */
+	public enum Token {
+		BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, VALUE, END_DOCUMENT
+	}
+
+	private static final int EMPTY_DOCUMENT = 0;
+	private static final int NONEMPTY_DOCUMENT = 1;
+	private static final int EMPTY_OBJECT = 2;
+	private static final int NONEMPTY_OBJECT = 3;
+	private static final int DANGLING_NAME = 4;
+	private static final int EMPTY_ARRAY = 5;
+	private static final int NONEMPTY_ARRAY = 6;
+
+	private final Reader mIn;
+	private final char[] mBuffer = new char[4096];
+	private int mPos = 0;
+	private int mLimit = 0;
+
+	private int[] mStack = new int[32];
+	private int mDepth = 0;
+	private Token mToken = null;
+
+	/**
+	 * Initializes the reader over an UTF-8 stream
+	 * @param stream The stream to read
+	 */
+	public JsonStreamReader(InputStream stream) {
+		this(new InputStreamReader(stream, Constants.UTF8));
+	}
+
+	/**
+	 * Initializes the reader
+	 * @param reader The characters to read
+	 */
+	public JsonStreamReader(Reader reader) {
+		mIn = reader;
+		mStack[mDepth++] = EMPTY_DOCUMENT;
+	}
+
+	/**
+	 * Returns the type of the next token without consuming it
+	 */
+	public Token peek() throws IOException {
+		if (mToken != null) {
+			return mToken;
+		}
+
+		int c;
+		switch (mStack[mDepth - 1]) {
+		case EMPTY_DOCUMENT:
+			mStack[mDepth - 1] = NONEMPTY_DOCUMENT;
+			c = nextNonWhitespace();
+			if (c == -1) {
+				return mToken = Token.END_DOCUMENT;
+			}
+			break;
+
+		case NONEMPTY_DOCUMENT:
+			c = nextNonWhitespace();
+			if (c == -1) {
+				return mToken = Token.END_DOCUMENT;
+			}
+			throw syntaxError("Unexpected content after the document");
+
+		case EMPTY_ARRAY:
+			mStack[mDepth - 1] = NONEMPTY_ARRAY;
+			c = nextNonWhitespace();
+			if (c == ']') {
+				return mToken = Token.END_ARRAY;
+			}
+			break;
+
+		case NONEMPTY_ARRAY:
+			c = nextNonWhitespace();
+			if (c == ']') {
+				return mToken = Token.END_ARRAY;
+			} else if (c != ',') {
+				throw syntaxError("Expected ',' or ']'");
+			}
+			c = nextNonWhitespace();
+			break;
+
+		case EMPTY_OBJECT:
+		case NONEMPTY_OBJECT:
+			c = nextNonWhitespace();
+			if (c == '}') {
+				return mToken = Token.END_OBJECT;
+			}
+			if (mStack[mDepth - 1] == NONEMPTY_OBJECT) {
+				if (c != ',') {
+					throw syntaxError("Expected ',' or '}'");
+				}
+				c = nextNonWhitespace();
+			}
+			if (c != '"') {
+				throw syntaxError("Expected name");
+			}
+			mStack[mDepth - 1] = DANGLING_NAME;
+			mPos--;
+			return mToken = Token.NAME;
+
+		case DANGLING_NAME:
+			if (nextNonWhitespace() != ':') {
+				throw syntaxError("Expected ':'");
+			}
+			mStack[mDepth - 1] = NONEMPTY_OBJECT;
+			c = nextNonWhitespace();
+			break;
+
+		default:
+			throw new IllegalStateException();
+		}
+
+		if (c == -1) {
+			throw syntaxError("Unexpected end of document");
+		}
+
+		// leave the first character of the value to the method reading it
+		mPos--;
+		if (c == '{') {
+			return mToken = Token.BEGIN_OBJECT;
+		} else if (c == '[') {
+			return mToken = Token.BEGIN_ARRAY;
+		} else {
+			return mToken = Token.VALUE;
+		}
+	}
+
+	/**
+	 * Indicates if the current object or array has more elements
+	 */
+	public boolean hasNext() throws IOException {
+		Token token = peek();
+		return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+	}
+
+	/**
+	 * Consumes the start of an object
+	 */
+	public void beginObject() throws IOException {
+		expect(Token.BEGIN_OBJECT);
+		mPos++;
+		push(EMPTY_OBJECT);
+	}
+
+	/**
+	 * Consumes the end of the current object
+	 */
+	public void endObject() throws IOException {
+		expect(Token.END_OBJECT);
+		mDepth--;
+	}
+
+	/**
+	 * Consumes the start of an array
+	 */
+	public void beginArray() throws IOException {
+		expect(Token.BEGIN_ARRAY);
+		mPos++;
+		push(EMPTY_ARRAY);
+	}
+
+	/**
+	 * Consumes the end of the current array
+	 */
+	public void endArray() throws IOException {
+		expect(Token.END_ARRAY);
+		mDepth--;
+	}
+
+	/**
+	 * Consumes the next property name of the current object
+	 * @return The property name
+	 */
+	public String nextName() throws IOException {
+		expect(Token.NAME);
+		return readString();
+	}
+
+	/**
+	 * Consumes the next value, building objects and arrays entirely
+	 * @return A JSONObject, JSONArray, String, Boolean, Integer, Long, Double
+	 *         or JSONObject.NULL
+	 */
+	public Object nextValue() throws IOException, JSONException {
+		Token token = peek();
+		if (token == Token.BEGIN_OBJECT) {
+			JSONObject object = new JSONObject();
+			beginObject();
+			while (hasNext()) {
+				String name = nextName();
+				object.put(name, nextValue());
+			}
+			endObject();
+			return object;
+		} else if (token == Token.BEGIN_ARRAY) {
+			JSONArray array = new JSONArray();
+			beginArray();
+			while (hasNext()) {
+				array.put(nextValue());
+			}
+			endArray();
+			return array;
+		} else {
+			expect(Token.VALUE);
+			return readLiteral();
+		}
+	}
+
+	/**
+	 * Consumes the next value without building it
+	 */
+	public void skipValue() throws IOException {
+		Token token = peek();
+		if (token == Token.BEGIN_OBJECT) {
+			beginObject();
+			while (hasNext()) {
+				nextName();
+				skipValue();
+			}
+			endObject();
+		} else if (token == Token.BEGIN_ARRAY) {
+			beginArray();
+			while (hasNext()) {
+				skipValue();
+			}
+			endArray();
+		} else {
+			expect(Token.VALUE);
+			readLiteral();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		mIn.close();
+	}
+
+	private void expect(Token expected) throws IOException {
+		Token token = peek();
+		if (token != expected) {
+			throw syntaxError("Expected " + expected + " but was " + token);
+		}
+		mToken = null;
+	}
+
+	private void push(int context) {
+		if (mDepth == mStack.length) {
+			int[] stack = new int[mDepth * 2];
+			System.arraycopy(mStack, 0, stack, 0, mDepth);
+			mStack = stack;
+		}
+		mStack[mDepth++] = context;
+	}
+
+	private boolean fill() throws IOException {
+		mLimit = mIn.read(mBuffer, 0, mBuffer.length);
+		mPos = 0;
+		if (mLimit <= 0) {
+			mLimit = 0;
+			return false;
+		}
+		return true;
+	}
+
+	private int read() throws IOException {
+		if (mPos == mLimit && !fill()) {
+			return -1;
+		}
+		return mBuffer[mPos++];
+	}
+
+	private int nextNonWhitespace() throws IOException {
+		int c;
+		do {
+			c = read();
+		} while (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+		return c;
+	}
+
+	/**
+	 * Reads a quoted string, the opening quote included
+	 */
+	private String readString() throws IOException {
+		mPos++;
+
+		StringBuilder sb = null;
+		while (true) {
+			int start = mPos;
+			while (mPos < mLimit) {
+				char c = mBuffer[mPos++];
+				if (c == '"') {
+					if (sb == null) {
+						return new String(mBuffer, start, mPos - start - 1);
+					}
+					sb.append(mBuffer, start, mPos - start - 1);
+					return sb.toString();
+				} else if (c == '\\') {
+					if (sb == null) {
+						sb = new StringBuilder();
+					}
+					sb.append(mBuffer, start, mPos - start - 1);
+					sb.append(readEscape());
+					start = mPos;
+				}
+			}
+
+			if (sb == null) {
+				sb = new StringBuilder();
+			}
+			sb.append(mBuffer, start, mPos - start);
+			if (!fill()) {
+				throw syntaxError("Unterminated string");
+			}
+		}
+	}
+
+	private char readEscape() throws IOException {
+		int c = read();
+		switch (c) {
+		case 'b':
+			return '\b';
+		case 'f':
+			return '\f';
+		case 'n':
+			return '\n';
+		case 'r':
+			return '\r';
+		case 't':
+			return '\t';
+		case 'u':
+			int value = 0;
+			for (int i = 0; i < 4; i++) {
+				int digit = Character.digit(read(), 16);
+				if (digit == -1) {
+					throw syntaxError("Invalid unicode escape");
+				}
+				value = (value << 4) + digit;
+			}
+			return (char) value;
+		case -1:
+			throw syntaxError("Unterminated string");
+		default:
+			return (char) c;
+		}
+	}
+
+	/**
+	 * Reads a string, number, boolean or null
+	 */
+	private Object readLiteral() throws IOException {
+		if (mPos < mLimit && mBuffer[mPos] == '"') {
+			return readString();
+		}
+
+		StringBuilder sb = new StringBuilder();
+		int c;
+		while ((c = read()) != -1) {
+			if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\t' || c == '\n' || c == '\r'
+					|| c == ':') {
+				mPos--;
+				break;
+			}
+			sb.append((char) c);
+		}
+
+		String literal = sb.toString();
+		if (literal.equals("true")) {
+			return Boolean.TRUE;
+		} else if (literal.equals("false")) {
+			return Boolean.FALSE;
+		} else if (literal.equals("null")) {
+			return JSONObject.NULL;
+		}
+
+		try {
+			if (literal.indexOf('.') != -1 || literal.indexOf('e') != -1 || literal.indexOf('E') != -1) {
+				return Double.valueOf(literal);
+			}
+
+			long number = Long.parseLong(literal);
+			if (number == (int) number) {
+				return Integer.valueOf((int) number);
+			}
+			return Long.valueOf(number);
+		} catch (NumberFormatException e) {
+			if (isInteger(literal)) {
+				// beyond the range of long: read as a double, like org.json does
+				return Double.valueOf(literal);
+			}
+			throw syntaxError("Invalid literal " + literal);
+		}
+	}
+
+	/**
+	 * Indicates if the literal is an optionally signed sequence of digits
+	 */
+	private static boolean isInteger(String literal) {
+		int start = literal.startsWith("-") ? 1 : 0;
+		if (literal.length() == start) {
+			return false;
+		}
+
+		for (int i = start; i < literal.length(); i++) {
+			char c = literal.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private IOException syntaxError(String message) {
+		return new IOException("Invalid JSON: " + message);
+	}
+}
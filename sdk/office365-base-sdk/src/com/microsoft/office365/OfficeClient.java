@@ -4,14 +4,17 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import com.microsoft.office365.http.HttpConnection;
 import com.microsoft.office365.http.HttpConnectionFuture;
+import com.microsoft.office365.http.InvalidHttpStatusCodeException;
 import com.microsoft.office365.http.Request;
 import com.microsoft.office365.http.Response;
 
@@ -66,22 +69,33 @@ public class OfficeClient {
 	}
 
 	protected String generateODataQueryString(Query query) {
-		StringBuilder sb = new StringBuilder();
-		if (query != null) {
-			query.ensureIdProperty();
-			sb.append("$filter=");
-			sb.append(queryEncode(query.toString()));
+		if (query == null) {
+			return "";
+		}
 
-			String rowSetModifiers = query.getRowSetModifiers().trim();
-			if (rowSetModifiers != "") {
+		return generateODataQueryString(query.compile(), Collections.<String, Object> emptyMap());
+	}
 
-				if (!rowSetModifiers.startsWith("&")) {
-					sb.append("&");
-				}
-				sb.append(rowSetModifiers);
-			}
+	/**
+	 * Renders the OData query string of a compiled query; the filter is
+	 * encoded by {@link #queryEncode(String)}
+	 * 
+	 * @param query
+	 *            the compiled query, or null
+	 * @param values
+	 *            the parameter values, by name
+	 * @return the query string
+	 */
+	protected String generateODataQueryString(CompiledQuery query, Map<String, ?> values) {
+		if (query == null) {
+			return "";
 		}
 
+		StringBuilder sb = new StringBuilder();
+		sb.append("$filter=");
+		sb.append(queryEncode(query.renderFilter(values)));
+		sb.append(query.getRowSetModifiers());
+
 		return sb.toString();
 	}
 
@@ -91,8 +105,26 @@ public class OfficeClient {
 
 	protected OfficeFuture<byte[]> executeRequest(String url, String method,
 			Map<String, String> headers, byte[] payload) {
-		HttpConnection connection = Platform.createHttpConnection();
+		return executeRequestStream(url, method, headers, payload, new Function<Response, byte[]>() {
+
+			@Override
+			public byte[] apply(Response response) throws Exception {
+				return response.readAllBytes();
+			}
+		});
+	}
 
+	/**
+	 * Executes a request and hands the successful response to the given
+	 * handler, which can read the response stream without buffering it. The
+	 * handler runs on the network thread, and the stream is closed once it
+	 * returns.
+	 * 
+	 * @param handler
+	 *            Turns the response into the future result
+	 */
+	protected <T> OfficeFuture<T> executeRequestStream(String url, String method,
+			Map<String, String> headers, byte[] payload, final Function<Response, T> handler) {
 		Request request = new Request(method);
 
 		if (headers != null) {
@@ -103,26 +135,44 @@ public class OfficeClient {
 
 		request.setUrl(url);
 		request.setContent(payload);
+
+		return executeRequestStream(request, handler);
+	}
+
+	/**
+	 * Executes the given request, which may have a content stream, and hands
+	 * the successful response to the given handler
+	 * 
+	 * @param handler
+	 *            Turns the response into the future result
+	 */
+	protected <T> OfficeFuture<T> executeRequestStream(Request request,
+			final Function<Response, T> handler) {
+		HttpConnection connection = Platform.createHttpConnection();
+
 		prepareRequest(request);
 
-		log("Generate request for " + url, LogLevel.Verbose);
+		log("Generate request for " + request.getUrl(), LogLevel.Verbose);
 		request.log(getLogger());
 
-		final OfficeFuture<byte[]> result = new OfficeFuture<byte[]>();
-		HttpConnectionFuture future = connection.execute(request);
+		final OfficeFuture<T> result = new OfficeFuture<T>();
+		final HttpConnectionFuture future = connection.execute(request);
 
 		future.done(new Action<Response>() {
 
 			@Override
 			public void run(Response response) throws Exception {
 
-				int statusCode = response.getStatus();
-				if (isValidStatus(statusCode)) {
-					byte[] responseContentBytes = response.readAllBytes();
-					result.setResult(responseContentBytes);
-				} else {
-					result.triggerError(new Exception("Invalid status code " + statusCode + ": "
-							+ response.readToEnd()));
+				try {
+					int statusCode = response.getStatus();
+					if (isValidStatus(statusCode)) {
+						result.setResult(handler.apply(response));
+					} else {
+						result.triggerError(new InvalidHttpStatusCodeException(statusCode,
+								"Invalid status code " + statusCode + ": " + response.readToEnd()));
+					}
+				} finally {
+					response.close();
 				}
 			}
 		});
@@ -142,6 +192,13 @@ public class OfficeClient {
 				result.triggerError(error);
 			}
 		});
+
+		result.onCancelled(new Runnable() {
+			@Override
+			public void run() {
+				future.cancel();
+			}
+		});
 		return result;
 	}
 
@@ -151,35 +208,41 @@ public class OfficeClient {
 
 	protected OfficeFuture<JSONObject> executeRequestJson(String url, String method,
 			Map<String, String> headers, byte[] payload) {
-		final OfficeFuture<JSONObject> result = new OfficeFuture<JSONObject>();
-
-		executeRequest(url, method, headers, payload).done(new Action<byte[]>() {
-
-			@Override
-			public void run(byte[] b) throws Exception {
-				String string = new String(b, Constants.UTF8_NAME);
-				if (string == null || string.length() == 0) {
-					result.setResult(null);
-				} else {
-					JSONObject json = new JSONObject(string);
-					result.setResult(json);
-				}
-			}
-		}).onError(new ErrorCallback() {
+		return executeRequestJsonStream(url, method, headers, payload,
+				new Function<JsonStreamReader, JSONObject>() {
+
+					@Override
+					public JSONObject apply(JsonStreamReader reader) throws Exception {
+						if (reader.peek() == JsonStreamReader.Token.END_DOCUMENT) {
+							return null;
+						}
+
+						Object value = reader.nextValue();
+						if (!(value instanceof JSONObject)) {
+							throw new JSONException("Expected a JSON object");
+						}
+						return (JSONObject) value;
+					}
+				});
+	}
 
-			@Override
-			public void onError(Throwable error) {
-				result.triggerError(error);
-			}
-		}).onCancelled(new Runnable() {
+	/**
+	 * Executes a request and hands a pull parser over the successful response
+	 * to the given handler, so that large JSON documents can be processed
+	 * without being fully loaded. The handler runs on the network thread.
+	 * 
+	 * @param handler
+	 *            Turns the parsed response into the future result
+	 */
+	protected <T> OfficeFuture<T> executeRequestJsonStream(String url, String method,
+			Map<String, String> headers, byte[] payload, final Function<JsonStreamReader, T> handler) {
+		return executeRequestStream(url, method, headers, payload, new Function<Response, T>() {
 
 			@Override
-			public void run() {
-				result.cancel();
+			public T apply(Response response) throws Exception {
+				return handler.apply(new JsonStreamReader(response.getStream()));
 			}
 		});
-
-		return result;
 	}
 
 	protected void copyFutureHandlers(OfficeFuture<?> source, final OfficeFuture<?> target) {
@@ -207,31 +270,30 @@ public class OfficeClient {
 	}
 
 	public OfficeFuture<List<DiscoveryInformation>> getDiscoveryInfo(String discoveryEndpoint) {
-		final OfficeFuture<List<DiscoveryInformation>> result = new OfficeFuture<List<DiscoveryInformation>>();
-
-		OfficeFuture<JSONObject> request = executeRequestJson(discoveryEndpoint, "GET");
-
-		request.done(new Action<JSONObject>() {
-
-			@Override
-			public void run(JSONObject json) throws Exception {
-				List<DiscoveryInformation> discoveryInfo = DiscoveryInformation.listFromJson(json,
-						DiscoveryInformation.class);
-				result.setResult(discoveryInfo);
-			}
-		});
-
-		copyFutureHandlers(request, result);
-		return result;
+		return executeRequestJson(discoveryEndpoint, "GET").map(
+				new Function<JSONObject, List<DiscoveryInformation>>() {
+
+					@Override
+					public List<DiscoveryInformation> apply(JSONObject json) throws Exception {
+						return DiscoveryInformation.listFromJson(json, DiscoveryInformation.class);
+					}
+				});
 	}
 
 	protected void prepareRequest(Request request) {
 		request.addHeader("Accept", "application/json;odata=verbose");
-		int contentLength = 0;
-		if (request.getContent() != null) {
-		    contentLength = request.getContent().length;
+		if (request.getContentStream() != null) {
+			// the length of a chunked stream is not known up front
+			if (request.getContentLength() >= 0) {
+				request.addHeader("Content-Length", String.valueOf(request.getContentLength()));
+			}
+		} else {
+			int contentLength = 0;
+			if (request.getContent() != null) {
+			    contentLength = request.getContent().length;
+			}
+			request.addHeader("Content-Length", String.valueOf(contentLength));
 		}
-		request.addHeader("Content-Length", String.valueOf(contentLength));
 		mCredentials.prepareRequest(request);
 	}
 
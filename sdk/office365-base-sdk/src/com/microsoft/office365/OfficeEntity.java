@@ -56,19 +56,91 @@ public abstract class OfficeEntity {
 		for (int i = 0; i < results.length(); i++) {
 			JSONObject result = results.getJSONObject(i);
 
-			E item = null;
-			try {
-				item = (E) clazz.newInstance();
-			} catch (Throwable e) {
+			E item = newEntity(clazz);
+			item.loadFromJson(result);
+			list.add(item);
+		}
+
+		return list;
+	}
+
+	/**
+	 * Reads the items of a "results" array, directly under the root object or
+	 * under its "d" object, and hands each one to the action as soon as it is
+	 * read. Only one item is held in memory at a time.
+	 * 
+	 * @param <E>
+	 *            the element type
+	 * @param reader
+	 *            the reader, positioned before the root object
+	 * @param clazz
+	 *            the clazz
+	 * @param action
+	 *            the action invoked for each item
+	 * @return the number of items read
+	 * @throws Exception
+	 *             if the JSON is invalid or the action fails
+	 */
+	protected static <E extends OfficeEntity> int listFromJson(JsonStreamReader reader,
+			Class<E> clazz, Action<E> action) throws Exception {
+		int count = 0;
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (name.equals("d")) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					if (reader.nextName().equals("results")) {
+						count += readResults(reader, clazz, action);
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+			} else if (name.equals("results")) {
+				count += readResults(reader, clazz, action);
+			} else {
+				reader.skipValue();
 			}
+		}
+		reader.endObject();
+
+		return count;
+	}
 
-			if (item != null) {
-				item.loadFromJson(result);
-				list.add(item);
+	private static <E extends OfficeEntity> int readResults(JsonStreamReader reader,
+			Class<E> clazz, Action<E> action) throws Exception {
+		int count = 0;
+
+		reader.beginArray();
+		while (reader.hasNext()) {
+			Object result = reader.nextValue();
+
+			if (result instanceof JSONObject) {
+				E item = newEntity(clazz);
+				item.loadFromJson((JSONObject) result);
+				action.run(item);
+				count++;
 			}
 		}
+		reader.endArray();
 
-		return list;
+		return count;
+	}
+
+	/**
+	 * Creates an empty entity of the given class.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the class cannot be instantiated
+	 */
+	private static <E extends OfficeEntity> E newEntity(Class<E> clazz) {
+		try {
+			return clazz.newInstance();
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Cannot instantiate " + clazz.getName(), e);
+		}
 	}
 
 	/**
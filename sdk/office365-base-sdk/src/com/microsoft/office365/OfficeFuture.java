@@ -6,95 +6,83 @@
 package com.microsoft.office365;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
- * Represents long running Office365 operations
+ * Represents long running Office365 operations.
+ *
+ * The future is completed once, from any thread, by setResult, triggerError
+ * or cancel; later attempts are ignored. The only exception is a done
+ * handler failing, which turns the result into that error. Handlers
+ * registered after completion run right away.
  */
-public class OfficeFuture<V> implements Future<V>{
-    boolean mIsCancelled = false;
-    boolean mIsDone = false;
-    private V mResult = null;
-    private List<Runnable> mOnCancelled = new ArrayList<Runnable>();
-    private List<Action<V>> mOnDone = new ArrayList<Action<V>>();
-    private Object mDoneLock = new Object();
-    private List<ErrorCallback> mErrorCallback = new ArrayList<ErrorCallback>();
-    private Queue<Throwable> mErrorQueue = new ConcurrentLinkedQueue<Throwable>();
-    private Object mErrorLock = new Object();
-    private Throwable mLastError = null;
+public class OfficeFuture<V> implements Future<V> {
 
-    private Semaphore mResultSemaphore = new Semaphore(0);
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<OfficeFuture, Object> STATE = AtomicReferenceFieldUpdater
+            .newUpdater(OfficeFuture.class, Object.class, "mState");
+
+    /**
+     * While pending, null or the last registered Listener; once completed, an
+     * Outcome
+     */
+    private volatile Object mState = null;
+
+    private volatile int mWaiters = 0;
 
     /**
      * Handles the cancellation event
-     * 
+     *
      * @param onCancelled
      *            The handler
      */
     public void onCancelled(Runnable onCancelled) {
-        mOnCancelled.add(onCancelled);
+        if (!addListener(Listener.CANCELLED, onCancelled)) {
+            Outcome outcome = (Outcome) mState;
+            if (outcome.mType == Outcome.CANCELLED) {
+                onCancelled.run();
+            }
+        }
     }
 
     /**
      * Cancels the operation
      */
     public void cancel() {
-        mIsCancelled = true;
-        if (mOnCancelled != null) {
-            for (Runnable onCancelled : mOnCancelled) {
-                onCancelled.run();
-            }
-        }
-        mResultSemaphore.release();
+        complete(Outcome.CANCELLED_OUTCOME);
     }
 
     /**
      * Sets a result to the future and finishes its execution
-     * 
+     *
      * @param result
      *            The future result
      */
     public void setResult(V result) {
-        synchronized (mDoneLock) {
-            mResult = result;
-            mIsDone = true;
-
-            if (mOnDone.size() > 0) {
-                for (Action<V> handler : mOnDone) {
-                    try {
-                        handler.run(result);
-                    } catch (Exception e) {
-                        triggerError(e);
-                    }
-                }
-            }
-        }
-
-        mResultSemaphore.release();
+        complete(new Outcome(Outcome.SUCCEEDED, result, null));
     }
 
     /**
      * Indicates if the operation is cancelled
-     * 
+     *
      * @return True if the operation is cancelled
      */
     public boolean isCancelled() {
-        return mIsCancelled;
+        Object state = mState;
+        return state instanceof Outcome && ((Outcome) state).mType == Outcome.CANCELLED;
     }
 
     @Override
     public boolean cancel(boolean mayInterruptIfRunning) {
-        cancel();
-        return true;
+        return complete(Outcome.CANCELLED_OUTCOME);
     }
 
     @Override
@@ -107,42 +95,41 @@ public class OfficeFuture<V> implements Future<V>{
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-        if (mResultSemaphore.tryAcquire(timeout, unit)) {
-            if (errorWasTriggered()) {
-                throw new ExecutionException(mLastError);
-            } else if (isCancelled()) {
-                throw new InterruptedException("Operation was cancelled");
-            } else {
-                return mResult;
-            }
+        Object state = mState;
+        if (!(state instanceof Outcome)) {
+            state = await(unit.toNanos(timeout));
+        }
+
+        Outcome outcome = (Outcome) state;
+        if (outcome.mType == Outcome.FAILED) {
+            throw new ExecutionException(outcome.mError);
+        } else if (outcome.mType == Outcome.CANCELLED) {
+            throw new InterruptedException("Operation was cancelled");
         } else {
-            throw new TimeoutException();
+            return (V) outcome.mResult;
         }
     }
 
     @Override
     public boolean isDone() {
-        return mIsDone;
+        return mState instanceof Outcome;
     }
 
     /**
      * Handles the completion of the Future. If the future was already
      * completed, it triggers the handler right away.
-     * 
+     *
      * @param action
      *            The handler
      */
+    @SuppressWarnings("unchecked")
     public OfficeFuture<V> done(Action<V> action) {
-        synchronized (mDoneLock) {
-            mOnDone.add(action);
-
-            if (isDone()) {
-                try {
-                    action.run(get());
-                } catch (Exception e) {
-                    triggerError(e);
-                }
+        if (!addListener(Listener.DONE, action)) {
+            Outcome outcome = (Outcome) mState;
+            if (outcome.mType == Outcome.SUCCEEDED) {
+                runDone(action, (V) outcome.mResult);
             }
         }
 
@@ -150,22 +137,22 @@ public class OfficeFuture<V> implements Future<V>{
     }
 
     /**
-     * Handles error during the execution of the Future. If it's the first time
-     * the method is invoked on the object and errors were already triggered,
-     * the handler will be called once per error, right away.
-     * 
+     * Handles error during the execution of the Future. If an error was
+     * already triggered, the handler is called right away.
+     *
      * @param errorCallback
      *            The handler
      */
     public OfficeFuture<V> onError(ErrorCallback errorCallback) {
-        synchronized (mErrorLock) {
-            mErrorCallback.add(errorCallback);
-            while (!mErrorQueue.isEmpty()) {
-                // Only the first error handler will get the queued errors
-                if (errorCallback != null) {
-                    errorCallback.onError(mErrorQueue.poll());
-                }
+        while (!addListener(Listener.ERROR, errorCallback)) {
+            Outcome outcome = (Outcome) mState;
+            if (outcome.mType == Outcome.FAILED) {
+                errorCallback.onError(outcome.mError);
+                break;
+            } else if (outcome.mType == Outcome.CANCELLED || outcome.addErrorListener(errorCallback)) {
+                break;
             }
+            // the successful outcome was just replaced by an error, retry
         }
 
         return this;
@@ -173,58 +160,472 @@ public class OfficeFuture<V> implements Future<V>{
 
     /**
      * Triggers an error for the Future
-     * 
+     *
      * @param error
      *            The error
      */
     public void triggerError(Throwable error) {
-        synchronized (mErrorLock) {
-            mLastError = error;
-            mResultSemaphore.release();
-            if (mErrorCallback.size() > 0) {
-                for (ErrorCallback handler : mErrorCallback) {
-                    handler.onError(error);
-                }
-            } else {
-                mErrorQueue.add(error);
-            }
-        }
+        complete(new Outcome(Outcome.FAILED, Outcome.NO_RESULT, error));
     }
-    
+
     /**
      * Indicates if an error was triggered
-     * 
+     *
      * @return True if an error was triggered
      */
     public boolean errorWasTriggered() {
-        return mLastError != null;
+        Object state = mState;
+        return state instanceof Outcome && ((Outcome) state).mType == Outcome.FAILED;
+    }
+
+    /**
+     * Runs an action on the result and returns a future completed with the
+     * same result once the action succeeds, or with its error otherwise
+     *
+     * @param action
+     *            The action
+     */
+    public OfficeFuture<V> then(final Action<V> action) {
+        final OfficeFuture<V> future = new OfficeFuture<V>();
+        propagateTo(future);
+
+        done(new Action<V>() {
+
+            @Override
+            public void run(V result) {
+                try {
+                    action.run(result);
+                } catch (Throwable t) {
+                    future.triggerError(t);
+                    return;
+                }
+                future.setResult(result);
+            }
+        });
+
+        return future;
     }
-    
+
+    /**
+     * Returns a future completed with the result transformed by the given
+     * function. Errors and cancellation are propagated both ways.
+     *
+     * @param function
+     *            The function
+     */
+    public <R> OfficeFuture<R> map(final Function<V, R> function) {
+        final OfficeFuture<R> future = new OfficeFuture<R>();
+        propagateTo(future);
+
+        done(new Action<V>() {
+
+            @Override
+            public void run(V result) {
+                R mapped;
+                try {
+                    mapped = function.apply(result);
+                } catch (Throwable t) {
+                    future.triggerError(t);
+                    return;
+                }
+                future.setResult(mapped);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Returns a future completed with the result of the future returned by
+     * the given function. Errors and cancellation are propagated both ways.
+     *
+     * @param function
+     *            The function
+     */
+    public <R> OfficeFuture<R> flatMap(final Function<V, OfficeFuture<R>> function) {
+        final OfficeFuture<R> future = new OfficeFuture<R>();
+        propagateTo(future);
+
+        done(new Action<V>() {
+
+            @Override
+            public void run(V result) {
+                OfficeFuture<R> next;
+                try {
+                    next = function.apply(result);
+                } catch (Throwable t) {
+                    future.triggerError(t);
+                    return;
+                }
+
+                if (next == null) {
+                    future.setResult(null);
+                    return;
+                }
+
+                next.propagateTo(future);
+                next.done(new Action<R>() {
+
+                    @Override
+                    public void run(R nextResult) {
+                        future.setResult(nextResult);
+                    }
+                });
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Creates a future that completes with the results of the given futures,
+     * in the same order, or fails with the first error among them. Cancelling
+     * it cancels the given futures.
+     *
+     * @param futures
+     *            The futures to wait for
+     */
     public static <T> OfficeFuture<List<T>> all(final List<OfficeFuture<T>> futures) {
         final OfficeFuture<List<T>> future = new OfficeFuture<List<T>>();
-        
-        final List<T> results = Collections.synchronizedList(new ArrayList<T>());
-        
-        Thread thread = new Thread(new Runnable() {
-            
+
+        final int count = futures.size();
+        if (count == 0) {
+            future.setResult(new ArrayList<T>());
+            return future;
+        }
+
+        final Object[] results = new Object[count];
+        final AtomicInteger pending = new AtomicInteger(count);
+
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            OfficeFuture<T> f = futures.get(i);
+            f.propagateTo(future);
+
+            f.done(new Action<T>() {
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public void run(T result) {
+                    results[index] = result;
+                    if (pending.decrementAndGet() == 0) {
+                        List<T> list = new ArrayList<T>(count);
+                        for (Object r : results) {
+                            list.add((T) r);
+                        }
+                        future.setResult(list);
+                    }
+                }
+            });
+        }
+
+        return future;
+    }
+
+    /**
+     * Creates a future that completes with the first result among the given
+     * futures, or fails with the last error if none of them succeeds.
+     * Cancelling it cancels the given futures.
+     *
+     * @param futures
+     *            The futures to wait for
+     */
+    public static <T> OfficeFuture<T> any(final List<OfficeFuture<T>> futures) {
+        final OfficeFuture<T> future = new OfficeFuture<T>();
+
+        if (futures.isEmpty()) {
+            future.triggerError(new IllegalArgumentException("futures must not be empty"));
+            return future;
+        }
+
+        final AtomicInteger pending = new AtomicInteger(futures.size());
+
+        for (final OfficeFuture<T> f : futures) {
+            final AtomicBoolean settled = new AtomicBoolean(false);
+
+            future.onCancelled(new Runnable() {
+
+                @Override
+                public void run() {
+                    f.cancel();
+                }
+            });
+
+            f.done(new Action<T>() {
+
+                @Override
+                public void run(T result) {
+                    if (settled.compareAndSet(false, true)) {
+                        future.setResult(result);
+                    }
+                }
+            });
+
+            f.onError(new ErrorCallback() {
+
+                @Override
+                public void onError(Throwable error) {
+                    if (settled.compareAndSet(false, true) && pending.decrementAndGet() == 0) {
+                        future.triggerError(error);
+                    }
+                }
+            });
+
+            f.onCancelled(new Runnable() {
+
+                @Override
+                public void run() {
+                    if (settled.compareAndSet(false, true) && pending.decrementAndGet() == 0) {
+                        future.triggerError(new CancellationException());
+                    }
+                }
+            });
+        }
+
+        return future;
+    }
+
+    /**
+     * Forwards errors and cancellation to the target future, and cancels this
+     * future when the target is cancelled
+     */
+    private void propagateTo(final OfficeFuture<?> target) {
+        onError(new ErrorCallback() {
+
+            @Override
+            public void onError(Throwable error) {
+                target.triggerError(error);
+            }
+        });
+
+        onCancelled(new Runnable() {
+
             @Override
             public void run() {
+                target.cancel();
+            }
+        });
+
+        target.onCancelled(new Runnable() {
+
+            @Override
+            public void run() {
+                cancel();
+            }
+        });
+    }
+
+    /**
+     * Registers a listener on a pending future
+     *
+     * @return False if the future is already completed
+     */
+    private boolean addListener(int type, Object callback) {
+        Listener listener = null;
+        Object state;
+        do {
+            state = mState;
+            if (state instanceof Outcome) {
+                return false;
+            }
+
+            if (listener == null) {
+                listener = new Listener(type, callback);
+            }
+            listener.mNext = (Listener) state;
+        } while (!STATE.compareAndSet(this, state, listener));
+
+        return true;
+    }
+
+    /**
+     * Completes the future, if still pending, and notifies the listeners in
+     * registration order
+     *
+     * @return True if this call completed the future
+     */
+    @SuppressWarnings("unchecked")
+    private boolean complete(Outcome outcome) {
+        Object state;
+        do {
+            state = mState;
+            if (state instanceof Outcome) {
+                return false;
+            }
+
+        } while (!STATE.compareAndSet(this, state, outcome));
+
+        if (mWaiters > 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+
+        Listener listener = reverse((Listener) state);
+        if (outcome.mType == Outcome.SUCCEEDED) {
+            // error handlers still apply if a done handler fails
+            for (Listener l = listener; l != null; l = l.mNext) {
+                if (l.mType == Listener.ERROR && !outcome.addErrorListener((ErrorCallback) l.mCallback)) {
+                    ((ErrorCallback) l.mCallback).onError(((Outcome) mState).mError);
+                }
+            }
+
+            for (; listener != null; listener = listener.mNext) {
+                if (listener.mType == Listener.DONE) {
+                    runDone((Action<V>) listener.mCallback, (V) outcome.mResult);
+                }
+            }
+        } else if (outcome.mType == Outcome.FAILED) {
+            notifyErrors(listener, outcome.mError);
+        } else {
+            for (; listener != null; listener = listener.mNext) {
+                if (listener.mType == Listener.CANCELLED) {
+                    ((Runnable) listener.mCallback).run();
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private void runDone(Action<V> action, V result) {
+        try {
+            action.run(result);
+        } catch (Exception e) {
+            // a done handler failed: turn the result into an error
+            Object state = mState;
+            Outcome outcome = (Outcome) state;
+            Outcome failure = new Outcome(Outcome.FAILED, Outcome.NO_RESULT, e);
+            if (outcome.mType == Outcome.SUCCEEDED && STATE.compareAndSet(this, state, failure)) {
+                notifyErrors(outcome.closeErrorListeners(), e);
+            }
+        }
+    }
+
+    private static void notifyErrors(Listener listener, Throwable error) {
+        for (; listener != null; listener = listener.mNext) {
+            if (listener.mType == Listener.ERROR) {
+                ((ErrorCallback) listener.mCallback).onError(error);
+            }
+        }
+    }
 
-                for (OfficeFuture<T> f : futures) {
-                    try {
-                        results.add(f.get());
-                    } catch (Throwable t) {
-                        future.triggerError(t);
-                        return;
+    /**
+     * Blocks until the future is completed
+     *
+     * @return The outcome
+     */
+    private Object await(long nanos) throws InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + nanos;
+
+        synchronized (this) {
+            mWaiters++;
+            try {
+                Object state;
+                while (!((state = mState) instanceof Outcome)) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new TimeoutException();
                     }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
                 }
-                
-                future.setResult(results);
+                return state;
+            } finally {
+                mWaiters--;
             }
-        });
-        
-        thread.start();
-           
-        return future;
+        }
+    }
+
+    /**
+     * Reverses a listener stack, so that listeners run in registration order
+     */
+    private static Listener reverse(Listener head) {
+        Listener reversed = null;
+        while (head != null) {
+            Listener next = head.mNext;
+            head.mNext = reversed;
+            reversed = head;
+            head = next;
+        }
+        return reversed;
+    }
+
+    /**
+     * A registered handler, linked to the one registered before it
+     */
+    private static final class Listener {
+        static final int DONE = 0;
+        static final int ERROR = 1;
+        static final int CANCELLED = 2;
+
+        static final Listener CLOSED = new Listener(ERROR, null);
+
+        final int mType;
+        final Object mCallback;
+        Listener mNext;
+
+        Listener(int type, Object callback) {
+            mType = type;
+            mCallback = callback;
+        }
+    }
+
+    /**
+     * The final state of a future
+     */
+    private static final class Outcome {
+        static final int SUCCEEDED = 0;
+        static final int FAILED = 1;
+        static final int CANCELLED = 2;
+
+        static final Object NO_RESULT = new Object();
+
+        static final Outcome CANCELLED_OUTCOME = new Outcome(CANCELLED, NO_RESULT, null);
+
+        private static final AtomicReferenceFieldUpdater<Outcome, Listener> ERROR_LISTENERS = AtomicReferenceFieldUpdater
+                .newUpdater(Outcome.class, Listener.class, "mErrorListeners");
+
+        final int mType;
+        final Object mResult;
+        final Throwable mError;
+
+        /**
+         * For a successful outcome, the handlers that still need to be
+         * notified if a done handler fails
+         */
+        volatile Listener mErrorListeners;
+
+        Outcome(int type, Object result, Throwable error) {
+            mType = type;
+            mResult = result;
+            mError = error;
+        }
+
+        /**
+         * Adds an error handler to a successful outcome
+         *
+         * @return False if the outcome was already replaced by an error
+         */
+        boolean addErrorListener(ErrorCallback errorCallback) {
+            Listener listener = new Listener(Listener.ERROR, errorCallback);
+            Listener head;
+            do {
+                head = mErrorListeners;
+                if (head == Listener.CLOSED) {
+                    return false;
+                }
+                listener.mNext = head;
+            } while (!ERROR_LISTENERS.compareAndSet(this, head, listener));
+
+            return true;
+        }
+
+        /**
+         * Takes the error handlers, in registration order, so that no more can
+         * be added
+         */
+        Listener closeErrorListeners() {
+            return reverse(ERROR_LISTENERS.getAndSet(this, Listener.CLOSED));
+        }
     }
 }
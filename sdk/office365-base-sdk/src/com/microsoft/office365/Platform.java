@@ -12,6 +12,7 @@ import android.os.Build;
 import com.microsoft.office365.http.FroyoHttpConnection;
 import com.microsoft.office365.http.HttpConnection;
 import com.microsoft.office365.http.JavaHttpConnection;
+import com.microsoft.office365.http.NetworkDispatcher;
 
 
 /**
@@ -20,6 +21,7 @@ import com.microsoft.office365.http.JavaHttpConnection;
 public class Platform {
 	static boolean mPlatformVerified = false;
 	static boolean mIsAndroid = false;
+	static NetworkDispatcher mNetworkDispatcher = null;
 	
 	/**
 	 * Creates an adequate HttpConnection for the current platform
@@ -30,10 +32,31 @@ public class Platform {
 		if (isAndroid() && Build.VERSION.SDK_INT <= Build.VERSION_CODES.FROYO) {
 			return new FroyoHttpConnection();
 		} else {
-			return new JavaHttpConnection();
+			return new JavaHttpConnection(getNetworkDispatcher());
 		}
 	}
 
+	/**
+	 * Returns the dispatcher shared by the connections created by
+	 * createHttpConnection. Unless one was set, it uses virtual threads when
+	 * the runtime supports them and a bounded thread pool otherwise.
+	 */
+	public static synchronized NetworkDispatcher getNetworkDispatcher() {
+		if (mNetworkDispatcher == null) {
+			mNetworkDispatcher = NetworkDispatcher.newDefaultDispatcher();
+		}
+
+		return mNetworkDispatcher;
+	}
+
+	/**
+	 * Sets the dispatcher used by the connections created from now on
+	 * @param dispatcher The dispatcher, or null to go back to the default one
+	 */
+	public static synchronized void setNetworkDispatcher(NetworkDispatcher dispatcher) {
+		mNetworkDispatcher = dispatcher;
+	}
+
 	/**
 	 * Indicates if the current platform is Android
 	 */
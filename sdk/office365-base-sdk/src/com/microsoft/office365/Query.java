@@ -37,6 +37,11 @@ public final class Query {
 	 */
 	private String mQueryText = null;
 
+	/**
+	 * Name of the parameter this query stands for, if any
+	 */
+	private String mParameterName = null;
+
 	/**
 	 * Indicates if the query should include the inlinecount property
 	 */
@@ -82,6 +87,29 @@ public final class Query {
 	 */
 	private List<Query> querySteps = new ArrayList<Query>();
 
+	/**
+	 * Queries this one is a value or a step of, which are changed when it is
+	 */
+	private List<Query> mParents = new ArrayList<Query>(1);
+
+	/**
+	 * Counts the changes made to the query, nested ones included, so that the
+	 * compiled query can be reused until something changes. Only the thread
+	 * building the query changes it; compile() may run on any thread.
+	 */
+	private volatile long mModifications = 0;
+
+	/**
+	 * Last compiled form of the query; guarded by this
+	 */
+	private CompiledQuery mCompiled = null;
+
+	/**
+	 * Value of the modification count when the query was last compiled;
+	 * guarded by this
+	 */
+	private long mCompiledAt;
+
 	public void ensureIdProperty() {
 		if (mProjection.size() > 0) {
 			for (String projection : mProjection) {
@@ -90,6 +118,7 @@ public final class Query {
 				}
 			}
 			mProjection.add("id");
+			modified();
 		}
 	}
 
@@ -108,6 +137,25 @@ public final class Query {
 	 */
 	public void setQueryText(String queryText) {
 		this.mQueryText = queryText;
+		modified();
+	}
+
+	/**
+	 * Returns the name of the parameter this query stands for, if any
+	 */
+	public String getParameterName() {
+		return mParameterName;
+	}
+
+	/**
+	 * Sets the name of the parameter this query stands for
+	 * 
+	 * @param parameterName
+	 *            The name to set
+	 */
+	void setParameterName(String parameterName) {
+		this.mParameterName = parameterName;
+		modified();
 	}
 
 	/**
@@ -125,6 +173,7 @@ public final class Query {
 	 */
 	Query(Query query) {
 		internalValues.add(query);
+		query.mParents.add(this);
 	}
 
 	/**
@@ -135,14 +184,87 @@ public final class Query {
 	 */
 	void addInternalValue(Query query) {
 		internalValues.add(query);
+		query.mParents.add(this);
+		modified();
 	}
 
 	/**
-	 * Returns the string representation of the query
+	 * Returns the string representation of the query; parameters are
+	 * represented as @name
 	 */
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
+		appendTo(sb, null, null);
+		return sb.toString();
+	}
+
+	/**
+	 * Compiles the query, so that it can be rendered repeatedly with different
+	 * parameter values. The compiled query is kept, and returned again as long
+	 * as neither the query nor the queries nested in it are changed.
+	 * 
+	 * @return The compiled query
+	 */
+	public synchronized CompiledQuery compile() {
+		ensureIdProperty();
+
+		long modifications = mModifications;
+		if (mCompiled == null || mCompiledAt != modifications) {
+			mCompiled = new CompiledQuery(this);
+			mCompiledAt = modifications;
+		}
+
+		return mCompiled;
+	}
+
+	/**
+	 * Records a change to the query and to the queries it is nested in, which
+	 * makes their compiled queries stale
+	 */
+	private void modified() {
+		mModifications++;
+		for (Query parent : mParents) {
+			parent.modified();
+		}
+	}
+
+	/**
+	 * Adds a step to the query
+	 * 
+	 * @param step
+	 *            The step to add
+	 */
+	private void addStep(Query step) {
+		querySteps.add(step);
+		step.mParents.add(this);
+		modified();
+	}
+
+	/**
+	 * Appends the string representation of the query to the given builder. If
+	 * slot lists are given, parameters are not appended: their positions and
+	 * names are added to the lists instead.
+	 * 
+	 * @param sb
+	 *            The builder to append to
+	 * @param slotPositions
+	 *            Positions of parameters in the builder, or null
+	 * @param slotNames
+	 *            Names of parameters, or null
+	 */
+	void appendTo(StringBuilder sb, List<Integer> slotPositions, List<String> slotNames) {
+		int start = sb.length();
+		int slotsAtStart = slotNames == null ? 0 : slotNames.size();
+
+		if (mParameterName != null) {
+			if (slotNames == null) {
+				sb.append('@').append(mParameterName);
+			} else {
+				slotPositions.add(sb.length());
+				slotNames.add(mParameterName);
+			}
+		}
 
 		if (getQueryText() != null) {
 			sb.append(getQueryText());
@@ -159,24 +281,24 @@ public final class Query {
 					sb.append(",");
 				}
 
-				sb.append(val.toString());
+				val.appendTo(sb, slotPositions, slotNames);
 			}
 
 			sb.append(")");
 		}
 
 		for (Query step : querySteps) {
-			// If the string is not empty and it doesn't end with space or
-			// if it ends with ")", then add a space
-			if ((!sb.toString().endsWith(" ") && sb.toString().length() > 0)
-					|| sb.toString().endsWith(")")) {
+			// If the string is not empty and it doesn't end with space (a
+			// parameter value never does), then add a space
+			int length = sb.length();
+			boolean endsWithSlot = slotNames != null && slotNames.size() > slotsAtStart
+					&& slotPositions.get(slotPositions.size() - 1) == length;
+			if (endsWithSlot || (length > start && sb.charAt(length - 1) != ' ')) {
 				sb.append(" ");
 			}
 
-			sb.append(step.toString());
+			step.appendTo(sb, slotPositions, slotNames);
 		}
-
-		return sb.toString();
 	}
 
 	/**
@@ -284,6 +406,7 @@ public final class Query {
 	 */
 	public Query parameter(String parameter, String value) {
 		this.mUserDefinedParameters.add(new Pair<String, String>(parameter, value));
+		modified();
 		return this;
 	}
 
@@ -298,6 +421,7 @@ public final class Query {
 	 */
 	public Query orderBy(String field, QueryOrder order) {
 		this.mOrderBy.add(new Pair<String, QueryOrder>(field, order));
+		modified();
 		return this;
 	}
 
@@ -311,6 +435,7 @@ public final class Query {
 	public Query top(int top) {
 		if (top > 0) {
 			this.mTop = top;
+			modified();
 		}
 
 		return this;
@@ -326,6 +451,7 @@ public final class Query {
 	public Query skip(int skip) {
 		if (skip > 0) {
 			this.mSkip = skip;
+			modified();
 		}
 
 		return this;
@@ -339,6 +465,7 @@ public final class Query {
 	 */
 	public Query includeInlineCount() {
 		this.mHasInlineCount = true;
+		modified();
 
 		return this;
 	}
@@ -355,6 +482,7 @@ public final class Query {
 		for (String field : fields) {
 			this.mProjection.add(field);
 		}
+		modified();
 
 		return this;
 	}
@@ -371,6 +499,7 @@ public final class Query {
 		for (String field : fields) {
 			this.mExpand.add(field);
 		}
+		modified();
 
 		return this;
 	}
@@ -385,7 +514,21 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query field(String fieldName) {
-		this.querySteps.add(QueryOperations.field(fieldName));
+		addStep(QueryOperations.field(fieldName));
+		return this;
+	}
+
+	/**
+	 * Specifies a parameter, whose value is given when rendering the compiled
+	 * query
+	 * 
+	 * @param name
+	 *            The parameter name
+	 * @return Query
+	 * @see #compile()
+	 */
+	public Query param(String name) {
+		addStep(QueryOperations.param(name));
 		return this;
 	}
 
@@ -397,7 +540,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query val(Number number) {
-		this.querySteps.add(QueryOperations.val(number));
+		addStep(QueryOperations.val(number));
 		return this;
 	}
 
@@ -409,7 +552,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query val(boolean val) {
-		this.querySteps.add(QueryOperations.val(val));
+		addStep(QueryOperations.val(val));
 		return this;
 	}
 
@@ -421,7 +564,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query val(String s) {
-		this.querySteps.add(QueryOperations.val(s));
+		addStep(QueryOperations.val(s));
 		return this;
 	}
 
@@ -433,7 +576,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query and() {
-		this.querySteps.add(QueryOperations.and());
+		addStep(QueryOperations.and());
 		return this;
 	}
 
@@ -444,7 +587,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query and(Query otherQuery) {
-		this.querySteps.add(QueryOperations.and(otherQuery));
+		addStep(QueryOperations.and(otherQuery));
 		return this;
 	}
 
@@ -454,7 +597,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query or() {
-		this.querySteps.add(QueryOperations.or());
+		addStep(QueryOperations.or());
 		return this;
 	}
 
@@ -465,7 +608,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query or(Query otherQuery) {
-		this.querySteps.add(QueryOperations.or(otherQuery));
+		addStep(QueryOperations.or(otherQuery));
 		return this;
 	}
 
@@ -475,7 +618,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query not() {
-		this.querySteps.add(QueryOperations.not());
+		addStep(QueryOperations.not());
 		return this;
 	}
 
@@ -486,7 +629,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query not(Query otherQuery) {
-		this.querySteps.add(QueryOperations.not(otherQuery));
+		addStep(QueryOperations.not(otherQuery));
 		return this;
 	}
 
@@ -497,7 +640,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query not(boolean booleanValue) {
-		this.querySteps.add(QueryOperations.not(QueryOperations.val(booleanValue)));
+		addStep(QueryOperations.not(QueryOperations.val(booleanValue)));
 		return this;
 	}
 
@@ -509,7 +652,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query ge() {
-		this.querySteps.add(QueryOperations.ge());
+		addStep(QueryOperations.ge());
 		return this;
 	}
 
@@ -520,7 +663,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query ge(Query otherQuery) {
-		this.querySteps.add(QueryOperations.ge(otherQuery));
+		addStep(QueryOperations.ge(otherQuery));
 		return this;
 	}
 
@@ -531,7 +674,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query ge(Number numberValue) {
-		this.querySteps.add(QueryOperations.ge(QueryOperations.val(numberValue)));
+		addStep(QueryOperations.ge(QueryOperations.val(numberValue)));
 		return this;
 	}
 
@@ -541,7 +684,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query le() {
-		this.querySteps.add(QueryOperations.le());
+		addStep(QueryOperations.le());
 		return this;
 	}
 
@@ -552,7 +695,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query le(Query otherQuery) {
-		this.querySteps.add(QueryOperations.le(otherQuery));
+		addStep(QueryOperations.le(otherQuery));
 		return this;
 	}
 
@@ -563,7 +706,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query le(Number numberValue) {
-		this.querySteps.add(QueryOperations.le(QueryOperations.val(numberValue)));
+		addStep(QueryOperations.le(QueryOperations.val(numberValue)));
 		return this;
 	}
 
@@ -573,7 +716,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query gt() {
-		this.querySteps.add(QueryOperations.gt());
+		addStep(QueryOperations.gt());
 		return this;
 	}
 
@@ -584,7 +727,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query gt(Query otherQuery) {
-		this.querySteps.add(QueryOperations.gt(otherQuery));
+		addStep(QueryOperations.gt(otherQuery));
 		return this;
 	}
 
@@ -595,7 +738,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query gt(Number numberValue) {
-		this.querySteps.add(QueryOperations.gt(QueryOperations.val(numberValue)));
+		addStep(QueryOperations.gt(QueryOperations.val(numberValue)));
 		return this;
 	}
 
@@ -605,7 +748,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query lt() {
-		this.querySteps.add(QueryOperations.lt());
+		addStep(QueryOperations.lt());
 		return this;
 	}
 
@@ -616,7 +759,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query lt(Query otherQuery) {
-		this.querySteps.add(QueryOperations.lt(otherQuery));
+		addStep(QueryOperations.lt(otherQuery));
 		return this;
 	}
 
@@ -627,7 +770,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query lt(Number numberValue) {
-		this.querySteps.add(QueryOperations.lt(QueryOperations.val(numberValue)));
+		addStep(QueryOperations.lt(QueryOperations.val(numberValue)));
 		return this;
 	}
 
@@ -637,7 +780,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query eq() {
-		this.querySteps.add(QueryOperations.eq());
+		addStep(QueryOperations.eq());
 		return this;
 	}
 
@@ -648,7 +791,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query eq(Query otherQuery) {
-		this.querySteps.add(QueryOperations.eq(otherQuery));
+		addStep(QueryOperations.eq(otherQuery));
 		return this;
 	}
 
@@ -659,7 +802,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query eq(Number numberValue) {
-		this.querySteps.add(QueryOperations.eq(QueryOperations.val(numberValue)));
+		addStep(QueryOperations.eq(QueryOperations.val(numberValue)));
 		return this;
 	}
 
@@ -670,7 +813,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query eq(boolean booleanValue) {
-		this.querySteps.add(QueryOperations.eq(QueryOperations.val(booleanValue)));
+		addStep(QueryOperations.eq(QueryOperations.val(booleanValue)));
 		return this;
 	}
 
@@ -681,7 +824,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query eq(String stringValue) {
-		this.querySteps.add(QueryOperations.eq(QueryOperations.val(stringValue)));
+		addStep(QueryOperations.eq(QueryOperations.val(stringValue)));
 		return this;
 	}
 
@@ -691,7 +834,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query ne() {
-		this.querySteps.add(QueryOperations.ne());
+		addStep(QueryOperations.ne());
 		return this;
 	}
 
@@ -702,7 +845,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query ne(Query otherQuery) {
-		this.querySteps.add(QueryOperations.ne(otherQuery));
+		addStep(QueryOperations.ne(otherQuery));
 		return this;
 	}
 
@@ -713,7 +856,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query ne(Number numberValue) {
-		this.querySteps.add(QueryOperations.ne(QueryOperations.val(numberValue)));
+		addStep(QueryOperations.ne(QueryOperations.val(numberValue)));
 		return this;
 	}
 
@@ -724,7 +867,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query ne(boolean booleanValue) {
-		this.querySteps.add(QueryOperations.ne(QueryOperations.val(booleanValue)));
+		addStep(QueryOperations.ne(QueryOperations.val(booleanValue)));
 		return this;
 	}
 
@@ -735,7 +878,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query ne(String stringValue) {
-		this.querySteps.add(QueryOperations.ne(QueryOperations.val(stringValue)));
+		addStep(QueryOperations.ne(QueryOperations.val(stringValue)));
 		return this;
 	}
 
@@ -747,7 +890,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query add() {
-		this.querySteps.add(QueryOperations.add());
+		addStep(QueryOperations.add());
 		return this;
 	}
 
@@ -758,7 +901,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query add(Query otherQuery) {
-		this.querySteps.add(QueryOperations.add(otherQuery));
+		addStep(QueryOperations.add(otherQuery));
 		return this;
 	}
 
@@ -769,7 +912,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query add(Number val) {
-		this.querySteps.add(QueryOperations.add(val));
+		addStep(QueryOperations.add(val));
 		return this;
 	}
 
@@ -779,7 +922,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query sub() {
-		this.querySteps.add(QueryOperations.sub());
+		addStep(QueryOperations.sub());
 		return this;
 	}
 
@@ -790,7 +933,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query sub(Query otherQuery) {
-		this.querySteps.add(QueryOperations.sub(otherQuery));
+		addStep(QueryOperations.sub(otherQuery));
 		return this;
 	}
 
@@ -801,7 +944,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query sub(Number val) {
-		this.querySteps.add(QueryOperations.sub(val));
+		addStep(QueryOperations.sub(val));
 		return this;
 	}
 
@@ -811,7 +954,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query mul() {
-		this.querySteps.add(QueryOperations.mul());
+		addStep(QueryOperations.mul());
 		return this;
 	}
 
@@ -822,7 +965,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query mul(Query otherQuery) {
-		this.querySteps.add(QueryOperations.mul(otherQuery));
+		addStep(QueryOperations.mul(otherQuery));
 		return this;
 	}
 
@@ -833,7 +976,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query mul(Number val) {
-		this.querySteps.add(QueryOperations.mul(val));
+		addStep(QueryOperations.mul(val));
 		return this;
 	}
 
@@ -843,7 +986,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query div() {
-		this.querySteps.add(QueryOperations.div());
+		addStep(QueryOperations.div());
 		return this;
 	}
 
@@ -854,7 +997,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query div(Query otherQuery) {
-		this.querySteps.add(QueryOperations.div(otherQuery));
+		addStep(QueryOperations.div(otherQuery));
 		return this;
 	}
 
@@ -865,7 +1008,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query div(Number val) {
-		this.querySteps.add(QueryOperations.div(val));
+		addStep(QueryOperations.div(val));
 		return this;
 	}
 
@@ -875,7 +1018,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query mod() {
-		this.querySteps.add(QueryOperations.mod());
+		addStep(QueryOperations.mod());
 		return this;
 	}
 
@@ -886,7 +1029,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query mod(Query otherQuery) {
-		this.querySteps.add(QueryOperations.mod(otherQuery));
+		addStep(QueryOperations.mod(otherQuery));
 		return this;
 	}
 
@@ -897,7 +1040,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query mod(Number val) {
-		this.querySteps.add(QueryOperations.mod(val));
+		addStep(QueryOperations.mod(val));
 		return this;
 	}
 
@@ -910,7 +1053,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query year(Query otherQuery) {
-		this.querySteps.add(QueryOperations.year(otherQuery));
+		addStep(QueryOperations.year(otherQuery));
 		return this;
 	}
 
@@ -921,7 +1064,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query year(String field) {
-		this.querySteps.add(QueryOperations.year(field));
+		addStep(QueryOperations.year(field));
 		return this;
 	}
 
@@ -932,7 +1075,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query month(Query otherQuery) {
-		this.querySteps.add(QueryOperations.month(otherQuery));
+		addStep(QueryOperations.month(otherQuery));
 		return this;
 	}
 
@@ -943,7 +1086,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query month(String field) {
-		this.querySteps.add(QueryOperations.month(field));
+		addStep(QueryOperations.month(field));
 		return this;
 	}
 
@@ -954,7 +1097,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query day(Query otherQuery) {
-		this.querySteps.add(QueryOperations.day(otherQuery));
+		addStep(QueryOperations.day(otherQuery));
 		return this;
 	}
 
@@ -965,7 +1108,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query day(String field) {
-		this.querySteps.add(QueryOperations.day(field));
+		addStep(QueryOperations.day(field));
 		return this;
 	}
 
@@ -976,7 +1119,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query hour(Query otherQuery) {
-		this.querySteps.add(QueryOperations.hour(otherQuery));
+		addStep(QueryOperations.hour(otherQuery));
 		return this;
 	}
 
@@ -987,7 +1130,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query hour(String field) {
-		this.querySteps.add(QueryOperations.hour(field));
+		addStep(QueryOperations.hour(field));
 		return this;
 	}
 
@@ -998,7 +1141,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query minute(Query otherQuery) {
-		this.querySteps.add(QueryOperations.minute(otherQuery));
+		addStep(QueryOperations.minute(otherQuery));
 		return this;
 	}
 
@@ -1009,7 +1152,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query minute(String field) {
-		this.querySteps.add(QueryOperations.minute(field));
+		addStep(QueryOperations.minute(field));
 		return this;
 	}
 
@@ -1020,7 +1163,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query second(Query otherQuery) {
-		this.querySteps.add(QueryOperations.second(otherQuery));
+		addStep(QueryOperations.second(otherQuery));
 		return this;
 	}
 
@@ -1031,7 +1174,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query second(String field) {
-		this.querySteps.add(QueryOperations.second(field));
+		addStep(QueryOperations.second(field));
 		return this;
 	}
 
@@ -1044,7 +1187,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query floor(Query otherQuery) {
-		this.querySteps.add(QueryOperations.floor(otherQuery));
+		addStep(QueryOperations.floor(otherQuery));
 		return this;
 	}
 
@@ -1055,7 +1198,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query ceiling(Query otherQuery) {
-		this.querySteps.add(QueryOperations.ceiling(otherQuery));
+		addStep(QueryOperations.ceiling(otherQuery));
 		return this;
 	}
 
@@ -1066,7 +1209,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query round(Query otherQuery) {
-		this.querySteps.add(QueryOperations.round(otherQuery));
+		addStep(QueryOperations.round(otherQuery));
 		return this;
 	}
 
@@ -1080,7 +1223,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query toLower(Query exp) {
-		this.querySteps.add(QueryOperations.toLower(exp));
+		addStep(QueryOperations.toLower(exp));
 		return this;
 	}
 
@@ -1092,7 +1235,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query toLower(String field) {
-		this.querySteps.add(QueryOperations.toLower(field));
+		addStep(QueryOperations.toLower(field));
 		return this;
 	}
 
@@ -1104,7 +1247,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query toUpper(Query exp) {
-		this.querySteps.add(QueryOperations.toUpper(exp));
+		addStep(QueryOperations.toUpper(exp));
 		return this;
 	}
 
@@ -1116,7 +1259,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query toUpper(String field) {
-		this.querySteps.add(QueryOperations.toUpper(field));
+		addStep(QueryOperations.toUpper(field));
 		return this;
 	}
 
@@ -1127,7 +1270,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query length(Query exp) {
-		this.querySteps.add(QueryOperations.length(exp));
+		addStep(QueryOperations.length(exp));
 		return this;
 	}
 
@@ -1138,7 +1281,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query length(String field) {
-		this.querySteps.add(QueryOperations.length(field));
+		addStep(QueryOperations.length(field));
 		return this;
 	}
 
@@ -1150,7 +1293,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query trim(Query exp) {
-		this.querySteps.add(QueryOperations.trim(exp));
+		addStep(QueryOperations.trim(exp));
 		return this;
 	}
 
@@ -1162,7 +1305,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query trim(String field) {
-		this.querySteps.add(QueryOperations.trim(field));
+		addStep(QueryOperations.trim(field));
 		return this;
 	}
 
@@ -1177,7 +1320,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query startsWith(Query field, Query start) {
-		this.querySteps.add(QueryOperations.startsWith(field, start));
+		addStep(QueryOperations.startsWith(field, start));
 		return this;
 	}
 
@@ -1192,7 +1335,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query startsWith(String field, String start) {
-		this.querySteps.add(QueryOperations.startsWith(field, start));
+		addStep(QueryOperations.startsWith(field, start));
 		return this;
 	}
 
@@ -1207,7 +1350,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query endsWith(Query field, Query end) {
-		this.querySteps.add(QueryOperations.endsWith(field, end));
+		addStep(QueryOperations.endsWith(field, end));
 		return this;
 	}
 
@@ -1222,7 +1365,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query endsWith(String field, String end) {
-		this.querySteps.add(QueryOperations.endsWith(field, end));
+		addStep(QueryOperations.endsWith(field, end));
 		return this;
 	}
 
@@ -1237,7 +1380,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query subStringOf(Query str1, Query str2) {
-		this.querySteps.add(QueryOperations.subStringOf(str1, str2));
+		addStep(QueryOperations.subStringOf(str1, str2));
 		return this;
 	}
 
@@ -1251,7 +1394,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query subStringOf(String str, String field) {
-		this.querySteps.add(QueryOperations.subStringOf(str, field));
+		addStep(QueryOperations.subStringOf(str, field));
 		return this;
 	}
 
@@ -1266,7 +1409,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query concat(Query str1, Query str2) {
-		this.querySteps.add(QueryOperations.concat(str1, str2));
+		addStep(QueryOperations.concat(str1, str2));
 		return this;
 	}
 
@@ -1281,7 +1424,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query indexOf(Query haystack, Query needle) {
-		this.querySteps.add(QueryOperations.indexOf(haystack, needle));
+		addStep(QueryOperations.indexOf(haystack, needle));
 		return this;
 	}
 
@@ -1296,7 +1439,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query indexOf(String field, String needle) {
-		this.querySteps.add(QueryOperations.indexOf(field, needle));
+		addStep(QueryOperations.indexOf(field, needle));
 		return this;
 	}
 
@@ -1311,7 +1454,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query subString(Query str, Query pos) {
-		this.querySteps.add(QueryOperations.subString(str, pos));
+		addStep(QueryOperations.subString(str, pos));
 		return this;
 	}
 
@@ -1326,7 +1469,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query subString(String field, int pos) {
-		this.querySteps.add(QueryOperations.subString(field, pos));
+		addStep(QueryOperations.subString(field, pos));
 		return this;
 	}
 
@@ -1343,7 +1486,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query subString(Query str, Query pos, Query length) {
-		this.querySteps.add(QueryOperations.subString(str, pos, length));
+		addStep(QueryOperations.subString(str, pos, length));
 		return this;
 	}
 
@@ -1360,7 +1503,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query subString(String field, int pos, int length) {
-		this.querySteps.add(QueryOperations.subString(field, pos, length));
+		addStep(QueryOperations.subString(field, pos, length));
 		return this;
 	}
 
@@ -1377,7 +1520,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query replace(Query str, Query find, Query replace) {
-		this.querySteps.add(QueryOperations.replace(str, find, replace));
+		addStep(QueryOperations.replace(str, find, replace));
 		return this;
 	}
 
@@ -1394,7 +1537,7 @@ public final class Query {
 	 * @return Query
 	 */
 	public Query replace(String field, String find, String replace) {
-		this.querySteps.add(QueryOperations.replace(field, find, replace));
+		addStep(QueryOperations.replace(field, find, replace));
 		return this;
 	}
 }
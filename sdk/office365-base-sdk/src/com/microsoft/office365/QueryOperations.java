@@ -79,7 +79,7 @@ public class QueryOperations {
 	 *            The string to sanitize
 	 * @return The sanitized string
 	 */
-	private static String sanitize(String s) {
+	static String sanitize(String s) {
 		if (s != null) {
 			return s.replace("'", "''");
 		} else {
@@ -123,6 +123,27 @@ public class QueryOperations {
 		return query;
 	}
 
+	/**
+	 * Creates a Query representing a parameter, whose value is given when
+	 * rendering the compiled query
+	 * 
+	 * @param name
+	 *            The name of the parameter
+	 * @return The Query
+	 */
+	public static Query param(String name) {
+		if (name == null || name.trim().length() == 0) {
+			throw new InvalidParameterException(
+					"name cannot be null or empty");
+		}
+
+		Query query = new Query();
+
+		query.setParameterName(name);
+
+		return query;
+	}
+
 	/**
 	 * Creates a Query representing a numeric value
 	 * 
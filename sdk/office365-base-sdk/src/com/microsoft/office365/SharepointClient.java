@@ -13,8 +13,15 @@ import org.json.JSONObject;
 import com.microsoft.office365.http.*;
 
 public class SharepointClient extends OfficeClient {
+
+	/**
+	 * SharePoint error code of requests sent with an expired form digest
+	 */
+	private static final String FORM_DIGEST_EXPIRED_CODE = "-2130575251";
+
 	private String mServerUrl;
 	private String mSiteRelativeUrl;
+	private final FormDigestCache mFormDigestCache;
 
 	protected String getSiteUrl() {
 		return mServerUrl + mSiteRelativeUrl;
@@ -47,6 +54,7 @@ public class SharepointClient extends OfficeClient {
 		
 		mServerUrl = serverUrl;
 		mSiteRelativeUrl = siteRelativeUrl;
+		mFormDigestCache = FormDigestCache.forCredentials(credentials);
 
 		if (!mServerUrl.endsWith("/")) {
 			mServerUrl += "/";
@@ -62,61 +70,115 @@ public class SharepointClient extends OfficeClient {
 
 	}
 
+	/**
+	 * Gets the form digest of the site, from the cache shared by the clients
+	 * using the same credentials while it has not expired
+	 * 
+	 * @return OfficeFuture<String>
+	 */
 	protected OfficeFuture<String> getFormDigest() {
-		HttpConnection connection = Platform.createHttpConnection();
-
-		Request request = new Request("POST");
+		return mFormDigestCache.get(getSiteUrl(), new Function<String, OfficeFuture<JSONObject>>() {
 
-		request.setUrl(getSiteUrl() + "_api/contextinfo");
-
-		prepareRequest(request);
-
-		log("Generate request for getFormDigest", LogLevel.Verbose);
-		request.log(getLogger());
+			@Override
+			public OfficeFuture<JSONObject> apply(String siteUrl) throws Exception {
+				log("Generate request for getFormDigest", LogLevel.Verbose);
+				return executeRequestJson(siteUrl + "_api/contextinfo", "POST");
+			}
+		});
+	}
 
-		final OfficeFuture<String> result = new OfficeFuture<String>();
+	/**
+	 * Checks whether a request failed because of an expired form digest
+	 * 
+	 * @param error
+	 *            the request error
+	 * @return true if the form digest has to be renewed
+	 */
+	protected static boolean isFormDigestExpired(Throwable error) {
+		return error instanceof InvalidHttpStatusCodeException
+				&& ((InvalidHttpStatusCodeException) error).getStatusCode() == 403
+				&& String.valueOf(error.getMessage()).contains(FORM_DIGEST_EXPIRED_CODE);
+	}
 
-		HttpConnectionFuture future = connection.execute(request);
+	/**
+	 * Runs a request with the form digest of the site. If the digest turns
+	 * out to be expired, it is renewed and the request is run again, once.
+	 * 
+	 * @param call
+	 *            runs the request with the given digest
+	 * @param retry
+	 *            whether the request can be run again
+	 * @return OfficeFuture<T>
+	 */
+	private <T> OfficeFuture<T> executeWithDigest(final Function<String, OfficeFuture<T>> call,
+			final boolean retry) {
 
-		future.done(new Action<Response>() {
+		return getFormDigest().flatMap(new Function<String, OfficeFuture<T>>() {
 
 			@Override
-			public void run(Response response) throws Exception {
+			public OfficeFuture<T> apply(final String digest) throws Exception {
+				final OfficeFuture<T> attempt = call.apply(digest);
+				if (!retry) {
+					return attempt;
+				}
 
-				int statusCode = response.getStatus();
-				if (isValidStatus(statusCode)) {
-					String responseContent = response.readToEnd();
+				final OfficeFuture<T> result = new OfficeFuture<T>();
+				forward(attempt, result);
+				attempt.onError(new ErrorCallback() {
 
-					JSONObject json = new JSONObject(responseContent);
+					@Override
+					public void onError(Throwable error) {
+						if (isFormDigestExpired(error)) {
+							log("Form digest expired, retrying with a new one", LogLevel.Information);
+							mFormDigestCache.invalidate(getSiteUrl(), digest);
+							OfficeFuture<T> retried = executeWithDigest(call, false);
+							forward(retried, result);
+							retried.onError(new ErrorCallback() {
+
+								@Override
+								public void onError(Throwable retryError) {
+									result.triggerError(retryError);
+								}
+							});
+						} else {
+							result.triggerError(error);
+						}
+					}
+				});
 
-					result.setResult(json.getJSONObject("d")
-							.getJSONObject("GetContextWebInformation").getString("FormDigestValue"));
-				} else {
-					result.triggerError(new Exception("Invalid status code " + statusCode + ": "
-							+ response.readToEnd()));
-				}
+				return result;
 			}
 		});
+	}
 
-		future.onError(new ErrorCallback() {
+	/**
+	 * Completes the target future with the result of the source one, and
+	 * cancels the source one if the target one is cancelled
+	 */
+	private static <T> void forward(final OfficeFuture<T> source, final OfficeFuture<T> target) {
+		source.done(new Action<T>() {
 
 			@Override
-			public void onError(Throwable error) {
-				log(error);
-				result.triggerError(error);
+			public void run(T value) {
+				target.setResult(value);
 			}
 		});
 
-		future.onTimeout(new ErrorCallback() {
+		source.onCancelled(new Runnable() {
 
 			@Override
-			public void onError(Throwable error) {
-				log(error);
-				result.triggerError(error);
+			public void run() {
+				target.cancel();
 			}
 		});
 
-		return result;
+		target.onCancelled(new Runnable() {
+
+			@Override
+			public void run() {
+				source.cancel();
+			}
+		});
 	}
 
 	/**
@@ -135,21 +197,10 @@ public class SharepointClient extends OfficeClient {
 	protected OfficeFuture<JSONObject> executeRequestJsonWithDigest(final String url,
 			final String method, final Map<String, String> headers, final byte[] payload) {
 
-		final OfficeFuture<JSONObject> result = new OfficeFuture<JSONObject>();
-
-		OfficeFuture<String> digestFuture = getFormDigest();
-		digestFuture.onError(new ErrorCallback() {
+		return executeWithDigest(new Function<String, OfficeFuture<JSONObject>>() {
 
 			@Override
-			public void onError(Throwable error) {
-				result.triggerError(error);
-			}
-		});
-
-		digestFuture.done(new Action<String>() {
-
-			@Override
-			public void run(String digest) throws Exception {
+			public OfficeFuture<JSONObject> apply(String digest) throws Exception {
 
 				Map<String, String> finalHeaders = new HashMap<String, String>();
 
@@ -162,37 +213,43 @@ public class SharepointClient extends OfficeClient {
 				finalHeaders.put("Content-Type", "application/json;odata=verbose");
 				finalHeaders.put("X-RequestDigest", digest);
 
-				OfficeFuture<JSONObject> request = executeRequestJson(url, method, finalHeaders,
-						payload);
-
-				request.done(new Action<JSONObject>() {
-
-					@Override
-					public void run(JSONObject json) throws Exception {
-						result.setResult(json);
-					}
-				});
-
-				copyFutureHandlers(request, result);
+				return executeRequestJson(url, method, finalHeaders, payload);
 			}
-		});
-		return result;
+		}, true);
 	}
 
-	public OfficeFuture<String> getWebTitle() {
-		final OfficeFuture<String> result = new OfficeFuture<String>();
-
-		OfficeFuture<JSONObject> request = executeRequestJson(mServerUrl + "_api/web/title", "GET");
+	/**
+	 * Execute a request, which may have a content stream, with digest. Requests
+	 * with a content stream are not retried on an expired digest, as the
+	 * stream cannot be read twice.
+	 * 
+	 * @param request
+	 *            the request
+	 * @param handler
+	 *            turns the response into the future result
+	 * @return OfficeFuture<T>
+	 */
+	protected <T> OfficeFuture<T> executeRequestWithDigest(final Request request,
+			final Function<Response, T> handler) {
 
-		request.done(new Action<JSONObject>() {
+		return executeWithDigest(new Function<String, OfficeFuture<T>>() {
 
 			@Override
-			public void run(JSONObject json) throws Exception {
-				result.setResult(json.getJSONObject("d").getString("Title"));
+			public OfficeFuture<T> apply(String digest) throws Exception {
+				request.addHeader("X-RequestDigest", digest);
+				return executeRequestStream(request, handler);
 			}
-		});
+		}, request.getContentStream() == null);
+	}
+
+	public OfficeFuture<String> getWebTitle() {
+		return executeRequestJson(mServerUrl + "_api/web/title", "GET").map(
+				new Function<JSONObject, String>() {
 
-		copyFutureHandlers(request, result);
-		return result;
+					@Override
+					public String apply(JSONObject json) throws Exception {
+						return json.getJSONObject("d").getString("Title");
+					}
+				});
 	}
 }
@@ -11,14 +11,18 @@ import android.os.AsyncTask;
 import android.os.Build;
 
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.message.BasicHttpEntityEnclosingRequest;
 
 import com.microsoft.office365.Platform;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
@@ -73,7 +77,20 @@ public class FroyoHttpConnection implements HttpConnection {
 						return null;
 					}
 					
-					mResponseStream = response.getEntity().getContent();
+					// the handlers may be attached after setResult returns, so
+					// the client is closed along with the delivered stream
+					HttpEntity entity = response.getEntity();
+					InputStream content = entity != null ? entity.getContent() : new ByteArrayInputStream(new byte[0]);
+					mResponseStream = new FilterInputStream(content) {
+						@Override
+						public void close() throws IOException {
+							try {
+								super.close();
+							} finally {
+								mClient.close();
+							}
+						}
+					};
 					Header[] headers = response.getAllHeaders();
 					Map<String, List<String>> headersMap = new HashMap<String, List<String>>();
 					for (Header header : headers) {
@@ -88,7 +105,6 @@ public class FroyoHttpConnection implements HttpConnection {
 					}
 					
 					future.setResult(new StreamResponse(mResponseStream, response.getStatusLine().getStatusCode(), headersMap));
-					closeStreamAndClient();
 				} catch (Exception e) {
 					closeStreamAndClient();
 					
@@ -163,7 +179,12 @@ public class FroyoHttpConnection implements HttpConnection {
 	private static BasicHttpEntityEnclosingRequest createRealRequest(Request request) throws UnsupportedEncodingException {
 		BasicHttpEntityEnclosingRequest realRequest = new BasicHttpEntityEnclosingRequest(request.getVerb(), request.getUrl());
 
-		if (request.getContent() != null) {
+		if (request.getContentStream() != null) {
+			InputStreamEntity entity = new InputStreamEntity(request.getContentStream(),
+					request.getContentLength());
+			entity.setChunked(request.getContentLength() < 0);
+			realRequest.setEntity(entity);
+		} else if (request.getContent() != null) {
 			realRequest.setEntity(new ByteArrayEntity(request.getContent()));
 		}
 
@@ -12,7 +12,19 @@ public class InvalidHttpStatusCodeException extends Exception {
 
 	private static final long serialVersionUID = 7073157073424850921L;
 
+	private final int mStatusCode;
+
 	public InvalidHttpStatusCodeException(int statusCode, String responseContent, String responseHeaders) {
 		super("Invalid status code: " + statusCode + "\nResponse: " + responseContent + "\nHeaders: " + responseHeaders);
+		mStatusCode = statusCode;
+	}
+
+	public InvalidHttpStatusCodeException(int statusCode, String message) {
+		super(message);
+		mStatusCode = statusCode;
+	}
+
+	public int getStatusCode() {
+		return mStatusCode;
 	}
 }
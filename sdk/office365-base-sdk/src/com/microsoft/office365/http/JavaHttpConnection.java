@@ -5,12 +5,15 @@
  ******************************************************************************/
 package com.microsoft.office365.http;
 
+import java.net.MalformedURLException;
+import java.net.URL;
+
 import com.microsoft.office365.Platform;
 
 
 /**
  * Java HttpConnection implementation, based on HttpURLConnection and 
- * threads async operations
+ * a NetworkDispatcher for async operations
  */
 public class JavaHttpConnection implements HttpConnection{
 	
@@ -19,6 +22,22 @@ public class JavaHttpConnection implements HttpConnection{
      */
     private static final String USER_AGENT_HEADER = "User-Agent";
 
+    private final NetworkDispatcher mDispatcher;
+
+    /**
+     * Initializes the connection with the platform's NetworkDispatcher
+     */
+    public JavaHttpConnection() {
+        this(Platform.getNetworkDispatcher());
+    }
+
+    /**
+     * Initializes the connection
+     * @param dispatcher The dispatcher running the network operations
+     */
+    public JavaHttpConnection(NetworkDispatcher dispatcher) {
+        mDispatcher = dispatcher;
+    }
 
     @Override
     public HttpConnectionFuture execute(final Request request) {
@@ -29,26 +48,30 @@ public class JavaHttpConnection implements HttpConnection{
         
         final NetworkRunnable target = new NetworkRunnable(request, future);
         
-        final NetworkThread networkThread = new NetworkThread(target) {
-        	@Override
-        	void releaseAndStop() {
-        		try {
-        			target.closeStreamAndConnection();
-        		} catch (Throwable error) {
-        		}
-        	}
-        };
-        
         future.onCancelled(new Runnable() {
 			
 			@Override
 			public void run() {
-				networkThread.releaseAndStop();
+				try {
+					target.closeStreamAndConnection();
+				} catch (Throwable error) {
+				}
 			}
 		});
 
-        networkThread.start();
+        mDispatcher.dispatch(getHost(request), target, future);
 
         return future;
     }
+
+    /**
+     * Returns the host of the request URL, or null if the URL is not valid
+     */
+    private static String getHost(Request request) {
+        try {
+            return new URL(request.getUrl()).getHost();
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365.http;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.os.Build;
+
+import com.microsoft.office365.OfficeFuture;
+import com.microsoft.office365.Platform;
+
+/**
+ * Dispatches network operations to a shared executor, running at most a
+ * given number of operations at the same time against any single host
+ */
+public class NetworkDispatcher {
+
+	/**
+	 * Default number of worker threads for the pooled dispatcher
+	 */
+	public static final int DEFAULT_MAX_THREADS = 16;
+
+	/**
+	 * Default number of concurrent operations per host
+	 */
+	public static final int DEFAULT_MAX_PER_HOST = 5;
+
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private final ExecutorService mExecutor;
+	private final int mMaxPerHost;
+	private final Map<String, HostQueue> mHosts = new HashMap<String, HostQueue>();
+	private final AtomicInteger mQueued = new AtomicInteger();
+	private final AtomicInteger mActive = new AtomicInteger();
+
+	/**
+	 * Initializes the dispatcher
+	 * @param executor Executor running the operations
+	 * @param maxPerHost Max number of concurrent operations per host
+	 */
+	public NetworkDispatcher(ExecutorService executor, int maxPerHost) {
+		if (executor == null) {
+			throw new IllegalArgumentException("executor");
+		}
+		if (maxPerHost < 1) {
+			throw new IllegalArgumentException("maxPerHost");
+		}
+
+		mExecutor = executor;
+		mMaxPerHost = maxPerHost;
+	}
+
+	/**
+	 * Creates a dispatcher backed by a bounded, queue-backed pool of daemon
+	 * threads. Idle threads are released after a minute (on Android, from API
+	 * level 9 on).
+	 * @param maxThreads Max number of worker threads
+	 * @param maxPerHost Max number of concurrent operations per host
+	 * @return A NetworkDispatcher
+	 */
+	public static NetworkDispatcher newPooledDispatcher(int maxThreads, int maxPerHost) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads,
+				KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+				new NetworkThreadFactory());
+		if (!Platform.isAndroid() || Build.VERSION.SDK_INT >= Build.VERSION_CODES.GINGERBREAD) {
+			executor.allowCoreThreadTimeOut(true);
+		}
+
+		return new NetworkDispatcher(executor, maxPerHost);
+	}
+
+	/**
+	 * Creates a dispatcher running each operation in its own virtual thread
+	 * @param maxPerHost Max number of concurrent operations per host
+	 * @return A NetworkDispatcher, or null if the runtime has no virtual threads
+	 */
+	public static NetworkDispatcher newVirtualThreadDispatcher(int maxPerHost) {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return new NetworkDispatcher((ExecutorService) factory.invoke(null), maxPerHost);
+		} catch (Throwable error) {
+			return null;
+		}
+	}
+
+	/**
+	 * Indicates if the current runtime supports virtual threads
+	 */
+	public static boolean isVirtualThreadSupported() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (Throwable error) {
+			return false;
+		}
+	}
+
+	/**
+	 * Creates the default dispatcher for the current runtime: virtual threads
+	 * when available, a bounded pool otherwise
+	 * @return A NetworkDispatcher
+	 */
+	public static NetworkDispatcher newDefaultDispatcher() {
+		NetworkDispatcher dispatcher = newVirtualThreadDispatcher(DEFAULT_MAX_PER_HOST);
+		if (dispatcher == null) {
+			dispatcher = newPooledDispatcher(DEFAULT_MAX_THREADS, DEFAULT_MAX_PER_HOST);
+		}
+
+		return dispatcher;
+	}
+
+	/**
+	 * Schedules an operation. If the host already has the max number of
+	 * operations running, the operation waits for one of them to finish.
+	 * @param host The host the operation connects to
+	 * @param operation The operation to run
+	 * @throws RejectedExecutionException if the dispatcher has been shut down
+	 */
+	public void dispatch(String host, Runnable operation) {
+		dispatch(host, operation, null);
+	}
+
+	/**
+	 * Schedules an operation. If the host already has the max number of
+	 * operations running, the operation waits for one of them to finish.
+	 * @param host The host the operation connects to
+	 * @param operation The operation to run
+	 * @param future Future of the operation, failed with a
+	 * RejectedExecutionException if the dispatcher is shut down before the
+	 * operation could run. If null, the rejection is thrown to the caller.
+	 */
+	public void dispatch(String host, Runnable operation, OfficeFuture<?> future) {
+		if (host == null) {
+			host = "";
+		}
+
+		mQueued.incrementAndGet();
+
+		HostTask task;
+		synchronized (mHosts) {
+			HostQueue queue = mHosts.get(host);
+			if (queue == null) {
+				queue = new HostQueue(host);
+				mHosts.put(host, queue);
+			}
+
+			task = new HostTask(queue, operation, future);
+			if (queue.mRunning >= mMaxPerHost) {
+				queue.mPending.add(task);
+				return;
+			}
+
+			try {
+				queue.mRunning++;
+				mExecutor.execute(task);
+				return;
+			} catch (RejectedExecutionException error) {
+				release(queue);
+				task.mError = error;
+			}
+		}
+
+		reject(task);
+		if (future == null) {
+			throw task.mError;
+		}
+	}
+
+	/**
+	 * Returns the number of operations waiting to run
+	 */
+	public int getQueueDepth() {
+		return mQueued.get();
+	}
+
+	/**
+	 * Returns the number of operations currently running
+	 */
+	public int getActiveCount() {
+		return mActive.get();
+	}
+
+	/**
+	 * Stops accepting operations. Operations already running complete, the
+	 * ones still waiting for their host fail with a
+	 * RejectedExecutionException.
+	 */
+	public void shutdown() {
+		mExecutor.shutdown();
+	}
+
+	/**
+	 * Hands the next pending operation of the host over to the executor, or
+	 * frees the host slot if there is none
+	 */
+	private void next(HostQueue queue) {
+		List<HostTask> rejected = null;
+		synchronized (mHosts) {
+			HostTask pending = queue.mPending.poll();
+			if (pending != null) {
+				try {
+					mExecutor.execute(pending);
+					return;
+				} catch (RejectedExecutionException error) {
+					// the executor is shut down: nothing left for this host can run
+					rejected = new ArrayList<HostTask>(queue.mPending.size() + 1);
+					rejected.add(pending);
+					rejected.addAll(queue.mPending);
+					queue.mPending.clear();
+					for (HostTask task : rejected) {
+						task.mError = error;
+					}
+				}
+			}
+
+			release(queue);
+		}
+
+		if (rejected != null) {
+			for (HostTask task : rejected) {
+				reject(task);
+			}
+		}
+	}
+
+	/**
+	 * Frees a host slot. Must be called while holding mHosts.
+	 */
+	private void release(HostQueue queue) {
+		queue.mRunning--;
+		if (queue.mRunning == 0 && queue.mPending.isEmpty()) {
+			mHosts.remove(queue.mHost);
+		}
+	}
+
+	/**
+	 * Fails the future of an operation the executor refused to run
+	 */
+	private void reject(HostTask task) {
+		mQueued.decrementAndGet();
+		if (task.mFuture != null) {
+			task.mFuture.triggerError(task.mError);
+		}
+	}
+
+	/**
+	 * Operations running or waiting for a single host
+	 */
+	private static class HostQueue {
+		final String mHost;
+		final Queue<HostTask> mPending = new LinkedList<HostTask>();
+		int mRunning = 0;
+
+		HostQueue(String host) {
+			mHost = host;
+		}
+	}
+
+	/**
+	 * Runs an operation, then starts the next one for the same host
+	 */
+	private class HostTask implements Runnable {
+		private final HostQueue mQueue;
+		private final Runnable mOperation;
+		private final OfficeFuture<?> mFuture;
+		RejectedExecutionException mError;
+
+		HostTask(HostQueue queue, Runnable operation, OfficeFuture<?> future) {
+			mQueue = queue;
+			mOperation = operation;
+			mFuture = future;
+		}
+
+		@Override
+		public void run() {
+			mQueued.decrementAndGet();
+			mActive.incrementAndGet();
+			try {
+				mOperation.run();
+			} finally {
+				mActive.decrementAndGet();
+				next(mQueue);
+			}
+		}
+	}
+
+	/**
+	 * Creates named daemon threads for the pooled dispatcher
+	 */
+	private static class NetworkThreadFactory implements ThreadFactory {
+		private final AtomicInteger mCount = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "office365-network-" + mCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -5,6 +5,7 @@
  ******************************************************************************/
 package com.microsoft.office365.http;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -38,6 +39,7 @@ class NetworkRunnable implements Runnable {
 
 	@Override
     public void run() {
+    	boolean delivered = false;
         try {
         	int responseCode = -1;
         	synchronized (mCloseLock) {
@@ -53,6 +55,10 @@ class NetworkRunnable implements Runnable {
 	                
 	                if (responseCode >= 400) {
 	                	mResponseStream = mConnection.getErrorStream();
+	                	if (mResponseStream == null) {
+	                		// the error has no body
+	                		mResponseStream = new ByteArrayInputStream(new byte[0]);
+	                	}
 	                } else {
 	                	mResponseStream = mConnection.getInputStream();
 	                }                
@@ -60,6 +66,9 @@ class NetworkRunnable implements Runnable {
 			}        	
             
         	if (mResponseStream != null && !mFuture.isCancelled()) {
+        		// the handlers may be attached after this returns, so the stream
+        		// now belongs to whoever handles the response
+        		delivered = true;
         		mFuture.setResult(new StreamResponse(mResponseStream, responseCode, mConnection.getHeaderFields()));
         	}
         } catch (Throwable e) {
@@ -71,7 +80,9 @@ class NetworkRunnable implements Runnable {
 	            mFuture.triggerError(e);
         	}
         } finally {
-        	closeStreamAndConnection();
+        	if (!delivered) {
+        		closeStreamAndConnection();
+        	}
         }
         
         
@@ -114,10 +125,29 @@ class NetworkRunnable implements Runnable {
             connection.setRequestProperty(key, headers.get(key));
         }
 
-        if (request.getContent() != null) {
+        if (request.getContentStream() != null) {
+        	connection.setDoOutput(true);
+        	long length = request.getContentLength();
+        	if (length >= 0 && length <= Integer.MAX_VALUE) {
+        		connection.setFixedLengthStreamingMode((int) length);
+        	} else {
+        		connection.setChunkedStreamingMode(request.getChunkSize());
+        	}
+
+        	InputStream content = request.getContentStream();
+        	OutputStream stream = connection.getOutputStream();
+        	byte[] buffer = new byte[request.getChunkSize()];
+        	int nRead;
+        	while ((nRead = content.read(buffer)) != -1) {
+        		stream.write(buffer, 0, nRead);
+        	}
+        	stream.close();
+        } else if (request.getContent() != null) {
         	connection.setDoOutput(true);
             //OutputStreamWriter out = new OutputStreamWriter(connection.getOutputStream());
             byte[] requestContent = request.getContent();
+            // send the array as is, instead of copying it into the connection buffer
+            connection.setFixedLengthStreamingMode(requestContent.length);
             OutputStream stream = connection.getOutputStream();
             stream.write(requestContent, 0, requestContent.length);
             stream.close();
@@ -0,0 +1,319 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365.http;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.microsoft.office365.Action;
+import com.microsoft.office365.ErrorCallback;
+import com.microsoft.office365.OfficeFuture;
+
+/**
+ * OAuth credentials that renew their token in the background before it
+ * expires, so that requests are always prepared with a current token and
+ * never wait for a renewal. Concurrent renewals are merged into one.
+ */
+public class OAuthCredentialsManager extends OAuthCredentials {
+
+	/**
+	 * Tokens are renewed up to this long before they expire, in milliseconds
+	 */
+	public static final long DEFAULT_REFRESH_MARGIN = 5 * 60 * 1000;
+
+	/**
+	 * Delay before retrying a failed renewal, in milliseconds
+	 */
+	public static final long DEFAULT_RETRY_DELAY = 30 * 1000;
+
+	/**
+	 * Failed renewals of an expired token are retried up to 2^5 retry delays
+	 * apart
+	 */
+	private static final int MAX_BACKOFF_DOUBLINGS = 5;
+
+	private static ScheduledExecutorService sDefaultScheduler;
+
+	private final TokenProvider mProvider;
+	private final ScheduledExecutorService mScheduler;
+	private final long mRefreshMargin;
+	private final long mRetryDelay;
+
+	private volatile OAuthToken mToken;
+
+	private OfficeFuture<OAuthToken> mRefresh;
+	private ScheduledFuture<?> mScheduledRefresh;
+	private long mFailedAt = 0;
+	private int mExpiredFailures = 0;
+	private boolean mClosed = false;
+
+	/**
+	 * Initializes the credentials, renewing tokens on a shared background
+	 * thread
+	 * 
+	 * @param token
+	 *            The current token
+	 * @param provider
+	 *            Obtains new tokens
+	 */
+	public OAuthCredentialsManager(OAuthToken token, TokenProvider provider) {
+		this(token, provider, getDefaultScheduler(), DEFAULT_REFRESH_MARGIN, DEFAULT_RETRY_DELAY);
+	}
+
+	/**
+	 * Initializes the credentials
+	 * 
+	 * @param token
+	 *            The current token
+	 * @param provider
+	 *            Obtains new tokens
+	 * @param scheduler
+	 *            Runs the scheduled renewals
+	 * @param refreshMargin
+	 *            How long before expiry tokens are renewed, in milliseconds; a
+	 *            fifth of the token lifetime at most
+	 * @param retryDelay
+	 *            Delay before retrying a failed renewal, in milliseconds
+	 */
+	public OAuthCredentialsManager(OAuthToken token, TokenProvider provider,
+			ScheduledExecutorService scheduler, long refreshMargin, long retryDelay) {
+		super(token == null ? null : token.getAccessToken());
+
+		if (token == null) {
+			throw new IllegalArgumentException("token must not be null");
+		}
+
+		if (provider == null) {
+			throw new IllegalArgumentException("provider must not be null");
+		}
+
+		if (scheduler == null) {
+			throw new IllegalArgumentException("scheduler must not be null");
+		}
+
+		mToken = token;
+		mProvider = provider;
+		mScheduler = scheduler;
+		mRefreshMargin = refreshMargin;
+		mRetryDelay = retryDelay;
+
+		synchronized (this) {
+			scheduleRefresh(getRefreshDelay(token));
+		}
+	}
+
+	private static synchronized ScheduledExecutorService getDefaultScheduler() {
+		if (sDefaultScheduler == null) {
+			ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "office365-token-refresh");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			sDefaultScheduler = scheduler;
+		}
+
+		return sDefaultScheduler;
+	}
+
+	/**
+	 * Returns the current token, without waiting for a renewal in progress.
+	 * A token found to be expired, e.g. after the device slept through its
+	 * scheduled renewal, is renewed right away, unless the last renewal
+	 * failed less than the retry delay ago. Once the token has expired,
+	 * failed renewals are no longer retried in the background but from here,
+	 * each failure doubling the delay, up to 2^5 times the retry delay.
+	 */
+	@Override
+	public String getToken() {
+		OAuthToken token = mToken;
+		if (token.isExpired()) {
+			boolean retry;
+			synchronized (this) {
+				retry = mRefresh == null && System.currentTimeMillis() - mFailedAt >= getRetryDelay();
+			}
+
+			if (retry) {
+				refresh();
+			}
+		}
+
+		return token.getAccessToken();
+	}
+
+	/**
+	 * Returns the current token, with its refresh token and expiry time
+	 */
+	public OAuthToken getOAuthToken() {
+		return mToken;
+	}
+
+	/**
+	 * Renews the token now, unless a renewal is already in progress, in which
+	 * case its result is returned
+	 * 
+	 * @return The new token
+	 */
+	public OfficeFuture<OAuthToken> refresh() {
+		OfficeFuture<OAuthToken> refresh;
+		boolean start = false;
+		synchronized (this) {
+			if (mRefresh == null) {
+				mRefresh = new OfficeFuture<OAuthToken>();
+				start = true;
+			}
+			refresh = mRefresh;
+		}
+
+		// callers get their own future, so that cancelling one does not
+		// cancel the shared renewal
+		final OfficeFuture<OAuthToken> result = new OfficeFuture<OAuthToken>();
+		refresh.done(new Action<OAuthToken>() {
+
+			@Override
+			public void run(OAuthToken token) {
+				result.setResult(token);
+			}
+		});
+
+		refresh.onError(new ErrorCallback() {
+
+			@Override
+			public void onError(Throwable error) {
+				result.triggerError(error);
+			}
+		});
+
+		if (start) {
+			requestToken(refresh);
+		}
+
+		return result;
+	}
+
+	private void requestToken(final OfficeFuture<OAuthToken> refresh) {
+		OfficeFuture<OAuthToken> request;
+		try {
+			request = mProvider.requestToken(mToken);
+		} catch (Throwable error) {
+			fail(refresh, error);
+			return;
+		}
+
+		request.done(new Action<OAuthToken>() {
+
+			@Override
+			public void run(OAuthToken token) {
+				if (token == null) {
+					fail(refresh, new IllegalStateException("No token received"));
+					return;
+				}
+
+				synchronized (OAuthCredentialsManager.this) {
+					mToken = token;
+					mRefresh = null;
+					mExpiredFailures = 0;
+					scheduleRefresh(getRefreshDelay(token));
+				}
+				refresh.setResult(token);
+			}
+		});
+
+		request.onError(new ErrorCallback() {
+
+			@Override
+			public void onError(Throwable error) {
+				fail(refresh, error);
+			}
+		});
+
+		request.onCancelled(new Runnable() {
+
+			@Override
+			public void run() {
+				fail(refresh, new IllegalStateException("Token request cancelled"));
+			}
+		});
+	}
+
+	private void fail(OfficeFuture<OAuthToken> refresh, Throwable error) {
+		synchronized (this) {
+			mRefresh = null;
+			mFailedAt = System.currentTimeMillis();
+			if (mToken.isExpired()) {
+				// nothing left to renew ahead of time: stop retrying in the
+				// background, getToken retries when the token is needed
+				mExpiredFailures++;
+				scheduleRefresh(-1);
+			} else {
+				scheduleRefresh(mRetryDelay);
+			}
+		}
+		refresh.triggerError(error);
+	}
+
+	/**
+	 * Delay before retrying a failed renewal: the retry delay, doubled for
+	 * every failure since the token expired. Must be called holding the lock.
+	 */
+	private long getRetryDelay() {
+		if (mExpiredFailures == 0) {
+			return mRetryDelay;
+		}
+
+		return mRetryDelay << Math.min(mExpiredFailures - 1, MAX_BACKOFF_DOUBLINGS);
+	}
+
+	/**
+	 * Delay before renewing the given token: the refresh margin before it
+	 * expires, or a fifth of its remaining lifetime if shorter
+	 */
+	private long getRefreshDelay(OAuthToken token) {
+		if (token.getExpiresAt() == Long.MAX_VALUE) {
+			return -1;
+		}
+
+		long lifetime = token.getExpiresAt() - System.currentTimeMillis();
+		return Math.max(0, lifetime - Math.min(mRefreshMargin, lifetime / 5));
+	}
+
+	/**
+	 * Schedules the next renewal, replacing the scheduled one; a negative
+	 * delay schedules none. Must be called holding the lock.
+	 */
+	private void scheduleRefresh(long delay) {
+		if (mScheduledRefresh != null) {
+			mScheduledRefresh.cancel(false);
+			mScheduledRefresh = null;
+		}
+
+		if (mClosed || delay < 0) {
+			return;
+		}
+
+		mScheduledRefresh = mScheduler.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				refresh();
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops renewing the token in the background
+	 */
+	public synchronized void close() {
+		mClosed = true;
+		scheduleRefresh(-1);
+	}
+}
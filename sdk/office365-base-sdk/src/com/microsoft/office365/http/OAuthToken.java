@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365.http;
+
+/**
+ * An OAuth access token, along with the refresh token and the expiry time
+ * returned with it
+ */
+public class OAuthToken {
+
+	private final String mAccessToken;
+	private final String mRefreshToken;
+	private final long mExpiresAt;
+
+	/**
+	 * Initializes the token
+	 * 
+	 * @param accessToken
+	 *            The access token
+	 * @param refreshToken
+	 *            The refresh token, or null
+	 * @param expiresAt
+	 *            The expiry time, in milliseconds since the epoch, or
+	 *            Long.MAX_VALUE if unknown
+	 */
+	public OAuthToken(String accessToken, String refreshToken, long expiresAt) {
+		if (accessToken == null) {
+			throw new IllegalArgumentException("accessToken must not be null");
+		}
+
+		mAccessToken = accessToken;
+		mRefreshToken = refreshToken;
+		mExpiresAt = expiresAt;
+	}
+
+	/**
+	 * Initializes a token expiring the given number of seconds from now
+	 */
+	public static OAuthToken expiringIn(String accessToken, String refreshToken, long expiresInSeconds) {
+		return new OAuthToken(accessToken, refreshToken, System.currentTimeMillis() + expiresInSeconds * 1000);
+	}
+
+	public String getAccessToken() {
+		return mAccessToken;
+	}
+
+	public String getRefreshToken() {
+		return mRefreshToken;
+	}
+
+	public long getExpiresAt() {
+		return mExpiresAt;
+	}
+
+	/**
+	 * Indicates if the token is expired
+	 */
+	public boolean isExpired() {
+		return System.currentTimeMillis() >= mExpiresAt;
+	}
+}
@@ -5,6 +5,7 @@
  ******************************************************************************/
 package com.microsoft.office365.http;
 
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
@@ -24,10 +25,21 @@ import com.microsoft.office365.SimpleEntry;
  */
 public class Request {
 
+	/**
+	 * Default size of the chunks used to send content streams
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 8192;
+
 	private String mVerb;
 
 	private byte[] mContent;
 
+	private InputStream mContentStream;
+
+	private long mContentLength = -1;
+
+	private int mChunkSize = DEFAULT_CHUNK_SIZE;
+
 	private HashMap<String, String> mHeaders = new HashMap<String, String>();
 
 	private String mUrl;
@@ -52,6 +64,51 @@ public class Request {
 	 */
 	public void setContent(byte[] content) {
 		mContent = content;
+		mContentStream = null;
+		mContentLength = -1;
+	}
+
+	/**
+	 * Sets the request content as a stream, sent as it is read instead of
+	 * being loaded in memory. The stream is not closed.
+	 * @param content The content stream
+	 * @param length The content length, or -1 to use chunked transfer encoding
+	 */
+	public void setContent(InputStream content, long length) {
+		mContent = null;
+		mContentStream = content;
+		mContentLength = length;
+	}
+
+	/**
+	 * Returns the request content stream, if set
+	 */
+	public InputStream getContentStream() {
+		return mContentStream;
+	}
+
+	/**
+	 * Returns the length of the request content stream, or -1 if unknown
+	 */
+	public long getContentLength() {
+		return mContentLength;
+	}
+
+	/**
+	 * Sets the size of the chunks used to send the content stream
+	 */
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize");
+		}
+		mChunkSize = chunkSize;
+	}
+
+	/**
+	 * Returns the size of the chunks used to send the content stream
+	 */
+	public int getChunkSize() {
+		return mChunkSize;
 	}
 
 	/**
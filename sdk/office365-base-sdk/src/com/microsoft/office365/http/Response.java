@@ -6,6 +6,7 @@
 package com.microsoft.office365.http;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -47,8 +48,22 @@ public interface Response {
 	 */
 	public byte[] readAllBytes() throws IOException;
 
+	/**
+	 * Returns the response stream, to read the content without buffering it.
+	 * It can only be read while the response is being handled, and must not
+	 * be mixed with the read methods.
+	 */
+	public InputStream getStream();
+
 	/**
 	 * Returns the response HTTP Status code
 	 */
 	public int getStatus();
+
+	/**
+	 * Closes the response stream. The connection closes it on errors and
+	 * cancellation; once the response has been delivered, the code handling
+	 * it must close it when done.
+	 */
+	public void close();
 }
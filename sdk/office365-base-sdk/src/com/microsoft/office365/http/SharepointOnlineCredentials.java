@@ -39,14 +39,21 @@ public class SharepointOnlineCredentials extends OAuthCredentials {
 	private static final String ACCESS_TOKEN_REQUEST_CONTENT_WITH_REFRESH_TOKEN= "grant_type=refresh_token&client_id=%s%%40%s&client_secret=%s&refresh_token=%s&redirect_uri=%s&resource=00000003-0000-0ff1-ce00-000000000000%%2F%s%%40%s";
 	private static final String ACCESS_TOKEN_NODE =  "access_token";
 	private static final String REFRESH_TOKEN_NODE =  "refresh_token";
+	private static final String EXPIRES_IN_NODE =  "expires_in";
 	
 	private String mToken;
 	private String mRefreshToken;
+	private long mExpiresAt;
 	
 	public SharepointOnlineCredentials(String oAuthToken, String refreshToken) {
+		this(oAuthToken, refreshToken, Long.MAX_VALUE);
+	}
+	
+	public SharepointOnlineCredentials(String oAuthToken, String refreshToken, long expiresAt) {
 		super(oAuthToken);
 		mToken = oAuthToken;
 		mRefreshToken = refreshToken;
+		mExpiresAt = expiresAt;
 	}
 	
 	@Override
@@ -60,8 +67,7 @@ public class SharepointOnlineCredentials extends OAuthCredentials {
 		
 		final OfficeFuture<SharepointOnlineCredentials> credentialsFuture = new OfficeFuture<SharepointOnlineCredentials>();
 		
-		URL url = new URL(siteUrl);
-		final String sharepointHost = url.getHost();
+		final URL url = new URL(siteUrl);
 		
 		String authCodeUrl = String.format(AUTHORIZATION_CODE_REQUEST_URL_FORMAT, siteUrl, clientId, redirectUrl);
 		
@@ -78,34 +84,10 @@ public class SharepointOnlineCredentials extends OAuthCredentials {
 			
 			@Override
 			public void run(String accessCode) throws Exception {
-				HttpConnection connection = Platform.createHttpConnection();
-				
-				Request get = new Request("POST");
-				get.addHeader("Content-Type", "application/x-www-form-urlencoded");
-				String accessTokenRequestUrl = String.format(ACCESS_TOKEN_REQUEST_URL_FORMAT, office365Domain);
-				get.setUrl(accessTokenRequestUrl);
-				
-				String requestContent;
-				
-				if (refreshToken == null) {
-					requestContent = String.format(ACCESS_TOKEN_REQUEST_CONTENT_WITH_AUTHORIZATION_CODE, encode(clientId), office365Domain, encode(clientSecret), accessCode, redirectUrl, sharepointHost, office365Domain);
-				} else {
-					requestContent = String.format(ACCESS_TOKEN_REQUEST_CONTENT_WITH_REFRESH_TOKEN, encode(clientId), office365Domain, encode(clientSecret), refreshToken, redirectUrl, sharepointHost, office365Domain);
-				}
-				
-				get.setContent(requestContent);
-				
-				HttpConnectionFuture accessTokenFuture = connection.execute(get);
-				
-				accessTokenFuture.onError(new ErrorCallback() {
-					
-					@Override
-					public void onError(Throwable error) {
-						credentialsFuture.triggerError(error);
-					}
-				});
-				
-				accessTokenFuture.onTimeout(new ErrorCallback() {
+				OfficeFuture<OAuthToken> tokenFuture = requestToken(url, clientId, redirectUrl, office365Domain,
+						clientSecret, accessCode, refreshToken);
+
+				tokenFuture.onError(new ErrorCallback() {
 					
 					@Override
 					public void onError(Throwable error) {
@@ -113,24 +95,12 @@ public class SharepointOnlineCredentials extends OAuthCredentials {
 					}
 				});
 				
-				accessTokenFuture.done(new Action<Response>() {
+				tokenFuture.done(new Action<OAuthToken>() {
 					
 					@Override
-					public void run(Response accessTokenResponse) throws Exception {
-						String content = accessTokenResponse.readToEnd();
-						
-						JSONObject json = new JSONObject(content);
-						
-						String accessToken = json.getString(ACCESS_TOKEN_NODE);
-						
-						String newRefreshToken;
-						if (json.has(REFRESH_TOKEN_NODE)) {
-							newRefreshToken = json.getString(REFRESH_TOKEN_NODE);
-						} else {
-							newRefreshToken = refreshToken;
-						}
-						
-						credentialsFuture.setResult(new SharepointOnlineCredentials(accessToken, newRefreshToken));
+					public void run(OAuthToken token) throws Exception {
+						credentialsFuture.setResult(new SharepointOnlineCredentials(token.getAccessToken(),
+								token.getRefreshToken(), token.getExpiresAt()));
 					}
 				});
 			}
@@ -146,8 +116,126 @@ public class SharepointOnlineCredentials extends OAuthCredentials {
 		
 		return credentialsFuture;
 	}
-	
 
+	/**
+	 * Exchanges an authorization code, or a refresh token, for an access token
+	 * 
+	 * @param siteUrl
+	 *            The SharePoint site URL
+	 * @param accessCode
+	 *            The authorization code, if refreshToken is null
+	 * @param refreshToken
+	 *            The refresh token, or null
+	 * @return The access token, with its refresh token and expiry time
+	 */
+	public static OfficeFuture<OAuthToken> requestToken(URL siteUrl, String clientId, String redirectUrl,
+			String office365Domain, String clientSecret, String accessCode, final String refreshToken) {
+
+		final OfficeFuture<OAuthToken> tokenFuture = new OfficeFuture<OAuthToken>();
+		final String sharepointHost = siteUrl.getHost();
+
+		HttpConnection connection = Platform.createHttpConnection();
+		
+		Request get = new Request("POST");
+		get.addHeader("Content-Type", "application/x-www-form-urlencoded");
+		String accessTokenRequestUrl = String.format(ACCESS_TOKEN_REQUEST_URL_FORMAT, office365Domain);
+		get.setUrl(accessTokenRequestUrl);
+		
+		String requestContent;
+		if (refreshToken == null) {
+			requestContent = String.format(ACCESS_TOKEN_REQUEST_CONTENT_WITH_AUTHORIZATION_CODE, encode(clientId), office365Domain, encode(clientSecret), accessCode, redirectUrl, sharepointHost, office365Domain);
+		} else {
+			requestContent = String.format(ACCESS_TOKEN_REQUEST_CONTENT_WITH_REFRESH_TOKEN, encode(clientId), office365Domain, encode(clientSecret), refreshToken, redirectUrl, sharepointHost, office365Domain);
+		}
+		
+		get.setContent(requestContent);
+		
+		HttpConnectionFuture accessTokenFuture = connection.execute(get);
+		
+		accessTokenFuture.onError(new ErrorCallback() {
+			
+			@Override
+			public void onError(Throwable error) {
+				tokenFuture.triggerError(error);
+			}
+		});
+		
+		accessTokenFuture.onTimeout(new ErrorCallback() {
+			
+			@Override
+			public void onError(Throwable error) {
+				tokenFuture.triggerError(error);
+			}
+		});
+		
+		accessTokenFuture.done(new Action<Response>() {
+			
+			@Override
+			public void run(Response accessTokenResponse) throws Exception {
+				String content;
+				try {
+					content = accessTokenResponse.readToEnd();
+				} finally {
+					accessTokenResponse.close();
+				}
+				
+				JSONObject json = new JSONObject(content);
+				
+				String accessToken = json.getString(ACCESS_TOKEN_NODE);
+				String newRefreshToken;
+				if (json.has(REFRESH_TOKEN_NODE)) {
+					newRefreshToken = json.getString(REFRESH_TOKEN_NODE);
+				} else {
+					newRefreshToken = refreshToken;
+				}
+				
+				if (json.has(EXPIRES_IN_NODE)) {
+					tokenFuture.setResult(OAuthToken.expiringIn(accessToken, newRefreshToken,
+							json.getLong(EXPIRES_IN_NODE)));
+				} else {
+					tokenFuture.setResult(new OAuthToken(accessToken, newRefreshToken, Long.MAX_VALUE));
+				}
+			}
+		});
+		
+		return tokenFuture;
+	}
+
+	/**
+	 * Creates a token provider exchanging the refresh token of the current
+	 * token for a new one, to be used with an OAuthCredentialsManager
+	 * 
+	 * @param siteUrl
+	 *            The SharePoint site URL
+	 * @return The token provider
+	 */
+	public static TokenProvider createTokenProvider(String siteUrl, final String clientId,
+			final String redirectUrl, final String office365Domain, final String clientSecret)
+			throws MalformedURLException {
+
+		final URL url = new URL(siteUrl);
+		return new TokenProvider() {
+
+			@Override
+			public OfficeFuture<OAuthToken> requestToken(OAuthToken current) {
+				if (current.getRefreshToken() == null) {
+					throw new IllegalStateException("No refresh token");
+				}
+
+				return SharepointOnlineCredentials.requestToken(url, clientId, redirectUrl, office365Domain,
+						clientSecret, null, current.getRefreshToken());
+			}
+		};
+	}
+
+	/**
+	 * Returns the token, with its refresh token and expiry time, e.g. to
+	 * create an OAuthCredentialsManager renewing it
+	 */
+	public OAuthToken getOAuthToken() {
+		return new OAuthToken(mToken, mRefreshToken, mExpiresAt);
+	}
+	
 	protected static String encode(String clientId) {
 		@SuppressWarnings("deprecation")
 		String encoded = URLEncoder.encode(clientId);
@@ -6,7 +6,6 @@
 package com.microsoft.office365.http;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -21,6 +20,10 @@ import com.microsoft.office365.Constants;
  * Response implementation based on an InputStream
  */
 public class StreamResponse implements Response {
+	private static final String CONTENT_LENGTH_HEADER = "Content-Length";
+	private static final int BUFFER_SIZE = 8192;
+	private static final int MAX_INITIAL_BUFFER_SIZE = 64 * 1024;
+
 	private BufferedReader mReader;
 	private InputStream mStream;
 	private int mStatus;
@@ -72,13 +75,65 @@ public class StreamResponse implements Response {
 
 	@Override
 	public byte[] readAllBytes() throws IOException {
-		 ByteArrayOutputStream os = new ByteArrayOutputStream();
-		 int nRead;
-		 byte[] data = new byte[1024];
-
-		 while ((nRead = mStream.read(data, 0, data.length)) != -1) {
-		   os.write(data, 0, nRead);
-		 }
-		 return os.toByteArray();
+		// the declared length only sizes the initial buffer, up to a limit, so
+		// that a bogus header cannot allocate it upfront; the content is read
+		// to the end whatever its length
+		int length = getContentLength();
+		byte[] content = new byte[length >= 0 ? Math.min(length, MAX_INITIAL_BUFFER_SIZE) : BUFFER_SIZE];
+		int offset = 0;
+		while (true) {
+			if (offset == content.length) {
+				// an exactly sized buffer is returned without a copy
+				int next = mStream.read();
+				if (next == -1) {
+					return content;
+				}
+
+				byte[] larger = new byte[Math.max(content.length * 2, BUFFER_SIZE)];
+				System.arraycopy(content, 0, larger, 0, offset);
+				content = larger;
+				content[offset++] = (byte) next;
+			}
+
+			int nRead = mStream.read(content, offset, content.length - offset);
+			if (nRead == -1) {
+				break;
+			}
+			offset += nRead;
+		}
+
+		byte[] truncated = new byte[offset];
+		System.arraycopy(content, 0, truncated, 0, offset);
+		return truncated;
+	}
+
+	@Override
+	public InputStream getStream() {
+		return mStream;
+	}
+
+	@Override
+	public void close() {
+		try {
+			mStream.close();
+		} catch (IOException e) {
+		}
+	}
+
+	/**
+	 * Returns the Content-Length header value, or -1 if it is missing
+	 */
+	private int getContentLength() {
+		for (Map.Entry<String, List<String>> header : mHeaders.entrySet()) {
+			if (CONTENT_LENGTH_HEADER.equalsIgnoreCase(header.getKey()) && header.getValue() != null
+					&& header.getValue().size() > 0) {
+				try {
+					return Integer.parseInt(header.getValue().get(0).trim());
+				} catch (NumberFormatException e) {
+					return -1;
+				}
+			}
+		}
+		return -1;
 	}
 }
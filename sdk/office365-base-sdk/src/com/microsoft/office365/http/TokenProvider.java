@@ -5,21 +5,19 @@
  ******************************************************************************/
 package com.microsoft.office365.http;
 
+import com.microsoft.office365.OfficeFuture;
+
 /**
- * A thread that can release resources when stopped
+ * Obtains new OAuth tokens, e.g. by exchanging a refresh token
  */
-abstract class NetworkThread extends Thread {
-	
-	/**
-	 * Initializes the NetworkThread
-	 * @param target runnable to execute
-	 */
-	public NetworkThread(Runnable target) {
-    	super(target);
-    }
-	
+public interface TokenProvider {
+
 	/**
-	 * Releases resources and stops the thread
+	 * Requests a new token
+	 * 
+	 * @param current
+	 *            The token being replaced
+	 * @return The new token
 	 */
-	abstract void releaseAndStop();
+	public OfficeFuture<OAuthToken> requestToken(OAuthToken current);
 }
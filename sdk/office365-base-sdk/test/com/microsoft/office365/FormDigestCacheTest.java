@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FormDigestCacheTest {
+
+	private static final String SITE = "https://contoso.sharepoint.com/site/";
+
+	private FormDigestCache mCache;
+
+	private AtomicInteger mContextInfoCount;
+
+	private List<OfficeFuture<JSONObject>> mRequests;
+
+	private Function<String, OfficeFuture<JSONObject>> mContextInfo;
+
+	@Before
+	public void setUp() {
+		mCache = new FormDigestCache();
+		mContextInfoCount = new AtomicInteger();
+		mRequests = new ArrayList<OfficeFuture<JSONObject>>();
+		mContextInfo = new Function<String, OfficeFuture<JSONObject>>() {
+
+			@Override
+			public OfficeFuture<JSONObject> apply(String siteUrl) {
+				mContextInfoCount.incrementAndGet();
+				OfficeFuture<JSONObject> request = new OfficeFuture<JSONObject>();
+				synchronized (mRequests) {
+					mRequests.add(request);
+				}
+				return request;
+			}
+		};
+	}
+
+	private static JSONObject contextInfo(String digest, long timeoutSeconds) throws Exception {
+		return new JSONObject().put("d", new JSONObject().put("GetContextWebInformation",
+				new JSONObject().put("FormDigestValue", digest).put("FormDigestTimeoutSeconds", timeoutSeconds)));
+	}
+
+	private void respond(int request, String digest, long timeoutSeconds) throws Exception {
+		mRequests.get(request).setResult(contextInfo(digest, timeoutSeconds));
+	}
+
+	@Test
+	public void returnsCachedDigest() throws Exception {
+		OfficeFuture<String> first = mCache.get(SITE, mContextInfo);
+		respond(0, "d1", 1800);
+		assertEquals("d1", first.get(5, TimeUnit.SECONDS));
+
+		assertEquals("d1", mCache.get(SITE, mContextInfo).get(5, TimeUnit.SECONDS));
+		assertEquals("d1", mCache.get(SITE, mContextInfo).get(5, TimeUnit.SECONDS));
+		assertEquals(1, mContextInfoCount.get());
+
+		mCache.get("https://contoso.sharepoint.com/other/", mContextInfo);
+		assertEquals(2, mContextInfoCount.get());
+	}
+
+	@Test
+	public void sharesRefreshBetweenConcurrentCallers() throws Exception {
+		final int callers = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<OfficeFuture<String>> digests = new ArrayList<OfficeFuture<String>>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < callers; i++) {
+			Thread thread = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					OfficeFuture<String> digest = mCache.get(SITE, mContextInfo);
+					synchronized (digests) {
+						digests.add(digest);
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join(5000);
+		}
+
+		assertEquals(1, mContextInfoCount.get());
+		assertEquals(callers, digests.size());
+
+		// cancelling a caller does not cancel the refresh of the others
+		digests.get(0).cancel();
+		respond(0, "d1", 1800);
+		for (OfficeFuture<String> digest : digests.subList(1, callers)) {
+			assertEquals("d1", digest.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, mContextInfoCount.get());
+	}
+
+	@Test
+	public void renewsExpiredDigest() throws Exception {
+		mCache.get(SITE, mContextInfo);
+		// a 1 second digest is renewed a tenth of its lifetime early
+		respond(0, "d1", 1);
+		Thread.sleep(1000);
+
+		OfficeFuture<String> renewed = mCache.get(SITE, mContextInfo);
+		assertEquals(2, mContextInfoCount.get());
+		respond(1, "d2", 1800);
+		assertEquals("d2", renewed.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void invalidatesOnlyTheExpiredDigest() throws Exception {
+		mCache.get(SITE, mContextInfo);
+		respond(0, "d1", 1800);
+
+		mCache.invalidate(SITE, "d1");
+		OfficeFuture<String> renewed = mCache.get(SITE, mContextInfo);
+		respond(1, "d2", 1800);
+		assertEquals("d2", renewed.get(5, TimeUnit.SECONDS));
+
+		// a caller that still had the old digest does not drop the new one
+		mCache.invalidate(SITE, "d1");
+		assertEquals("d2", mCache.get(SITE, mContextInfo).get(5, TimeUnit.SECONDS));
+		assertEquals(2, mContextInfoCount.get());
+	}
+
+	@Test
+	public void retriesAfterFailedRefresh() throws Exception {
+		OfficeFuture<String> failed = mCache.get(SITE, mContextInfo);
+		mRequests.get(0).triggerError(new IllegalStateException("offline"));
+		try {
+			failed.get(5, TimeUnit.SECONDS);
+			fail("The refresh should have failed");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+
+		OfficeFuture<String> retried = mCache.get(SITE, mContextInfo);
+		assertFalse(retried.isDone());
+		assertEquals(2, mContextInfoCount.get());
+		respond(1, "d1", 1800);
+		assertEquals("d1", retried.get(5, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class JsonStreamReaderTest {
+
+	private static JSONObject read(String json) throws Exception {
+		JsonStreamReader reader = new JsonStreamReader(new StringReader(json));
+		try {
+			return (JSONObject) reader.nextValue();
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void readsNumbers() throws Exception {
+		JSONObject json = read("{\"int\": 42, \"long\": 4294967296, \"double\": 1.5, \"exp\": -2E3}");
+
+		assertEquals(Integer.valueOf(42), json.get("int"));
+		assertEquals(Long.valueOf(4294967296L), json.get("long"));
+		assertEquals(Double.valueOf(1.5), json.get("double"));
+		assertEquals(Double.valueOf(-2000), json.get("exp"));
+	}
+
+	@Test
+	public void readsIntegersBeyondLongAsDouble() throws Exception {
+		JSONObject json = read("{\"big\": 18446744073709551616, \"negative\": -18446744073709551616}");
+
+		assertEquals(Double.valueOf(18446744073709551616d), json.get("big"));
+		assertEquals(Double.valueOf(-18446744073709551616d), json.get("negative"));
+	}
+
+	@Test
+	public void rejectsInvalidLiterals() throws Exception {
+		for (String literal : new String[] { "12a", "-", "0x10", "1f", "truth" }) {
+			try {
+				read("{\"value\": " + literal + "}");
+				fail("Accepted " + literal);
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class OfficeEntityTest {
+
+	private static final String RESULTS = "{\"d\":{\"results\":[{\"Name\":\"a\"},{\"Name\":\"b\"}]}}";
+
+	public static class Item extends OfficeEntity {
+	}
+
+	public static class Unconstructible extends OfficeEntity {
+
+		public Unconstructible(String name) {
+		}
+	}
+
+	@Test
+	public void readsList() throws Exception {
+		List<Item> items = OfficeEntity.listFromJson(new JSONObject(RESULTS), Item.class);
+		assertEquals(2, items.size());
+		assertEquals("b", items.get(1).getJsonData().getString("Name"));
+	}
+
+	@Test
+	public void failsOnUnconstructibleClass() throws Exception {
+		try {
+			OfficeEntity.listFromJson(new JSONObject(RESULTS), Unconstructible.class);
+			fail("Items should not be skipped");
+		} catch (IllegalArgumentException e) {
+			assertEquals(InstantiationException.class, e.getCause().getClass());
+		}
+
+		JsonStreamReader reader = new JsonStreamReader(new ByteArrayInputStream(RESULTS.getBytes("UTF-8")));
+		try {
+			OfficeEntity.listFromJson(reader, Unconstructible.class, new Action<Unconstructible>() {
+
+				@Override
+				public void run(Unconstructible item) {
+					fail("No item should be read");
+				}
+			});
+			fail("Items should not be skipped");
+		} catch (IllegalArgumentException e) {
+			assertEquals(InstantiationException.class, e.getCause().getClass());
+		}
+	}
+}
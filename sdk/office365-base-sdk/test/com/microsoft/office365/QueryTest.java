@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.microsoft.office365.http.Request;
+
+public class QueryTest {
+
+	@Test
+	public void reusesCompiledQueryUntilChanged() {
+		Query query = new Query().field("Title").eq("a");
+		CompiledQuery compiled = query.compile();
+		assertSame(compiled, query.compile());
+
+		query.and().field("Id").gt(1);
+		CompiledQuery changed = query.compile();
+		assertNotSame(compiled, changed);
+		assertEquals("$filter=Title+eq+('a')+and+Id+gt+(1)", changed.render());
+
+		query.top(5);
+		assertEquals("$filter=Title+eq+('a')+and+Id+gt+(1)&$top=5", query.compile().render());
+	}
+
+	@Test
+	public void recompilesWhenNestedQueryChanges() {
+		Query nested = new Query().field("Id").gt(1);
+		Query query = new Query().field("Title").eq("a").and(nested);
+		assertEquals("$filter=Title+eq+('a')+and+(Id+gt+(1))", query.compile().render());
+
+		nested.or().field("Id").lt(0);
+		assertEquals("$filter=Title+eq+('a')+and+(Id+gt+(1)+or+Id+lt+(0))", query.compile().render());
+	}
+
+	@Test
+	public void keepsCompiledQueryWhenOtherQueriesChange() {
+		Query query = new Query().field("Title").eq("a");
+		CompiledQuery compiled = query.compile();
+
+		new Query().field("Id").gt(1);
+		assertSame(compiled, query.compile());
+	}
+
+	@Test
+	public void recompilesAllQueriesSharingNestedQuery() {
+		Query nested = new Query().field("Id").gt(1);
+		Query first = new Query().field("Title").eq("a").and(nested);
+		Query second = new Query().field("Title").eq("b").or(nested);
+		CompiledQuery compiled = second.compile();
+		first.compile();
+
+		nested.and().field("Id").lt(9);
+		assertEquals("$filter=Title+eq+('a')+and+(Id+gt+(1)+and+Id+lt+(9))", first.compile().render());
+		assertNotSame(compiled, second.compile());
+	}
+
+	@Test
+	public void encodesThroughClient() {
+		OfficeClient client = new OfficeClient(new Credentials() {
+
+			@Override
+			public void prepareRequest(Request request) {
+			}
+		}) {
+
+			@Override
+			protected String queryEncode(String query) {
+				return query.replace(" ", "%20");
+			}
+		};
+
+		Query query = new Query().field("Title").eq().param("title").top(5);
+		Map<String, Object> values = new HashMap<String, Object>();
+		values.put("title", "a b");
+		assertEquals("$filter=Title%20eq%20'a%20b'&$top=5",
+				client.generateODataQueryString(query.compile(), values));
+		assertEquals("$filter=Title%20eq%20('x')", client.generateODataQueryString(new Query().field("Title")
+				.eq("x")));
+	}
+
+	@Test
+	public void addsIdPropertyBeforeCaching() {
+		Query query = new Query().select("Title");
+		CompiledQuery compiled = query.compile();
+		assertEquals("$filter=&$select=Title%2Cid", compiled.render());
+		assertSame(compiled, query.compile());
+	}
+
+	@Test
+	public void rendersParameters() {
+		CompiledQuery compiled = new Query().field("Title").eq().param("title").and().field("Id")
+				.gt().param("id").compile();
+
+		Map<String, Object> values = new HashMap<String, Object>();
+		values.put("title", "o'neil");
+		values.put("id", 3);
+		assertEquals("$filter=Title+eq+'o''neil'+and+Id+gt+3", compiled.render(values));
+		assertEquals("$filter=Title eq @title and Id gt @id", compiled.toString().replace('+', ' '));
+	}
+}
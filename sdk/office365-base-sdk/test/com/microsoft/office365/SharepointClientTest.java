@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.office365.http.InvalidHttpStatusCodeException;
+import com.microsoft.office365.http.Request;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class SharepointClientTest {
+
+	private static final String EXPIRED_ERROR = "{\"error\":{\"code\":\"-2130575251, Microsoft.SharePoint.SPException\"}}";
+
+	private static final String DENIED_ERROR = "{\"error\":{\"code\":\"-2147024891, System.UnauthorizedAccessException\"}}";
+
+	private HttpServer mServer;
+
+	private String mServerUrl;
+
+	private Credentials mCredentials;
+
+	private final AtomicInteger mContextInfoCount = new AtomicInteger();
+
+	private final AtomicInteger mWriteCount = new AtomicInteger();
+
+	/**
+	 * Digest the server accepts; others are rejected as expired
+	 */
+	private volatile String mValidDigest = "d1";
+
+	/**
+	 * Error sent for every write, if any
+	 */
+	private volatile String mWriteError = null;
+
+	private static class Client extends SharepointClient {
+
+		Client(String serverUrl, Credentials credentials) {
+			super(serverUrl, "site", credentials);
+		}
+
+		OfficeFuture<JSONObject> write() {
+			return executeRequestJsonWithDigest(getSiteUrl() + "_api/write", "POST", null,
+					"{}".getBytes());
+		}
+	}
+
+	private static void send(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] content = body.getBytes("UTF-8");
+		exchange.sendResponseHeaders(status, content.length);
+		exchange.getResponseBody().write(content);
+		exchange.close();
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		mServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		mServer.setExecutor(Executors.newCachedThreadPool());
+		mServer.createContext("/site/_api/contextinfo", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				mContextInfoCount.incrementAndGet();
+				try {
+					// leaves time for concurrent callers to pile up
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				send(exchange, 200, "{\"d\":{\"GetContextWebInformation\":{\"FormDigestValue\":\""
+						+ mValidDigest + "\",\"FormDigestTimeoutSeconds\":1800}}}");
+			}
+		});
+		mServer.createContext("/site/_api/write", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				mWriteCount.incrementAndGet();
+				if (mWriteError != null) {
+					send(exchange, 403, mWriteError);
+				} else if (mValidDigest.equals(exchange.getRequestHeaders().getFirst("X-RequestDigest"))) {
+					send(exchange, 201, "{\"d\":{}}");
+				} else {
+					send(exchange, 403, EXPIRED_ERROR);
+				}
+			}
+		});
+		mServer.start();
+
+		mServerUrl = "http://localhost:" + mServer.getAddress().getPort() + "/";
+		// digests are cached per credentials
+		mCredentials = new Credentials() {
+
+			@Override
+			public void prepareRequest(Request request) {
+			}
+		};
+	}
+
+	@After
+	public void tearDown() {
+		mServer.stop(0);
+	}
+
+	@Test
+	public void reusesDigest() throws Exception {
+		Client client = new Client(mServerUrl, mCredentials);
+		for (int i = 0; i < 5; i++) {
+			client.write().get(5, TimeUnit.SECONDS);
+		}
+		new Client(mServerUrl, mCredentials).write().get(5, TimeUnit.SECONDS);
+
+		assertEquals(1, mContextInfoCount.get());
+		assertEquals(6, mWriteCount.get());
+	}
+
+	@Test
+	public void sharesDigestRequestBetweenConcurrentWrites() throws Exception {
+		Client first = new Client(mServerUrl, mCredentials);
+		Client second = new Client(mServerUrl, mCredentials);
+		List<OfficeFuture<JSONObject>> writes = new ArrayList<OfficeFuture<JSONObject>>();
+		for (int i = 0; i < 20; i++) {
+			writes.add((i % 2 == 0 ? first : second).write());
+		}
+		for (OfficeFuture<JSONObject> write : writes) {
+			write.get(5, TimeUnit.SECONDS);
+		}
+
+		assertEquals(1, mContextInfoCount.get());
+		assertEquals(20, mWriteCount.get());
+	}
+
+	@Test
+	public void retriesWithNewDigestWhenExpired() throws Exception {
+		Client client = new Client(mServerUrl, mCredentials);
+		client.write().get(5, TimeUnit.SECONDS);
+
+		// the server no longer accepts the cached digest
+		mValidDigest = "d2";
+		client.write().get(5, TimeUnit.SECONDS);
+
+		assertEquals(2, mContextInfoCount.get());
+		assertEquals(3, mWriteCount.get());
+	}
+
+	@Test
+	public void retriesOnlyOnce() throws Exception {
+		Client client = new Client(mServerUrl, mCredentials);
+		mWriteError = EXPIRED_ERROR;
+		try {
+			client.write().get(5, TimeUnit.SECONDS);
+			fail("The write should have failed");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof InvalidHttpStatusCodeException);
+		}
+
+		assertEquals(2, mContextInfoCount.get());
+		assertEquals(2, mWriteCount.get());
+	}
+
+	@Test
+	public void doesNotRetryOtherForbiddenErrors() throws Exception {
+		Client client = new Client(mServerUrl, mCredentials);
+		mWriteError = DENIED_ERROR;
+		try {
+			client.write().get(5, TimeUnit.SECONDS);
+			fail("The write should have failed");
+		} catch (ExecutionException e) {
+			assertEquals(403, ((InvalidHttpStatusCodeException) e.getCause()).getStatusCode());
+		}
+
+		assertEquals(1, mContextInfoCount.get());
+		assertEquals(1, mWriteCount.get());
+	}
+}
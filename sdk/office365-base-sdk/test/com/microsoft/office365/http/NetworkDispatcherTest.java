@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.office365.OfficeFuture;
+
+public class NetworkDispatcherTest {
+
+	private static final int MAX_PER_HOST = 2;
+
+	private NetworkDispatcher mDispatcher;
+
+	@Before
+	public void setUp() {
+		mDispatcher = NetworkDispatcher.newPooledDispatcher(4, MAX_PER_HOST);
+	}
+
+	@After
+	public void tearDown() {
+		mDispatcher.shutdown();
+	}
+
+	private static Runnable await(final CountDownLatch started, final CountDownLatch release) {
+		return new Runnable() {
+
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+	}
+
+	private static void assertRejected(OfficeFuture<?> future) throws Exception {
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("Operation should have been rejected");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+		}
+	}
+
+	@Test
+	public void limitsOperationsPerHost() throws Exception {
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger peak = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(20);
+
+		for (int i = 0; i < 20; i++) {
+			mDispatcher.dispatch(i % 2 == 0 ? "a.example.com" : "b.example.com", new Runnable() {
+
+				@Override
+				public void run() {
+					int current = running.incrementAndGet();
+					int max;
+					while ((max = peak.get()) < current && !peak.compareAndSet(max, current)) {
+						// retry
+					}
+					try {
+						Thread.sleep(20);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					running.decrementAndGet();
+					done.countDown();
+				}
+			});
+		}
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(2 * MAX_PER_HOST, peak.get());
+	}
+
+	@Test
+	public void failsOperationsDispatchedAfterShutdown() throws Exception {
+		mDispatcher.shutdown();
+
+		OfficeFuture<Response> future = new OfficeFuture<Response>();
+		mDispatcher.dispatch("a.example.com", new Runnable() {
+
+			@Override
+			public void run() {
+				fail("Operation should not run");
+			}
+		}, future);
+
+		assertRejected(future);
+		assertEquals(0, mDispatcher.getQueueDepth());
+
+		try {
+			mDispatcher.dispatch("a.example.com", new Runnable() {
+
+				@Override
+				public void run() {
+				}
+			});
+			fail("Dispatch without a future should throw");
+		} catch (RejectedExecutionException e) {
+			assertEquals(0, mDispatcher.getQueueDepth());
+		}
+	}
+
+	@Test
+	public void failsPendingOperationsOnShutdown() throws Exception {
+		mDispatcher.shutdown();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		mDispatcher = new NetworkDispatcher(executor, MAX_PER_HOST);
+
+		CountDownLatch started = new CountDownLatch(MAX_PER_HOST);
+		CountDownLatch release = new CountDownLatch(1);
+		for (int i = 0; i < MAX_PER_HOST; i++) {
+			mDispatcher.dispatch("a.example.com", await(started, release), new OfficeFuture<Response>());
+		}
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		// these wait for a slot of the busy host
+		List<OfficeFuture<Response>> pending = new ArrayList<OfficeFuture<Response>>();
+		for (int i = 0; i < 3; i++) {
+			OfficeFuture<Response> future = new OfficeFuture<Response>();
+			pending.add(future);
+			mDispatcher.dispatch("a.example.com", new Runnable() {
+
+				@Override
+				public void run() {
+					fail("Operation should not run");
+				}
+			}, future);
+		}
+		assertEquals(3, mDispatcher.getQueueDepth());
+
+		mDispatcher.shutdown();
+		release.countDown();
+
+		for (OfficeFuture<Response> future : pending) {
+			assertRejected(future);
+		}
+		// the running operations are only counted out once they return
+		assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals(0, mDispatcher.getQueueDepth());
+		assertEquals(0, mDispatcher.getActiveCount());
+	}
+}
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.office365.Credentials;
+import com.microsoft.office365.Function;
+import com.microsoft.office365.OfficeClient;
+import com.microsoft.office365.OfficeFuture;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class OAuthCredentialsManagerTest {
+
+	private HttpServer mServer;
+
+	private String mTokenUrl;
+
+	private ScheduledExecutorService mScheduler;
+
+	private OAuthCredentialsManager mCredentials;
+
+	private final AtomicInteger mTokenRequests = new AtomicInteger();
+
+	/**
+	 * Number of token requests left to fail; negative fails them all
+	 */
+	private volatile int mFailures = 0;
+
+	private volatile String mLastRefreshToken;
+
+	/**
+	 * Exchanges refresh tokens at the stub token endpoint
+	 */
+	private class TokenEndpoint extends OfficeClient implements TokenProvider {
+
+		TokenEndpoint() {
+			super(new Credentials() {
+
+				@Override
+				public void prepareRequest(Request request) {
+				}
+			});
+		}
+
+		@Override
+		public OfficeFuture<OAuthToken> requestToken(OAuthToken current) {
+			return executeRequestJson(mTokenUrl + "?refresh_token=" + current.getRefreshToken(), "POST")
+					.map(new Function<JSONObject, OAuthToken>() {
+
+						@Override
+						public OAuthToken apply(JSONObject json) throws Exception {
+							return OAuthToken.expiringIn(json.getString("access_token"),
+									json.getString("refresh_token"), json.getLong("expires_in"));
+						}
+					});
+		}
+	}
+
+	private static void send(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] content = body.getBytes("UTF-8");
+		exchange.sendResponseHeaders(status, content.length);
+		exchange.getResponseBody().write(content);
+		exchange.close();
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		mServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		mServer.setExecutor(Executors.newCachedThreadPool());
+		mServer.createContext("/token", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				int request = mTokenRequests.incrementAndGet();
+				mLastRefreshToken = exchange.getRequestURI().getQuery().substring("refresh_token=".length());
+				if (mFailures != 0) {
+					mFailures--;
+					send(exchange, 500, "{\"error\":\"temporarily_unavailable\"}");
+				} else {
+					send(exchange, 200, "{\"access_token\":\"token" + request + "\",\"refresh_token\":\"r"
+							+ request + "\",\"expires_in\":3600}");
+				}
+			}
+		});
+		mServer.start();
+
+		mTokenUrl = "http://localhost:" + mServer.getAddress().getPort() + "/token";
+		mScheduler = Executors.newSingleThreadScheduledExecutor();
+	}
+
+	@After
+	public void tearDown() {
+		if (mCredentials != null) {
+			mCredentials.close();
+		}
+		mScheduler.shutdownNow();
+		mServer.stop(0);
+	}
+
+	private OAuthCredentialsManager createCredentials(long expiresIn, long refreshMargin, long retryDelay) {
+		OAuthToken token = new OAuthToken("token0", "r0", System.currentTimeMillis() + expiresIn);
+		mCredentials = new OAuthCredentialsManager(token, new TokenEndpoint(), mScheduler, refreshMargin,
+				retryDelay);
+		return mCredentials;
+	}
+
+	/**
+	 * Waits until the credentials hold the given token, or the deadline
+	 */
+	private void awaitToken(String accessToken, long deadline) throws InterruptedException {
+		while (!accessToken.equals(mCredentials.getOAuthToken().getAccessToken())
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * Waits until the given number of token requests were answered
+	 */
+	private void awaitTokenRequests(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (mTokenRequests.get() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		// leaves time for the response to be handled
+		Thread.sleep(100);
+		assertEquals(count, mTokenRequests.get());
+	}
+
+	@Test
+	public void renewsBeforeExpiry() throws Exception {
+		long expiresAt = System.currentTimeMillis() + 2000;
+		OAuthCredentialsManager credentials = createCredentials(2000, 500, 200);
+		assertEquals("token0", credentials.getToken());
+
+		awaitToken("token1", expiresAt + 1000);
+		assertTrue("Token renewed after it expired", System.currentTimeMillis() < expiresAt);
+		assertEquals("token1", credentials.getToken());
+		assertEquals("r0", mLastRefreshToken);
+		assertEquals("r1", credentials.getOAuthToken().getRefreshToken());
+		assertEquals(1, mTokenRequests.get());
+	}
+
+	@Test
+	public void retriesFailedRenewalBeforeExpiry() throws Exception {
+		mFailures = 2;
+		// renewed 600 ms before expiry, retried every 150 ms
+		long expiresAt = System.currentTimeMillis() + 3000;
+		OAuthCredentialsManager credentials = createCredentials(3000, 1000, 150);
+
+		awaitToken("token3", expiresAt + 1000);
+		assertTrue("Token renewed after it expired", System.currentTimeMillis() < expiresAt);
+		assertEquals("token3", credentials.getToken());
+		assertEquals(3, mTokenRequests.get());
+	}
+
+	@Test
+	public void stopsRetryingInBackgroundOnceExpired() throws Exception {
+		mFailures = -1;
+		// renewed 200 ms before expiry, retried 300 ms later, after expiry
+		OAuthCredentialsManager credentials = createCredentials(1000, 1000, 300);
+
+		Thread.sleep(2500);
+		assertEquals(2, mTokenRequests.get());
+
+		// a request needing the token retries, then backs off
+		assertEquals("token0", credentials.getToken());
+		awaitTokenRequests(3);
+		credentials.getToken();
+		Thread.sleep(250);
+		credentials.getToken();
+		Thread.sleep(100);
+		assertEquals(3, mTokenRequests.get());
+
+		Thread.sleep(500);
+		credentials.getToken();
+		awaitTokenRequests(4);
+	}
+
+	@Test
+	public void renewsAfterRecoveringFromFailures() throws Exception {
+		mFailures = 2;
+		OAuthCredentialsManager credentials = createCredentials(1000, 1000, 300);
+
+		// both background attempts fail, the second one after expiry
+		Thread.sleep(1600);
+		assertEquals(2, mTokenRequests.get());
+
+		credentials.getToken();
+		awaitToken("token3", System.currentTimeMillis() + 5000);
+		assertEquals("token3", credentials.getToken());
+		assertEquals(3, mTokenRequests.get());
+	}
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365.http;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class StreamResponseTest {
+
+	private static byte[] content(int length) {
+		byte[] content = new byte[length];
+		new Random(1).nextBytes(content);
+		return content;
+	}
+
+	private static byte[] readAllBytes(byte[] content, String contentLength) throws Exception {
+		Map<String, List<String>> headers = new HashMap<String, List<String>>();
+		if (contentLength != null) {
+			headers.put("Content-Length", Arrays.asList(contentLength));
+		}
+
+		return new StreamResponse(new ByteArrayInputStream(content), 200, headers).readAllBytes();
+	}
+
+	@Test
+	public void readsDeclaredLength() throws Exception {
+		byte[] content = content(100000);
+		assertArrayEquals(content, readAllBytes(content, "100000"));
+	}
+
+	@Test
+	public void readsWithoutLength() throws Exception {
+		byte[] content = content(100000);
+		assertArrayEquals(content, readAllBytes(content, null));
+		assertArrayEquals(new byte[0], readAllBytes(new byte[0], null));
+	}
+
+	@Test
+	public void readsEmptyContent() throws Exception {
+		assertArrayEquals(new byte[0], readAllBytes(new byte[0], "0"));
+	}
+
+	@Test
+	public void ignoresBogusLength() throws Exception {
+		byte[] content = content(1000);
+		// must not allocate the declared length upfront
+		assertArrayEquals(content, readAllBytes(content, String.valueOf(Integer.MAX_VALUE)));
+	}
+
+	@Test
+	public void readsBeyondDeclaredLength() throws Exception {
+		byte[] content = content(100000);
+		assertArrayEquals(content, readAllBytes(content, "10"));
+	}
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365.performance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.microsoft.office365.Action;
+import com.microsoft.office365.ErrorCallback;
+
+/**
+ * The lock and Semaphore based OfficeFuture that preceded the lock-free one,
+ * kept as the baseline of OfficeFuturePerfTest
+ */
+class LegacyOfficeFuture<V> {
+    private V mResult = null;
+    private boolean mIsDone = false;
+    private List<Action<V>> mOnDone = new ArrayList<Action<V>>();
+    private Object mDoneLock = new Object();
+    private List<ErrorCallback> mErrorCallback = new ArrayList<ErrorCallback>();
+    private Queue<Throwable> mErrorQueue = new ConcurrentLinkedQueue<Throwable>();
+    private Object mErrorLock = new Object();
+    private Throwable mLastError = null;
+
+    private Semaphore mResultSemaphore = new Semaphore(0);
+
+    public void setResult(V result) {
+        synchronized (mDoneLock) {
+            mResult = result;
+            mIsDone = true;
+
+            if (mOnDone.size() > 0) {
+                for (Action<V> handler : mOnDone) {
+                    try {
+                        handler.run(result);
+                    } catch (Exception e) {
+                        triggerError(e);
+                    }
+                }
+            }
+        }
+
+        mResultSemaphore.release();
+    }
+
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (mResultSemaphore.tryAcquire(timeout, unit)) {
+            if (mLastError != null) {
+                throw new ExecutionException(mLastError);
+            } else {
+                return mResult;
+            }
+        } else {
+            throw new TimeoutException();
+        }
+    }
+
+    public LegacyOfficeFuture<V> done(Action<V> action) {
+        synchronized (mDoneLock) {
+            mOnDone.add(action);
+
+            if (mIsDone) {
+                try {
+                    action.run(mResult);
+                } catch (Exception e) {
+                    triggerError(e);
+                }
+            }
+        }
+
+        return this;
+    }
+
+    public LegacyOfficeFuture<V> onError(ErrorCallback errorCallback) {
+        synchronized (mErrorLock) {
+            mErrorCallback.add(errorCallback);
+            while (!mErrorQueue.isEmpty()) {
+                if (errorCallback != null) {
+                    errorCallback.onError(mErrorQueue.poll());
+                }
+            }
+        }
+
+        return this;
+    }
+
+    public void triggerError(Throwable error) {
+        synchronized (mErrorLock) {
+            mLastError = error;
+            mResultSemaphore.release();
+            if (mErrorCallback.size() > 0) {
+                for (ErrorCallback handler : mErrorCallback) {
+                    handler.onError(error);
+                }
+            } else {
+                mErrorQueue.add(error);
+            }
+        }
+    }
+}
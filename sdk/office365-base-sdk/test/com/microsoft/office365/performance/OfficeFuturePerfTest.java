@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365.performance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.microsoft.office365.Action;
+import com.microsoft.office365.ErrorCallback;
+import com.microsoft.office365.OfficeFuture;
+
+/**
+ * Compares the lock-free OfficeFuture with the lock and Semaphore based one
+ * it replaced: completing futures with handlers and waiting for them on a
+ * single thread, and completing them from worker threads while handlers are
+ * being registered.
+ */
+@BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 20)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class OfficeFuturePerfTest {
+
+	private static final int FUTURES = 100000;
+
+	private static final int HANDLERS = 3;
+
+	private static final int THREADS = 4;
+
+	private static ExecutorService sExecutor;
+
+	@Rule
+	public TestRule benchmarkRun = new BenchmarkRule();
+
+	@BeforeClass
+	public static void setUp() {
+		sExecutor = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		sExecutor.shutdown();
+	}
+
+	private static final ErrorCallback NO_ERROR = new ErrorCallback() {
+
+		@Override
+		public void onError(Throwable error) {
+			throw new AssertionError(error);
+		}
+	};
+
+	private static Action<Integer> count(final AtomicInteger counter) {
+		return new Action<Integer>() {
+
+			@Override
+			public void run(Integer result) {
+				counter.incrementAndGet();
+			}
+		};
+	}
+
+	@Test
+	public void casCompleteAndGet() throws Exception {
+		AtomicInteger handled = new AtomicInteger();
+		Action<Integer> handler = count(handled);
+		for (int i = 0; i < FUTURES; i++) {
+			OfficeFuture<Integer> future = new OfficeFuture<Integer>();
+			future.onError(NO_ERROR);
+			for (int h = 0; h < HANDLERS; h++) {
+				future.done(handler);
+			}
+			future.setResult(i);
+			assertEquals(i, future.get(1, TimeUnit.SECONDS).intValue());
+		}
+		assertEquals(FUTURES * HANDLERS, handled.get());
+	}
+
+	@Test
+	public void legacyCompleteAndGet() throws Exception {
+		AtomicInteger handled = new AtomicInteger();
+		Action<Integer> handler = count(handled);
+		for (int i = 0; i < FUTURES; i++) {
+			LegacyOfficeFuture<Integer> future = new LegacyOfficeFuture<Integer>();
+			future.onError(NO_ERROR);
+			for (int h = 0; h < HANDLERS; h++) {
+				future.done(handler);
+			}
+			future.setResult(i);
+			assertEquals(i, future.get(1, TimeUnit.SECONDS).intValue());
+		}
+		assertEquals(FUTURES * HANDLERS, handled.get());
+	}
+
+	@Test
+	public void casConcurrentHandlers() throws Exception {
+		final AtomicInteger handled = new AtomicInteger();
+		final Action<Integer> handler = count(handled);
+		final CountDownLatch completed = new CountDownLatch(FUTURES);
+		for (int i = 0; i < FUTURES; i++) {
+			final OfficeFuture<Integer> future = new OfficeFuture<Integer>();
+			final int result = i;
+			sExecutor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					future.setResult(result);
+					completed.countDown();
+				}
+			});
+			for (int h = 0; h < HANDLERS; h++) {
+				future.done(handler);
+			}
+		}
+		assertTrue(completed.await(30, TimeUnit.SECONDS));
+		assertEquals(FUTURES * HANDLERS, handled.get());
+	}
+
+	@Test
+	public void legacyConcurrentHandlers() throws Exception {
+		final AtomicInteger handled = new AtomicInteger();
+		final Action<Integer> handler = count(handled);
+		final CountDownLatch completed = new CountDownLatch(FUTURES);
+		for (int i = 0; i < FUTURES; i++) {
+			final LegacyOfficeFuture<Integer> future = new LegacyOfficeFuture<Integer>();
+			final int result = i;
+			sExecutor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					future.setResult(result);
+					completed.countDown();
+				}
+			});
+			for (int h = 0; h < HANDLERS; h++) {
+				future.done(handler);
+			}
+		}
+		assertTrue(completed.await(30, TimeUnit.SECONDS));
+		assertEquals(FUTURES * HANDLERS, handled.get());
+	}
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365.performance;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.microsoft.office365.CompiledQuery;
+import com.microsoft.office365.Query;
+import com.microsoft.office365.QueryOrder;
+
+/**
+ * Renders deep filter chains: building and compiling the query every time,
+ * rendering a query whose compiled form is kept, and rendering a compiled
+ * query with new parameter values every time.
+ */
+@BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 20)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class QueryPerfTest {
+
+	private static final int STEPS = 1000;
+
+	private static final int RENDERS = 100;
+
+	private static Query sQuery;
+
+	private static CompiledQuery sParameterized;
+
+	@Rule
+	public TestRule benchmarkRun = new BenchmarkRule();
+
+	@BeforeClass
+	public static void setUp() {
+		sQuery = buildChain(false);
+		sParameterized = buildChain(true).compile();
+	}
+
+	/**
+	 * Builds Field0 eq 'value 0' and Field1 eq 'value 1' and ..., with
+	 * parameters instead of the values if asked to
+	 */
+	private static Query buildChain(boolean parameters) {
+		Query query = new Query();
+		for (int i = 0; i < STEPS; i++) {
+			if (i > 0) {
+				query.and();
+			}
+			query.field("Field" + i).eq();
+			if (parameters) {
+				query.param("p" + i);
+			} else {
+				query.val("value " + i);
+			}
+		}
+
+		return query.orderBy("Field0", QueryOrder.Ascending).top(10);
+	}
+
+	@Test
+	public void buildAndRender() {
+		for (int i = 0; i < RENDERS; i++) {
+			assertTrue(buildChain(false).compile().render().length() > 0);
+		}
+	}
+
+	@Test
+	public void renderKeptQuery() {
+		for (int i = 0; i < RENDERS; i++) {
+			assertTrue(sQuery.compile().render().length() > 0);
+		}
+	}
+
+	@Test
+	public void renderParameters() {
+		for (int i = 0; i < RENDERS; i++) {
+			Map<String, Object> values = new HashMap<String, Object>();
+			for (int j = 0; j < STEPS; j++) {
+				values.put("p" + j, "value " + (i + j));
+			}
+			assertTrue(sParameterized.render(values).length() > 0);
+		}
+	}
+}
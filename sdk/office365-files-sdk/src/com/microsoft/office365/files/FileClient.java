@@ -5,7 +5,21 @@
  ******************************************************************************/
 package com.microsoft.office365.files;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,15 +30,33 @@ import com.microsoft.office365.Action;
 import com.microsoft.office365.Constants;
 import com.microsoft.office365.Credentials;
 import com.microsoft.office365.ErrorCallback;
+import com.microsoft.office365.Function;
+import com.microsoft.office365.JsonStreamReader;
 import com.microsoft.office365.Logger;
 import com.microsoft.office365.OfficeFuture;
 import com.microsoft.office365.SharepointClient;
+import com.microsoft.office365.http.InvalidHttpStatusCodeException;
+import com.microsoft.office365.http.Request;
+import com.microsoft.office365.http.Response;
 
 /**
  * The Class FileClient.
  */
 public class FileClient extends SharepointClient {
 
+	/**
+	 * Default size of the buffers used to stream file content
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private static final int HTTP_PARTIAL_CONTENT = 206;
+
+	private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+	private static final String ETAG_SUFFIX = ".etag";
+
+	private volatile int mBufferSize = DEFAULT_BUFFER_SIZE;
+
 	/**
 	 * Instantiates a new file API client.
 	 * 
@@ -67,7 +99,36 @@ public class FileClient extends SharepointClient {
 	 */
 	public OfficeFuture<List<FileSystemItem>> getFileSystemItems(String path, String library) {
 
-		final OfficeFuture<List<FileSystemItem>> result = new OfficeFuture<List<FileSystemItem>>();
+		final List<FileSystemItem> items = new ArrayList<FileSystemItem>();
+
+		return getFileSystemItems(path, library, new Action<FileSystemItem>() {
+
+			@Override
+			public void run(FileSystemItem item) throws Exception {
+				items.add(item);
+			}
+		}).map(new Function<Integer, List<FileSystemItem>>() {
+
+			@Override
+			public List<FileSystemItem> apply(Integer count) throws Exception {
+				return items;
+			}
+		});
+	}
+
+	/**
+	 * Gets children folder with a given path, handing each item to the action
+	 * as soon as it is read from the response. The action runs on the network
+	 * thread.
+	 * 
+	 * @param path
+	 * @param library
+	 * @param action
+	 *            the action invoked for each item
+	 * @return OfficeFuture<Integer> the number of items
+	 */
+	public OfficeFuture<Integer> getFileSystemItems(String path, String library,
+			final Action<FileSystemItem> action) {
 
 		String getPath;
 
@@ -89,27 +150,14 @@ public class FileClient extends SharepointClient {
 			}
 		}
 
-		OfficeFuture<JSONObject> request = executeRequestJson(getPath, "GET");
+		return executeRequestJsonStream(getPath, "GET", null, null,
+				new Function<JsonStreamReader, Integer>() {
 
-		request.done(new Action<JSONObject>() {
-			@Override
-			public void run(JSONObject json) throws Exception {
-				List<FileSystemItem> item;
-				try {
-					item = FileSystemItem.listFrom(json);
-					result.setResult(item);
-				} catch (Throwable e) {
-					result.triggerError(e);
-				}
-			}
-		}).onError(new ErrorCallback() {
-
-			@Override
-			public void onError(Throwable error) {
-				result.triggerError(error);
-			}
-		});
-		return result;
+					@Override
+					public Integer apply(JsonStreamReader reader) throws Exception {
+						return FileSystemItem.listFromJson(reader, action);
+					}
+				});
 	}
 
 	public OfficeFuture<FileSystemItem> getFileSystemItem(String path) {
@@ -246,15 +294,460 @@ public class FileClient extends SharepointClient {
 			throw new IllegalArgumentException("Path cannot be null or empty");
 		}
 
-		String getFileUrl;
+		return executeRequest(getFileUrl(path, library), "GET");
+	}
+
+	/**
+	 * Gets the file, copying its content to the given stream as it is
+	 * received, without holding it in memory. The destination is written on
+	 * the network thread and is not closed.
+	 * 
+	 * @param path
+	 * @param library
+	 * @param destination
+	 *            the stream receiving the file content
+	 * @return OfficeFuture<Long> the number of bytes copied
+	 */
+	public OfficeFuture<Long> getFile(String path, String library, final OutputStream destination) {
+		if (path == null || path.length() == 0) {
+			throw new IllegalArgumentException("Path cannot be null or empty");
+		}
+
+		if (destination == null) {
+			throw new IllegalArgumentException("destination cannot be null");
+		}
+
+		return executeRequestStream(getFileUrl(path, library), "GET", null, null,
+				new Function<Response, Long>() {
+
+					@Override
+					public Long apply(Response response) throws Exception {
+						InputStream stream = response.getStream();
+						byte[] buffer = new byte[mBufferSize];
+						long total = 0;
+						int nRead;
+						while ((nRead = stream.read(buffer)) != -1) {
+							destination.write(buffer, 0, nRead);
+							total += nRead;
+						}
+						destination.flush();
+						return total;
+					}
+				});
+	}
+
+	/**
+	 * Downloads the file to a local file. Until the download completes, the
+	 * ETag of the remote file is kept next to the local one, in a file with
+	 * the ".etag" suffix. When resuming, only the part missing from the local
+	 * file is requested, with an If-Range on that ETag: if the remote file
+	 * changed, if there is no ETag or if the server ignores the range, the
+	 * local file is rewritten from the start.
+	 * 
+	 * @param path
+	 * @param library
+	 * @param destination
+	 *            the local file
+	 * @param resume
+	 *            true to continue an interrupted download
+	 * @return OfficeFuture<Long> the size of the local file
+	 */
+	public OfficeFuture<Long> getFile(String path, String library, final File destination,
+			boolean resume) {
+		if (path == null || path.length() == 0) {
+			throw new IllegalArgumentException("Path cannot be null or empty");
+		}
+
+		if (destination == null) {
+			throw new IllegalArgumentException("destination cannot be null");
+		}
+
+		final File etagFile = new File(destination.getPath() + ETAG_SUFFIX);
+		String etag = resume && destination.length() > 0 ? readETag(etagFile) : null;
+
+		// asking again for the last byte on disk keeps the range satisfiable
+		// when the previous attempt had actually completed
+		final long offset = etag != null ? destination.length() - 1 : 0;
+
+		Map<String, String> headers = null;
+		if (offset > 0) {
+			headers = new HashMap<String, String>();
+			headers.put("Range", "bytes=" + offset + "-");
+			headers.put("If-Range", etag);
+		}
+
+		return executeRequestStream(getFileUrl(path, library), "GET", headers, null,
+				new Function<Response, Long>() {
+
+					@Override
+					public Long apply(Response response) throws Exception {
+						long position = 0;
+						if (response.getStatus() == HTTP_PARTIAL_CONTENT) {
+							checkRangeStart(response, offset);
+							position = offset;
+						}
+						if (position == 0) {
+							writeETag(etagFile, getHeaderValue(response, "ETag"));
+						}
+
+						RandomAccessFile file = new RandomAccessFile(destination, "rw");
+						try {
+							FileChannel channel = file.getChannel();
+							long copied = copy(response.getStream(), channel, position);
+							String length = getHeaderValue(response, "Content-Length");
+							if (length != null && copied != Long.parseLong(length.trim())) {
+								// keep the ETag, the download can be resumed
+								throw new IOException("Download interrupted after " + copied + " bytes");
+							}
+
+							long end = position + copied;
+							channel.truncate(end);
+							etagFile.delete();
+							return end;
+						} finally {
+							file.close();
+						}
+					}
+				});
+	}
+
+	/**
+	 * Returns the ETag stored by an interrupted download, or null if there is
+	 * none
+	 */
+	private static String readETag(File etagFile) {
+		if (!etagFile.isFile()) {
+			return null;
+		}
+
+		try {
+			InputStream stream = new FileInputStream(etagFile);
+			try {
+				byte[] content = new byte[(int) etagFile.length()];
+				int read = 0;
+				int nRead;
+				while (read < content.length
+						&& (nRead = stream.read(content, read, content.length - read)) != -1) {
+					read += nRead;
+				}
+				String etag = new String(content, 0, read, Constants.UTF8_NAME).trim();
+				return etag.length() > 0 ? etag : null;
+			} finally {
+				closeQuietly(stream);
+			}
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the ETag of a download that is starting. Weak ETags cannot be
+	 * used in If-Range, so they are not stored.
+	 */
+	private static void writeETag(File etagFile, String etag) throws IOException {
+		if (etag == null || etag.startsWith("W/")) {
+			etagFile.delete();
+			return;
+		}
+
+		OutputStream stream = new FileOutputStream(etagFile);
+		try {
+			stream.write(etag.getBytes(Constants.UTF8_NAME));
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Downloads the file to a local file, fetching ranges of it in parallel.
+	 * Falls back to a single download if the server does not support ranges.
+	 * 
+	 * @param path
+	 * @param library
+	 * @param destination
+	 *            the local file
+	 * @param parts
+	 *            the number of ranges to fetch
+	 * @return OfficeFuture<Long> the size of the local file
+	 */
+	public OfficeFuture<Long> getFile(String path, String library, final File destination,
+			final int parts) {
+		if (path == null || path.length() == 0) {
+			throw new IllegalArgumentException("Path cannot be null or empty");
+		}
+
+		if (destination == null) {
+			throw new IllegalArgumentException("destination cannot be null");
+		}
+
+		if (parts < 1) {
+			throw new IllegalArgumentException("parts must be positive");
+		}
+
+		final String url = getFileUrl(path, library);
+		Map<String, String> headers = new HashMap<String, String>();
+		headers.put("Range", "bytes=0-0");
+
+		// the first byte tells the file size, or the whole file comes back
+		final OfficeFuture<Long> request = executeRequestStream(url, "GET", headers, null,
+				new Function<Response, Long>() {
+
+					@Override
+					public Long apply(Response response) throws Exception {
+						if (response.getStatus() == HTTP_PARTIAL_CONTENT) {
+							checkRangeStart(response, 0);
+							response.readAllBytes();
+							return -1 - parseTotalLength(response);
+						}
+
+						RandomAccessFile file = new RandomAccessFile(destination, "rw");
+						try {
+							FileChannel channel = file.getChannel();
+							long end = copy(response.getStream(), channel, 0);
+							channel.truncate(end);
+							return end;
+						} finally {
+							file.close();
+						}
+					}
+				});
+
+		// an empty file has no first byte, which servers refuse with a 416
+		final OfficeFuture<Long> probe = new OfficeFuture<Long>();
+		request.done(new Action<Long>() {
+
+			@Override
+			public void run(Long probed) {
+				probe.setResult(probed);
+			}
+		});
+		request.onError(new ErrorCallback() {
+
+			@Override
+			public void onError(Throwable error) {
+				if (error instanceof InvalidHttpStatusCodeException
+						&& ((InvalidHttpStatusCodeException) error).getStatusCode() == HTTP_RANGE_NOT_SATISFIABLE) {
+					probe.setResult(-1L);
+				} else {
+					probe.triggerError(error);
+				}
+			}
+		});
+		request.onCancelled(new Runnable() {
+
+			@Override
+			public void run() {
+				probe.cancel();
+			}
+		});
+		probe.onCancelled(new Runnable() {
+
+			@Override
+			public void run() {
+				request.cancel();
+			}
+		});
+
+		return probe.flatMap(new Function<Long, OfficeFuture<Long>>() {
+
+			@Override
+			public OfficeFuture<Long> apply(Long probed) throws Exception {
+				if (probed >= 0) {
+					OfficeFuture<Long> done = new OfficeFuture<Long>();
+					done.setResult(probed);
+					return done;
+				}
+
+				long size = -1 - probed;
+				if (size == 0) {
+					RandomAccessFile file = new RandomAccessFile(destination, "rw");
+					try {
+						file.setLength(0);
+					} finally {
+						file.close();
+					}
+
+					OfficeFuture<Long> done = new OfficeFuture<Long>();
+					done.setResult(0L);
+					return done;
+				}
+
+				return getFileRanges(url, destination, size, parts);
+			}
+		});
+	}
+
+	/**
+	 * Fetches the ranges of a file of known size in parallel, each one written
+	 * at its own position in the local file
+	 */
+	private OfficeFuture<Long> getFileRanges(String url, File destination, final long size,
+			int parts) throws IOException {
+		final RandomAccessFile file = new RandomAccessFile(destination, "rw");
+		file.setLength(size);
+		final FileChannel channel = file.getChannel();
+
+		long partSize = Math.max(1, (size + parts - 1) / parts);
+		final List<OfficeFuture<Long>> ranges = new ArrayList<OfficeFuture<Long>>();
+
+		for (long start = 0; start < size; start += partSize) {
+			final long first = start;
+			long last = Math.min(size, start + partSize) - 1;
+
+			Map<String, String> headers = new HashMap<String, String>();
+			headers.put("Range", "bytes=" + first + "-" + last);
+
+			ranges.add(executeRequestStream(url, "GET", headers, null,
+					new Function<Response, Long>() {
+
+						@Override
+						public Long apply(Response response) throws Exception {
+							if (response.getStatus() != HTTP_PARTIAL_CONTENT) {
+								throw new IOException("Range not supported by the server");
+							}
+							checkRangeStart(response, first);
+							return copy(response.getStream(), channel, first);
+						}
+					}));
+		}
+
+		OfficeFuture<List<Long>> all = OfficeFuture.all(ranges);
+		all.onError(new ErrorCallback() {
+
+			@Override
+			public void onError(Throwable error) {
+				// no point in fetching the other ranges; the last ones have not
+				// been sent yet, cancel them before waiting on the others
+				for (int i = ranges.size() - 1; i >= 0; i--) {
+					ranges.get(i).cancel();
+				}
+				closeQuietly(file);
+			}
+		});
+		all.onCancelled(new Runnable() {
+
+			@Override
+			public void run() {
+				closeQuietly(file);
+			}
+		});
+
+		return all.map(new Function<List<Long>, Long>() {
+
+			@Override
+			public Long apply(List<Long> written) throws Exception {
+				file.close();
+				return size;
+			}
+		});
+	}
+
+	/**
+	 * Sets the size of the buffers used to stream file content
+	 */
+	public void setBufferSize(int bufferSize) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("bufferSize must be positive");
+		}
+		mBufferSize = bufferSize;
+	}
+
+	/**
+	 * Returns the size of the buffers used to stream file content
+	 */
+	public int getBufferSize() {
+		return mBufferSize;
+	}
+
+	/**
+	 * Writes a stream to a channel, starting at the given position
+	 * 
+	 * @return the number of bytes written
+	 */
+	private long copy(InputStream stream, FileChannel channel, long position) throws IOException {
+		ReadableByteChannel source = Channels.newChannel(stream);
+		ByteBuffer buffer = ByteBuffer.allocate(mBufferSize);
+		long total = 0;
+
+		while (source.read(buffer) != -1) {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				total += channel.write(buffer, position + total);
+			}
+			buffer.clear();
+		}
+
+		return total;
+	}
+
+	/**
+	 * Returns the total length from a "Content-Range: bytes first-last/total"
+	 * header
+	 */
+	private static long parseTotalLength(Response response) throws IOException {
+		String value = getHeaderValue(response, "Content-Range");
+		if (value != null) {
+			int slash = value.lastIndexOf('/');
+			if (slash != -1 && !value.endsWith("*")) {
+				return Long.parseLong(value.substring(slash + 1).trim());
+			}
+		}
+		throw new IOException("Missing file size in Content-Range");
+	}
+
+	/**
+	 * Checks that a partial response starts at the requested position, from
+	 * its "Content-Range: bytes first-last/total" header
+	 */
+	private static void checkRangeStart(Response response, long expected) throws IOException {
+		String value = getHeaderValue(response, "Content-Range");
+		if (value != null) {
+			value = value.trim();
+			int dash = value.indexOf('-');
+			if (value.startsWith("bytes ") && dash != -1) {
+				try {
+					if (Long.parseLong(value.substring("bytes ".length(), dash).trim()) == expected) {
+						return;
+					}
+				} catch (NumberFormatException e) {
+				}
+			}
+		}
+		throw new IOException("Content-Range " + value + " does not start at " + expected);
+	}
+
+	/**
+	 * Returns the first value of a response header, whatever the case of its
+	 * name, or null if it is missing
+	 */
+	private static String getHeaderValue(Response response, String name) {
+		for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+			if (name.equalsIgnoreCase(header.getKey()) && header.getValue() != null
+					&& header.getValue().size() > 0) {
+				return header.getValue().get(0);
+			}
+		}
+		return null;
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+		}
+	}
+
+	/**
+	 * Returns the URL of the content of a file
+	 */
+	private String getFileUrl(String path, String library) {
 		if (library == null) {
-			getFileUrl = getSiteUrl() + String.format("_api/files('%s')/$value", urlEncode(path));
+			return getSiteUrl() + String.format("_api/files('%s')/$value", urlEncode(path));
 		} else {
-			getFileUrl = getSiteUrl()
+			return getSiteUrl()
 					+ String.format("_api/web/Lists/GetByTitle('%s')/files('%s')/$value",
 							urlEncode(library), urlEncode(path));
 		}
-		return executeRequest(getFileUrl, "GET");
 	}
 
 	/**
@@ -384,6 +877,105 @@ public class FileClient extends SharepointClient {
 		return result;
 	}
 
+	/**
+	 * Creates the file with a given file name, sending the content as it is
+	 * read from the stream, in chunks of the buffer size when the length is
+	 * unknown. The stream is not closed.
+	 * 
+	 * @param fileName The file
+	 * @param library The library
+	 * @param overwrite True to overwrite
+	 * @param content The content stream
+	 * @param length The content length, or -1 if unknown
+	 * @return OfficeFuture<FileSystemItem>
+	 */
+	public OfficeFuture<FileSystemItem> createFile(String fileName, String library,
+			boolean overwrite, InputStream content, long length) {
+
+		if (fileName == null || fileName.length() == 0) {
+			throw new IllegalArgumentException("fileName cannot be null or empty");
+		}
+
+		if (content == null) {
+			throw new IllegalArgumentException("content cannot be null");
+		}
+
+		String urlPart = urlEncode(String.format("Add(name='%s', overwrite='%s')", fileName,
+				Boolean.toString(overwrite)));
+
+		String url;
+		if (library == null || library.length() == 0) {
+			url = getSiteUrl() + "_api/files/" + urlPart;
+		} else {
+			url = getSiteUrl()
+					+ String.format("_api/web/lists/getbytitle('%s')/files/", urlEncode(library))
+					+ urlPart;
+		}
+
+		Request request = new Request("POST");
+		request.setUrl(url);
+		request.addHeader("Content-Type", "application/octet-stream");
+		request.setContent(content, length);
+		request.setChunkSize(mBufferSize);
+
+		return executeRequestWithDigest(request, new Function<Response, FileSystemItem>() {
+
+			@Override
+			public FileSystemItem apply(Response response) throws Exception {
+				FileSystemItem item = new FileSystemItem();
+				item.loadFromJson((JSONObject) new JsonStreamReader(response.getStream()).nextValue(),
+						true);
+				return item;
+			}
+		});
+	}
+
+	/**
+	 * Creates the file with a given file name, streaming the content of a
+	 * local file
+	 * 
+	 * @param fileName The file
+	 * @param library The library
+	 * @param overwrite True to overwrite
+	 * @param source The local file
+	 * @return OfficeFuture<FileSystemItem>
+	 */
+	public OfficeFuture<FileSystemItem> createFile(String fileName, String library,
+			boolean overwrite, File source) throws FileNotFoundException {
+
+		final InputStream content = new FileInputStream(source);
+		Runnable close = new Runnable() {
+
+			@Override
+			public void run() {
+				closeQuietly(content);
+			}
+		};
+
+		OfficeFuture<FileSystemItem> result;
+		try {
+			result = createFile(fileName, library, overwrite, content, source.length());
+		} catch (RuntimeException e) {
+			closeQuietly(content);
+			throw e;
+		}
+		result.onCancelled(close);
+		result.onError(new ErrorCallback() {
+
+			@Override
+			public void onError(Throwable error) {
+				closeQuietly(content);
+			}
+		});
+		return result.then(new Action<FileSystemItem>() {
+
+			@Override
+			public void run(FileSystemItem item) throws Exception {
+				content.close();
+			}
+		});
+	}
+
 	/**
 	 * Creates the file with a given file name and content
 	 * 
@@ -12,6 +12,8 @@ import java.util.Map;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.microsoft.office365.Action;
+import com.microsoft.office365.JsonStreamReader;
 import com.microsoft.office365.OfficeEntity;
 
 /**
@@ -70,6 +72,19 @@ public class FileSystemItem extends OfficeEntity {
 		}
 	}
 
+	/**
+	 * List from json.
+	 * 
+	 * @param json
+	 *            the json
+	 * @return the list
+	 * @throws JSONException
+	 *             the JSON exception
+	 */
+	public static List<FileSystemItem> listFromJson(JSONObject json) throws JSONException {
+		return OfficeEntity.listFromJson(json, FileSystemItem.class);
+	}
+
 	/**
 	 * List from.
 	 * 
@@ -78,9 +93,27 @@ public class FileSystemItem extends OfficeEntity {
 	 * @return the list
 	 * @throws JSONException
 	 *             the JSON exception
+	 * @deprecated use {@link #listFromJson(JSONObject)}
 	 */
+	@Deprecated
 	public static List<FileSystemItem> listFrom(JSONObject json) throws Throwable {
-		return OfficeEntity.listFromJson(json, FileSystemItem.class);
+		return listFromJson(json);
+	}
+
+	/**
+	 * List from json, one item at a time.
+	 * 
+	 * @param reader
+	 *            the reader
+	 * @param action
+	 *            the action invoked for each item
+	 * @return the number of items
+	 * @throws Exception
+	 *             if the JSON is invalid or the action fails
+	 */
+	public static int listFromJson(JsonStreamReader reader, Action<FileSystemItem> action)
+			throws Exception {
+		return OfficeEntity.listFromJson(reader, FileSystemItem.class, action);
 	}
 
 	@Override
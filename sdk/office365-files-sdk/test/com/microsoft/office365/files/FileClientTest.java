@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365.files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.microsoft.office365.http.NetworkDispatcher;
+
+public class FileClientTest {
+
+	private static final int SIZE = 1024 * 1024;
+
+	private static FileServer sServer;
+
+	private static byte[] sContent;
+
+	private FileClient mClient;
+
+	private File mDestination;
+
+	private File mETagFile;
+
+	@BeforeClass
+	public static void startServer() throws IOException {
+		sContent = new byte[SIZE];
+		new Random(1).nextBytes(sContent);
+		sServer = new FileServer();
+	}
+
+	@AfterClass
+	public static void stopServer() {
+		sServer.stop();
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		sServer.reset();
+		sServer.setContent(sContent, "\"1\"");
+		mClient = sServer.createClient();
+		mDestination = File.createTempFile("download", ".bin");
+		mETagFile = new File(mDestination.getPath() + ".etag");
+	}
+
+	@After
+	public void tearDown() {
+		mDestination.delete();
+		mETagFile.delete();
+	}
+
+	private static void write(File file, byte[] content, int length) throws IOException {
+		FileOutputStream stream = new FileOutputStream(file);
+		try {
+			stream.write(content, 0, length);
+		} finally {
+			stream.close();
+		}
+	}
+
+	private static byte[] read(File file) throws IOException {
+		byte[] content = new byte[(int) file.length()];
+		DataInputStream stream = new DataInputStream(new FileInputStream(file));
+		try {
+			stream.readFully(content);
+		} finally {
+			stream.close();
+		}
+		return content;
+	}
+
+	@Test
+	public void resumesUnchangedFile() throws Exception {
+		write(mDestination, sContent, 1000);
+		write(mETagFile, "\"1\"".getBytes("UTF-8"), 3);
+
+		assertEquals(SIZE, mClient.getFile("doc.bin", null, mDestination, true).get().longValue());
+
+		assertEquals("bytes=999-", sServer.getLastRange());
+		assertEquals("\"1\"", sServer.getLastIfRange());
+		assertEquals(206, sServer.getLastStatus());
+		assertArrayEquals(sContent, read(mDestination));
+		assertFalse(mETagFile.exists());
+	}
+
+	@Test
+	public void restartsChangedFile() throws Exception {
+		write(mDestination, sContent, 1000);
+		write(mETagFile, "\"1\"".getBytes("UTF-8"), 3);
+
+		byte[] changed = new byte[SIZE / 2];
+		new Random(2).nextBytes(changed);
+		sServer.setContent(changed, "\"2\"");
+
+		assertEquals(changed.length, mClient.getFile("doc.bin", null, mDestination, true).get().longValue());
+
+		assertEquals("\"1\"", sServer.getLastIfRange());
+		assertEquals(200, sServer.getLastStatus());
+		assertArrayEquals(changed, read(mDestination));
+	}
+
+	@Test
+	public void restartsWithoutStoredETag() throws Exception {
+		write(mDestination, sContent, 1000);
+
+		assertEquals(SIZE, mClient.getFile("doc.bin", null, mDestination, true).get().longValue());
+
+		assertNull(sServer.getLastRange());
+		assertArrayEquals(sContent, read(mDestination));
+	}
+
+	@Test
+	public void keepsETagOfInterruptedDownload() throws Exception {
+		sServer.setTruncateAt(SIZE / 2);
+		try {
+			mClient.getFile("doc.bin", null, mDestination, false).get();
+			fail("Truncated download should fail");
+		} catch (ExecutionException e) {
+			// expected
+		}
+		assertTrue(mETagFile.exists());
+
+		sServer.setTruncateAt(-1);
+		assertEquals(SIZE, mClient.getFile("doc.bin", null, mDestination, true).get().longValue());
+
+		assertEquals(206, sServer.getLastStatus());
+		assertArrayEquals(sContent, read(mDestination));
+		assertFalse(mETagFile.exists());
+	}
+
+	@Test
+	public void downloadsRangesInParallel() throws Exception {
+		assertEquals(SIZE, mClient.getFile("doc.bin", null, mDestination, 4).get().longValue());
+
+		// probe, then one request per range
+		assertEquals(5, sServer.getRequestCount());
+		assertArrayEquals(sContent, read(mDestination));
+	}
+
+	@Test
+	public void cancelsOtherRangesOnFailure() throws Exception {
+		// more ranges than the dispatcher runs at once for a host
+		int parts = 3 * NetworkDispatcher.DEFAULT_MAX_PER_HOST;
+		sServer.setChunkDelay(100);
+		sServer.setFailingRangeStart(SIZE / parts + 1);
+
+		try {
+			mClient.getFile("doc.bin", null, mDestination, parts).get();
+			fail("Failed range should fail the download");
+		} catch (ExecutionException e) {
+			// expected
+		}
+		Thread.sleep(1000);
+
+		// the probe and the first ranges, plus the one that may take the slot
+		// of the failed range before the error cancels the others
+		assertTrue("requests " + sServer.getRequestCount(), sServer.getRequestCount() <= 2 + NetworkDispatcher.DEFAULT_MAX_PER_HOST);
+	}
+
+	@Test
+	public void downloadsEmptyFileInParallel() throws Exception {
+		write(mDestination, sContent, 1000);
+		sServer.setContent(new byte[0], "\"2\"");
+
+		assertEquals(0, mClient.getFile("doc.bin", null, mDestination, 4).get().longValue());
+
+		assertEquals(416, sServer.getLastStatus());
+		assertEquals(1, sServer.getRequestCount());
+		assertEquals(0, mDestination.length());
+	}
+
+	@Test
+	public void rejectsMisplacedRange() throws Exception {
+		sServer.setRangeShift(-1);
+		try {
+			mClient.getFile("doc.bin", null, mDestination, 4).get();
+			fail("Range at the wrong position should fail the download");
+		} catch (ExecutionException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void rejectsMisplacedResumedRange() throws Exception {
+		write(mDestination, sContent, 1000);
+		write(mETagFile, "\"1\"".getBytes("UTF-8"), 3);
+		sServer.setRangeShift(1);
+
+		try {
+			mClient.getFile("doc.bin", null, mDestination, true).get();
+			fail("Range at the wrong position should fail the download");
+		} catch (ExecutionException e) {
+			// expected
+		}
+		assertEquals(1000, mDestination.length());
+	}
+}
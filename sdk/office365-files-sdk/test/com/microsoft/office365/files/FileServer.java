@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365.files;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.microsoft.office365.Credentials;
+import com.microsoft.office365.http.Request;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local server for FileClient tests: serves the content of a single file,
+ * with an ETag, Range and If-Range support
+ */
+public class FileServer {
+
+	private static final int CHUNK_SIZE = 16 * 1024;
+
+	private final HttpServer mServer;
+	private final ExecutorService mExecutor = Executors.newCachedThreadPool();
+
+	private volatile byte[] mContent = new byte[0];
+	private volatile String mETag = "\"0\"";
+	private volatile long mChunkDelay = 0;
+	private volatile long mFailingRangeStart = -1;
+	private volatile int mTruncateAt = -1;
+	private volatile int mRangeShift = 0;
+
+	private volatile String mLastRange;
+	private volatile String mLastIfRange;
+	private volatile int mLastStatus;
+	private final AtomicInteger mRequests = new AtomicInteger();
+	private final AtomicInteger mCompleted = new AtomicInteger();
+	private final AtomicInteger mAborted = new AtomicInteger();
+
+	public FileServer() throws IOException {
+		mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 50);
+		mServer.setExecutor(mExecutor);
+		mServer.createContext("/site/_api/files", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					serve(exchange);
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+		mServer.start();
+	}
+
+	private void serve(HttpExchange exchange) throws IOException {
+		mRequests.incrementAndGet();
+		byte[] content = mContent;
+		String range = exchange.getRequestHeaders().getFirst("Range");
+		String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+		mLastRange = range;
+		mLastIfRange = ifRange;
+
+		int start = 0;
+		int end = content.length - 1;
+		int status = 200;
+		if (range != null && (ifRange == null || ifRange.equals(mETag))) {
+			String[] bounds = range.substring("bytes=".length()).split("-");
+			start = Integer.parseInt(bounds[0]);
+			if (bounds.length > 1) {
+				end = Math.min(end, Integer.parseInt(bounds[1]));
+			}
+			if (start >= content.length) {
+				mLastStatus = 416;
+				exchange.getResponseHeaders().add("Content-Range", "bytes */" + content.length);
+				exchange.sendResponseHeaders(416, -1);
+				return;
+			}
+			if (start == mFailingRangeStart) {
+				byte[] error = "{\"error\":{\"code\":\"-1\"}}".getBytes("UTF-8");
+				mLastStatus = 500;
+				exchange.sendResponseHeaders(500, error.length);
+				exchange.getResponseBody().write(error);
+				return;
+			}
+			status = 206;
+			if (start > 0 && mRangeShift != 0) {
+				start = Math.max(0, start + mRangeShift);
+				end = Math.min(content.length - 1, end + mRangeShift);
+			}
+			exchange.getResponseHeaders().add("Content-Range",
+					"bytes " + start + "-" + end + "/" + content.length);
+		}
+
+		mLastStatus = status;
+		exchange.getResponseHeaders().add("ETag", mETag);
+		exchange.sendResponseHeaders(status, end - start + 1);
+
+		int stop = mTruncateAt >= 0 ? Math.min(end + 1, mTruncateAt) : end + 1;
+		OutputStream body = exchange.getResponseBody();
+		try {
+			for (int position = start; position < stop; position += CHUNK_SIZE) {
+				if (mChunkDelay > 0) {
+					Thread.sleep(mChunkDelay);
+				}
+				body.write(content, position, Math.min(CHUNK_SIZE, stop - position));
+				body.flush();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			// the client went away
+			mAborted.incrementAndGet();
+			throw e;
+		}
+
+		if (stop == end + 1) {
+			mCompleted.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Sets the content of the file, changing its ETag
+	 */
+	public void setContent(byte[] content, String etag) {
+		mContent = content;
+		mETag = etag;
+	}
+
+	/**
+	 * Sets the delay before each chunk of response content is sent
+	 */
+	public void setChunkDelay(long chunkDelay) {
+		mChunkDelay = chunkDelay;
+	}
+
+	/**
+	 * Makes range requests starting at the given position fail with a 500
+	 */
+	public void setFailingRangeStart(long failingRangeStart) {
+		mFailingRangeStart = failingRangeStart;
+	}
+
+	/**
+	 * Makes responses stop after the given content position, or -1 to send
+	 * the whole content
+	 */
+	public void setTruncateAt(int truncateAt) {
+		mTruncateAt = truncateAt;
+	}
+
+	/**
+	 * Makes ranges not starting at 0 be served shifted by the given number of
+	 * bytes, as a misbehaving server would
+	 */
+	public void setRangeShift(int rangeShift) {
+		mRangeShift = rangeShift;
+	}
+
+	public String getLastRange() {
+		return mLastRange;
+	}
+
+	public String getLastIfRange() {
+		return mLastIfRange;
+	}
+
+	public int getLastStatus() {
+		return mLastStatus;
+	}
+
+	public int getRequestCount() {
+		return mRequests.get();
+	}
+
+	public int getCompletedCount() {
+		return mCompleted.get();
+	}
+
+	public int getAbortedCount() {
+		return mAborted.get();
+	}
+
+	public void reset() {
+		mChunkDelay = 0;
+		mFailingRangeStart = -1;
+		mTruncateAt = -1;
+		mRangeShift = 0;
+		mLastRange = null;
+		mLastIfRange = null;
+		mLastStatus = 0;
+		mRequests.set(0);
+		mCompleted.set(0);
+		mAborted.set(0);
+	}
+
+	/**
+	 * Creates a client of the server's "site" site
+	 */
+	public FileClient createClient() {
+		return new FileClient("http://127.0.0.1:" + mServer.getAddress().getPort() + "/", "site",
+				new Credentials() {
+
+					@Override
+					public void prepareRequest(Request request) {
+					}
+				});
+	}
+
+	public void stop() {
+		mServer.stop(0);
+		mExecutor.shutdownNow();
+	}
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) Microsoft Open Technologies, Inc.
+ * All Rights Reserved
+ * See License.txt in the project root for license information.
+ ******************************************************************************/
+package com.microsoft.office365.files.performance;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.microsoft.office365.files.FileClient;
+import com.microsoft.office365.files.FileServer;
+
+/**
+ * Compares the download paths of FileClient: buffering the file in memory,
+ * streaming it to an OutputStream, to a local file, and to a local file in
+ * parallel ranges. The stub server paces every connection, so the ranges
+ * show what they gain on a link whose per-connection throughput is limited.
+ */
+@BenchmarkOptions(warmupRounds = 2, benchmarkRounds = 5)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class FileClientPerfTest {
+
+	private static final int SIZE = 8 * 1024 * 1024;
+
+	private static final int PARTS = 4;
+
+	// per 16 KB chunk, about 16 MB/s per connection
+	private static final long CHUNK_DELAY = 1;
+
+	private static FileServer sServer;
+
+	private static FileClient sClient;
+
+	private static File sDestination;
+
+	@Rule
+	public TestRule benchmarkRun = new BenchmarkRule();
+
+	@BeforeClass
+	public static void setUp() throws IOException {
+		byte[] content = new byte[SIZE];
+		new Random(1).nextBytes(content);
+		sServer = new FileServer();
+		sServer.setContent(content, "\"1\"");
+		sServer.setChunkDelay(CHUNK_DELAY);
+		sClient = sServer.createClient();
+		sDestination = File.createTempFile("download", ".bin");
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		sServer.stop();
+		sDestination.delete();
+	}
+
+	@Test
+	public void getFileBytes() throws Exception {
+		assertEquals(SIZE, sClient.getFile("doc.bin", null).get().length);
+	}
+
+	@Test
+	public void getFileFile() throws Exception {
+		assertEquals(SIZE, sClient.getFile("doc.bin", null, sDestination, false).get().longValue());
+	}
+
+	@Test
+	public void getFileRanges() throws Exception {
+		assertEquals(SIZE, sClient.getFile("doc.bin", null, sDestination, PARTS).get().longValue());
+	}
+
+	@Test
+	public void getFileStream() throws Exception {
+		OutputStream discard = new OutputStream() {
+
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		};
+		assertEquals(SIZE, sClient.getFile("doc.bin", null, discard).get().longValue());
+	}
+}
@@ -12,6 +12,8 @@ import java.util.Map;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.microsoft.office365.Action;
+import com.microsoft.office365.JsonStreamReader;
 import com.microsoft.office365.OfficeEntity;
 
 // TODO: Auto-generated Javadoc
@@ -35,6 +37,22 @@ public class SPListItem extends OfficeEntity {
 	public static List<SPListItem> listFromJson(JSONObject json) throws JSONException {
 		return OfficeEntity.listFromJson(json, SPListItem.class);
 	}
+
+	/**
+	 * List from json, one item at a time.
+	 * 
+	 * @param reader
+	 *            the reader
+	 * @param action
+	 *            the action invoked for each item
+	 * @return the number of items
+	 * @throws Exception
+	 *             if the JSON is invalid or the action fails
+	 */
+	public static int listFromJson(JsonStreamReader reader, Action<SPListItem> action)
+			throws Exception {
+		return OfficeEntity.listFromJson(reader, SPListItem.class, action);
+	}
 	
 	/**
 	 * Instantiates a new SP list item.
@@ -114,23 +114,74 @@ public class SharepointListsClient extends SharepointClient {
 	 * @return the list items
 	 */
 	public OfficeFuture<List<SPListItem>> getListItems(String listName, Query query) {
-		final OfficeFuture<List<SPListItem>> result = new OfficeFuture<List<SPListItem>>();
+		final List<SPListItem> items = new ArrayList<SPListItem>();
 
-		String listNamePart = String.format("_api/web/lists/GetByTitle('%s')/Items?",
-				urlEncode(listName));
-		String getListUrl = getSiteUrl() + listNamePart + generateODataQueryString(query);
-		OfficeFuture<JSONObject> request = executeRequestJson(getListUrl, "GET");
+		return getListItems(listName, query, new Action<SPListItem>() {
 
-		request.done(new Action<JSONObject>() {
+			@Override
+			public void run(SPListItem item) throws Exception {
+				items.add(item);
+			}
+		}).map(new Function<Integer, List<SPListItem>>() {
 
 			@Override
-			public void run(JSONObject json) throws Exception {
-				result.setResult(SPListItem.listFromJson(json));
+			public List<SPListItem> apply(Integer count) throws Exception {
+				return items;
 			}
 		});
+	}
 
-		copyFutureHandlers(request, result);
-		return result;
+	/**
+	 * Gets the list items, handing each one to the action as soon as it is
+	 * read from the response. The action runs on the network thread.
+	 * 
+	 * @param listName
+	 *            the list name
+	 * @param query
+	 *            the query
+	 * @param action
+	 *            the action invoked for each item
+	 * @return the number of items
+	 */
+	public OfficeFuture<Integer> getListItems(String listName, Query query,
+			final Action<SPListItem> action) {
+		return getListItems(listName, generateODataQueryString(query), action);
+	}
+
+	/**
+	 * Gets the list items of a compiled query, handing each one to the action
+	 * as soon as it is read from the response. The action runs on the network
+	 * thread.
+	 * 
+	 * @param listName
+	 *            the list name
+	 * @param query
+	 *            the compiled query
+	 * @param values
+	 *            the query parameter values, by name
+	 * @param action
+	 *            the action invoked for each item
+	 * @return the number of items
+	 */
+	public OfficeFuture<Integer> getListItems(String listName, CompiledQuery query,
+			Map<String, ?> values, final Action<SPListItem> action) {
+		return getListItems(listName, generateODataQueryString(query, values), action);
+	}
+
+	private OfficeFuture<Integer> getListItems(String listName, String queryOData,
+			final Action<SPListItem> action) {
+		String listNamePart = String.format("_api/web/lists/GetByTitle('%s')/Items?",
+				urlEncode(listName));
+		String getListUrl = getSiteUrl() + listNamePart + queryOData;
+
+		return executeRequestJsonStream(getListUrl, "GET", null, null,
+				new Function<JsonStreamReader, Integer>() {
+
+					@Override
+					public Integer apply(JsonStreamReader reader) throws Exception {
+						return SPListItem.listFromJson(reader, action);
+					}
+				});
 	}
 
 	/**
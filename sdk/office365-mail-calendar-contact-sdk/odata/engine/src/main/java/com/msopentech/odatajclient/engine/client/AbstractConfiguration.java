@@ -19,10 +19,14 @@
  */
 package com.msopentech.odatajclient.engine.client;
 
+import com.msopentech.odatajclient.engine.client.http.AsyncHttpClientFactory;
 import com.msopentech.odatajclient.engine.client.http.DefaultHttpClientFactory;
 import com.msopentech.odatajclient.engine.client.http.DefaultHttpUriRequestFactory;
 import com.msopentech.odatajclient.engine.client.http.HttpClientFactory;
 import com.msopentech.odatajclient.engine.client.http.HttpUriRequestFactory;
+import com.msopentech.odatajclient.engine.client.http.PoolingHttpClientFactory;
+import com.msopentech.odatajclient.engine.data.metadata.AbstractEdmMetadata;
+import com.msopentech.odatajclient.engine.data.metadata.MetadataCache;
 import com.msopentech.odatajclient.engine.format.ODataFormat;
 import com.msopentech.odatajclient.engine.format.ODataMediaFormat;
 import com.msopentech.odatajclient.engine.format.ODataPubFormat;
@@ -42,6 +46,20 @@ public abstract class AbstractConfiguration implements Configuration {
 
     private static final String HTTP_CLIENT_FACTORY = "httpClientFactory";
 
+    private static final String POOLING_HTTP_CLIENT_FACTORY = "poolingHttpClientFactory";
+
+    private static final String CONNECTION_POOLING = "connectionPooling";
+
+    private static final String ASYNC_HTTP_CLIENT_FACTORY = "asyncHttpClientFactory";
+
+    private static final String METADATA_CACHE = "metadataCache";
+
+    private static final String DIRECT_JSON_BINDING = "directJSONBinding";
+
+    private static final String PROPERTY_SHAPE_METADATA = "propertyShapeMetadata";
+
+    private static final String LAZY_PRIMITIVE_VALUES = "lazyPrimitiveValues";
+
     private static final String HTTP_URI_REQUEST_FACTORY = "httpUriRequestFactory";
 
     private static final String USE_XHTTP_METHOD = "useHTTPMethod";
@@ -138,7 +156,16 @@ public abstract class AbstractConfiguration implements Configuration {
 
     @Override
     public HttpClientFactory getHttpClientFactory() {
-        return (HttpClientFactory) getProperty(HTTP_CLIENT_FACTORY, new DefaultHttpClientFactory());
+        if (CONF.containsKey(HTTP_CLIENT_FACTORY) || !isUseConnectionPooling()) {
+            return (HttpClientFactory) getProperty(HTTP_CLIENT_FACTORY, new DefaultHttpClientFactory());
+        }
+
+        synchronized (CONF) {
+            if (!CONF.containsKey(POOLING_HTTP_CLIENT_FACTORY)) {
+                setProperty(POOLING_HTTP_CLIENT_FACTORY, new PoolingHttpClientFactory());
+            }
+            return (HttpClientFactory) getProperty(POOLING_HTTP_CLIENT_FACTORY, null);
+        }
     }
 
     @Override
@@ -146,6 +173,16 @@ public abstract class AbstractConfiguration implements Configuration {
         setProperty(HTTP_CLIENT_FACTORY, factory);
     }
 
+    @Override
+    public boolean isUseConnectionPooling() {
+        return (Boolean) getProperty(CONNECTION_POOLING, false);
+    }
+
+    @Override
+    public void setUseConnectionPooling(final boolean value) {
+        setProperty(CONNECTION_POOLING, value);
+    }
+
     @Override
     public HttpUriRequestFactory getHttpUriRequestFactory() {
         return (HttpUriRequestFactory) getProperty(HTTP_URI_REQUEST_FACTORY, new DefaultHttpUriRequestFactory());
@@ -196,6 +233,56 @@ public abstract class AbstractConfiguration implements Configuration {
         setProperty(CHUNKING, value);
     }
 
+    @Override
+    public AsyncHttpClientFactory getAsyncHttpClientFactory() {
+        return (AsyncHttpClientFactory) getProperty(ASYNC_HTTP_CLIENT_FACTORY, null);
+    }
+
+    @Override
+    public void setAsyncHttpClientFactory(final AsyncHttpClientFactory factory) {
+        setProperty(ASYNC_HTTP_CLIENT_FACTORY, factory);
+    }
+
+    @Override
+    public MetadataCache getMetadataCache() {
+        return (MetadataCache) getProperty(METADATA_CACHE, null);
+    }
+
+    @Override
+    public void setMetadataCache(final MetadataCache cache) {
+        setProperty(METADATA_CACHE, cache);
+    }
+
+    @Override
+    public boolean isDirectJSONBinding() {
+        return (Boolean) getProperty(DIRECT_JSON_BINDING, false);
+    }
+
+    @Override
+    public void setDirectJSONBinding(final boolean value) {
+        setProperty(DIRECT_JSON_BINDING, value);
+    }
+
+    @Override
+    public AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> getPropertyShapeMetadata() {
+        return (AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?>) getProperty(PROPERTY_SHAPE_METADATA, null);
+    }
+
+    @Override
+    public void setPropertyShapeMetadata(final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata) {
+        setProperty(PROPERTY_SHAPE_METADATA, metadata);
+    }
+
+    @Override
+    public boolean isLazyPrimitiveValues() {
+        return (Boolean) getProperty(LAZY_PRIMITIVE_VALUES, false);
+    }
+
+    @Override
+    public void setLazyPrimitiveValues(final boolean value) {
+        setProperty(LAZY_PRIMITIVE_VALUES, value);
+    }
+
     @Override
     public ExecutorService getExecutor() {
         return executor;
@@ -19,10 +19,15 @@
  */
 package com.msopentech.odatajclient.engine.client;
 
+import com.msopentech.odatajclient.engine.client.http.AsyncHttpClientFactory;
+import com.msopentech.odatajclient.engine.client.http.DefaultAsyncHttpClientFactory;
 import com.msopentech.odatajclient.engine.client.http.DefaultHttpClientFactory;
 import com.msopentech.odatajclient.engine.client.http.DefaultHttpUriRequestFactory;
 import com.msopentech.odatajclient.engine.client.http.HttpClientFactory;
 import com.msopentech.odatajclient.engine.client.http.HttpUriRequestFactory;
+import com.msopentech.odatajclient.engine.client.http.PoolingHttpClientFactory;
+import com.msopentech.odatajclient.engine.data.metadata.AbstractEdmMetadata;
+import com.msopentech.odatajclient.engine.data.metadata.MetadataCache;
 import com.msopentech.odatajclient.engine.format.ODataFormat;
 import com.msopentech.odatajclient.engine.format.ODataMediaFormat;
 import com.msopentech.odatajclient.engine.format.ODataPubFormat;
@@ -108,6 +113,23 @@ public interface Configuration extends Serializable {
      */
     void setHttpClientFactory(HttpClientFactory factory);
 
+    /**
+     * Checks whether requests share a pool of persistent HTTP connections.
+     * This setting is ignored when an HttpClient factory has been explicitly configured via
+     * <tt>setHttpClientFactory</tt>.
+     *
+     * @return whether HTTP connection pooling is enabled
+     * @see PoolingHttpClientFactory
+     */
+    boolean isUseConnectionPooling();
+
+    /**
+     * Sets HTTP connection pooling enabled or disabled.
+     *
+     * @param value whether to share a pool of persistent HTTP connections among requests.
+     */
+    void setUseConnectionPooling(boolean value);
+
     /**
      * Gets the HttpUriRequest factory for generating requests to be executed.
      *
@@ -188,6 +210,92 @@ public interface Configuration extends Serializable {
      */
     void setUseChuncked(boolean value);
 
+    /**
+     * Gets the HttpAsyncClient factory to be used for executing requests asynchronously.
+     * When not set, asynchronous requests are run as blocking calls via the configured executor service.
+     *
+     * @return provided implementation (if configured via <tt>setAsyncHttpClientFactory</tt>) or null.
+     * @see DefaultAsyncHttpClientFactory
+     */
+    AsyncHttpClientFactory getAsyncHttpClientFactory();
+
+    /**
+     * Sets the HttpAsyncClient factory to be used for executing requests asynchronously.
+     *
+     * @param factory implementation of <tt>AsyncHttpClientFactory</tt>; null to go back to the executor service.
+     * @see AsyncHttpClientFactory
+     */
+    void setAsyncHttpClientFactory(AsyncHttpClientFactory factory);
+
+    /**
+     * Gets the cache of parsed metadata documents.
+     *
+     * @return provided implementation (if configured via <tt>setMetadataCache</tt>) or null.
+     * @see MetadataCache
+     */
+    MetadataCache getMetadataCache();
+
+    /**
+     * Sets the cache of parsed metadata documents, e.g. to keep binary snapshots on disk across runs.
+     *
+     * @param cache metadata cache; null to retrieve and parse metadata every time it is needed.
+     * @see MetadataCache
+     */
+    void setMetadataCache(MetadataCache cache);
+
+    /**
+     * Checks whether JSON entities and entity sets are bound to <tt>ODataEntity</tt> objects directly from the JSON
+     * token stream, rather than via intermediate JSON entry and DOM objects.
+     *
+     * @return whether direct JSON binding is enabled.
+     * @see com.msopentech.odatajclient.engine.data.json.JSONDirectBinder
+     */
+    boolean isDirectJSONBinding();
+
+    /**
+     * Enables or disables direct JSON binding: this requires annotations to precede the properties they refer to,
+     * as mandated by the OData JSON format.
+     *
+     * @param value whether to bind JSON entities and entity sets directly from the JSON token stream.
+     * @see com.msopentech.odatajclient.engine.data.json.JSONDirectBinder
+     */
+    void setDirectJSONBinding(boolean value);
+
+    /**
+     * Gets the metadata providing property shapes of entities and complex values being read.
+     *
+     * @return provided metadata (if configured via <tt>setPropertyShapeMetadata</tt>) or null.
+     * @see com.msopentech.odatajclient.engine.data.ODataPropertyShape
+     */
+    AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> getPropertyShapeMetadata();
+
+    /**
+     * Sets the metadata providing property shapes of entities and complex values being read: those of types defined
+     * there keep their properties in compact, array-backed stores, sharing a name index per type.
+     *
+     * @param metadata metadata; null to keep properties of each entity and complex value in a map of their own.
+     * @see com.msopentech.odatajclient.engine.data.ODataPropertyShape
+     */
+    void setPropertyShapeMetadata(AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata);
+
+    /**
+     * Checks whether primitive values are built lazily: text is parsed into the actual value, and the actual value
+     * formatted into text, only when first requested.
+     *
+     * @return whether primitive values are built lazily.
+     * @see com.msopentech.odatajclient.engine.data.ODataPrimitiveValue
+     */
+    boolean isLazyPrimitiveValues();
+
+    /**
+     * Enables or disables lazy primitive values: when enabled, text that cannot be parsed is only reported when its
+     * actual value is first requested, rather than when building the primitive value.
+     *
+     * @param value whether to build primitive values lazily.
+     * @see com.msopentech.odatajclient.engine.data.ODataPrimitiveValue
+     */
+    void setLazyPrimitiveValues(boolean value);
+
     /**
      * Retrieves request executor service.
      *
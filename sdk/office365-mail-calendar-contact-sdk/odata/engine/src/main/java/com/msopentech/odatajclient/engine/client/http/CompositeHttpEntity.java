@@ -0,0 +1,223 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import com.msopentech.org.apache.http.entity.AbstractHttpEntity;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * HTTP entity made of a sequence of parts - byte arrays and input streams - written one after the other straight
+ * onto the connection output stream.
+ * <p>
+ * Byte arrays are added by reference: they must not be modified once added. Input streams are consumed and closed
+ * when the entity is written.
+ */
+public class CompositeHttpEntity extends AbstractHttpEntity {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Entity part.
+     */
+    private static class Part {
+
+        private final byte[] bytes;
+
+        private final int off;
+
+        private final int len;
+
+        private final InputStream stream;
+
+        Part(final byte[] bytes, final int off, final int len) {
+            this.bytes = bytes;
+            this.off = off;
+            this.len = len;
+            this.stream = null;
+        }
+
+        Part(final InputStream stream, final int len) {
+            this.bytes = null;
+            this.off = 0;
+            this.len = len;
+            this.stream = stream;
+        }
+    }
+
+    private final List<Part> parts = new ArrayList<Part>();
+
+    private long contentLength = 0;
+
+    private boolean streaming = false;
+
+    /**
+     * Appends the given byte array.
+     *
+     * @param bytes byte array to be appended.
+     * @return the current entity.
+     */
+    public CompositeHttpEntity add(final byte[] bytes) {
+        return add(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Appends the given portion of a byte array.
+     *
+     * @param bytes byte array.
+     * @param off offset of the first byte to be appended.
+     * @param len number of bytes to be appended.
+     * @return the current entity.
+     */
+    public CompositeHttpEntity add(final byte[] bytes, final int off, final int len) {
+        if (off < 0 || len < 0 || off + len > bytes.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len > 0) {
+            parts.add(new Part(bytes, off, len));
+            if (contentLength >= 0) {
+                contentLength += len;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends the content of the given input stream; the length of in-memory streams is known in advance.
+     *
+     * @param stream input stream to be appended.
+     * @return the current entity.
+     */
+    public CompositeHttpEntity add(final InputStream stream) {
+        final int len = stream instanceof ByteArrayInputStream ? ((ByteArrayInputStream) stream).available() : -1;
+
+        parts.add(new Part(stream, len));
+        streaming = true;
+        if (len < 0) {
+            contentLength = -1;
+        } else if (contentLength >= 0) {
+            contentLength += len;
+        }
+        return this;
+    }
+
+    /**
+     * Reads parts of unknown length into memory, so that the content length can be sent upfront.
+     */
+    private void bufferUnknownLengths() {
+        for (int i = 0; i < parts.size(); i++) {
+            final Part part = parts.get(i);
+            if (part.len < 0) {
+                try {
+                    final byte[] bytes = IOUtils.toByteArray(part.stream);
+                    parts.set(i, new Part(new ByteArrayInputStream(bytes), bytes.length));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    IOUtils.closeQuietly(part.stream);
+                }
+            }
+        }
+
+        contentLength = 0;
+        for (Part part : parts) {
+            contentLength += part.len;
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     * <p>
+     * Returns -1 if some input stream of unknown length has been added to a chunked entity; a non-chunked entity
+     * reads such streams into memory first.
+     */
+    @Override
+    public long getContentLength() {
+        if (contentLength < 0 && !isChunked()) {
+            bufferUnknownLengths();
+        }
+        return contentLength;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isRepeatable() {
+        return !streaming;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        final List<InputStream> streams = new ArrayList<InputStream>(parts.size());
+        for (Part part : parts) {
+            streams.add(part.stream == null ? new ByteArrayInputStream(part.bytes, part.off, part.len) : part.stream);
+        }
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void writeTo(final OutputStream outstream) throws IOException {
+        if (outstream == null) {
+            throw new IllegalArgumentException("Output stream may not be null");
+        }
+
+        byte[] buffer = null;
+        for (Part part : parts) {
+            if (part.stream == null) {
+                outstream.write(part.bytes, part.off, part.len);
+            } else {
+                if (buffer == null) {
+                    buffer = new byte[BUFFER_SIZE];
+                }
+                try {
+                    int read;
+                    while ((read = part.stream.read(buffer)) != -1) {
+                        outstream.write(buffer, 0, read);
+                    }
+                } finally {
+                    IOUtils.closeQuietly(part.stream);
+                }
+            }
+        }
+        outstream.flush();
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import java.io.Serializable;
+import java.net.URI;
+import com.msopentech.org.apache.http.impl.nio.client.DefaultHttpAsyncClient;
+import com.msopentech.org.apache.http.impl.nio.conn.PoolingClientAsyncConnectionManager;
+import com.msopentech.org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import com.msopentech.org.apache.http.impl.nio.reactor.IOReactorConfig;
+import com.msopentech.org.apache.http.nio.client.HttpAsyncClient;
+import com.msopentech.org.apache.http.nio.reactor.IOReactorException;
+import com.msopentech.org.apache.http.pool.PoolStats;
+
+/**
+ * Default implementation returning a single HttpAsyncClient, shared by all requests.
+ * <br/>
+ * The client is started on first use: its I/O reactor serves all in-flight requests with a fixed, small number of
+ * dispatcher threads, hence the number of concurrent requests is only bounded by the connection pool limits.
+ */
+public class DefaultAsyncHttpClientFactory implements AsyncHttpClientFactory, Serializable {
+
+    private static final long serialVersionUID = -3390251446946393346L;
+
+    public static final int DEFAULT_IO_THREADS = 2;
+
+    public static final int DEFAULT_MAX_TOTAL = 200;
+
+    public static final int DEFAULT_MAX_PER_ROUTE = 100;
+
+    private final int ioThreads;
+
+    private final int maxTotal;
+
+    private final int maxPerRoute;
+
+    private transient volatile DefaultHttpAsyncClient client;
+
+    /**
+     * Constructor, using default limits.
+     */
+    public DefaultAsyncHttpClientFactory() {
+        this(DEFAULT_IO_THREADS, DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_ROUTE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param ioThreads number of I/O dispatcher threads.
+     * @param maxTotal maximum number of connections in the pool.
+     * @param maxPerRoute maximum number of connections per route (e.g. per target host).
+     */
+    public DefaultAsyncHttpClientFactory(final int ioThreads, final int maxTotal, final int maxPerRoute) {
+        if (ioThreads <= 0 || maxTotal <= 0 || maxPerRoute <= 0 || maxPerRoute > maxTotal) {
+            throw new IllegalArgumentException("Invalid limits: I/O threads " + ioThreads
+                    + ", total " + maxTotal + ", per route " + maxPerRoute);
+        }
+
+        this.ioThreads = ioThreads;
+        this.maxTotal = maxTotal;
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    /**
+     * Creates the I/O reactor configuration; override to customize timeouts and socket options.
+     *
+     * @return I/O reactor configuration.
+     */
+    protected IOReactorConfig getIOReactorConfig() {
+        final IOReactorConfig config = new IOReactorConfig();
+        config.setIoThreadCount(ioThreads);
+        config.setTcpNoDelay(true);
+        return config;
+    }
+
+    @Override
+    public HttpAsyncClient createHttpAsyncClient(final HttpMethod method, final URI uri) {
+        DefaultHttpAsyncClient httpclient = client;
+        if (httpclient == null) {
+            synchronized (this) {
+                httpclient = client;
+                if (httpclient == null) {
+                    try {
+                        final PoolingClientAsyncConnectionManager manager = new PoolingClientAsyncConnectionManager(
+                                new DefaultConnectingIOReactor(getIOReactorConfig()));
+                        manager.setMaxTotal(maxTotal);
+                        manager.setDefaultMaxPerRoute(maxPerRoute);
+
+                        httpclient = new DefaultHttpAsyncClient(manager);
+                        httpclient.start();
+                    } catch (IOReactorException e) {
+                        throw new HttpClientException(e);
+                    }
+                    client = httpclient;
+                }
+            }
+        }
+        return httpclient;
+    }
+
+    /**
+     * Gets current pool statistics: leased, available and pending connections.
+     *
+     * @return pool statistics; null if no request was sent yet.
+     */
+    public PoolStats getPoolStats() {
+        final DefaultHttpAsyncClient httpclient = client;
+        return httpclient == null
+                ? null
+                : ((PoolingClientAsyncConnectionManager) httpclient.getConnectionManager()).getTotalStats();
+    }
+
+    /**
+     * Stops the I/O reactor and closes all connections; a new client will be started on next request.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (client != null) {
+                try {
+                    client.shutdown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    client = null;
+                }
+            }
+        }
+    }
+}
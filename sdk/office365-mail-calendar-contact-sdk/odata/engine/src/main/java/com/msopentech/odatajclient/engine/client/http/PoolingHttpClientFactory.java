@@ -0,0 +1,175 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.client.http;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import com.msopentech.org.apache.http.HttpResponse;
+import com.msopentech.org.apache.http.client.HttpClient;
+import com.msopentech.org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import com.msopentech.org.apache.http.impl.client.DefaultHttpClient;
+import com.msopentech.org.apache.http.impl.conn.PoolingClientConnectionManager;
+import com.msopentech.org.apache.http.impl.conn.SchemeRegistryFactory;
+import com.msopentech.org.apache.http.pool.PoolStats;
+import com.msopentech.org.apache.http.protocol.HttpContext;
+
+/**
+ * Implementation returning HttpClients sharing a single thread-safe pool of persistent connections.
+ * <br/>
+ * Connections are kept alive as long as the server allows (or for the configured default time, if the server doesn't
+ * send any <tt>Keep-Alive</tt> hint) and idle connections are evicted whenever a new client is requested.
+ * A single instance is meant to be used per <tt>ODataClient</tt>: see <tt>Configuration.setUseConnectionPooling</tt>.
+ */
+public class PoolingHttpClientFactory extends DefaultHttpClientFactory {
+
+    private static final long serialVersionUID = 4135618306398402137L;
+
+    public static final int DEFAULT_MAX_TOTAL = 20;
+
+    public static final int DEFAULT_MAX_PER_ROUTE = 10;
+
+    public static final long DEFAULT_IDLE_TIMEOUT = 30000L;
+
+    public static final long DEFAULT_KEEP_ALIVE = 30000L;
+
+    private final int maxTotal;
+
+    private final int maxPerRoute;
+
+    private final long idleTimeout;
+
+    private final long keepAlive;
+
+    private transient volatile PoolingClientConnectionManager connectionManager;
+
+    private transient volatile long lastEviction;
+
+    /**
+     * Constructor, using default limits.
+     */
+    public PoolingHttpClientFactory() {
+        this(DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_ROUTE, DEFAULT_IDLE_TIMEOUT, DEFAULT_KEEP_ALIVE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxTotal maximum number of connections in the pool.
+     * @param maxPerRoute maximum number of connections per route (e.g. per target host).
+     * @param idleTimeout milliseconds after which an idle connection gets evicted.
+     * @param keepAlive milliseconds a connection is kept alive when the server doesn't send any <tt>Keep-Alive</tt>
+     * header.
+     */
+    public PoolingHttpClientFactory(
+            final int maxTotal, final int maxPerRoute, final long idleTimeout, final long keepAlive) {
+
+        if (maxTotal <= 0 || maxPerRoute <= 0 || maxPerRoute > maxTotal) {
+            throw new IllegalArgumentException("Invalid pool limits: total " + maxTotal + ", per route " + maxPerRoute);
+        }
+
+        this.maxTotal = maxTotal;
+        this.maxPerRoute = maxPerRoute;
+        this.idleTimeout = idleTimeout;
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * Gets the connection manager shared by all HttpClients returned by this factory, creating it if needed.
+     *
+     * @return shared connection manager.
+     */
+    protected PoolingClientConnectionManager getConnectionManager() {
+        PoolingClientConnectionManager manager = connectionManager;
+        if (manager == null) {
+            synchronized (this) {
+                manager = connectionManager;
+                if (manager == null) {
+                    manager = new PoolingClientConnectionManager(SchemeRegistryFactory.createDefault());
+                    manager.setMaxTotal(maxTotal);
+                    manager.setDefaultMaxPerRoute(maxPerRoute);
+                    connectionManager = manager;
+                }
+            }
+        }
+        return manager;
+    }
+
+    @Override
+    public HttpClient createHttpClient(final HttpMethod method, final URI uri) {
+        evictIdleConnections();
+
+        final DefaultHttpClient httpclient = new DefaultHttpClient(getConnectionManager());
+        httpclient.setKeepAliveStrategy(new KeepAliveStrategy(keepAlive));
+        return httpclient;
+    }
+
+    /**
+     * Closes expired connections and connections idle for longer than the configured idle timeout.
+     * Invoked at most once per idle timeout period, when a new HttpClient is requested.
+     */
+    public void evictIdleConnections() {
+        final long now = System.currentTimeMillis();
+        if (connectionManager != null && now - lastEviction >= idleTimeout) {
+            lastEviction = now;
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Gets current pool statistics: leased, available and pending connections.
+     *
+     * @return pool statistics.
+     */
+    public PoolStats getPoolStats() {
+        return getConnectionManager().getTotalStats();
+    }
+
+    /**
+     * Closes all pooled connections; a new pool will be created on next request.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (connectionManager != null) {
+                connectionManager.shutdown();
+                connectionManager = null;
+            }
+        }
+    }
+
+    /**
+     * Honors the server <tt>Keep-Alive</tt> header, falling back to the given default.
+     */
+    private static class KeepAliveStrategy extends DefaultConnectionKeepAliveStrategy {
+
+        private final long defaultKeepAlive;
+
+        public KeepAliveStrategy(final long defaultKeepAlive) {
+            super();
+            this.defaultKeepAlive = defaultKeepAlive;
+        }
+
+        @Override
+        public long getKeepAliveDuration(final HttpResponse response, final HttpContext context) {
+            final long duration = super.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : defaultKeepAlive;
+        }
+    }
+}
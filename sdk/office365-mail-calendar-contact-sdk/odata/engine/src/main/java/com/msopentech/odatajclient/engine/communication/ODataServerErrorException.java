@@ -28,6 +28,8 @@ public class ODataServerErrorException extends RuntimeException {
 
     private static final long serialVersionUID = -6423014532618680135L;
 
+    private final StatusLine statusLine;
+
     /**
      * Constructor.
      *
@@ -35,9 +37,34 @@ public class ODataServerErrorException extends RuntimeException {
      */
     public ODataServerErrorException(final StatusLine statusLine) {
         super(statusLine.toString());
+
+        this.statusLine = statusLine;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param statusLine request status info.
+     * @param body response body, if any.
+     */
+    public ODataServerErrorException(final StatusLine statusLine, final String body) {
+        super(statusLine.toString() + "\n" + body);
+
+        this.statusLine = statusLine;
     }
 
     public ODataServerErrorException(String string) {
         super(string);
+
+        this.statusLine = null;
+    }
+
+    /**
+     * Gets request status info.
+     *
+     * @return request status info, if known.
+     */
+    public StatusLine getStatusLine() {
+        return statusLine;
     }
 }
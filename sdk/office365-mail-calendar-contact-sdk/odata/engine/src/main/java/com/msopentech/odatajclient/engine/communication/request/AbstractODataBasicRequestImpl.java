@@ -20,17 +20,28 @@
 package com.msopentech.odatajclient.engine.communication.request;
 
 import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.client.http.AsyncHttpClientFactory;
+import com.msopentech.odatajclient.engine.client.http.HttpClientException;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchRequest;
 import com.msopentech.odatajclient.engine.communication.response.ODataResponse;
 import com.msopentech.odatajclient.engine.utils.ODataBatchConstants;
+import com.msopentech.odatajclient.engine.utils.Wrapper;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
-import org.apache.commons.io.IOUtils;
+import java.util.concurrent.RejectedExecutionException;
 import org.apache.commons.lang3.StringUtils;
+import com.msopentech.org.apache.http.Header;
+import com.msopentech.org.apache.http.HeaderElement;
+import com.msopentech.org.apache.http.HttpEntity;
+import com.msopentech.org.apache.http.HttpResponse;
+import com.msopentech.org.apache.http.client.entity.DeflateDecompressingEntity;
+import com.msopentech.org.apache.http.client.entity.GzipDecompressingEntity;
+import com.msopentech.org.apache.http.concurrent.BasicFuture;
+import com.msopentech.org.apache.http.concurrent.FutureCallback;
 
 /**
  * Basic request abstract implementation.
@@ -72,13 +83,119 @@ public abstract class AbstractODataBasicRequestImpl<V extends ODataResponse, T e
      */
     @Override
     public final Future<V> asyncExecute() {
-        return odataClient.getConfiguration().getExecutor().submit(new Callable<V>() {
+        return asyncExecute(null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final Future<V> asyncExecute(final FutureCallback<V> callback) {
+        final AsyncHttpClientFactory factory = odataClient.getConfiguration().getAsyncHttpClientFactory();
+        if (factory == null) {
+            return odataClient.getConfiguration().getExecutor().submit(new Callable<V>() {
+
+                @Override
+                public V call() throws Exception {
+                    final V response;
+                    try {
+                        response = execute();
+                    } catch (RuntimeException e) {
+                        if (callback != null) {
+                            callback.failed(e);
+                        }
+                        throw e;
+                    }
+
+                    if (callback != null) {
+                        callback.completed(response);
+                    }
+                    return response;
+                }
+            });
+        }
+
+        prepareRequest();
+        if (odataClient.getConfiguration().isGzipCompression()) {
+            request.addHeader("Accept-Encoding", "gzip,deflate");
+        }
+
+        final Wrapper<Future<HttpResponse>> httpFuture = new Wrapper<Future<HttpResponse>>();
+        final BasicFuture<V> future = new BasicFuture<V>(callback) {
 
             @Override
-            public V call() throws Exception {
-                return execute();
+            public boolean cancel(final boolean mayInterruptIfRunning) {
+                final boolean cancelled = super.cancel(mayInterruptIfRunning);
+                if (cancelled && httpFuture.getWrapped() != null) {
+                    httpFuture.getWrapped().cancel(mayInterruptIfRunning);
+                }
+                return cancelled;
+            }
+        };
+
+        httpFuture.setWrapped(factory.createHttpAsyncClient(method, uri).execute(request,
+                new FutureCallback<HttpResponse>() {
+
+                    @Override
+                    public void completed(final HttpResponse response) {
+                        // deserialization and the user callback must not hold the I/O dispatcher thread,
+                        // which serves every other connection as well
+                        try {
+                            odataClient.getConfiguration().getExecutor().execute(new Runnable() {
+
+                                @Override
+                                public void run() {
+                                    setReceived(decompress(response));
+
+                                    final V res;
+                                    try {
+                                        res = execute();
+                                    } catch (RuntimeException e) {
+                                        future.failed(e);
+                                        return;
+                                    }
+                                    future.completed(res);
+                                }
+                            });
+                        } catch (RejectedExecutionException e) {
+                            future.failed(e);
+                        }
+                    }
+
+                    @Override
+                    public void failed(final Exception e) {
+                        future.failed(new HttpClientException(e));
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        future.cancel(true);
+                    }
+                }));
+
+        return future;
+    }
+
+    /**
+     * Transparently decompresses gzip / deflate encoded response payloads, as <tt>DecompressingHttpClient</tt> does
+     * for blocking requests.
+     *
+     * @param response HTTP response.
+     * @return given HTTP response, with decompressing entity if needed.
+     */
+    private HttpResponse decompress(final HttpResponse response) {
+        final HttpEntity entity = response.getEntity();
+        final Header encoding = entity == null ? null : entity.getContentEncoding();
+        if (encoding != null) {
+            for (HeaderElement element : encoding.getElements()) {
+                if ("gzip".equalsIgnoreCase(element.getName()) || "x-gzip".equalsIgnoreCase(element.getName())) {
+                    response.setEntity(new GzipDecompressingEntity(entity));
+                } else if ("deflate".equalsIgnoreCase(element.getName())) {
+                    response.setEntity(new DeflateDecompressingEntity(entity));
+                }
             }
-        });
+        }
+        return response;
     }
 
     /**
@@ -116,7 +233,7 @@ public abstract class AbstractODataBasicRequestImpl<V extends ODataResponse, T e
 
             final InputStream payload = getPayload();
             if (payload != null) {
-                req.rawAppend(IOUtils.toByteArray(getPayload()));
+                req.rawAppend(payload);
             }
         } catch (IOException e) {
             throw new IllegalStateException(e);
@@ -21,6 +21,7 @@ package com.msopentech.odatajclient.engine.communication.request;
 
 import com.msopentech.odatajclient.engine.communication.response.ODataResponse;
 import java.util.concurrent.Future;
+import com.msopentech.org.apache.http.concurrent.FutureCallback;
 
 /**
  * Basic OData request.
@@ -44,6 +45,18 @@ public interface ODataBasicRequest<V extends ODataResponse, T extends Enum<T>> e
      */
     Future<V> asyncExecute();
 
+    /**
+     * Async request execute, notifying the given callback upon completion.
+     * <br/>
+     * If an <tt>AsyncHttpClientFactory</tt> is configured, the request is sent via non-blocking I/O, then the response
+     * is read and the callback notified by the configured executor service; otherwise the whole request is run by the
+     * configured executor service.
+     *
+     * @param callback callback to be notified, can be null.
+     * @return <code>Future&lt;ODataResponse&gt;</code> about the executed request.
+     */
+    Future<V> asyncExecute(FutureCallback<V> callback);
+
     /**
      * Override configured request format.
      *
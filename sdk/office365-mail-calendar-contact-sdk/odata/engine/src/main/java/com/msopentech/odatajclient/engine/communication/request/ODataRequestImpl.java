@@ -52,6 +52,7 @@ import com.msopentech.org.apache.http.HttpResponse;
 import com.msopentech.org.apache.http.client.HttpClient;
 import com.msopentech.org.apache.http.client.methods.HttpUriRequest;
 import com.msopentech.org.apache.http.impl.client.DecompressingHttpClient;
+import com.msopentech.org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -102,6 +103,11 @@ public class ODataRequestImpl<T extends Enum<T>> implements ODataRequest {
      */
     protected final HttpUriRequest request;
 
+    /**
+     * HTTP response, if already received.
+     */
+    private HttpResponse received;
+
     /**
      * Constructor.
      *
@@ -366,6 +372,40 @@ public class ODataRequestImpl<T extends Enum<T>> implements ODataRequest {
      * @return HttpReponse object.
      */
     protected HttpResponse doExecute() {
+        if (received != null) {
+            // response already received via HttpAsyncClient
+            return checkResponse(received);
+        }
+
+        prepareRequest();
+
+        final HttpResponse response;
+        try {
+            response = this.httpClient.execute(this.request);
+        } catch (IOException e) {
+            throw new HttpClientException(e);
+        } catch (RuntimeException e) {
+            this.request.abort();
+            throw new HttpClientException(e);
+        }
+
+        return checkResponse(response);
+    }
+
+    /**
+     * Sets the HTTP response received for this request by other means than <tt>doExecute</tt>, e.g. asynchronously.
+     * Next <tt>doExecute</tt> invocation will check and return the given response without sending anything.
+     *
+     * @param response received HTTP response.
+     */
+    protected void setReceived(final HttpResponse response) {
+        this.received = response;
+    }
+
+    /**
+     * Sets all OData headers onto the HTTP request.
+     */
+    protected void prepareRequest() {
         // Set Content-Type and Accept headers with default values, if not yet set
         if (StringUtils.isBlank(odataHeaders.getHeader(ODataHeaders.HeaderName.contentType))) {
             setContentType(getContentType());
@@ -390,24 +430,22 @@ public class ODataRequestImpl<T extends Enum<T>> implements ODataRequest {
                 LOG.debug("HTTP header being sent: " + header);
             }
         }
+    }
 
-        final HttpResponse response;
-        try {
-            response = this.httpClient.execute(this.request);
-        } catch (IOException e) {
-            throw new HttpClientException(e);
-        } catch (RuntimeException e) {
-            this.request.abort();
-            throw new HttpClientException(e);
-        }
-
+    /**
+     * Checks the response status, turning 4xx and 5xx into exceptions.
+     *
+     * @param response HTTP response.
+     * @return the given HTTP response, if successful.
+     */
+    protected HttpResponse checkResponse(final HttpResponse response) {
         if (response.getStatusLine().getStatusCode() >= 500) {
             String errorMessage = "";
             try {
                 errorMessage = IOUtils.toString(response.getEntity().getContent());
             } catch (Exception e) {}
             
-            throw new ODataServerErrorException(response.getStatusLine() + "\n" + errorMessage);
+            throw new ODataServerErrorException(response.getStatusLine(), errorMessage);
         } else if (response.getStatusLine().getStatusCode() >= 400) {
             try {
                 final HttpEntity httpEntity = response.getEntity();
@@ -425,6 +463,9 @@ public class ODataRequestImpl<T extends Enum<T>> implements ODataRequest {
                                 response.getStatusLine().getStatusCode(),
                                 response.getStatusLine().getReasonPhrase(),
                                 isXML);
+                    } finally {
+                        // make sure the connection can be reused
+                        EntityUtils.consumeQuietly(httpEntity);
                     }
 
                     throw new ODataClientErrorException(response.getStatusLine(), error);
@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request;
 
+import com.msopentech.odatajclient.engine.client.http.CompositeHttpEntity;
 import com.msopentech.odatajclient.engine.client.http.HttpClientException;
 import com.msopentech.odatajclient.engine.communication.response.ODataResponse;
 import com.msopentech.odatajclient.engine.utils.Wrapper;
@@ -27,9 +28,12 @@ import java.io.InputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.commons.io.IOUtils;
 import com.msopentech.org.apache.http.HttpResponse;
 
@@ -55,6 +59,16 @@ public abstract class ODataStreamManager<T extends ODataResponse> extends ODataS
      */
     private final Wrapper<Future<HttpResponse>> futureWrap;
 
+    /**
+     * Executor the request is submitted to once the payload gathered into the body entity is complete, if any.
+     */
+    private final Executor executor;
+
+    /**
+     * Whether the request has been submitted to the executor.
+     */
+    private final AtomicBoolean submitted = new AtomicBoolean(false);
+
     /**
      * Constructor.
      *
@@ -74,6 +88,7 @@ public abstract class ODataStreamManager<T extends ODataResponse> extends ODataS
         super(output);
 
         this.futureWrap = futureWrap;
+        this.executor = null;
         try {
             this.body = new PipedInputStream(getBodyStreamWriter());
         } catch (IOException e) {
@@ -89,27 +104,61 @@ public abstract class ODataStreamManager<T extends ODataResponse> extends ODataS
      * @param input stream to be used to retrieve the content.
      */
     public ODataStreamManager(final Wrapper<Future<HttpResponse>> futureWrap, final InputStream input) {
-        super(null);
+        super((PipedOutputStream) null);
 
         this.futureWrap = futureWrap;
+        this.executor = null;
         this.body = null;
         this.defaultBody = input;
     }
 
+    /**
+     * Constructor.
+     * <p>
+     * The payload is gathered into the given entity, and the request is submitted to the given executor once the
+     * payload is complete: no piped stream - and no thread reading from it - is involved.
+     *
+     * @param futureWrap wrapper of the Future object of the HttpResponse; the wrapped future is expected to be a
+     * <tt>RunnableFuture</tt>, not submitted yet.
+     * @param entity entity the payload has to be appended to.
+     * @param executor executor the request has to be submitted to.
+     */
+    public ODataStreamManager(
+            final Wrapper<Future<HttpResponse>> futureWrap, final CompositeHttpEntity entity, final Executor executor) {
+
+        super(entity);
+
+        this.futureWrap = futureWrap;
+        this.executor = executor;
+        this.body = null;
+        this.defaultBody = null;
+    }
+
     /**
      * Gets payload stream.
      *
-     * @return payload stream.
+     * @return payload stream; <tt>null</tt> if the payload is gathered into an entity.
      */
     public InputStream getBody() {
         return this.body == null ? this.defaultBody : this.body;
     }
 
     /**
-     * Closes piped output stream.
+     * Closes piped output stream or, if the payload is gathered into an entity, submits the request.
      */
     public void finalizeBody() {
         IOUtils.closeQuietly(getBodyStreamWriter());
+        submit();
+    }
+
+    /**
+     * Submits the request to the executor, once, if the payload is gathered into an entity.
+     */
+    private void submit() {
+        final Future<HttpResponse> future = futureWrap.getWrapped();
+        if (getBodyEntity() != null && future instanceof RunnableFuture && submitted.compareAndSet(false, true)) {
+            executor.execute((RunnableFuture<HttpResponse>) future);
+        }
     }
 
     /**
@@ -121,6 +170,7 @@ public abstract class ODataStreamManager<T extends ODataResponse> extends ODataS
      */
     protected HttpResponse getHttpResponse(final long timeout, final TimeUnit unit) {
         try {
+            submit();
             return futureWrap.getWrapped().get(timeout, unit);
         } catch (Exception e) {
             LOG.error("Failure executing request");
@@ -152,6 +202,11 @@ public abstract class ODataStreamManager<T extends ODataResponse> extends ODataS
      * @return <code>Future&lt;ODataResponse&gt;</code> about the executed request.
      */
     public final Future<T> getAsyncResponse() {
+        if (getBodyEntity() != null) {
+            // the payload is complete: send it right away
+            finalizeBody();
+        }
+
         return new Future<T>() {
 
             @Override
@@ -171,7 +226,7 @@ public abstract class ODataStreamManager<T extends ODataResponse> extends ODataS
 
             @Override
             public T get() throws InterruptedException, ExecutionException {
-                return getResponse(0, TimeUnit.SECONDS);
+                return getResponse(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
             }
 
             @Override
@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.communication.request;
 
+import com.msopentech.odatajclient.engine.client.http.CompositeHttpEntity;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PipedOutputStream;
@@ -45,6 +46,11 @@ public abstract class ODataStreamer {
      */
     private final PipedOutputStream bodyStreamWriter;
 
+    /**
+     * Entity to be used to append objects to the payload, in place of the piped stream.
+     */
+    private final CompositeHttpEntity bodyEntity;
+
     /**
      * Constructor.
      *
@@ -52,15 +58,32 @@ public abstract class ODataStreamer {
      */
     public ODataStreamer(final PipedOutputStream bodyStreamWriter) {
         this.bodyStreamWriter = bodyStreamWriter;
+        this.bodyEntity = null;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param bodyEntity entity the payload has to be appended to; no piped stream is used.
+     */
+    public ODataStreamer(final CompositeHttpEntity bodyEntity) {
+        this.bodyStreamWriter = null;
+        this.bodyEntity = bodyEntity;
     }
 
     /**
      * Writes the gibe byte array onto the output stream provided at instantiation time.
+     * <p>
+     * When streaming onto an entity, the byte array is appended by reference.
      *
      * @param src byte array to be written.
      */
     protected void stream(final byte[] src) {
-        new Writer(src, bodyStreamWriter).run();
+        if (bodyEntity == null) {
+            new Writer(src, bodyStreamWriter).run();
+        } else {
+            bodyEntity.add(src);
+        }
     }
 
     /**
@@ -79,6 +102,15 @@ public abstract class ODataStreamer {
         return bodyStreamWriter;
     }
 
+    /**
+     * Gets the entity the payload is appended to.
+     *
+     * @return payload entity; <tt>null</tt> if the payload is streamed via pipe.
+     */
+    public CompositeHttpEntity getBodyEntity() {
+        return bodyEntity;
+    }
+
     /**
      * Writer thread.
      */
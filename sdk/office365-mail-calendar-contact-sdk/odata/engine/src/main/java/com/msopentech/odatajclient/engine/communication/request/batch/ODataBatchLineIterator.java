@@ -19,18 +19,41 @@
  */
 package com.msopentech.odatajclient.engine.communication.request.batch;
 
+import com.msopentech.odatajclient.engine.utils.ODataConstants;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 import java.util.Iterator;
-import org.apache.commons.io.LineIterator;
+import java.util.NoSuchElementException;
 
 /**
  * Batch line iterator class.
+ * <p>
+ * Reads the batch response bytes through its own buffer: header and response lines are decoded one by one, while
+ * item bodies are exposed as streams ending at the next boundary - found via Boyer-Moore-Horspool search - without
+ * being decoded or copied.
  */
 public class ODataBatchLineIterator implements Iterator<String> {
 
+    private static final int BUFFER_SIZE = 8192;
+
     /**
-     * Stream line iterator.
+     * Batch response stream.
      */
-    private final LineIterator batchLineIterator;
+    private final InputStream input;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int pos = 0;
+
+    private int limit = 0;
+
+    private boolean eof = false;
+
+    /**
+     * Item body being read, if any.
+     */
+    private Part part = null;
 
     /**
      * Last cached line.
@@ -40,13 +63,55 @@ public class ODataBatchLineIterator implements Iterator<String> {
     /**
      * Constructor.
      *
-     * @param batchLineIterator stream line iterator.
+     * @param input batch response stream.
      */
-    public ODataBatchLineIterator(final LineIterator batchLineIterator) {
-        this.batchLineIterator = batchLineIterator;
+    public ODataBatchLineIterator(final InputStream input) {
+        this.input = input;
         this.current = null;
     }
 
+    /**
+     * Makes at least the given number of bytes available in the buffer, unless the end of the stream is reached.
+     *
+     * @param count number of bytes.
+     * @return <tt>true</tt> if the given number of bytes is available; <tt>false</tt> otherwise.
+     */
+    private boolean fill(final int count) {
+        while (limit - pos < count && !eof) {
+            if (pos > 0) {
+                System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+                limit -= pos;
+                pos = 0;
+            }
+            if (limit + count > buffer.length) {
+                final byte[] larger = new byte[Math.max(buffer.length * 2, limit + count)];
+                System.arraycopy(buffer, 0, larger, 0, limit);
+                buffer = larger;
+            }
+
+            try {
+                final int read = input.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    limit += read;
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return limit - pos >= count;
+    }
+
+    /**
+     * Skips the rest of the item body being read, if any.
+     */
+    private void skipPart() {
+        if (part != null) {
+            part.skip();
+        }
+    }
+
     /**
      * Checks if batch has next line.
      *
@@ -54,7 +119,8 @@ public class ODataBatchLineIterator implements Iterator<String> {
      */
     @Override
     public boolean hasNext() {
-        return batchLineIterator.hasNext();
+        skipPart();
+        return fill(1);
     }
 
     /**
@@ -73,10 +139,53 @@ public class ODataBatchLineIterator implements Iterator<String> {
      * @return next line.
      */
     public String nextLine() {
-        current = batchLineIterator.nextLine();
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more lines");
+        }
+
+        int end = -1;
+        for (int searched = 0; end < 0;) {
+            for (int i = pos + searched; i < limit && end < 0; i++) {
+                if (buffer[i] == '\n') {
+                    end = i;
+                }
+            }
+            searched = limit - pos;
+            if (end < 0 && !fill(searched + 1)) {
+                end = limit;
+            }
+        }
+
+        final int next = end < limit ? end + 1 : end;
+        if (end > pos && buffer[end - 1] == '\r') {
+            end--;
+        }
+        try {
+            current = new String(buffer, pos, end - pos, ODataConstants.UTF8);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        pos = next;
+
         return current;
     }
 
+    /**
+     * Gets the item body starting at the current position: the returned stream ends before the line break preceding
+     * the given boundary.
+     * <p>
+     * Once the body has been entirely read - or as soon as any other line is requested - the boundary line becomes
+     * the current one.
+     *
+     * @param boundary batch boundary.
+     * @return item body.
+     */
+    public InputStream nextPart(final String boundary) {
+        skipPart();
+        part = new Part(boundary);
+        return part;
+    }
+
     /**
      * Unsupported operation.
      */
@@ -93,4 +202,156 @@ public class ODataBatchLineIterator implements Iterator<String> {
     public String getCurrent() {
         return current;
     }
+
+    /**
+     * Item body, up to the next boundary.
+     */
+    private class Part extends InputStream {
+
+        /**
+         * Line break and boundary.
+         */
+        private final byte[] delimiter;
+
+        /**
+         * Boyer-Moore-Horspool shift per byte value.
+         */
+        private final int[] shifts = new int[256];
+
+        /**
+         * End of the bytes to be returned, in the buffer; it can be followed by the delimiter.
+         */
+        private int available = -1;
+
+        /**
+         * Start of the boundary line following the body in the buffer, once found.
+         */
+        private int boundaryAt = -1;
+
+        private boolean done = false;
+
+        Part(final String boundary) {
+            try {
+                final byte[] bytes = boundary.getBytes(ODataConstants.UTF8);
+                delimiter = new byte[bytes.length + 1];
+                delimiter[0] = '\n';
+                System.arraycopy(bytes, 0, delimiter, 1, bytes.length);
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+
+            for (int i = 0; i < shifts.length; i++) {
+                shifts[i] = delimiter.length;
+            }
+            for (int i = 0; i < delimiter.length - 1; i++) {
+                shifts[delimiter[i] & 0xFF] = delimiter.length - 1 - i;
+            }
+
+            // the body can be empty, with the boundary right at the current position
+            fill(delimiter.length - 1);
+            if (matches(pos, 1)) {
+                available = pos;
+                boundaryAt = pos;
+            }
+        }
+
+        private boolean matches(final int from, final int offset) {
+            if (limit - from < delimiter.length - offset) {
+                return false;
+            }
+            for (int i = offset; i < delimiter.length; i++) {
+                if (buffer[from + i - offset] != delimiter[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Finds the delimiter in the buffer, or the last buffered byte which cannot belong to it (nor to the line break
+         * preceding it).
+         */
+        private void scan() {
+            fill(delimiter.length + 1);
+
+            final int last = delimiter.length - 1;
+            for (int i = pos + last; i < limit; i += shifts[buffer[i] & 0xFF]) {
+                if (matches(i - last, 0)) {
+                    available = i - last;
+                    boundaryAt = available + 1;
+                    if (available > pos && buffer[available - 1] == '\r') {
+                        available--;
+                    }
+                    return;
+                }
+            }
+
+            available = eof ? limit : Math.max(pos, limit - delimiter.length);
+        }
+
+        /**
+         * Makes some bytes available, if any.
+         *
+         * @return <tt>false</tt> at the end of the body.
+         */
+        private boolean ensure() {
+            if (done) {
+                return false;
+            }
+            if (available <= pos && boundaryAt < 0) {
+                scan();
+            }
+            if (available > pos) {
+                return true;
+            }
+
+            // end of the body: move to the boundary line
+            done = true;
+            part = null;
+            if (boundaryAt >= 0) {
+                pos = boundaryAt;
+                nextLine();
+            }
+            return false;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return ensure() ? buffer[pos++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensure()) {
+                return -1;
+            }
+
+            final int count = Math.min(len, available - pos);
+            System.arraycopy(buffer, pos, bytes, off, count);
+            pos += count;
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return done ? 0 : Math.max(0, available - pos);
+        }
+
+        /**
+         * Skips the rest of the body.
+         */
+        void skip() {
+            while (ensure()) {
+                pos = available;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            skip();
+        }
+    }
 }
@@ -20,6 +20,7 @@
 package com.msopentech.odatajclient.engine.communication.request.batch;
 
 import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.client.http.CompositeHttpEntity;
 import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.communication.request.ODataStreamManager;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchRequest.BatchStreamManager;
@@ -28,7 +29,7 @@ import com.msopentech.odatajclient.engine.communication.response.ODataBatchRespo
 import com.msopentech.odatajclient.engine.communication.response.ODataResponseImpl;
 import com.msopentech.odatajclient.engine.utils.ODataBatchConstants;
 import java.io.IOException;
-import java.io.PipedOutputStream;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -81,28 +82,32 @@ public class ODataBatchRequest extends AbstractODataStreamedRequestImpl<ODataBat
     }
 
     /**
-     * Gets piped stream to be used to stream batch items.
+     * Gets the entity batch items have to be appended to.
      *
-     * @return piped stream for the payload.
+     * @return payload entity.
      */
-    PipedOutputStream getOutputStream() {
-        return getStreamManager().getBodyStreamWriter();
+    CompositeHttpEntity getBodyEntity() {
+        return getStreamManager().getBodyEntity();
     }
 
     /**
      * Appends the given byte array to the payload.
+     * <p>
+     * The byte array is appended by reference: it must not be modified afterwards.
      *
      * @param toBeStreamed byte array to be appended.
      * @return the current batch request.
      * @throws IOException in case of write errors.
      */
     public ODataBatchRequest rawAppend(final byte[] toBeStreamed) throws IOException {
-        getStreamManager().getBodyStreamWriter().write(toBeStreamed);
+        getBodyEntity().add(toBeStreamed);
         return this;
     }
 
     /**
      * Appends the given byte array to the payload.
+     * <p>
+     * The byte array is appended by reference: it must not be modified afterwards.
      *
      * @param toBeStreamed byte array to be appended.
      * @param off byte array offset.
@@ -111,7 +116,21 @@ public class ODataBatchRequest extends AbstractODataStreamedRequestImpl<ODataBat
      * @throws IOException in case of write errors.
      */
     public ODataBatchRequest rawAppend(final byte[] toBeStreamed, int off, int len) throws IOException {
-        getStreamManager().getBodyStreamWriter().write(toBeStreamed, off, len);
+        getBodyEntity().add(toBeStreamed, off, len);
+        return this;
+    }
+
+    /**
+     * Appends the content of the given input stream to the payload.
+     * <p>
+     * The stream is read - and closed - only when the request is sent.
+     *
+     * @param toBeStreamed input stream to be appended.
+     * @return the current batch request.
+     * @throws IOException in case of read errors.
+     */
+    public ODataBatchRequest rawAppend(final InputStream toBeStreamed) throws IOException {
+        getBodyEntity().add(toBeStreamed);
         return this;
     }
 
@@ -130,13 +149,19 @@ public class ODataBatchRequest extends AbstractODataStreamedRequestImpl<ODataBat
          */
         private final ODataBatchRequest req;
 
+        /**
+         * Whether the close delimiter has been streamed.
+         */
+        private boolean closed = false;
+
         /**
          * Private constructor.
          *
          * @param req batch request reference.
          */
         private BatchStreamManager(final ODataBatchRequest req) {
-            super(ODataBatchRequest.this.futureWrapper);
+            super(ODataBatchRequest.this.futureWrapper, new CompositeHttpEntity(),
+                    ODataBatchRequest.this.odataClient.getConfiguration().getExecutor());
             this.req = req;
         }
 
@@ -189,13 +214,24 @@ public class ODataBatchRequest extends AbstractODataStreamedRequestImpl<ODataBat
             }
         }
 
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void finalizeBody() {
+            if (!closed) {
+                closed = true;
+                closeCurrentItem();
+                streamCloseDelimiter();
+            }
+            super.finalizeBody();
+        }
+
         /**
          * {@inheritDoc }
          */
         @Override
         protected ODataBatchResponse getResponse(final long timeout, final TimeUnit unit) {
-            closeCurrentItem();
-            streamCloseDelimiter();
             finalizeBody();
             return new ODataBatchResponseImpl(httpClient, getHttpResponse(timeout, unit));
         }
@@ -48,7 +48,7 @@ public abstract class ODataBatchRequestItem extends ODataStreamer {
      * @param req OData batch request.
      */
     public ODataBatchRequestItem(final ODataBatchRequest req) {
-        super(req.getOutputStream());
+        super(req.getBodyEntity());
         this.open = true;
         this.req = req;
     }
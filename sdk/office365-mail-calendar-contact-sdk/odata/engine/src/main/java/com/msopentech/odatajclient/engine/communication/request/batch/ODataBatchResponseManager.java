@@ -21,14 +21,11 @@ package com.msopentech.odatajclient.engine.communication.request.batch;
 
 import com.msopentech.odatajclient.engine.communication.header.ODataHeaders;
 import com.msopentech.odatajclient.engine.communication.response.ODataBatchResponse;
-import com.msopentech.odatajclient.engine.utils.ODataConstants;
-import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,19 +66,13 @@ public class ODataBatchResponseManager implements Iterator<ODataBatchResponseIte
      * @param expectedItems expected batch response items.
      */
     public ODataBatchResponseManager(final ODataBatchResponse res, final List<ODataBatchResponseItem> expectedItems) {
-        try {
-            this.expectedItemsIterator = expectedItems.iterator();
-            this.batchLineIterator = new ODataBatchLineIterator(
-                    IOUtils.lineIterator(res.getRawResponse(), ODataConstants.UTF8));
-
-            // search for boundary
-            batchBoundary = ODataBatchUtilities.getBoundaryFromHeader(
-                    res.getHeader(ODataHeaders.HeaderName.contentType));
-            LOG.debug("Retrieved batch response bondary '{}'", batchBoundary);
-        } catch (IOException e) {
-            LOG.error("Error parsing batch response", e);
-            throw new IllegalStateException(e);
-        }
+        this.expectedItemsIterator = expectedItems.iterator();
+        this.batchLineIterator = new ODataBatchLineIterator(res.getRawResponse());
+
+        // search for boundary
+        batchBoundary = ODataBatchUtilities.getBoundaryFromHeader(
+                res.getHeader(ODataHeaders.HeaderName.contentType));
+        LOG.debug("Retrieved batch response bondary '{}'", batchBoundary);
     }
 
     /**
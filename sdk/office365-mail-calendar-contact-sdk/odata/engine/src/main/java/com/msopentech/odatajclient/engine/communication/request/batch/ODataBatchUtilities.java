@@ -23,9 +23,8 @@ import com.msopentech.odatajclient.engine.communication.header.ODataHeaders;
 import com.msopentech.odatajclient.engine.communication.request.ODataStreamer;
 import com.msopentech.odatajclient.engine.utils.ODataBatchConstants;
 import com.msopentech.odatajclient.engine.utils.ODataConstants;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.AbstractMap;
 import java.util.Collection;
@@ -35,7 +34,6 @@ import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.LineIterator;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -120,19 +118,34 @@ public class ODataBatchUtilities {
     public static String readBatchPart(
             final ODataBatchController controller, final OutputStream os, final int count, final boolean checkCurrent) {
 
-        String currentLine;
+        final ODataBatchLineIterator iterator = controller.getBatchLineIterator();
 
-        synchronized (controller.getBatchLineIterator()) {
-            currentLine = checkCurrent ? controller.getBatchLineIterator().getCurrent() : null;
+        // completes the item body being read, if any
+        boolean hasNext = iterator.hasNext();
 
-            if (count < 0) {
-                try {
+        String currentLine = checkCurrent ? iterator.getCurrent() : null;
 
-                    boolean notEndLine = isNotEndLine(controller, currentLine);
+        if (count < 0) {
+            try {
+                boolean notEndLine = isNotEndLine(controller, currentLine);
 
-                    while (controller.isValidBatch() && notEndLine && controller.getBatchLineIterator().hasNext()) {
-
-                        currentLine = controller.getBatchLineIterator().nextLine();
+                if (StringUtils.isNotBlank(controller.getBoundary())) {
+                    if (controller.isValidBatch() && notEndLine && hasNext) {
+                        final InputStream part = iterator.nextPart(controller.getBoundary());
+                        try {
+                            if (os != null) {
+                                IOUtils.copy(part, os);
+                            }
+                        } finally {
+                            // skips what is left of the part
+                            part.close();
+                        }
+                        currentLine = iterator.getCurrent();
+                        LOG.debug("Read part till line '{}' (end-line '{}')", currentLine, controller.getBoundary());
+                    }
+                } else {
+                    while (controller.isValidBatch() && notEndLine && hasNext) {
+                        currentLine = iterator.nextLine();
                         LOG.debug("Read line '{}' (end-line '{}')", currentLine, controller.getBoundary());
 
                         notEndLine = isNotEndLine(controller, currentLine);
@@ -141,18 +154,16 @@ public class ODataBatchUtilities {
                             os.write(currentLine.getBytes(ODataConstants.UTF8));
                             os.write(ODataStreamer.CRLF);
                         }
+                        hasNext = iterator.hasNext();
                     }
-
-                } catch (IOException e) {
-                    LOG.error("Error reading batch part", e);
-                    throw new IllegalStateException(e);
-                }
-
-            } else {
-                for (int i = 0;
-                        controller.isValidBatch() && controller.getBatchLineIterator().hasNext() && i < count; i++) {
-                    currentLine = controller.getBatchLineIterator().nextLine();
                 }
+            } catch (IOException e) {
+                LOG.error("Error reading batch part", e);
+                throw new IllegalStateException(e);
+            }
+        } else {
+            for (int i = 0; controller.isValidBatch() && iterator.hasNext() && i < count; i++) {
+                currentLine = iterator.nextLine();
             }
         }
 
@@ -184,21 +195,16 @@ public class ODataBatchUtilities {
     public static void readHeaders(
             final ODataBatchLineIterator iterator, final Map<String, Collection<String>> target) {
 
-        try {
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            readBatchPart(new ODataBatchController(iterator, null), baos, true);
+        final ODataBatchController controller = new ODataBatchController(iterator, null);
 
-            final LineIterator headers = IOUtils.lineIterator(new ByteArrayInputStream(baos.toByteArray()),
-                    ODataConstants.UTF8);
-            while (headers.hasNext()) {
-                final String line = headers.nextLine().trim();
-                if (StringUtils.isNotBlank(line)) {
-                    addHeaderLine(line, target);
-                }
+        boolean notEndLine = isNotEndLine(controller, iterator.getCurrent());
+        while (notEndLine && iterator.hasNext()) {
+            final String line = iterator.nextLine();
+
+            notEndLine = isNotEndLine(controller, line);
+            if (notEndLine) {
+                addHeaderLine(line.trim(), target);
             }
-        } catch (Exception e) {
-            LOG.error("Error retrieving headers", e);
-            throw new IllegalStateException(e);
         }
     }
 
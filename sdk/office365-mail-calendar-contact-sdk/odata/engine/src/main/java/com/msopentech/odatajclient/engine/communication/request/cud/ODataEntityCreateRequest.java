@@ -32,7 +32,6 @@ import com.msopentech.odatajclient.engine.utils.URIUtils;
 import java.io.InputStream;
 import java.net.URI;
 
-import org.apache.commons.io.IOUtils;
 import com.msopentech.org.apache.http.HttpResponse;
 import com.msopentech.org.apache.http.client.HttpClient;
 import com.msopentech.org.apache.http.client.methods.HttpPost;
@@ -72,15 +71,17 @@ public class ODataEntityCreateRequest extends AbstractODataBasicRequestImpl<ODat
      * {@inheritDoc }
      */
     @Override
-    public ODataEntityCreateResponse execute() {
-        final InputStream input = getPayload();
-        ((HttpPost) request).setEntity(URIUtils.buildInputStreamEntity(odataClient, input));
+    protected void prepareRequest() {
+        ((HttpPost) request).setEntity(URIUtils.buildInputStreamEntity(odataClient, getPayload()));
+        super.prepareRequest();
+    }
 
-        try {
-            return new ODataEntityCreateResponseImpl(httpClient, doExecute());
-        } finally {
-            IOUtils.closeQuietly(input);
-        }
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ODataEntityCreateResponse execute() {
+        return new ODataEntityCreateResponseImpl(httpClient, doExecute());
     }
 
     /**
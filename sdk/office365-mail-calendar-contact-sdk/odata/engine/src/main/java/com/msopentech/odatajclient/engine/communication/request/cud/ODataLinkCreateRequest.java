@@ -30,7 +30,6 @@ import com.msopentech.odatajclient.engine.format.ODataFormat;
 import com.msopentech.odatajclient.engine.utils.URIUtils;
 import java.io.InputStream;
 import java.net.URI;
-import org.apache.commons.io.IOUtils;
 import com.msopentech.org.apache.http.HttpResponse;
 import com.msopentech.org.apache.http.client.HttpClient;
 import com.msopentech.org.apache.http.client.methods.HttpPost;
@@ -63,15 +62,17 @@ public class ODataLinkCreateRequest extends AbstractODataBasicRequestImpl<ODataL
      * {@inheritDoc}
      */
     @Override
-    public ODataLinkOperationResponse execute() {
-        final InputStream input = getPayload();
-        ((HttpPost) request).setEntity(URIUtils.buildInputStreamEntity(odataClient, input));
+    protected void prepareRequest() {
+        ((HttpPost) request).setEntity(URIUtils.buildInputStreamEntity(odataClient, getPayload()));
+        super.prepareRequest();
+    }
 
-        try {
-            return new ODataLinkCreateResponseImpl(httpClient, doExecute());
-        } finally {
-            IOUtils.closeQuietly(input);
-        }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ODataLinkOperationResponse execute() {
+        return new ODataLinkCreateResponseImpl(httpClient, doExecute());
     }
 
     /**
@@ -103,6 +104,7 @@ public class ODataLinkCreateRequest extends AbstractODataBasicRequestImpl<ODataL
          */
         private ODataLinkCreateResponseImpl(final HttpClient client, final HttpResponse res) {
             super(client, res);
+            releaseConnection();
         }
     }
 }
@@ -30,7 +30,6 @@ import com.msopentech.odatajclient.engine.format.ODataFormat;
 import com.msopentech.odatajclient.engine.utils.URIUtils;
 import java.io.InputStream;
 import java.net.URI;
-import org.apache.commons.io.IOUtils;
 import com.msopentech.org.apache.http.HttpResponse;
 import com.msopentech.org.apache.http.client.HttpClient;
 import com.msopentech.org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
@@ -66,15 +65,17 @@ public class ODataLinkUpdateRequest extends AbstractODataBasicRequestImpl<ODataL
      * {@inheritDoc }
      */
     @Override
-    public ODataLinkOperationResponse execute() {
-        final InputStream input = getPayload();
-        ((HttpEntityEnclosingRequestBase) request).setEntity(URIUtils.buildInputStreamEntity(odataClient, input));
+    protected void prepareRequest() {
+        ((HttpEntityEnclosingRequestBase) request).setEntity(URIUtils.buildInputStreamEntity(odataClient, getPayload()));
+        super.prepareRequest();
+    }
 
-        try {
-            return new ODataLinkUpdateResponseImpl(httpClient, doExecute());
-        } finally {
-            IOUtils.closeQuietly(input);
-        }
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ODataLinkOperationResponse execute() {
+        return new ODataLinkUpdateResponseImpl(httpClient, doExecute());
     }
 
     /**
@@ -106,6 +107,7 @@ public class ODataLinkUpdateRequest extends AbstractODataBasicRequestImpl<ODataL
          */
         public ODataLinkUpdateResponseImpl(final HttpClient client, final HttpResponse res) {
             super(client, res);
+            releaseConnection();
         }
     }
 }
@@ -30,7 +30,6 @@ import com.msopentech.odatajclient.engine.format.ODataFormat;
 import com.msopentech.odatajclient.engine.utils.URIUtils;
 import java.io.InputStream;
 import java.net.URI;
-import org.apache.commons.io.IOUtils;
 import com.msopentech.org.apache.http.HttpResponse;
 import com.msopentech.org.apache.http.client.HttpClient;
 import com.msopentech.org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
@@ -67,15 +66,17 @@ public class ODataPropertyUpdateRequest extends AbstractODataBasicRequestImpl<OD
      * {@inheritDoc }
      */
     @Override
-    public ODataPropertyUpdateResponse execute() {
-        final InputStream input = getPayload();
-        ((HttpEntityEnclosingRequestBase) request).setEntity(URIUtils.buildInputStreamEntity(odataClient, input));
+    protected void prepareRequest() {
+        ((HttpEntityEnclosingRequestBase) request).setEntity(URIUtils.buildInputStreamEntity(odataClient, getPayload()));
+        super.prepareRequest();
+    }
 
-        try {
-            return new ODataPropertyUpdateResponseImpl(httpClient, doExecute());
-        } finally {
-            IOUtils.closeQuietly(input);
-        }
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ODataPropertyUpdateResponse execute() {
+        return new ODataPropertyUpdateResponseImpl(httpClient, doExecute());
     }
 
     /**
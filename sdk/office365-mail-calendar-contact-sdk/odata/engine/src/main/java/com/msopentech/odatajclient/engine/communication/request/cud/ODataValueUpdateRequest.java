@@ -70,15 +70,17 @@ public class ODataValueUpdateRequest extends AbstractODataBasicRequestImpl<OData
      * {@inheritDoc }
      */
     @Override
-    public ODataValueUpdateResponseImpl execute() {
-        final InputStream input = getPayload();
-        ((HttpEntityEnclosingRequestBase) request).setEntity(URIUtils.buildInputStreamEntity(odataClient, input));
+    protected void prepareRequest() {
+        ((HttpEntityEnclosingRequestBase) request).setEntity(URIUtils.buildInputStreamEntity(odataClient, getPayload()));
+        super.prepareRequest();
+    }
 
-        try {
-            return new ODataValueUpdateResponseImpl(httpClient, doExecute());
-        } finally {
-            IOUtils.closeQuietly(input);
-        }
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ODataValueUpdateResponseImpl execute() {
+        return new ODataValueUpdateResponseImpl(httpClient, doExecute());
     }
 
     /**
@@ -42,7 +42,6 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import org.apache.commons.io.IOUtils;
 import com.msopentech.org.apache.http.HttpResponse;
 import com.msopentech.org.apache.http.client.HttpClient;
 import com.msopentech.org.apache.http.client.methods.HttpPost;
@@ -141,9 +140,7 @@ public class ODataInvokeRequest<T extends ODataInvokeResult>
      * {@inheritDoc }
      */
     @Override
-    public ODataInvokeResponse<T> execute() {
-        final InputStream input = getPayload();
-
+    protected void prepareRequest() {
         if (!this.parameters.isEmpty()) {
             if (this.method == HttpMethod.GET) {
                 final URIBuilder uriBuilder = new URIBuilder(this.uri);
@@ -160,17 +157,21 @@ public class ODataInvokeRequest<T extends ODataInvokeResult>
                     throw new IllegalArgumentException("While adding GET parameters", e);
                 }
             } else if (this.method == HttpMethod.POST) {
-                ((HttpPost) request).setEntity(URIUtils.buildInputStreamEntity(odataClient, input));
+                ((HttpPost) request).setEntity(URIUtils.buildInputStreamEntity(odataClient, getPayload()));
 
                 setContentType(ODataPubFormat.JSON.toString());
             }
         }
 
-        try {
-            return new ODataInvokeResponseImpl(httpClient, doExecute());
-        } finally {
-            IOUtils.closeQuietly(input);
-        }
+        super.prepareRequest();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ODataInvokeResponse<T> execute() {
+        return new ODataInvokeResponseImpl(httpClient, doExecute());
     }
 
     /**
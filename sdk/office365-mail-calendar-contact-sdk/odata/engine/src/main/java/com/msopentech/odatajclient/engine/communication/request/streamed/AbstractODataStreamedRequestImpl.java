@@ -35,6 +35,7 @@ import java.io.InputStream;
 import java.net.URI;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import com.msopentech.org.apache.http.HttpResponse;
@@ -91,16 +92,26 @@ public abstract class AbstractODataStreamedRequestImpl<V extends ODataResponse,
     public T execute() {
         streamManager = getStreamManager();
 
-        ((HttpEntityEnclosingRequestBase) request).setEntity(
-                URIUtils.buildInputStreamEntity(odataClient, streamManager.getBody()));
-
-        futureWrapper.setWrapped(odataClient.getConfiguration().getExecutor().submit(new Callable<HttpResponse>() {
+        final Callable<HttpResponse> call = new Callable<HttpResponse>() {
 
             @Override
             public HttpResponse call() throws Exception {
                 return doExecute();
             }
-        }));
+        };
+
+        if (streamManager.getBodyEntity() == null) {
+            ((HttpEntityEnclosingRequestBase) request).setEntity(
+                    URIUtils.buildInputStreamEntity(odataClient, streamManager.getBody()));
+
+            futureWrapper.setWrapped(odataClient.getConfiguration().getExecutor().submit(call));
+        } else {
+            // the payload is gathered into the entity: the stream manager submits the request once it is complete
+            streamManager.getBodyEntity().setChunked(odataClient.getConfiguration().isUseChuncked());
+            ((HttpEntityEnclosingRequestBase) request).setEntity(streamManager.getBodyEntity());
+
+            futureWrapper.setWrapped(new FutureTask<HttpResponse>(call));
+        }
 
         // returns the stream manager object
         return (T) streamManager;
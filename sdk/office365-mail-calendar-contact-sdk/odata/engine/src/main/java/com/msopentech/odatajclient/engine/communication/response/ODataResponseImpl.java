@@ -21,15 +21,12 @@ package com.msopentech.odatajclient.engine.communication.response;
 
 import com.msopentech.odatajclient.engine.client.http.NoContentException;
 import com.msopentech.odatajclient.engine.communication.header.ODataHeaders;
-import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchUtilities;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchController;
 import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchLineIterator;
 import com.msopentech.odatajclient.engine.data.ODataEntity;
 
-import java.io.IOException;
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
@@ -37,9 +34,12 @@ import java.util.TreeMap;
 
 import org.apache.commons.io.IOUtils;
 import com.msopentech.org.apache.http.Header;
+import com.msopentech.org.apache.http.HttpEntity;
 import com.msopentech.org.apache.http.HttpResponse;
 import com.msopentech.org.apache.http.HttpStatus;
 import com.msopentech.org.apache.http.client.HttpClient;
+import com.msopentech.org.apache.http.pool.ConnPoolControl;
+import com.msopentech.org.apache.http.util.EntityUtils;
 import org.slf4j.LoggerFactory;
 
 /**
@@ -134,6 +134,26 @@ public abstract class ODataResponseImpl implements ODataResponse {
 
         statusCode = res.getStatusLine().getStatusCode();
         statusMessage = res.getStatusLine().getReasonPhrase();
+
+        final HttpEntity entity = res.getEntity();
+        if (statusCode == HttpStatus.SC_NO_CONTENT || statusCode == HttpStatus.SC_NOT_MODIFIED
+                || (entity != null && entity.getContentLength() == 0)) {
+            // nothing to read: don't keep a pooled connection leased until close()
+            releaseConnection();
+        }
+    }
+
+    /**
+     * Gives the underlying connection back to the pool without waiting for {@link #close()}.
+     * <p>
+     * To be used by responses whose payload is empty or never exposed to the caller; the payload is replaced by an
+     * empty stream. Has no effect unless a pooling connection manager is in use.
+     */
+    protected void releaseConnection() {
+        if (client != null && client.getConnectionManager() instanceof ConnPoolControl) {
+            EntityUtils.consumeQuietly(res.getEntity());
+            payload = new ByteArrayInputStream(new byte[0]);
+        }
     }
 
     /**
@@ -228,7 +248,8 @@ public abstract class ODataResponseImpl implements ODataResponse {
      */
     @Override
     public void close() {
-        if (client == null) {
+        if (client == null || client.getConnectionManager() instanceof ConnPoolControl) {
+            // pooled connections are given back to the pool once the payload has been consumed
             IOUtils.closeQuietly(payload);
         } else {
             this.client.getConnectionManager().shutdown();
@@ -249,30 +270,8 @@ public abstract class ODataResponseImpl implements ODataResponse {
         }
 
         if (payload == null && batchInfo.isValidBatch()) {
-            // get input stream till the end of item
-            payload = new PipedInputStream();
-
-            try {
-                final PipedOutputStream os = new PipedOutputStream((PipedInputStream) payload);
-
-                new Thread(new Runnable() {
-
-                    @Override
-                    public void run() {
-                        try {
-                            ODataBatchUtilities.readBatchPart(batchInfo, os, true);
-                        } catch (Exception e) {
-                            LOG.error("Error streaming batch item payload", e);
-                        } finally {
-                            IOUtils.closeQuietly(os);
-                        }
-                    }
-                }).start();
-
-            } catch (IOException e) {
-                LOG.error("Error streaming payload response", e);
-                throw new IllegalStateException(e);
-            }
+            // bytes till the end of item, read straight from the batch response
+            payload = batchInfo.getBatchLineIterator().nextPart(batchInfo.getBoundary());
         }
 
         return payload;
@@ -22,27 +22,98 @@ package com.msopentech.odatajclient.engine.data;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.InjectableValues;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.msopentech.odatajclient.engine.client.ODataClient;
-import com.msopentech.odatajclient.engine.data.json.InjectableSerializerProvider;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Holds the Jackson mapper configured for the given client, built once on first use and shared by all calls.
+ * <p>
+ * The mapper must not be reconfigured once built: use readers from <tt>getReader(Class)</tt> and the writer from
+ * <tt>getWriter()</tt>, which are immutable and thread-safe.
+ */
 abstract class AbstractJacksonMarshaller {
 
     protected final ODataClient client;
 
+    private transient volatile ObjectMapper mapper;
+
+    private transient volatile ObjectWriter writer;
+
+    private transient volatile ConcurrentMap<ObjectMapper, ConcurrentMap<Class<?>, ObjectReader>> readers;
+
     public AbstractJacksonMarshaller(final ODataClient client) {
         this.client = client;
     }
 
     protected ObjectMapper getObjectMapper() {
-        final ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        ObjectMapper result = mapper;
+        if (result == null) {
+            result = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+            result.setInjectableValues(new InjectableValues.Std().addValue(ODataClient.class, client));
+            mapper = result;
+        }
+        return result;
+    }
+
+    /**
+     * Gets a reader for the given type, built on first use.
+     *
+     * @param reference type to be read.
+     * @return reader.
+     */
+    protected ObjectReader getReader(final Class<?> reference) {
+        return getReader(reference, getObjectMapper());
+    }
 
-        mapper.setInjectableValues(new InjectableValues.Std().addValue(ODataClient.class, client));
+    /**
+     * Gets a reader for the given type from the given mapper, built on first use.
+     *
+     * @param reference type to be read.
+     * @param mapper mapper the reader is built from.
+     * @return reader.
+     */
+    protected ObjectReader getReader(final Class<?> reference, final ObjectMapper mapper) {
+        ConcurrentMap<ObjectMapper, ConcurrentMap<Class<?>, ObjectReader>> caches = readers;
+        if (caches == null) {
+            caches = new ConcurrentHashMap<ObjectMapper, ConcurrentMap<Class<?>, ObjectReader>>();
+            readers = caches;
+        }
 
-        mapper.setSerializerProvider(new InjectableSerializerProvider(mapper.getSerializerProvider(),
-                mapper.getSerializationConfig().withAttribute(ODataClient.class, client),
-                mapper.getSerializerFactory()));
+        // one cache per mapper: the same type can be read both as JSON and as XML
+        ConcurrentMap<Class<?>, ObjectReader> cache = caches.get(mapper);
+        if (cache == null) {
+            cache = new ConcurrentHashMap<Class<?>, ObjectReader>();
+            final ConcurrentMap<Class<?>, ObjectReader> previous = caches.putIfAbsent(mapper, cache);
+            if (previous != null) {
+                cache = previous;
+            }
+        }
 
-        return mapper;
+        ObjectReader reader = cache.get(reference);
+        if (reader == null) {
+            reader = mapper.reader(reference);
+            final ObjectReader previous = cache.putIfAbsent(reference, reader);
+            if (previous != null) {
+                reader = previous;
+            }
+        }
+        return reader;
     }
 
+    /**
+     * Gets the writer, carrying the client as serialization attribute.
+     *
+     * @return writer.
+     */
+    protected ObjectWriter getWriter() {
+        ObjectWriter result = writer;
+        if (result == null) {
+            result = getObjectMapper().writer().withAttribute(ODataClient.class, client);
+            writer = result;
+        }
+        return result;
+    }
 }
@@ -21,6 +21,7 @@ package com.msopentech.odatajclient.engine.data;
 
 import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.data.ODataProperty.PropertyType;
+import com.msopentech.odatajclient.engine.data.metadata.AbstractEdmMetadata;
 import com.msopentech.odatajclient.engine.data.metadata.EdmType;
 import com.msopentech.odatajclient.engine.utils.ODataConstants;
 import com.msopentech.odatajclient.engine.utils.URIUtils;
@@ -55,6 +56,18 @@ public abstract class AbstractODataBinder implements ODataBinder {
         this.client = client;
     }
 
+    /**
+     * Gets the property shape of the given type, if property shapes are enabled.
+     *
+     * @param type qualified type name.
+     * @return property shape, or null.
+     * @see com.msopentech.odatajclient.engine.client.Configuration#setPropertyShapeMetadata
+     */
+    protected ODataPropertyShape getPropertyShape(final String type) {
+        final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata = client.getConfiguration().getPropertyShapeMetadata();
+        return metadata == null || type == null ? null : metadata.getIndex().getPropertyShape(type);
+    }
+
     protected Element newEntryContent() {
         Element properties = null;
         try {
@@ -249,10 +262,9 @@ public abstract class AbstractODataBinder implements ODataBinder {
 
         final URI base = defaultBaseURI == null ? resource.getBaseURI() : defaultBaseURI;
 
-        final ODataEntity entity = resource.getSelfLink() == null
-                ? ODataObjectFactory.newEntity(resource.getType())
-                : ODataObjectFactory.newEntity(resource.getType(),
-                        URIUtils.getURI(base, resource.getSelfLink().getHref()));
+        final ODataEntity entity = ODataObjectFactory.newEntity(resource.getType(),
+                resource.getSelfLink() == null ? null : URIUtils.getURI(base, resource.getSelfLink().getHref()),
+                getPropertyShape(resource.getType()));
 
         if (StringUtils.isNotBlank(resource.getETag())) {
             entity.setETag(resource.getETag());
@@ -549,7 +561,8 @@ public abstract class AbstractODataBinder implements ODataBinder {
     }
 
     protected ODataComplexValue fromComplexValueElement(final Element prop, final EdmType edmType) {
-        final ODataComplexValue value = new ODataComplexValue(edmType == null ? null : edmType.getTypeExpression());
+        final String type = edmType == null ? null : edmType.getTypeExpression();
+        final ODataComplexValue value = new ODataComplexValue(type, getPropertyShape(type));
 
         for (Node child : XMLUtils.getChildNodes(prop, Node.ELEMENT_NODE)) {
             value.add(getProperty((Element) child));
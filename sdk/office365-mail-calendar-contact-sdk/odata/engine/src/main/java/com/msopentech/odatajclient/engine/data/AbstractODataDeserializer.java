@@ -26,6 +26,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.InjectableValues;
 import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.deser.DeserializationProblemHandler;
 import com.fasterxml.jackson.dataformat.xml.JacksonXmlModule;
 import com.fasterxml.jackson.dataformat.xml.XmlFactory;
@@ -63,6 +64,8 @@ public abstract class AbstractODataDeserializer extends AbstractJacksonMarshalle
 
     protected static final Logger LOG = LoggerFactory.getLogger(AbstractODataDeserializer.class);
 
+    private transient volatile XmlMapper xmlMapper;
+
     public AbstractODataDeserializer(final ODataClient client) {
         super(client);
     }
@@ -130,27 +133,50 @@ public abstract class AbstractODataDeserializer extends AbstractJacksonMarshalle
         return XMLUtils.PARSER.parse(input);
     }
 
+    @Override
+    public JsonParser toJSONParser(final InputStream input) {
+        try {
+            return getObjectMapper().getFactory().createParser(input);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("While creating JSON parser", e);
+        }
+    }
+
     /*
      * ------------------ Protected methods ------------------
      */
     protected XmlMapper getXmlMapper() {
-        final XmlMapper xmlMapper = new XmlMapper(
-                new XmlFactory(new InputFactoryImpl(), new OutputFactoryImpl()), new JacksonXmlModule());
-        xmlMapper.setInjectableValues(new InjectableValues.Std().addValue(ODataClient.class, client));
-        xmlMapper.addHandler(new DeserializationProblemHandler() {
-
-            @Override
-            public boolean handleUnknownProperty(final DeserializationContext ctxt, final JsonParser jp,
-                    final JsonDeserializer<?> deserializer, final Object beanOrClass, final String propertyName)
-                    throws IOException, JsonProcessingException {
-
-                // skip any unknown property
-                LOG.warn("Skipping unknown property {}", propertyName);
-                ctxt.getParser().skipChildren();
-                return true;
-            }
-        });
-        return xmlMapper;
+        XmlMapper result = xmlMapper;
+        if (result == null) {
+            result = new XmlMapper(
+                    new XmlFactory(new InputFactoryImpl(), new OutputFactoryImpl()), new JacksonXmlModule());
+            result.setInjectableValues(new InjectableValues.Std().addValue(ODataClient.class, client));
+            result.addHandler(new DeserializationProblemHandler() {
+
+                @Override
+                public boolean handleUnknownProperty(final DeserializationContext ctxt, final JsonParser jp,
+                        final JsonDeserializer<?> deserializer, final Object beanOrClass, final String propertyName)
+                        throws IOException, JsonProcessingException {
+
+                    // skip any unknown property
+                    LOG.warn("Skipping unknown property {}", propertyName);
+                    ctxt.getParser().skipChildren();
+                    return true;
+                }
+            });
+            xmlMapper = result;
+        }
+        return result;
+    }
+
+    /**
+     * Gets a reader for the given type from the XML mapper, built on first use.
+     *
+     * @param reference type to be read.
+     * @return reader.
+     */
+    protected ObjectReader getXmlReader(final Class<?> reference) {
+        return getReader(reference, getXmlMapper());
     }
 
     protected AtomFeed toAtomFeed(final InputStream input) {
@@ -179,7 +205,7 @@ public abstract class AbstractODataDeserializer extends AbstractJacksonMarshalle
 
     protected Element toPropertyDOMFromJSON(final InputStream input) {
         try {
-            return getObjectMapper().readValue(input, JSONProperty.class).getContent();
+            return getReader(JSONProperty.class).<JSONProperty>readValue(input).getContent();
         } catch (IOException e) {
             throw new IllegalArgumentException("While deserializing JSON property", e);
         }
@@ -209,7 +235,7 @@ public abstract class AbstractODataDeserializer extends AbstractJacksonMarshalle
 
     protected ServiceDocumentResource toServiceDocumentFromJSON(final InputStream input) {
         try {
-            return getObjectMapper().readValue(input, JSONServiceDocument.class);
+            return getReader(JSONServiceDocument.class).readValue(input);
         } catch (IOException e) {
             throw new IllegalArgumentException("While deserializing JSON service document", e);
         }
@@ -236,7 +262,7 @@ public abstract class AbstractODataDeserializer extends AbstractJacksonMarshalle
 
     protected JSONLinkCollection toLinkCollectionFromJSON(final InputStream input) {
         try {
-            return getObjectMapper().readValue(input, JSONLinkCollection.class);
+            return getReader(JSONLinkCollection.class).readValue(input);
         } catch (IOException e) {
             throw new IllegalArgumentException("While deserializing JSON $links", e);
         }
@@ -244,9 +270,7 @@ public abstract class AbstractODataDeserializer extends AbstractJacksonMarshalle
 
     protected XMLODataError toODataErrorFromXML(final InputStream input) {
         try {
-            final XmlMapper xmlMapper = new XmlMapper(
-                    new XmlFactory(new InputFactoryImpl(), new OutputFactoryImpl()), new JacksonXmlModule());
-            return xmlMapper.readValue(input, XMLODataError.class);
+            return getXmlReader(XMLODataError.class).readValue(input);
         } catch (Exception e) {
             throw new IllegalArgumentException("While deserializing XML error", e);
         }
@@ -254,7 +278,7 @@ public abstract class AbstractODataDeserializer extends AbstractJacksonMarshalle
 
     protected JSONODataError toODataErrorFromJSON(final InputStream input) {
         try {
-            return getObjectMapper().readValue(input, JSONODataErrorBundle.class).getError();
+            return getReader(JSONODataErrorBundle.class).<JSONODataErrorBundle>readValue(input).getError();
         } catch (IOException e) {
             throw new IllegalArgumentException("While deserializing JSON error", e);
         }
@@ -20,6 +20,7 @@
 package com.msopentech.odatajclient.engine.data;
 
 import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.data.json.JSONDirectBinder;
 import com.msopentech.odatajclient.engine.data.metadata.AbstractEdmMetadata;
 import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
 import com.msopentech.odatajclient.engine.format.ODataPubFormat;
@@ -46,18 +47,47 @@ public abstract class AbstractODataReader implements ODataReader {
 
     protected final ODataClient client;
 
+    private transient volatile JSONDirectBinder directBinder;
+
     protected AbstractODataReader(final ODataClient client) {
         this.client = client;
     }
 
+    /**
+     * Gets the binder reading JSON entities without intermediate DOM tree, if enabled for the given format.
+     *
+     * @param format format being read.
+     * @return direct binder, or null if entities are to be bound via <tt>ODataBinder</tt>.
+     * @see com.msopentech.odatajclient.engine.client.Configuration#isDirectJSONBinding()
+     */
+    protected JSONDirectBinder getDirectBinder(final ODataPubFormat format) {
+        if (format == ODataPubFormat.ATOM || !client.getConfiguration().isDirectJSONBinding()) {
+            return null;
+        }
+        if (directBinder == null) {
+            directBinder = new JSONDirectBinder(client);
+        }
+        return directBinder;
+    }
+
     @Override
     public ODataEntitySet readEntitySet(final InputStream input, final ODataPubFormat format) {
+        final JSONDirectBinder binder = getDirectBinder(format);
+        if (binder != null) {
+            return binder.readEntitySet(input);
+        }
+
         return client.getBinder().getODataEntitySet(
                 client.getDeserializer().toFeed(input, client.getResourceFactory().feedClassForFormat(format)));
     }
 
     @Override
     public ODataEntity readEntity(final InputStream input, final ODataPubFormat format) {
+        final JSONDirectBinder binder = getDirectBinder(format);
+        if (binder != null) {
+            return binder.readEntity(input);
+        }
+
         return client.getBinder().getODataEntity(
                 client.getDeserializer().toEntry(input, client.getResourceFactory().entryClassForFormat(format)));
     }
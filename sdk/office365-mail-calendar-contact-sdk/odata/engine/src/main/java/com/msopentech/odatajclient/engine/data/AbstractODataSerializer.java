@@ -19,7 +19,6 @@
  */
 package com.msopentech.odatajclient.engine.data;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.msopentech.odatajclient.engine.client.ODataClient;
 import com.msopentech.odatajclient.engine.data.atom.AtomSerializer;
@@ -111,7 +110,7 @@ public abstract class AbstractODataSerializer extends AbstractJacksonMarshaller
 
     protected <T extends AbstractPayloadObject> void json(final T obj, final Writer writer) {
         try {
-            getObjectMapper().writeValue(writer, obj);
+            getWriter().writeValue(writer, obj);
         } catch (IOException e) {
             throw new IllegalArgumentException("While serializing JSON object", e);
         }
@@ -121,7 +120,7 @@ public abstract class AbstractODataSerializer extends AbstractJacksonMarshaller
         try {
             final JSONProperty property = new JSONProperty();
             property.setContent(element);
-            getObjectMapper().writeValue(writer, property);
+            getWriter().writeValue(writer, property);
         } catch (IOException e) {
             throw new IllegalArgumentException("While serializing JSON property", e);
         }
@@ -141,12 +140,11 @@ public abstract class AbstractODataSerializer extends AbstractJacksonMarshaller
     }
 
     protected void jsonLink(final ODataLink link, final Writer writer) {
-        final ObjectMapper mapper = getObjectMapper();
-        final ObjectNode uri = mapper.createObjectNode();
+        final ObjectNode uri = getObjectMapper().createObjectNode();
         uri.put(ODataConstants.JSON_URL, link.getLink().toASCIIString());
 
         try {
-            mapper.writeValue(writer, uri);
+            getWriter().writeValue(writer, uri);
         } catch (Exception e) {
             throw new IllegalArgumentException("While serializing JSON link", e);
         }
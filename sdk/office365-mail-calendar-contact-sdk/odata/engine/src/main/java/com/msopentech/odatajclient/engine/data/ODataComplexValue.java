@@ -20,8 +20,6 @@
 package com.msopentech.odatajclient.engine.data;
 
 import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.Map;
 
 /**
  * OData complex property value.
@@ -36,9 +34,9 @@ public class ODataComplexValue extends ODataValue implements Iterable<ODataPrope
     private final String typeName;
 
     /**
-     * Complex type fields.
+     * Complex type fields, in insertion order, indexed by name.
      */
-    private final Map<String, ODataProperty> fields = new LinkedHashMap<String, ODataProperty>();
+    private final ODataProperties fields;
 
     /**
      * Constructor.
@@ -46,7 +44,18 @@ public class ODataComplexValue extends ODataValue implements Iterable<ODataPrope
      * @param typeName type name.
      */
     public ODataComplexValue(final String typeName) {
+        this(typeName, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param typeName type name.
+     * @param shape shape of complex type fields, if known from metadata; null otherwise.
+     */
+    public ODataComplexValue(final String typeName, final ODataPropertyShape shape) {
         this.typeName = typeName;
+        this.fields = new ODataProperties(shape);
     }
 
     /**
@@ -55,7 +64,7 @@ public class ODataComplexValue extends ODataValue implements Iterable<ODataPrope
      * @param field field to be added.
      */
     public void add(final ODataProperty field) {
-        fields.put(field.getName(), field);
+        fields.put(field);
     }
 
     /**
@@ -75,7 +84,7 @@ public class ODataComplexValue extends ODataValue implements Iterable<ODataPrope
      */
     @Override
     public Iterator<ODataProperty> iterator() {
-        return fields.values().iterator();
+        return fields.iterator();
     }
 
     /**
@@ -19,6 +19,7 @@
  */
 package com.msopentech.odatajclient.engine.data;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.msopentech.odatajclient.engine.data.metadata.edm.AbstractEdmx;
 import com.msopentech.odatajclient.engine.format.ODataFormat;
 import java.io.InputStream;
@@ -95,4 +96,13 @@ public interface ODataDeserializer extends Serializable {
      * @return DOM tree
      */
     Element toDOM(InputStream input);
+
+    /**
+     * Gets a JSON token stream over the given input: entries can then be bound one at a time via
+     * <tt>JsonParser.readValueAs</tt>.
+     *
+     * @param input stream to be parsed.
+     * @return JSON parser.
+     */
+    JsonParser toJSONParser(InputStream input);
 }
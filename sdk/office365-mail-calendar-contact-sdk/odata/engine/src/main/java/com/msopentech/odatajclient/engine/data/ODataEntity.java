@@ -79,7 +79,12 @@ public class ODataEntity extends ODataItem implements ODataInvokeResult {
     /**
      * Entity properties.
      */
-    protected final List<ODataProperty> properties = new ArrayList<ODataProperty>();
+    protected final List<ODataProperty> properties;
+
+    /**
+     * Same list as {@link #properties}, in insertion order, indexed by name.
+     */
+    private final ODataProperties indexedProperties;
 
     /**
      * Constructor.
@@ -87,7 +92,19 @@ public class ODataEntity extends ODataItem implements ODataInvokeResult {
      * @param name OData entity name.
      */
     ODataEntity(final String name) {
+        this(name, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param name OData entity name.
+     * @param shape shape of entity properties, if known from metadata; null otherwise.
+     */
+    ODataEntity(final String name, final ODataPropertyShape shape) {
         super(name);
+        this.indexedProperties = new ODataProperties(shape);
+        this.properties = indexedProperties;
     }
 
     /**
@@ -163,17 +180,7 @@ public class ODataEntity extends ODataItem implements ODataInvokeResult {
      * @return property if found with given name, <tt>null</tt> otherwise
      */
     public ODataProperty getProperty(final String name) {
-        ODataProperty result = null;
-
-        if (StringUtils.isNotBlank(name)) {
-            for (ODataProperty property : properties) {
-                if (name.equals(property.getName())) {
-                    result = property;
-                }
-            }
-        }
-
-        return result;
+        return StringUtils.isNotBlank(name) ? indexedProperties.get(name) : null;
     }
 
     /**
@@ -19,26 +19,30 @@
  */
 package com.msopentech.odatajclient.engine.data;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.msopentech.javax.xml.stream.XMLStreamException;
 import com.msopentech.odatajclient.engine.client.ODataClient;
-import com.msopentech.odatajclient.engine.data.atom.AtomEntry;
-import com.msopentech.odatajclient.engine.data.json.JSONV3Entry;
+import com.msopentech.odatajclient.engine.data.atom.AtomFeedReader;
+import com.msopentech.odatajclient.engine.data.json.JSONDirectBinder;
 import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import com.msopentech.odatajclient.engine.uri.SegmentType;
 import com.msopentech.odatajclient.engine.utils.ODataConstants;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import com.msopentech.odatajclient.engine.utils.URIUtils;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.URI;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * OData entity set iterator class.
+ * <br/>
+ * Feeds are walked as a single token stream (JSON) or via an {@link AtomFeedReader} (Atom): each entry is bound as
+ * soon as it is reached, while in-line count and next link are picked up as they go by.
  */
 public class ODataEntitySetIterator implements Iterator<ODataEntity> {
 
@@ -55,13 +59,21 @@ public class ODataEntitySetIterator implements Iterator<ODataEntity> {
 
     private final ODataPubFormat format;
 
-    private EntryResource cached;
+    private ODataEntity cached;
 
     private ODataEntitySet entitySet;
 
-    private final ByteArrayOutputStream osFeed;
+    private final AtomFeedReader atomReader;
 
-    private final String namespaces;
+    private final JsonParser parser;
+
+    private final JSONDirectBinder directBinder;
+
+    private URI base;
+
+    private String next;
+
+    private Integer count;
 
     private boolean available = true;
 
@@ -78,19 +90,27 @@ public class ODataEntitySetIterator implements Iterator<ODataEntity> {
         this.odataClient = odataClient;
         this.stream = stream;
         this.format = format;
-        this.osFeed = new ByteArrayOutputStream();
 
         if (format == ODataPubFormat.ATOM) {
-            namespaces = getAllElementAttributes(stream, "feed", osFeed);
+            parser = null;
+            directBinder = null;
+            try {
+                atomReader = new AtomFeedReader(stream);
+            } catch (XMLStreamException e) {
+                LOG.error("Error parsing feed", e);
+                throw new IllegalStateException(e);
+            }
         } else {
-            namespaces = null;
+            atomReader = null;
+            parser = odataClient.getDeserializer().toJSONParser(stream);
+            directBinder = odataClient.getConfiguration().isDirectJSONBinding()
+                    ? new JSONDirectBinder(odataClient)
+                    : null;
             try {
-                if (consume(stream, "\"value\":", osFeed, true) >= 0) {
-                    int c = 0;
-                    while (c != '[' && (c = stream.read()) >= 0) {
-                        osFeed.write(c);
-                    }
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IllegalStateException("Expected JSON object, found " + parser.getCurrentToken());
                 }
+                available = nextJsonFeedProperties();
             } catch (IOException e) {
                 LOG.error("Error parsing feed", e);
                 throw new IllegalStateException(e);
@@ -105,19 +125,32 @@ public class ODataEntitySetIterator implements Iterator<ODataEntity> {
     public boolean hasNext() {
         if (available && cached == null) {
             if (format == ODataPubFormat.ATOM) {
-                cached = nextAtomEntryFromFeed(stream, osFeed, namespaces);
+                cached = nextAtomEntryFromFeed();
             } else {
-                cached = nextJsonEntryFromFeed(stream, osFeed);
+                cached = nextJsonEntryFromFeed();
             }
 
             if (cached == null) {
                 available = false;
-                entitySet = odataClient.getReader().
-                        readEntitySet(new ByteArrayInputStream(osFeed.toByteArray()), format);
-                close();
             }
         }
 
+        if (!available && entitySet == null) {
+            if (atomReader != null) {
+                base = atomReader.getBaseURI();
+                next = atomReader.getNext();
+                count = atomReader.getCount();
+            }
+
+            entitySet = next == null
+                    ? ODataObjectFactory.newEntitySet()
+                    : ODataObjectFactory.newEntitySet(URIUtils.getURI(base, next));
+            if (count != null) {
+                entitySet.setCount(count);
+            }
+            close();
+        }
+
         return available;
     }
 
@@ -127,7 +160,7 @@ public class ODataEntitySetIterator implements Iterator<ODataEntity> {
     @Override
     public ODataEntity next() {
         if (hasNext()) {
-            final ODataEntity res = odataClient.getBinder().getODataEntity(cached);
+            final ODataEntity res = cached;
             cached = null;
             return res;
         }
@@ -147,8 +180,17 @@ public class ODataEntitySetIterator implements Iterator<ODataEntity> {
      * Closes the current iterator.
      */
     public void close() {
+        if (atomReader != null) {
+            atomReader.close();
+        }
+        if (parser != null) {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                LOG.warn("Error closing JSON parser", e);
+            }
+        }
         IOUtils.closeQuietly(stream);
-        IOUtils.closeQuietly(osFeed);
     }
 
     /**
@@ -163,6 +205,18 @@ public class ODataEntitySetIterator implements Iterator<ODataEntity> {
         return entitySet.getNext();
     }
 
+    /**
+     * Gets in-line count if provided.
+     *
+     * @return in-line count if provided; null otherwise.
+     */
+    public Integer getCount() {
+        if (entitySet == null) {
+            throw new IllegalStateException("Iteration must be completed in order to retrieve the in-line count");
+        }
+        return count;
+    }
+
     /**
      * Finalize object closing all managed resources.
      *
@@ -174,147 +228,69 @@ public class ODataEntitySetIterator implements Iterator<ODataEntity> {
         super.finalize();
     }
 
-    private JSONV3Entry nextJsonEntryFromFeed(final InputStream input, final OutputStream osFeed) {
-        final ByteArrayOutputStream entry = new ByteArrayOutputStream();
-
-        JSONV3Entry entity = null;
-        try {
-            int c = 0;
-
-            boolean foundNewOne = false;
-
-            do {
-                c = input.read();
-                if (c == '{') {
-                    entry.write(c);
-                    c = -1;
-                    foundNewOne = true;
-                }
-                if (c == ']') {
-                    osFeed.write(c);
-                    c = -1;
-                }
-            } while (c >= 0);
-
-            if (foundNewOne) {
-                int count = 1;
-                c = 0;
-
-                while (count > 0 && c >= 0) {
-                    c = input.read();
-                    if (c == '{') {
-                        count++;
-                    } else if (c == '}') {
-                        count--;
-                    }
-                    entry.write(c);
-                }
-
-                if (c >= 0) {
-                    entity = odataClient.getDeserializer().toEntry(
-                            new ByteArrayInputStream(entry.toByteArray()), JSONV3Entry.class);
-                }
+    /**
+     * Reads top-level feed properties up to the start of the <tt>value</tt> array or to the end of the feed.
+     *
+     * @return 'TRUE' if positioned at the start of the <tt>value</tt> array; 'FALSE' if the end of feed was reached.
+     * @throws IOException in case of parsing errors.
+     */
+    private boolean nextJsonFeedProperties() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final String key = name.startsWith("@") ? name.substring(1) : name;
+            final JsonToken token = parser.nextToken();
+
+            if (ODataConstants.JSON_VALUE.equals(key) && token == JsonToken.START_ARRAY) {
+                return true;
+            } else if (ODataConstants.JSON_METADATA.equals(key) && token == JsonToken.VALUE_STRING) {
+                final String metadata = parser.getText();
+                final int idx = metadata.indexOf(SegmentType.METADATA.getValue());
+                base = idx < 0 ? null : URI.create(metadata.substring(0, idx));
+            } else if (ODataConstants.JSON_NEXT_LINK.equals(key) && token == JsonToken.VALUE_STRING) {
+                next = parser.getText();
+            } else if (ODataConstants.JSON_COUNT.equals(key) && token != JsonToken.VALUE_NULL) {
+                count = token == JsonToken.VALUE_STRING ? Integer.valueOf(parser.getText()) : parser.getIntValue();
             } else {
-                while ((c = input.read()) >= 0) {
-                    osFeed.write(c);
-                }
+                parser.skipChildren();
             }
-        } catch (Exception e) {
-            LOG.error("Error retrieving entities from EntitySet", e);
         }
 
-        return entity;
+        return false;
     }
 
-    /**
-     * De-Serializes a stream into an OData entity set.
-     *
-     * @param input stream to de-serialize.
-     * @param format de-serialize as AtomFeed or JSONFeed
-     * @return de-serialized entity set.
-     */
-    private AtomEntry nextAtomEntryFromFeed(final InputStream input, final OutputStream osFeed, final String namespaces) {
-        final ByteArrayOutputStream entry = new ByteArrayOutputStream();
-
-        AtomEntry entity = null;
+    private ODataEntity nextAtomEntryFromFeed() {
+        EntryResource entry = null;
 
         try {
-            if (consume(input, "<entry>", osFeed, false) >= 0) {
-                entry.write("<entry ".getBytes(ODataConstants.UTF8));
-                entry.write(namespaces.getBytes(ODataConstants.UTF8));
-                entry.write(">".getBytes(ODataConstants.UTF8));
-
-                if (consume(input, "</entry>", entry, true) >= 0) {
-                    entity = odataClient.getDeserializer().
-                            toEntry(new ByteArrayInputStream(entry.toByteArray()), AtomEntry.class);
-                }
-            }
+            entry = atomReader.nextEntry();
         } catch (Exception e) {
             LOG.error("Error retrieving entities from EntitySet", e);
         }
 
-        return entity;
+        return entry == null ? null : odataClient.getBinder().getODataEntity(entry);
     }
 
-    private String getAllElementAttributes(final InputStream input, final String name, final OutputStream os) {
-        final ByteArrayOutputStream attrs = new ByteArrayOutputStream();
-
-        String res;
+    private ODataEntity nextJsonEntryFromFeed() {
+        EntryResource entry = null;
+        ODataEntity entity = null;
 
         try {
-            byte[] attrsDeclaration = null;
-
-            final String key = "<" + name + " ";
-            if (consume(input, key, os, true) >= 0 && consume(input, ">", attrs, false) >= 0) {
-                attrsDeclaration = attrs.toByteArray();
-                os.write(attrsDeclaration);
-                os.write('>');
+            final JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                if (directBinder == null) {
+                    entry = parser.readValueAs(
+                            odataClient.getResourceFactory().<EntryResource>entryClassForFormat(format));
+                } else {
+                    entity = directBinder.readEntity(parser, null);
+                }
+            } else if (token == JsonToken.END_ARRAY) {
+                // look for trailing feed properties, such as next link
+                nextJsonFeedProperties();
             }
-
-            res = attrsDeclaration == null
-                    ? StringUtils.EMPTY
-                    : new String(attrsDeclaration, ODataConstants.UTF8).trim();
         } catch (Exception e) {
             LOG.error("Error retrieving entities from EntitySet", e);
-            res = StringUtils.EMPTY;
-        }
-
-        return res.endsWith("/") ? res.substring(0, res.length() - 1) : res;
-    }
-
-    private int consume(
-            final InputStream input, final String end, final OutputStream os, final boolean includeEndKey)
-            throws IOException {
-
-        final char[] endKey = end.toCharArray();
-        final char[] endLowerKey = end.toLowerCase().toCharArray();
-        final char[] endUpperKey = end.toUpperCase().toCharArray();
-
-        int pos = 0;
-        int c = 0;
-        while (pos < endKey.length && (c = input.read()) >= 0) {
-            if (c == endLowerKey[pos] || c == endUpperKey[pos]) {
-                pos++;
-                if (includeEndKey && os != null) {
-                    os.write(c);
-                }
-            } else if (pos > 0) {
-                if (!includeEndKey && os != null) {
-                    for (int i = 0; i < pos; i++) {
-                        os.write(endKey[i]);
-                    }
-                }
-                if (os != null) {
-                    os.write(c);
-                }
-                pos = 0;
-            } else {
-                if (os != null) {
-                    os.write(c);
-                }
-            }
         }
 
-        return c;
+        return entry == null ? entity : odataClient.getBinder().getODataEntity(entry);
     }
 }
@@ -77,6 +77,21 @@ public final class ODataObjectFactory {
         return result;
     }
 
+    /**
+     * Instantiates a new entity, keeping its properties in a compact, array-backed store.
+     *
+     * @param name OData entity name.
+     * @param link self link, or null.
+     * @param shape shape of entity properties, as known from metadata, or null.
+     * @return entity.
+     * @see com.msopentech.odatajclient.engine.data.metadata.MetadataIndex#getPropertyShape(java.lang.String)
+     */
+    public static ODataEntity newEntity(final String name, final URI link, final ODataPropertyShape shape) {
+        final ODataEntity result = new ODataEntity(name, shape);
+        result.setLink(link);
+        return result;
+    }
+
     /**
      * Instantiates a new in-line entity set.
      *
@@ -31,6 +31,8 @@ import javax.xml.datatype.Duration;
 import com.msopentech.org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 /**
  * OData primitive property value.
@@ -67,12 +69,15 @@ public class ODataPrimitiveValue extends ODataValue {
 
         private final ODataPrimitiveValue opv;
 
+        private final boolean lazy;
+
         /**
          * Constructor.
          */
         public Builder(final ODataClient client) {
             super(client);
             this.opv = new ODataPrimitiveValue(client);
+            this.lazy = client.getConfiguration().isLazyPrimitiveValues();
         }
 
         /**
@@ -116,9 +121,11 @@ public class ODataPrimitiveValue extends ODataValue {
         }
 
         /**
-         * Builds the primitive value.
+         * Builds the primitive value: unless lazy primitive values are configured, text is parsed into the actual
+         * value, or the actual value formatted into text, right away.
          *
          * @return <code>ODataPrimitiveValue</code> object.
+         * @see com.msopentech.odatajclient.engine.client.Configuration#isLazyPrimitiveValues()
          */
         public ODataPrimitiveValue build() {
             if (this.opv.text == null && this.opv.value == null) {
@@ -151,11 +158,8 @@ public class ODataPrimitiveValue extends ODataValue {
                 throw new IllegalArgumentException("Provided value is not compatible with " + this.opv.type.toString());
             }
 
-            if (this.opv.text != null) {
-                this.opv.parseText();
-            }
-            if (this.opv.value != null) {
-                this.opv.formatValue();
+            if (!lazy) {
+                this.opv.materialize();
             }
 
             return this.opv;
@@ -165,14 +169,14 @@ public class ODataPrimitiveValue extends ODataValue {
     protected ODataClient client;
 
     /**
-     * Text value.
+     * Text value; null until formatted, for lazy values built from actual value.
      */
-    private String text;
+    private volatile String text;
 
     /**
-     * Actual value.
+     * Actual value; null until parsed, for lazy values built from text.
      */
-    protected Object value;
+    protected volatile Object value;
 
     /**
      * Value type.
@@ -189,6 +193,18 @@ public class ODataPrimitiveValue extends ODataValue {
         this.client = client;
     }
 
+    /**
+     * Parses text into actual value, and formats actual value into text, if not done yet.
+     */
+    private void materialize() {
+        if (this.value == null && this.text != null) {
+            parseText();
+        }
+        if (this.text == null && this.value != null) {
+            formatValue();
+        }
+    }
+
     /**
      * Parses given text as object value.
      */
@@ -349,6 +365,9 @@ public class ODataPrimitiveValue extends ODataValue {
      */
     @Override
     public String toString() {
+        if (this.text == null && this.value != null) {
+            formatValue();
+        }
         return this.text;
     }
 
@@ -358,9 +377,44 @@ public class ODataPrimitiveValue extends ODataValue {
      * @return
      */
     public Object toValue() {
+        if (this.value == null && this.text != null) {
+            parseText();
+        }
         return this.value;
     }
 
+    /**
+     * {@inheritDoc }
+     * <p>
+     * Primitive values are compared by type and text, as equal texts parse into equal values: lazy values are not
+     * parsed for that.
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (getClass() == ODataPrimitiveValue.class && obj != null && obj.getClass() == ODataPrimitiveValue.class) {
+            final ODataPrimitiveValue other = (ODataPrimitiveValue) obj;
+            return new EqualsBuilder().append(client, other.client).append(type, other.type).
+                    append(toString(), other.toString()).isEquals();
+        }
+        materialize();
+        if (obj instanceof ODataPrimitiveValue) {
+            ((ODataPrimitiveValue) obj).materialize();
+        }
+        return super.equals(obj);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int hashCode() {
+        if (getClass() == ODataPrimitiveValue.class) {
+            return new HashCodeBuilder().append(client).append(type).append(toString()).toHashCode();
+        }
+        materialize();
+        return super.hashCode();
+    }
+
     /**
      * Casts primitive value.
      *
@@ -0,0 +1,195 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Properties of an entity or complex value: a list, in insertion order, indexed by name.
+ * <p>
+ * Properties are found by name via a map or, when a shape is given, via an array indexed by the slots of the shape;
+ * properties not part of the shape, if any, go to the map. When more properties have the same name, the one added
+ * last is found.
+ *
+ * @see ODataPropertyShape
+ */
+class ODataProperties extends AbstractList<ODataProperty> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 2547016519063870826L;
+
+    private final List<ODataProperty> properties = new ArrayList<ODataProperty>();
+
+    private final ODataPropertyShape shape;
+
+    /**
+     * Properties by slot of the shape, if any.
+     */
+    private ODataProperty[] slots;
+
+    /**
+     * Properties by name, but those found via slots.
+     */
+    private Map<String, ODataProperty> byName;
+
+    /**
+     * Constructor.
+     *
+     * @param shape shape of the properties to be held, or null.
+     */
+    ODataProperties(final ODataPropertyShape shape) {
+        this.shape = shape;
+    }
+
+    /**
+     * Gets the property with the given name.
+     *
+     * @param name property name.
+     * @return property, or null if not found.
+     */
+    public ODataProperty get(final String name) {
+        final int slot = shape == null ? -1 : shape.indexOf(name);
+        if (slot >= 0) {
+            return slots == null ? null : slots[slot];
+        }
+        return byName == null ? null : byName.get(name);
+    }
+
+    /**
+     * Adds the given property or, if a property with the same name is there, replaces it at its position.
+     *
+     * @param property property.
+     * @return replaced property, or null.
+     */
+    public ODataProperty put(final ODataProperty property) {
+        final ODataProperty current = get(property.getName());
+        if (current == null) {
+            add(property);
+            return null;
+        }
+        return set(properties.lastIndexOf(current), property);
+    }
+
+    private void index(final ODataProperty property) {
+        final String name = property.getName();
+        final int slot = shape == null ? -1 : shape.indexOf(name);
+        if (slot >= 0) {
+            if (slots == null) {
+                slots = new ODataProperty[shape.size()];
+            }
+            slots[slot] = property;
+        } else {
+            if (byName == null) {
+                byName = new HashMap<String, ODataProperty>();
+            }
+            byName.put(name, property);
+        }
+    }
+
+    private void unindex(final ODataProperty property) {
+        final String name = property.getName();
+        if (get(name) != property) {
+            return;
+        }
+
+        // another property with the same name might still be there
+        ODataProperty previous = null;
+        for (int i = properties.size() - 1; i >= 0 && previous == null; i--) {
+            if (name == null ? properties.get(i).getName() == null : name.equals(properties.get(i).getName())) {
+                previous = properties.get(i);
+            }
+        }
+
+        if (previous != null) {
+            index(previous);
+        } else if (shape != null && shape.indexOf(name) >= 0) {
+            slots[shape.indexOf(name)] = null;
+        } else {
+            byName.remove(name);
+        }
+    }
+
+    @Override
+    public ODataProperty get(final int index) {
+        return properties.get(index);
+    }
+
+    @Override
+    public int size() {
+        return properties.size();
+    }
+
+    @Override
+    public void add(final int index, final ODataProperty element) {
+        properties.add(index, element);
+        modCount++;
+        index(element);
+    }
+
+    @Override
+    public ODataProperty set(final int index, final ODataProperty element) {
+        final ODataProperty previous = properties.set(index, element);
+        unindex(previous);
+        index(element);
+        return previous;
+    }
+
+    @Override
+    public ODataProperty remove(final int index) {
+        final ODataProperty previous = properties.remove(index);
+        modCount++;
+        unindex(previous);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        properties.clear();
+        modCount++;
+        if (slots != null) {
+            Arrays.fill(slots, null);
+        }
+        byName = null;
+    }
+
+    /**
+     * {@inheritDoc }
+     * <p>
+     * Properties with a different name are not compared.
+     */
+    @Override
+    public boolean contains(final Object obj) {
+        if (obj instanceof ODataProperty && get(((ODataProperty) obj).getName()) == null) {
+            return false;
+        }
+        return properties.contains(obj);
+    }
+
+    @Override
+    public int indexOf(final Object obj) {
+        return contains(obj) ? properties.indexOf(obj) : -1;
+    }
+}
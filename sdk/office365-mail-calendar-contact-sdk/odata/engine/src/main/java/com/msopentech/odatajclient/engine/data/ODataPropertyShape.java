@@ -0,0 +1,89 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Property names of an entity or complex type, as declared in metadata, each with its own slot: entities and complex
+ * values created with a shape keep their properties in arrays indexed by slot, rather than in a map of their own.
+ * <p>
+ * Instances are immutable, and meant to be shared by all entities and complex values of the same type.
+ *
+ * @see com.msopentech.odatajclient.engine.data.metadata.MetadataIndex#getPropertyShape(java.lang.String)
+ */
+public final class ODataPropertyShape implements Serializable {
+
+    private static final long serialVersionUID = -3214790627614985627L;
+
+    private final List<String> names;
+
+    private final Map<String, Integer> slots;
+
+    /**
+     * Constructor.
+     *
+     * @param names property names, in declaration order: duplicates get the slot of their first occurrence.
+     */
+    public ODataPropertyShape(final Collection<String> names) {
+        this.names = Collections.unmodifiableList(Arrays.asList(names.toArray(new String[names.size()])));
+        this.slots = new HashMap<String, Integer>(names.size() * 4 / 3 + 1);
+        for (String name : this.names) {
+            if (!slots.containsKey(name)) {
+                slots.put(name, slots.size());
+            }
+        }
+    }
+
+    /**
+     * Gets property names.
+     *
+     * @return property names, in declaration order.
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Gets the number of slots.
+     *
+     * @return number of slots.
+     */
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Gets the slot of the given property.
+     *
+     * @param name property name.
+     * @return slot, or -1 if the given property is not part of this shape.
+     */
+    public int indexOf(final String name) {
+        final Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+}
@@ -22,8 +22,7 @@ package com.msopentech.odatajclient.engine.data;
 import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
 import java.io.Serializable;
 import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.TimeZone;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -38,64 +37,43 @@ public final class ODataTimestamp implements Serializable {
 
     private static final long serialVersionUID = 4053990618660356004L;
 
-    private final SimpleDateFormat sdf;
+    private final EdmSimpleType type;
+
+    private final TimeZone zone;
 
     private final Timestamp timestamp;
 
-    private String timezone;
+    /**
+     * Fractional seconds, as parsed: <tt>null</tt> when not parsed, or when none.
+     */
+    private final String fraction;
+
+    private final String timezone;
 
     private final boolean offset;
 
     public static ODataTimestamp getInstance(final EdmSimpleType type, final Timestamp timestamp) {
-        return new ODataTimestamp(new SimpleDateFormat(type.pattern()),
-                new Date(timestamp.getTime()), timestamp.getNanos(), type == EdmSimpleType.DateTimeOffset);
+        return new ODataTimestamp(type, TimeZone.getDefault(), timestamp.getTime(), timestamp.getNanos(), null, null);
     }
 
     public static ODataTimestamp parse(final EdmSimpleType type, final String input) {
-        final ODataTimestamp instance;
-
-        final String[] dateParts = input.split("\\.");
-        final SimpleDateFormat sdf = new SimpleDateFormat(type.pattern());
-        final boolean isOffset = type == EdmSimpleType.DateTimeOffset;
-
-        try {
-            final Date date = sdf.parse(dateParts[0]);
-            if (dateParts.length > 1) {
-                int idx = dateParts[1].indexOf('+');
-                if (idx == -1) {
-                    idx = dateParts[1].indexOf('-');
-                }
-                if (idx == -1) {
-                    instance = new ODataTimestamp(sdf, date, Integer.parseInt(dateParts[1]), isOffset);
-                } else {
-                    instance = new ODataTimestamp(sdf, date,
-                            Integer.parseInt(dateParts[1].substring(0, idx)), dateParts[1].substring(idx), isOffset);
-                }
-            } else {
-                instance = new ODataTimestamp(sdf, date, isOffset);
-            }
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Cannot parse " + type.pattern(), e);
-        }
+        final TimeZone zone = TimeZone.getDefault();
+        final ODataTimestampFormat.Parsed parsed = ODataTimestampFormat.parse(type, input, zone);
 
-        return instance;
+        return new ODataTimestamp(type, zone, parsed.millis,
+                parsed.fraction == null ? 0 : Integer.parseInt(parsed.fraction), parsed.fraction, parsed.timezone);
     }
 
-    private ODataTimestamp(final SimpleDateFormat sdf, final Date date, final boolean offset) {
-        this.sdf = sdf;
-        this.timestamp = new Timestamp(date.getTime());
-        this.offset = offset;
-    }
+    private ODataTimestamp(final EdmSimpleType type, final TimeZone zone, final long millis, final int nanos,
+            final String fraction, final String timezone) {
 
-    private ODataTimestamp(final SimpleDateFormat sdf, final Date date, final int nanos, final boolean offset) {
-        this(sdf, date, offset);
+        this.type = type;
+        this.zone = zone;
+        this.timestamp = new Timestamp(millis);
         this.timestamp.setNanos(nanos);
-    }
-
-    private ODataTimestamp(
-            final SimpleDateFormat sdf, final Date date, final int nanos, final String timezone, final boolean offset) {
-        this(sdf, date, nanos, offset);
+        this.fraction = fraction;
         this.timezone = timezone;
+        this.offset = type == EdmSimpleType.DateTimeOffset;
     }
 
     public Timestamp getTimestamp() {
@@ -115,7 +93,7 @@ public final class ODataTimestamp implements Serializable {
      */
     @Override
     public boolean equals(final Object obj) {
-        return EqualsBuilder.reflectionEquals(this, obj, "sdf");
+        return EqualsBuilder.reflectionEquals(this, obj, "type", "zone", "fraction");
     }
 
     /**
@@ -123,7 +101,7 @@ public final class ODataTimestamp implements Serializable {
      */
     @Override
     public int hashCode() {
-        return HashCodeBuilder.reflectionHashCode(this, "sdf");
+        return HashCodeBuilder.reflectionHashCode(this, "type", "zone", "fraction");
     }
 
     /**
@@ -131,8 +109,11 @@ public final class ODataTimestamp implements Serializable {
      */
     @Override
     public String toString() {
-        final StringBuilder formatted = new StringBuilder().append(sdf.format(timestamp));
-        if (timestamp.getNanos() > 0) {
+        final StringBuilder formatted = new StringBuilder(40);
+        ODataTimestampFormat.format(formatted, type, timestamp, zone);
+        if (fraction != null) {
+            formatted.append('.').append(fraction);
+        } else if (timestamp.getNanos() > 0) {
             formatted.append('.').append(String.valueOf(timestamp.getNanos()));
         }
         if (StringUtils.isNotBlank(timezone)) {
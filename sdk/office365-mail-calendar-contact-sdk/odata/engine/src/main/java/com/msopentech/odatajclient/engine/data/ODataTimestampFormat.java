@@ -0,0 +1,275 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data;
+
+import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.GregorianCalendar;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Parsing and formatting of date and time values, as {@link ODataTimestamp} does, without creating a
+ * <tt>SimpleDateFormat</tt> per value.
+ * <p>
+ * Each thread keeps a <tt>SimpleDateFormat</tt> per type: values in the canonical OData forms are scanned by hand and
+ * computed via its calendar, with the same outcome the <tt>SimpleDateFormat</tt> itself would have; any other value
+ * goes through the <tt>SimpleDateFormat</tt>, leniency included.
+ */
+final class ODataTimestampFormat {
+
+    private static final ThreadLocal<Map<EdmSimpleType, SimpleDateFormat>> FORMATS =
+            new ThreadLocal<Map<EdmSimpleType, SimpleDateFormat>>() {
+
+                @Override
+                protected Map<EdmSimpleType, SimpleDateFormat> initialValue() {
+                    return new EnumMap<EdmSimpleType, SimpleDateFormat>(EdmSimpleType.class);
+                }
+            };
+
+    /**
+     * Outcome of parsing the date and time part of a value.
+     */
+    static final class Parsed {
+
+        long millis;
+
+        /**
+         * Fractional seconds, as found in the value, or null.
+         */
+        String fraction;
+
+        /**
+         * Time zone suffix, as found in the value, or null.
+         */
+        String timezone;
+    }
+
+    private ODataTimestampFormat() {
+        // Empty private constructor for static utility classes
+    }
+
+    /**
+     * Gets this thread's <tt>SimpleDateFormat</tt> for the given type, set to the given time zone.
+     */
+    private static SimpleDateFormat getFormat(final EdmSimpleType type, final TimeZone zone) {
+        final Map<EdmSimpleType, SimpleDateFormat> formats = FORMATS.get();
+        SimpleDateFormat format = formats.get(type);
+        if (format == null) {
+            format = new SimpleDateFormat(type.pattern());
+            formats.put(type, format);
+        }
+        if (!zone.equals(format.getTimeZone())) {
+            format.setTimeZone(zone);
+        }
+        return format;
+    }
+
+    private static boolean isCanonical(final EdmSimpleType type) {
+        return type == EdmSimpleType.Date || type == EdmSimpleType.DateTime || type == EdmSimpleType.DateTimeOffset;
+    }
+
+    private static int digits(final String input, final int start, final int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            final char digit = input.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            value = value * 10 + digit - '0';
+        }
+        return value;
+    }
+
+    private static boolean isTimezone(final String input, final int start) {
+        return input.length() == start + 6
+                && (input.charAt(start) == '+' || input.charAt(start) == '-')
+                && digits(input, start + 1, 2) >= 0
+                && input.charAt(start + 3) == ':'
+                && digits(input, start + 4, 2) >= 0;
+    }
+
+    /**
+     * Scans a value in canonical form: <tt>yyyy-MM-dd</tt> for dates; <tt>yyyy-MM-ddTHH:mm:ss</tt>, optionally
+     * followed by up to 9 fractional digits and then, optionally, by a <tt>+hh:mm</tt> or <tt>-hh:mm</tt> offset, for
+     * date-times; <tt>yyyy-MM-ddTHH:mm:ssZ</tt> for date-time offsets.
+     *
+     * @return whether the given value is in canonical form.
+     */
+    private static boolean scan(
+            final EdmSimpleType type, final String input, final Calendar calendar, final Parsed parsed) {
+
+        final int length = input.length();
+        final int dateLength = 10;
+        final int dateTimeLength = 19;
+
+        if (length < dateLength || input.charAt(4) != '-' || input.charAt(7) != '-') {
+            return false;
+        }
+        final int year = digits(input, 0, 4);
+        final int month = digits(input, 5, 2);
+        final int day = digits(input, 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return false;
+        }
+
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        if (type == EdmSimpleType.Date) {
+            if (length != dateLength) {
+                return false;
+            }
+        } else {
+            if (length < dateTimeLength || input.charAt(10) != 'T' || input.charAt(13) != ':'
+                    || input.charAt(16) != ':') {
+                return false;
+            }
+            hour = digits(input, 11, 2);
+            minute = digits(input, 14, 2);
+            second = digits(input, 17, 2);
+            if (hour < 0 || minute < 0 || second < 0) {
+                return false;
+            }
+
+            if (type == EdmSimpleType.DateTimeOffset) {
+                if (length != dateTimeLength + 1 || input.charAt(dateTimeLength) != 'Z') {
+                    return false;
+                }
+            } else if (length > dateTimeLength) {
+                if (input.charAt(dateTimeLength) != '.') {
+                    return false;
+                }
+                int end = dateTimeLength + 1;
+                while (end < length && input.charAt(end) >= '0' && input.charAt(end) <= '9') {
+                    end++;
+                }
+                if (end == dateTimeLength + 1 || end - dateTimeLength - 1 > 9
+                        || (end < length && !isTimezone(input, end))) {
+                    return false;
+                }
+                parsed.fraction = input.substring(dateTimeLength + 1, end);
+                parsed.timezone = end < length ? input.substring(end) : null;
+            }
+        }
+
+        // as SimpleDateFormat does, via a lenient calendar
+        calendar.clear();
+        calendar.set(year, month - 1, day, hour, minute, second);
+        parsed.millis = calendar.getTimeInMillis();
+        return true;
+    }
+
+    /**
+     * Parses the given value, as <tt>ODataTimestamp</tt> always did.
+     *
+     * @param type date and time type.
+     * @param input value.
+     * @param zone time zone the value is expressed in.
+     * @return outcome.
+     * @throws IllegalArgumentException if the value cannot be parsed.
+     */
+    static Parsed parse(final EdmSimpleType type, final String input, final TimeZone zone) {
+        final SimpleDateFormat format = getFormat(type, zone);
+        final Parsed parsed = new Parsed();
+
+        if (isCanonical(type) && scan(type, input, format.getCalendar(), parsed)) {
+            return parsed;
+        }
+
+        parsed.fraction = null;
+        parsed.timezone = null;
+        final String[] dateParts = input.split("\\.");
+        try {
+            parsed.millis = format.parse(dateParts[0]).getTime();
+            if (dateParts.length > 1) {
+                int idx = dateParts[1].indexOf('+');
+                if (idx == -1) {
+                    idx = dateParts[1].indexOf('-');
+                }
+                if (idx == -1) {
+                    parsed.fraction = dateParts[1];
+                } else {
+                    parsed.fraction = dateParts[1].substring(0, idx);
+                    parsed.timezone = dateParts[1].substring(idx);
+                }
+
+                final int nanos = Integer.parseInt(parsed.fraction);
+                if (nanos < 0 || nanos > 999999999) {
+                    throw new IllegalArgumentException("nanos > 999999999 or < 0");
+                }
+            }
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Cannot parse " + type.pattern(), e);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cannot parse " + type.pattern(), e);
+        }
+
+        return parsed;
+    }
+
+    private static void pad(final StringBuilder builder, final int value, final int width) {
+        final String digits = Integer.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            builder.append('0');
+        }
+        builder.append(digits);
+    }
+
+    /**
+     * Formats the date and time part of the given value, as the pattern of the given type mandates.
+     *
+     * @param builder target.
+     * @param type date and time type.
+     * @param date value.
+     * @param zone time zone the value is to be expressed in.
+     */
+    static void format(final StringBuilder builder, final EdmSimpleType type, final Date date, final TimeZone zone) {
+        final SimpleDateFormat format = getFormat(type, zone);
+        final Calendar calendar = format.getCalendar();
+
+        if (!isCanonical(type) || calendar.getClass() != GregorianCalendar.class) {
+            builder.append(format.format(date));
+            return;
+        }
+
+        calendar.setTime(date);
+        pad(builder, calendar.get(Calendar.YEAR), 4);
+        builder.append('-');
+        pad(builder, calendar.get(Calendar.MONTH) + 1, 2);
+        builder.append('-');
+        pad(builder, calendar.get(Calendar.DAY_OF_MONTH), 2);
+        if (type != EdmSimpleType.Date) {
+            builder.append('T');
+            pad(builder, calendar.get(Calendar.HOUR_OF_DAY), 2);
+            builder.append(':');
+            pad(builder, calendar.get(Calendar.MINUTE), 2);
+            builder.append(':');
+            pad(builder, calendar.get(Calendar.SECOND), 2);
+            if (type == EdmSimpleType.DateTimeOffset) {
+                builder.append('Z');
+            }
+        }
+    }
+}
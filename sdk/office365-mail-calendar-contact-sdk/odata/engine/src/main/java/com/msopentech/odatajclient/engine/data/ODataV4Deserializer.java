@@ -38,7 +38,7 @@ public class ODataV4Deserializer extends AbstractODataDeserializer {
     @Override
     public Edmx toMetadata(final InputStream input) {
         try {
-            return getXmlMapper().readValue(input, Edmx.class);
+            return getXmlReader(Edmx.class).readValue(input);
         } catch (Exception e) {
             throw new IllegalArgumentException("Could not parse as Edmx document", e);
         }
@@ -47,7 +47,7 @@ public class ODataV4Deserializer extends AbstractODataDeserializer {
     @Override
     protected JSONV4Entry toJSONEntry(final InputStream input) {
         try {
-            return getObjectMapper().readValue(input, JSONV4Entry.class);
+            return getReader(JSONV4Entry.class).readValue(input);
         } catch (IOException e) {
             throw new IllegalArgumentException("While deserializing JSON entry", e);
         }
@@ -56,7 +56,7 @@ public class ODataV4Deserializer extends AbstractODataDeserializer {
     @Override
     protected AbstractJSONFeed toJSONFeed(final InputStream input) {
         try {
-            return getObjectMapper().readValue(input, JSONV4Feed.class);
+            return getReader(JSONV4Feed.class).readValue(input);
         } catch (IOException e) {
             throw new IllegalArgumentException("While deserializing JSON feed", e);
         }
@@ -0,0 +1,247 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data.atom;
+
+import com.fasterxml.aalto.stax.InputFactoryImpl;
+import com.msopentech.javax.xml.stream.XMLInputFactory;
+import com.msopentech.javax.xml.stream.XMLStreamConstants;
+import com.msopentech.javax.xml.stream.XMLStreamException;
+import com.msopentech.javax.xml.stream.XMLStreamReader;
+import com.msopentech.odatajclient.engine.utils.ODataConstants;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.apache.commons.lang3.StringUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Pull reader for Atom feeds, returning one entry at a time.
+ * <br/>
+ * Only the DOM subtree of the current <tt>&lt;entry&gt;</tt> is ever built; namespaces and <tt>xml:base</tt> declared
+ * on <tt>&lt;feed&gt;</tt> are carried over to each entry, while <tt>m:count</tt> and the <tt>next</tt> link are
+ * picked up as they are met.
+ */
+public class AtomFeedReader {
+
+    private static final XMLInputFactory FACTORY = new InputFactoryImpl();
+
+    private final XMLStreamReader reader;
+
+    private final DocumentBuilder builder;
+
+    private final Map<String, String> namespaces = new LinkedHashMap<String, String>();
+
+    private String base;
+
+    private String next;
+
+    private Integer count;
+
+    /**
+     * Constructor: positions the reader right after the opening <tt>&lt;feed&gt;</tt> tag.
+     *
+     * @param input Atom feed stream.
+     * @throws XMLStreamException if the given stream does not contain an Atom feed.
+     */
+    public AtomFeedReader(final InputStream input) throws XMLStreamException {
+        reader = FACTORY.createXMLStreamReader(input);
+
+        try {
+            final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            builder = factory.newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+
+        reader.nextTag();
+        if (!ODataConstants.ATOM_ELEM_FEED.equals(reader.getLocalName())) {
+            throw new XMLStreamException("Expected Atom feed, found " + reader.getName(), reader.getLocation());
+        }
+
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            namespaces.put(StringUtils.defaultString(reader.getNamespacePrefix(i)), reader.getNamespaceURI(i));
+        }
+        base = reader.getAttributeValue(XMLConstants.XML_NS_URI, "base");
+    }
+
+    /**
+     * Reads up to the next entry in the feed.
+     *
+     * @return next entry; null if the end of the feed was reached.
+     * @throws XMLStreamException in case of parsing errors.
+     */
+    public AtomEntry nextEntry() throws XMLStreamException {
+        while (reader.hasNext()) {
+            final int event = reader.next();
+
+            if (event == XMLStreamConstants.END_ELEMENT || event == XMLStreamConstants.END_DOCUMENT) {
+                // end of feed
+                return null;
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                final String name = reader.getLocalName();
+
+                if (ODataConstants.ATOM_ELEM_ENTRY.equals(name)) {
+                    return AtomDeserializer.entry(readEntry());
+                } else if (ODataConstants.ATOM_ELEM_LINK.equals(name)
+                        && ODataConstants.NEXT_LINK_REL.equals(reader.getAttributeValue(null, ODataConstants.ATTR_REL))) {
+
+                    next = reader.getAttributeValue(null, ODataConstants.ATTR_HREF);
+                    skipElement();
+                } else if ("count".equals(name) && ODataConstants.NS_METADATA.equals(reader.getNamespaceURI())) {
+                    count = Integer.valueOf(reader.getElementText().trim());
+                } else {
+                    skipElement();
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the <tt>xml:base</tt> declared on <tt>&lt;feed&gt;</tt>.
+     *
+     * @return base URI if declared; null otherwise.
+     */
+    public URI getBaseURI() {
+        return base == null ? null : URI.create(base);
+    }
+
+    /**
+     * Gets the <tt>next</tt> link, as found so far.
+     *
+     * @return next link if found; null otherwise.
+     */
+    public String getNext() {
+        return next;
+    }
+
+    /**
+     * Gets the in-line count, as found so far.
+     *
+     * @return in-line count if found; null otherwise.
+     */
+    public Integer getCount() {
+        return count;
+    }
+
+    /**
+     * Closes the underlying XML reader (not the input stream).
+     */
+    public void close() {
+        try {
+            reader.close();
+        } catch (XMLStreamException ignore) {
+            // ignore
+        }
+    }
+
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static String qualifiedName(final String prefix, final String localName) {
+        return StringUtils.isEmpty(prefix) ? localName : prefix + ":" + localName;
+    }
+
+    private static String namespaceDeclaration(final String prefix) {
+        return StringUtils.isEmpty(prefix) ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix;
+    }
+
+    /**
+     * Builds the DOM subtree of the current <tt>&lt;entry&gt;</tt>, leaving the reader on its closing tag.
+     */
+    private Element readEntry() throws XMLStreamException {
+        final Document document = builder.newDocument();
+
+        Node current = document;
+        int depth = 0;
+        do {
+            switch (reader.getEventType()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    final Element element = document.createElementNS(
+                            reader.getNamespaceURI(), qualifiedName(reader.getPrefix(), reader.getLocalName()));
+
+                    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                        element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                                namespaceDeclaration(reader.getNamespacePrefix(i)), reader.getNamespaceURI(i));
+                    }
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        element.setAttributeNS(StringUtils.defaultIfEmpty(reader.getAttributeNamespace(i), null),
+                                qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                                reader.getAttributeValue(i));
+                    }
+
+                    current.appendChild(element);
+                    current = element;
+                    depth++;
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    current = current.getParentNode();
+                    depth--;
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    current.appendChild(document.createTextNode(reader.getText()));
+                    break;
+
+                default:
+            }
+
+            if (depth > 0) {
+                reader.next();
+            }
+        } while (depth > 0);
+
+        final Element entry = document.getDocumentElement();
+
+        // inherit namespace declarations and xml:base from feed, unless overridden
+        for (Map.Entry<String, String> namespace : namespaces.entrySet()) {
+            final String name = namespaceDeclaration(namespace.getKey());
+            if (!entry.hasAttribute(name)) {
+                entry.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, name, namespace.getValue());
+            }
+        }
+        if (base != null && !entry.hasAttribute(ODataConstants.ATTR_XMLBASE)) {
+            entry.setAttributeNS(XMLConstants.XML_NS_URI, ODataConstants.ATTR_XMLBASE, base);
+        }
+
+        return entry;
+    }
+}
@@ -24,6 +24,13 @@ import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
 import com.fasterxml.jackson.databind.ser.SerializerFactory;
 
+/**
+ * Serializer provider returning itself as per-call instance.
+ *
+ * @deprecated it cannot be shared across threads, since all calls go through the same instance; serializers now
+ * get the client as the <tt>ODataClient.class</tt> attribute of the writer they are called from.
+ */
+@Deprecated
 public class InjectableSerializerProvider extends DefaultSerializerProvider {
 
     private static final long serialVersionUID = 3432260063063739646L;
@@ -0,0 +1,888 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.data.ODataCollectionValue;
+import com.msopentech.odatajclient.engine.data.ODataComplexValue;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataEntitySet;
+import com.msopentech.odatajclient.engine.data.ODataObjectFactory;
+import com.msopentech.odatajclient.engine.data.ODataOperation;
+import com.msopentech.odatajclient.engine.data.ODataPrimitiveValue;
+import com.msopentech.odatajclient.engine.data.ODataProperty;
+import com.msopentech.odatajclient.engine.data.ODataPropertyShape;
+import com.msopentech.odatajclient.engine.data.metadata.AbstractEdmMetadata;
+import com.msopentech.odatajclient.engine.data.metadata.EdmType;
+import com.msopentech.odatajclient.engine.data.metadata.EdmV3Type;
+import com.msopentech.odatajclient.engine.data.metadata.EdmV4Type;
+import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
+import com.msopentech.odatajclient.engine.uri.SegmentType;
+import com.msopentech.odatajclient.engine.utils.ODataConstants;
+import com.msopentech.odatajclient.engine.utils.ODataVersion;
+import com.msopentech.odatajclient.engine.utils.URIUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.xml.parsers.ParserConfigurationException;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+
+/**
+ * Binds JSON entities and entity sets to <tt>ODataEntity</tt> and <tt>ODataEntitySet</tt> objects while reading the
+ * JSON token stream, without going through <tt>AbstractJSONEntry</tt> and the DOM tree of its properties.
+ * <p>
+ * The result is the same as reading a JSON entry via <tt>ODataDeserializer</tt> and binding it via
+ * <tt>ODataBinder</tt>; property types come from <tt>odata.type</tt> annotations, or are guessed from JSON values when
+ * such annotations are missing. Annotations must precede the values they refer to, as mandated by the OData JSON
+ * format: a <tt>JsonParseException</tt> is raised otherwise. Values that cannot be told apart without the DOM tree,
+ * such as geospatial values, are still bound via the DOM tree, one property at a time.
+ *
+ * @see com.msopentech.odatajclient.engine.client.Configuration#setDirectJSONBinding(boolean)
+ */
+public class JSONDirectBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JSONDirectBinder.class);
+
+    private static final String TYPE_SUFFIX = "@" + ODataConstants.JSON_TYPE;
+
+    private enum LinkKind {
+
+        ASSOCIATION,
+        NAVIGATION,
+        MEDIA_EDIT
+
+    }
+
+    /**
+     * Link read out of an annotation, bound once the base URI of its entity is known.
+     */
+    private static class Link {
+
+        private final LinkKind kind;
+
+        private final String title;
+
+        private final String href;
+
+        private ODataEntity inlineEntity;
+
+        private ODataEntitySet inlineEntitySet;
+
+        public Link(final LinkKind kind, final String title, final String href) {
+            this.kind = kind;
+            this.title = title;
+            this.href = href;
+        }
+    }
+
+    /**
+     * Properties being read out of a JSON object, along with the type annotations found so far.
+     */
+    private static class Scope {
+
+        private final List<ODataProperty> properties = new ArrayList<ODataProperty>();
+
+        private Map<String, String> types;
+
+        private Set<String> names;
+
+        private boolean innerTypeSet;
+
+        private String innerType;
+
+        private String getType(final String name) {
+            return types == null ? null : types.get(name);
+        }
+    }
+
+    private final ODataClient client;
+
+    private final ODataVersion version;
+
+    private final String innerTypeKey;
+
+    private final String metadataKey;
+
+    private final String mediaETagKey;
+
+    private final String etagKey;
+
+    private final String typeKey;
+
+    private final String idKey;
+
+    private final String readLinkKey;
+
+    private final String editLinkKey;
+
+    private final String mediaReadLinkKey;
+
+    private final String mediaEditLinkKey;
+
+    private final String mediaContentTypeKey;
+
+    private final ConcurrentMap<String, EdmType> edmTypes = new ConcurrentHashMap<String, EdmType>();
+
+    /**
+     * Constructor.
+     *
+     * @param client OData client.
+     */
+    public JSONDirectBinder(final ODataClient client) {
+        this.client = client;
+        this.version = client.getWorkingVersion();
+
+        final String annotationPrefix = version == ODataVersion.V4 ? "@" : StringUtils.EMPTY;
+        innerTypeKey = annotationPrefix + ODataConstants.JSON_TYPE;
+        metadataKey = annotationPrefix + ODataConstants.JSON_METADATA;
+        mediaETagKey = annotationPrefix + ODataConstants.JSON_MEDIA_ETAG;
+        etagKey = annotationPrefix + ODataConstants.JSON_ETAG;
+        typeKey = annotationPrefix + ODataConstants.JSON_TYPE;
+        idKey = annotationPrefix + ODataConstants.JSON_ID;
+        readLinkKey = annotationPrefix + ODataConstants.JSON_READ_LINK;
+        editLinkKey = annotationPrefix + ODataConstants.JSON_EDIT_LINK;
+        mediaReadLinkKey = annotationPrefix + ODataConstants.JSON_MEDIAREAD_LINK;
+        mediaEditLinkKey = annotationPrefix + ODataConstants.JSON_MEDIAEDIT_LINK;
+        mediaContentTypeKey = annotationPrefix + ODataConstants.JSON_MEDIA_CONTENT_TYPE;
+    }
+
+    /**
+     * Reads an entity.
+     *
+     * @param input stream containing a JSON entity.
+     * @return entity.
+     */
+    public ODataEntity readEntity(final InputStream input) {
+        final JsonParser parser = client.getDeserializer().toJSONParser(input);
+        try {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException("Expected JSON object", parser.getCurrentLocation());
+            }
+            return readEntity(parser, null);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("While deserializing JSON entry", e);
+        } finally {
+            close(parser);
+        }
+    }
+
+    /**
+     * Reads an entity set.
+     *
+     * @param input stream containing a JSON entity set.
+     * @return entity set.
+     */
+    public ODataEntitySet readEntitySet(final InputStream input) {
+        final JsonParser parser = client.getDeserializer().toJSONParser(input);
+        try {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException("Expected JSON object", parser.getCurrentLocation());
+            }
+
+            final List<ODataEntity> entities = new ArrayList<ODataEntity>();
+            URI base = null;
+            String next = null;
+            Integer count = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                final String key = name.length() > 0 && name.charAt(0) == '@' ? name.substring(1) : name;
+                final JsonToken token = parser.nextToken();
+
+                if (ODataConstants.JSON_VALUE.equals(key) && token == JsonToken.START_ARRAY) {
+                    readEntities(parser, null, entities);
+                } else if (ODataConstants.JSON_METADATA.equals(key) && token == JsonToken.VALUE_STRING) {
+                    base = getBaseURI(parser.getText());
+                } else if (ODataConstants.JSON_NEXT_LINK.equals(key) && token == JsonToken.VALUE_STRING) {
+                    next = parser.getText();
+                } else if (ODataConstants.JSON_COUNT.equals(key) && token != JsonToken.VALUE_NULL) {
+                    count = token == JsonToken.VALUE_STRING ? Integer.valueOf(parser.getText()) : parser.getIntValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            final ODataEntitySet entitySet = next == null
+                    ? ODataObjectFactory.newEntitySet()
+                    : ODataObjectFactory.newEntitySet(URIUtils.getURI(base, next));
+            if (count != null) {
+                entitySet.setCount(count);
+            }
+            for (ODataEntity entity : entities) {
+                entitySet.addEntity(entity);
+            }
+            return entitySet;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("While deserializing JSON feed", e);
+        } finally {
+            close(parser);
+        }
+    }
+
+    /**
+     * Reads the entity starting at the current token.
+     *
+     * @param parser JSON parser, positioned on the <tt>START_OBJECT</tt> token of the entity; it is left on the
+     * matching <tt>END_OBJECT</tt> token.
+     * @param defaultBaseURI base URI to be used when the entity does not provide its own, e.g. for in-line entities.
+     * @return entity.
+     * @throws IOException in case of read error, or of annotations following the values they refer to.
+     */
+    public ODataEntity readEntity(final JsonParser parser, final URI defaultBaseURI) throws IOException {
+        final JsonStreamContext context = parser.getParsingContext();
+        final Scope scope = new Scope();
+
+        URI baseURI = null;
+        boolean inlineRead = false;
+        String type = null;
+        String etag = null;
+        boolean selfLink = false;
+        String readLink = null;
+        boolean editLink = false;
+        String editLinkHref = null;
+        boolean mediaReadLink = false;
+        String mediaContentSource = null;
+        boolean mediaContentType = false;
+        String mediaContentTypeValue = null;
+        final List<Link> links = new ArrayList<Link>();
+        final List<Link> mediaEditLinks = new ArrayList<Link>();
+        Map<String, Link> linksByProperty = null;
+        List<ODataOperation> operations = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+            final boolean notNull = token != JsonToken.VALUE_NULL;
+
+            if (ODataConstants.JSON_VALUE.equals(key) && token == JsonToken.START_ARRAY) {
+                throw new JsonParseException("Expected OData Entity, found EntitySet", parser.getCurrentLocation());
+            } else if (notNull && metadataKey.equals(key)) {
+                if (inlineRead) {
+                    throw misplaced(parser, key);
+                }
+                final String metadata = getTextValue(parser);
+                baseURI = metadata == null ? null : getBaseURI(metadata);
+            } else if (notNull && typeKey.equals(key)) {
+                type = getTextValue(parser);
+            } else if (notNull && etagKey.equals(key)) {
+                etag = getTextValue(parser);
+            } else if (notNull && readLinkKey.equals(key)) {
+                selfLink = true;
+                readLink = getTextValue(parser);
+            } else if (notNull && editLinkKey.equals(key)) {
+                editLink = true;
+                editLinkHref = getTextValue(parser);
+            } else if (notNull && mediaReadLinkKey.equals(key)) {
+                mediaReadLink = true;
+                mediaContentSource = getTextValue(parser);
+            } else if (notNull && mediaEditLinkKey.equals(key)) {
+                mediaEditLinks.add(0, new Link(LinkKind.MEDIA_EDIT, null, getTextValue(parser)));
+            } else if (notNull && mediaContentTypeKey.equals(key)) {
+                mediaContentType = true;
+                mediaContentTypeValue = getTextValue(parser);
+            } else if (notNull && (idKey.equals(key) || mediaETagKey.equals(key))) {
+                parser.skipChildren();
+            } else if (key.endsWith(ODataConstants.JSON_NAVIGATION_LINK_SUFFIX)
+                    || key.endsWith(ODataConstants.JSON_NAVIGATION_LINK_ODATA_4_SUFFIX)) {
+
+                final Link link = new Link(LinkKind.NAVIGATION, getTitle(key),
+                        token.isStructStart() ? skip(parser) : getTextValue(parser));
+                links.add(link);
+
+                linksByProperty = addLinkByProperty(parser, scope, linksByProperty, key,
+                        key.endsWith(ODataConstants.JSON_NAVIGATION_LINK_SUFFIX)
+                        ? ODataConstants.JSON_NAVIGATION_LINK_SUFFIX
+                        : ODataConstants.JSON_NAVIGATION_LINK_ODATA_4_SUFFIX, link);
+            } else if (key.endsWith(ODataConstants.JSON_ASSOCIATION_LINK_SUFFIX)) {
+                links.add(new Link(LinkKind.ASSOCIATION, getTitle(key), getTextValue(parser)));
+            } else if (key.endsWith(ODataConstants.JSON_MEDIAEDIT_LINK_SUFFIX)) {
+                final Link link = new Link(LinkKind.MEDIA_EDIT, getTitle(key), getTextValue(parser));
+                mediaEditLinks.add(link);
+
+                linksByProperty = addLinkByProperty(
+                        parser, scope, linksByProperty, key, ODataConstants.JSON_MEDIAEDIT_LINK_SUFFIX, link);
+            } else if (key.length() > 0 && key.charAt(0) == '#') {
+                final JsonNode node = parser.readValueAsTree();
+
+                final ODataOperation operation = new ODataOperation();
+                operation.setMetadataAnchor(key);
+                operation.setTitle(node.get(ODataConstants.ATTR_TITLE).asText());
+                operation.setTarget(URI.create(node.get(ODataConstants.ATTR_TARGET).asText()));
+
+                if (operations == null) {
+                    operations = new ArrayList<ODataOperation>();
+                }
+                operations.add(operation);
+            } else {
+                final Link link = linksByProperty == null ? null : linksByProperty.get(key);
+                if (link == null) {
+                    readField(parser, scope, key, context);
+                } else if (link.kind == LinkKind.NAVIGATION && token == JsonToken.START_OBJECT) {
+                    link.inlineEntity = readEntity(parser, baseURI == null ? defaultBaseURI : baseURI);
+                    inlineRead = true;
+                } else if (link.kind == LinkKind.NAVIGATION && token == JsonToken.START_ARRAY) {
+                    final List<ODataEntity> entities = new ArrayList<ODataEntity>();
+                    readEntities(parser, null, entities);
+
+                    link.inlineEntitySet = ODataObjectFactory.newEntitySet();
+                    for (ODataEntity entity : entities) {
+                        link.inlineEntitySet.addEntity(entity);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        final URI base = baseURI == null ? defaultBaseURI : baseURI;
+
+        final ODataEntity entity = ODataObjectFactory.newEntity(type,
+                selfLink ? URIUtils.getURI(base, readLink) : null,
+                getPropertyShape(type));
+
+        if (StringUtils.isNotBlank(etag)) {
+            entity.setETag(etag);
+        }
+
+        if (editLink) {
+            entity.setEditLink(URIUtils.getURI(base, editLinkHref));
+        }
+
+        for (Link link : links) {
+            if (link.kind == LinkKind.ASSOCIATION) {
+                entity.addLink(ODataObjectFactory.newAssociationLink(link.title, base, link.href));
+            }
+        }
+        for (Link link : links) {
+            if (link.kind == LinkKind.NAVIGATION) {
+                if (link.inlineEntity != null) {
+                    entity.addLink(
+                            ODataObjectFactory.newInlineEntity(link.title, base, link.href, link.inlineEntity));
+                } else if (link.inlineEntitySet != null) {
+                    entity.addLink(
+                            ODataObjectFactory.newInlineEntitySet(link.title, base, link.href, link.inlineEntitySet));
+                } else {
+                    entity.addLink(ODataObjectFactory.newEntityNavigationLink(link.title, base, link.href));
+                }
+            }
+        }
+        for (Link link : mediaEditLinks) {
+            entity.addLink(ODataObjectFactory.newMediaEditLink(link.title, base, link.href));
+        }
+
+        if (operations != null) {
+            for (ODataOperation operation : operations) {
+                operation.setTarget(URIUtils.getURI(base, operation.getTarget()));
+                entity.addOperation(operation);
+            }
+        }
+
+        // same as AbstractEntryResource#isMediaEntry(): properties of media entries come along with their media
+        // content type, otherwise they are not bound
+        final boolean mediaEntry = mediaReadLink && mediaContentType;
+        final boolean properties;
+        if (mediaEntry || StringUtils.isNotBlank(mediaContentSource)) {
+            entity.setMediaEntity(true);
+            entity.setMediaContentSource(mediaContentSource);
+            entity.setMediaContentType(mediaContentTypeValue);
+            properties = mediaEntry;
+        } else {
+            properties = true;
+        }
+        if (properties) {
+            for (ODataProperty property : scope.properties) {
+                entity.addProperty(property);
+            }
+        }
+
+        return entity;
+    }
+
+    private void readEntities(final JsonParser parser, final URI defaultBaseURI, final List<ODataEntity> entities)
+            throws IOException {
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.START_OBJECT) {
+                entities.add(readEntity(parser, defaultBaseURI));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private Map<String, Link> addLinkByProperty(final JsonParser parser, final Scope scope,
+            final Map<String, Link> linksByProperty, final String key, final String suffix, final Link link)
+            throws JsonParseException {
+
+        final String name = key.substring(0, key.indexOf(suffix));
+        if (scope.names != null && scope.names.contains(name)) {
+            throw misplaced(parser, key);
+        }
+
+        final Map<String, Link> result = linksByProperty == null ? new HashMap<String, Link>() : linksByProperty;
+        result.put(name, link);
+        return result;
+    }
+
+    /**
+     * Reads a field of an entity or of a complex value: either a property or a property annotation.
+     *
+     * @param parser JSON parser, positioned on the field value.
+     * @param scope properties being read.
+     * @param key field name.
+     * @param context parsing context of the entity, if failures while binding the property are to be logged and the
+     * property skipped; null to let them through.
+     * @throws IOException in case of read error.
+     */
+    private void readField(final JsonParser parser, final Scope scope, final String key,
+            final JsonStreamContext context) throws IOException {
+
+        if (key.indexOf('@') >= 0 || ODataConstants.JSON_TYPE.equals(key)) {
+            if (key.endsWith(TYPE_SUFFIX) && parser.getCurrentToken() != JsonToken.VALUE_NULL) {
+                final String name = key.substring(0, key.length() - TYPE_SUFFIX.length());
+                if (scope.names != null && scope.names.contains(name)) {
+                    throw misplaced(parser, key);
+                }
+                if (scope.types == null) {
+                    scope.types = new LinkedHashMap<String, String>();
+                }
+                final String type = getTextValue(parser);
+                scope.types.put(name, type == null ? StringUtils.EMPTY : type);
+            } else {
+                parser.skipChildren();
+            }
+        } else {
+            if (scope.names == null) {
+                scope.names = new HashSet<String>();
+            }
+            scope.names.add(key);
+
+            if (context == null) {
+                scope.properties.add(readProperty(parser, key, scope.getType(key)));
+            } else {
+                try {
+                    scope.properties.add(readProperty(parser, key, scope.getType(key)));
+                } catch (IllegalArgumentException e) {
+                    LOG.warn("Failure retrieving EdmType for {}", key, e);
+                    while (parser.getParsingContext() != context) {
+                        parser.nextToken();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the fields of a complex value, up to the end of the object.
+     *
+     * @param parser JSON parser, positioned on the first field name or on the end of the object.
+     * @param scope properties being read.
+     * @param stopAtElement whether to stop before reading a first property named <tt>element</tt>, that makes a
+     * collection out of an untyped value.
+     * @return 'TRUE' if stopped at such a property; 'FALSE' if the end of the object was reached.
+     * @throws IOException in case of read error.
+     */
+    private boolean readFields(final JsonParser parser, final Scope scope, final boolean stopAtElement)
+            throws IOException {
+
+        JsonToken token = parser.getCurrentToken();
+        while (token == JsonToken.FIELD_NAME) {
+            final String key = parser.getCurrentName();
+            if (stopAtElement && scope.properties.isEmpty() && ODataConstants.ELEM_ELEMENT.equals(key)) {
+                return true;
+            }
+
+            parser.nextToken();
+            if (innerTypeKey.equals(key) && parser.getCurrentToken() != JsonToken.VALUE_NULL) {
+                scope.innerTypeSet = true;
+                scope.innerType = getTextValue(parser);
+            } else {
+                readField(parser, scope, key, null);
+            }
+            token = parser.nextToken();
+        }
+        return false;
+    }
+
+    private ODataProperty readProperty(final JsonParser parser, final String name, final String annotatedType)
+            throws IOException {
+
+        final ODataProperty property;
+
+        final JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            property = ODataObjectFactory.newPrimitiveProperty(name, null);
+        } else if (token == JsonToken.START_OBJECT) {
+            property = readComplexProperty(parser, name, annotatedType);
+        } else if (token == JsonToken.START_ARRAY) {
+            property = readCollectionProperty(parser, name, annotatedType);
+        } else if (annotatedType == null) {
+            property = ODataObjectFactory.newPrimitiveProperty(name, newPrimitiveValue(guessType(parser), parser));
+        } else if (StringUtils.isBlank(annotatedType)) {
+            property = ODataObjectFactory.newPrimitiveProperty(name, newPrimitiveValue(null, parser));
+        } else {
+            final EdmType edmType = getEdmType(annotatedType);
+            if (edmType.isCollection() || !edmType.isSimpleType() || edmType.getSimpleType().isGeospatial()) {
+                property = readPropertyFromDOM(name, annotatedType, (JsonNode) parser.readValueAsTree());
+            } else {
+                property = ODataObjectFactory.newPrimitiveProperty(
+                        name, newPrimitiveValue(edmType.getSimpleType(), parser));
+            }
+        }
+
+        return property;
+    }
+
+    private ODataProperty readComplexProperty(final JsonParser parser, final String name, final String annotatedType)
+            throws IOException {
+
+        final Scope scope = new Scope();
+        parser.nextToken();
+
+        String type = annotatedType;
+        if (type == null && parser.getCurrentToken() == JsonToken.FIELD_NAME
+                && innerTypeKey.equals(parser.getCurrentName())) {
+
+            if (parser.nextToken() != JsonToken.VALUE_NULL) {
+                scope.innerTypeSet = true;
+                scope.innerType = getTextValue(parser);
+                type = scope.innerType;
+            }
+            parser.nextToken();
+        }
+
+        final ODataProperty property;
+        if (StringUtils.isNotBlank(type)) {
+            final EdmType edmType = EdmSimpleType.isGeospatial(type) ? null : getEdmType(type);
+            if (edmType == null || edmType.isCollection() || edmType.isSimpleType()) {
+                property = readPropertyFromDOM(name, annotatedType, readObject(parser, scope));
+            } else {
+                readFields(parser, scope, false);
+                property = ODataObjectFactory.newComplexProperty(name,
+                        newComplexValue(edmType.getTypeExpression(), scope));
+            }
+        } else if (readFields(parser, scope, annotatedType == null)) {
+            property = readPropertyFromDOM(name, annotatedType, readObject(parser, scope));
+        } else if (annotatedType == null && StringUtils.isNotBlank(scope.innerType)) {
+            final EdmType edmType = EdmSimpleType.isGeospatial(scope.innerType) ? null : getEdmType(scope.innerType);
+            if (edmType == null || edmType.isCollection() || edmType.isSimpleType()) {
+                throw misplaced(parser, innerTypeKey);
+            }
+            property = ODataObjectFactory.newComplexProperty(name,
+                    newComplexValue(edmType.getTypeExpression(), scope));
+        } else if (scope.properties.isEmpty()) {
+            property = ODataObjectFactory.newPrimitiveProperty(name, null);
+        } else {
+            property = ODataObjectFactory.newComplexProperty(name, newComplexValue(null, scope));
+        }
+
+        return property;
+    }
+
+    private ODataProperty readCollectionProperty(
+            final JsonParser parser, final String name, final String annotatedType) throws IOException {
+
+        final ODataProperty property;
+        if (StringUtils.isBlank(annotatedType)) {
+            final ODataCollectionValue value = new ODataCollectionValue(null);
+            property = readCollectionValue(parser, value, null)
+                    ? ODataObjectFactory.newCollectionProperty(name, value)
+                    : ODataObjectFactory.newPrimitiveProperty(name, null);
+        } else {
+            final EdmType edmType = EdmSimpleType.isGeospatial(annotatedType) ? null : getEdmType(annotatedType);
+            if (edmType == null || !edmType.isCollection()) {
+                property = readPropertyFromDOM(name, annotatedType, (JsonNode) parser.readValueAsTree());
+            } else {
+                final ODataCollectionValue value = new ODataCollectionValue(edmType.getTypeExpression());
+                readCollectionValue(parser, value, getEdmType(edmType.getBaseType()));
+                property = ODataObjectFactory.newCollectionProperty(name, value);
+            }
+        }
+
+        return property;
+    }
+
+    /**
+     * Reads collection items: null items and nested collections are skipped.
+     *
+     * @param parser JSON parser, positioned on the <tt>START_ARRAY</tt> token.
+     * @param value collection value to be filled.
+     * @param itemType item type, if known.
+     * @return 'TRUE' if the array is not empty.
+     * @throws IOException in case of read error.
+     */
+    private boolean readCollectionValue(final JsonParser parser, final ODataCollectionValue value,
+            final EdmType itemType) throws IOException {
+
+        boolean items = false;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            items = true;
+
+            if (token == JsonToken.START_OBJECT) {
+                final Scope scope = new Scope();
+                parser.nextToken();
+                if (readFields(parser, scope, true)) {
+                    skipFields(parser);
+                } else if (!scope.properties.isEmpty()) {
+                    value.add(newComplexValue(itemType == null ? null : itemType.getTypeExpression(), scope));
+                }
+            } else if (token == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+            } else if (token != JsonToken.VALUE_NULL) {
+                if (itemType != null && itemType.getSimpleType().isGeospatial()) {
+                    throw new IllegalArgumentException("Geospatial collection items must be JSON objects");
+                }
+                value.add(newPrimitiveValue(itemType == null ? null : itemType.getSimpleType(), parser));
+            }
+        }
+
+        return items;
+    }
+
+    private ODataPropertyShape getPropertyShape(final String type) {
+        final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata = client.getConfiguration().getPropertyShapeMetadata();
+        return metadata == null || type == null ? null : metadata.getIndex().getPropertyShape(type);
+    }
+
+    private ODataComplexValue newComplexValue(final String type, final Scope scope) {
+        final ODataComplexValue value = new ODataComplexValue(type, getPropertyShape(type));
+        for (ODataProperty property : scope.properties) {
+            value.add(property);
+        }
+        return value;
+    }
+
+    private ODataPrimitiveValue newPrimitiveValue(final EdmSimpleType type, final JsonParser parser)
+            throws IOException {
+
+        return client.getPrimitiveValueBuilder().setType(type).setText(getText(parser)).build();
+    }
+
+    /**
+     * Binds a property via the DOM tree, as done when not binding directly.
+     *
+     * @param name property name.
+     * @param annotatedType property type annotation, if any.
+     * @param value property value.
+     * @return property.
+     */
+    private ODataProperty readPropertyFromDOM(final String name, final String annotatedType, final JsonNode value) {
+        final ObjectNode node = JsonNodeFactory.instance.objectNode();
+        if (annotatedType != null) {
+            node.put(name + TYPE_SUFFIX, annotatedType);
+        }
+        node.set(name, value);
+
+        final Element properties;
+        try {
+            properties = ODataConstants.DOC_BUILDER_FACTORY.newDocumentBuilder().newDocument().
+                    createElementNS(ODataConstants.NS_METADATA, ODataConstants.ELEM_PROPERTIES);
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("Cannot build property content", e);
+        }
+
+        if (version == ODataVersion.V4) {
+            DOMTreeUtilsV4.buildSubtree(properties, node);
+        } else {
+            DOMTreeUtilsV3.buildSubtree(properties, node);
+        }
+        return client.getBinder().getProperty((Element) properties.getFirstChild());
+    }
+
+    /**
+     * Reads what is left of a JSON object, along with the annotations already read out of it.
+     *
+     * @param parser JSON parser, positioned on a field name or on the end of the object.
+     * @param scope annotations read so far; no property must have been read yet.
+     * @return JSON object.
+     * @throws IOException in case of read error.
+     */
+    private ObjectNode readObject(final JsonParser parser, final Scope scope) throws IOException {
+        final ObjectNode node = JsonNodeFactory.instance.objectNode();
+        if (scope.innerTypeSet) {
+            node.put(innerTypeKey, scope.innerType);
+        }
+        if (scope.types != null) {
+            for (Map.Entry<String, String> entry : scope.types.entrySet()) {
+                node.put(entry.getKey() + TYPE_SUFFIX, entry.getValue());
+            }
+        }
+
+        JsonToken token = parser.getCurrentToken();
+        while (token == JsonToken.FIELD_NAME) {
+            final String key = parser.getCurrentName();
+            parser.nextToken();
+            node.set(key, (JsonNode) parser.readValueAsTree());
+            token = parser.nextToken();
+        }
+        return node;
+    }
+
+    private EdmType getEdmType(final String expression) {
+        EdmType edmType = edmTypes.get(expression);
+        if (edmType == null) {
+            edmType = version == ODataVersion.V4 ? new EdmV4Type(expression) : new EdmV3Type(expression);
+            edmTypes.putIfAbsent(expression, edmType);
+        }
+        return edmType;
+    }
+
+    /**
+     * Guesses the type of a property value lacking type annotation, as done when building its DOM tree.
+     *
+     * @param parser JSON parser, positioned on a scalar value.
+     * @return guessed type; null if unknown.
+     * @throws IOException in case of read error.
+     */
+    private static EdmSimpleType guessType(final JsonParser parser) throws IOException {
+        final EdmSimpleType type;
+        switch (parser.getCurrentToken()) {
+            case VALUE_STRING:
+                type = EdmSimpleType.String;
+                break;
+
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                type = EdmSimpleType.Boolean;
+                break;
+
+            case VALUE_NUMBER_INT:
+                type = parser.getNumberType() == JsonParser.NumberType.INT
+                        ? EdmSimpleType.Int32
+                        : parser.getNumberType() == JsonParser.NumberType.LONG
+                        ? EdmSimpleType.Int64
+                        : null;
+                break;
+
+            case VALUE_NUMBER_FLOAT:
+                type = parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL
+                        ? EdmSimpleType.Decimal
+                        : EdmSimpleType.Double;
+                break;
+
+            default:
+                type = null;
+        }
+        return type;
+    }
+
+    /**
+     * Gets the text of a scalar value, formatted as done by <tt>JsonNode.asText()</tt>.
+     *
+     * @param parser JSON parser, positioned on a scalar value.
+     * @return text.
+     * @throws IOException in case of read error.
+     */
+    private static String getText(final JsonParser parser) throws IOException {
+        final String text;
+        switch (parser.getCurrentToken()) {
+            case VALUE_NUMBER_INT:
+                text = parser.getNumberType() == JsonParser.NumberType.INT
+                        ? Integer.toString(parser.getIntValue())
+                        : parser.getNumberType() == JsonParser.NumberType.LONG
+                        ? Long.toString(parser.getLongValue())
+                        : parser.getBigIntegerValue().toString();
+                break;
+
+            case VALUE_NUMBER_FLOAT:
+                text = parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL
+                        ? parser.getDecimalValue().toString()
+                        : Double.toString(parser.getDoubleValue());
+                break;
+
+            default:
+                text = parser.getText();
+        }
+        return text;
+    }
+
+    /**
+     * Gets the value of a JSON string, as done by <tt>JsonNode.textValue()</tt>.
+     *
+     * @param parser JSON parser, positioned on any value; structures are skipped.
+     * @return string value; null if the value is not a string.
+     * @throws IOException in case of read error.
+     */
+    private static String getTextValue(final JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static String skip(final JsonParser parser) throws IOException {
+        parser.skipChildren();
+        return null;
+    }
+
+    private static void skipFields(final JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        while (token == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            parser.skipChildren();
+            token = parser.nextToken();
+        }
+    }
+
+    private static String getTitle(final String key) {
+        return key.substring(0, key.indexOf('@'));
+    }
+
+    private static URI getBaseURI(final String metadata) {
+        final int idx = metadata.indexOf(SegmentType.METADATA.getValue());
+        return idx < 0 ? null : URI.create(metadata.substring(0, idx));
+    }
+
+    private static JsonParseException misplaced(final JsonParser parser, final String key) {
+        return new JsonParseException(
+                "Annotation " + key + " must precede the value it refers to", parser.getCurrentLocation());
+    }
+
+    private static void close(final JsonParser parser) {
+        try {
+            parser.close();
+        } catch (IOException e) {
+            LOG.warn("Error closing JSON parser", e);
+        }
+    }
+}
@@ -51,7 +51,11 @@ public abstract class AbstractEdmMetadata<
 
     protected final EDMX edmx;
 
-    protected final Map<String, S> schemaByNsOrAlias;
+    protected final List<S> schemas;
+
+    protected final Map<String, Integer> schemaIndexByNsOrAlias;
+
+    private transient volatile MetadataIndex index;
 
     /**
      * Constructor.
@@ -62,16 +66,35 @@ public abstract class AbstractEdmMetadata<
     @SuppressWarnings("unchecked")
     public AbstractEdmMetadata(final ODataClient client, final InputStream inputStream) {
         edmx = (EDMX) client.getDeserializer().toMetadata(inputStream);
+        schemas = edmx.getDataServices().getSchemas();
 
-        this.schemaByNsOrAlias = new HashMap<String, S>();
-        for (S schema : edmx.getDataServices().getSchemas()) {
-            this.schemaByNsOrAlias.put(schema.getNamespace(), schema);
+        this.schemaIndexByNsOrAlias = new HashMap<String, Integer>();
+        for (int i = 0; i < schemas.size(); i++) {
+            final S schema = schemas.get(i);
+            this.schemaIndexByNsOrAlias.put(schema.getNamespace(), i);
             if (StringUtils.isNotBlank(schema.getAlias())) {
-                this.schemaByNsOrAlias.put(schema.getAlias(), schema);
+                this.schemaIndexByNsOrAlias.put(schema.getAlias(), i);
             }
         }
     }
 
+    /**
+     * Constructor for metadata whose schemas are provided apart from the EDMX document, e.g. loaded on demand from a
+     * snapshot.
+     *
+     * @param edmx EDMX document.
+     * @param schemas schemas, to be used in place of the ones found in the EDMX document.
+     * @param schemaIndexByNsOrAlias position of each schema in the given list, by namespace and alias.
+     * @see MetadataCache
+     */
+    protected AbstractEdmMetadata(
+            final EDMX edmx, final List<S> schemas, final Map<String, Integer> schemaIndexByNsOrAlias) {
+
+        this.edmx = edmx;
+        this.schemas = schemas;
+        this.schemaIndexByNsOrAlias = schemaIndexByNsOrAlias;
+    }
+
     /**
      * Checks whether the given key is a valid namespace or alias in the EdM metadata document.
      *
@@ -79,7 +102,7 @@ public abstract class AbstractEdmMetadata<
      * @return true if key is valid namespace or alias
      */
     public boolean isNsOrAlias(final String key) {
-        return this.schemaByNsOrAlias.keySet().contains(key);
+        return this.schemaIndexByNsOrAlias.containsKey(key);
     }
 
     /**
@@ -89,7 +112,7 @@ public abstract class AbstractEdmMetadata<
      * @return the Schema at the specified position in the EdM metadata document
      */
     public S getSchema(final int index) {
-        return this.edmx.getDataServices().getSchemas().get(index);
+        return this.schemas.get(index);
     }
 
     /**
@@ -99,7 +122,8 @@ public abstract class AbstractEdmMetadata<
      * @return the Schema with the specified key in the EdM metadata document
      */
     public S getSchema(final String key) {
-        return this.schemaByNsOrAlias.get(key);
+        final Integer index = this.schemaIndexByNsOrAlias.get(key);
+        return index == null ? null : this.schemas.get(index);
     }
 
     /**
@@ -108,7 +132,21 @@ public abstract class AbstractEdmMetadata<
      * @return all Schema objects defined in the EdM metadata document
      */
     public List<S> getSchemas() {
-        return this.edmx.getDataServices().getSchemas();
+        return this.schemas;
+    }
+
+    /**
+     * Gets lookup tables over all schemas, each one built on first use.
+     *
+     * @return metadata index.
+     */
+    public MetadataIndex getIndex() {
+        MetadataIndex result = this.index;
+        if (result == null) {
+            result = new MetadataIndex(this);
+            this.index = result;
+        }
+        return result;
     }
 
     /**
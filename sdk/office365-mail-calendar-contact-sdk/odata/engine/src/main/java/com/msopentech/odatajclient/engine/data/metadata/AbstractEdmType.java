@@ -70,6 +70,7 @@ abstract class AbstractEdmType<META extends AbstractEdmMetadata<
      * @param metadata metadata.
      * @param typeExpression type expression.
      */
+    @SuppressWarnings("unchecked")
     public AbstractEdmType(final META metadata, final String typeExpression) {
         this.typeExpression = typeExpression;
 
@@ -102,25 +103,12 @@ abstract class AbstractEdmType<META extends AbstractEdmMetadata<
             if (!metadata.isNsOrAlias(namespaceOrAlias)) {
                 throw new IllegalArgumentException("Illegal namespace or alias: " + namespaceOrAlias);
             }
-            final S schema = metadata.getSchema(namespaceOrAlias);
-
-            for (AbstractEnumType type : schema.getEnumTypes()) {
-                if (typeName.equals(type.getName())) {
-                    this.enumType = type;
-                }
-            }
+            final MetadataIndex index = metadata.getIndex();
+            this.enumType = index.getEnumType(baseType);
             if (this.enumType == null) {
-                for (C type : schema.getComplexTypes()) {
-                    if (typeName.equals(type.getName())) {
-                        this.complexType = type;
-                    }
-                }
+                this.complexType = (C) index.getComplexType(baseType);
                 if (this.complexType == null) {
-                    for (E type : schema.getEntityTypes()) {
-                        if (typeName.equals(type.getName())) {
-                            this.entityType = type;
-                        }
-                    }
+                    this.entityType = (E) index.getEntityType(baseType);
                 }
             }
 
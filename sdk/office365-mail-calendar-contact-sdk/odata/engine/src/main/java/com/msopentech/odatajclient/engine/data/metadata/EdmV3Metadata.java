@@ -28,6 +28,8 @@ import com.msopentech.odatajclient.engine.data.metadata.edm.v3.EntityType;
 import com.msopentech.odatajclient.engine.data.metadata.edm.v3.FunctionImport;
 import com.msopentech.odatajclient.engine.data.metadata.edm.v3.Schema;
 import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
 
 public class EdmV3Metadata extends AbstractEdmMetadata<
         Edmx, DataServices, Schema, EntityContainer, EntityType, ComplexType, FunctionImport> {
@@ -38,4 +40,8 @@ public class EdmV3Metadata extends AbstractEdmMetadata<
         super(client, inputStream);
     }
 
+    EdmV3Metadata(final Edmx edmx, final List<Schema> schemas, final Map<String, Integer> schemaIndexByNsOrAlias) {
+        super(edmx, schemas, schemaIndexByNsOrAlias);
+    }
+
 }
@@ -30,6 +30,7 @@ import com.msopentech.odatajclient.engine.data.metadata.edm.v4.Reference;
 import com.msopentech.odatajclient.engine.data.metadata.edm.v4.Schema;
 import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 public class EdmV4Metadata extends AbstractEdmMetadata<
         Edmx, DataServices, Schema, EntityContainer, EntityType, ComplexType, FunctionImport> {
@@ -40,6 +41,10 @@ public class EdmV4Metadata extends AbstractEdmMetadata<
         super(client, inputStream);
     }
 
+    EdmV4Metadata(final Edmx edmx, final List<Schema> schemas, final Map<String, Integer> schemaIndexByNsOrAlias) {
+        super(edmx, schemas, schemaIndexByNsOrAlias);
+    }
+
     public List<Reference> getReferences() {
         return this.edmx.getReferences();
     }
@@ -0,0 +1,701 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data.metadata;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.client.http.HttpClientException;
+import com.msopentech.odatajclient.engine.communication.request.retrieve.ODataMetadataRequest;
+import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
+import com.msopentech.odatajclient.engine.data.metadata.edm.AbstractSchema;
+import com.msopentech.odatajclient.engine.utils.ODataVersion;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import com.msopentech.org.apache.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of parsed EDM metadata, per service root.
+ * <p>
+ * Parsed metadata is kept in memory and, when a directory is given, also stored as a binary snapshot on disk, so
+ * that later runs do not need to parse the EDMX document again. A snapshot is keyed by service root and OData version
+ * and records the ETag and the SHA-1 hash of the EDMX document it was built from: when first used in a run it is
+ * validated via a conditional request (<tt>If-None-Match</tt>), or, when the service sends no ETag, by comparing the
+ * hash of the downloaded document. Schemas are read from the snapshot on first access only: if that fails, the
+ * snapshot is discarded and the EDMX document is retrieved and parsed again.
+ * <p>
+ * A snapshot also records the structure of the classes it was serialized from, and is discarded when used with EDM
+ * classes having a different structure.
+ */
+public class MetadataCache {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MetadataCache.class);
+
+    private static final int MAGIC = 0x45444D58;
+
+    private static final int FORMAT_VERSION = 2;
+
+    private static final String SNAPSHOT_SUFFIX = ".edmx.bin";
+
+    private final File directory;
+
+    private final Map<String, AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?>> metadataByKey =
+            new ConcurrentHashMap<String, AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?>>();
+
+    private final Map<String, Object> locks = new ConcurrentHashMap<String, Object>();
+
+    private volatile boolean revalidate = true;
+
+    /**
+     * Constructor: parsed metadata is kept in memory only.
+     */
+    public MetadataCache() {
+        this(null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param directory directory where metadata snapshots are stored; null to keep parsed metadata in memory only.
+     */
+    public MetadataCache(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the directory where metadata snapshots are stored.
+     *
+     * @return snapshot directory, or null if parsed metadata is kept in memory only.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Checks whether snapshots are validated against the service before first use.
+     *
+     * @return whether snapshots are validated against the service before first use.
+     */
+    public boolean isRevalidate() {
+        return revalidate;
+    }
+
+    /**
+     * Sets whether snapshots are validated against the service before first use. When disabled, an existing snapshot
+     * is used without contacting the service at all.
+     *
+     * @param revalidate whether snapshots are validated against the service before first use.
+     */
+    public void setRevalidate(final boolean revalidate) {
+        this.revalidate = revalidate;
+    }
+
+    /**
+     * Gets metadata for the given service root: from memory if available, otherwise from a valid snapshot, otherwise
+     * by retrieving and parsing the EDMX document.
+     *
+     * @param client OData client.
+     * @param serviceRoot service root.
+     * @return metadata.
+     */
+    public AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> getMetadata(final ODataClient client, final String serviceRoot) {
+        final String key = getKey(client, serviceRoot);
+
+        AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata = metadataByKey.get(key);
+        if (metadata == null) {
+            synchronized (getLock(key)) {
+                metadata = metadataByKey.get(key);
+                if (metadata == null) {
+                    metadata = load(client, serviceRoot, key, true);
+                    metadataByKey.put(key, metadata);
+                }
+            }
+        }
+
+        return metadata;
+    }
+
+    /**
+     * Removes any metadata cached for the given service root, in memory and on disk.
+     *
+     * @param client OData client.
+     * @param serviceRoot service root.
+     */
+    public void evict(final ODataClient client, final String serviceRoot) {
+        final String key = getKey(client, serviceRoot);
+
+        synchronized (getLock(key)) {
+            final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata = metadataByKey.remove(key);
+            if (metadata != null) {
+                detach(metadata);
+            }
+
+            final File snapshot = getSnapshotFile(key);
+            if (snapshot != null && snapshot.exists() && !snapshot.delete()) {
+                LOG.warn("Could not delete metadata snapshot {}", snapshot);
+            }
+        }
+    }
+
+    /**
+     * Gets the snapshot file for the given service root.
+     *
+     * @param client OData client.
+     * @param serviceRoot service root.
+     * @return snapshot file (possibly not existing yet), or null if parsed metadata is kept in memory only.
+     */
+    public File getSnapshotFile(final ODataClient client, final String serviceRoot) {
+        return getSnapshotFile(getKey(client, serviceRoot));
+    }
+
+    private File getSnapshotFile(final String key) {
+        return directory == null ? null : new File(directory, toHex(digest(key.getBytes())) + SNAPSHOT_SUFFIX);
+    }
+
+    private String getKey(final ODataClient client, final String serviceRoot) {
+        return client.getWorkingVersion() + " " + serviceRoot;
+    }
+
+    private Object getLock(final String key) {
+        Object lock = locks.get(key);
+        if (lock == null) {
+            synchronized (locks) {
+                lock = locks.get(key);
+                if (lock == null) {
+                    lock = new Object();
+                    locks.put(key, lock);
+                }
+            }
+        }
+        return lock;
+    }
+
+    private AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> load(
+            final ODataClient client, final String serviceRoot, final String key, final boolean useSnapshot) {
+
+        final File file = getSnapshotFile(key);
+
+        Snapshot snapshot = null;
+        if (useSnapshot && file != null && file.isFile()) {
+            try {
+                snapshot = Snapshot.open(file);
+                if (!client.getWorkingVersion().name().equals(snapshot.version)) {
+                    throw new IOException("Not about OData " + client.getWorkingVersion());
+                }
+            } catch (IOException e) {
+                LOG.warn("Discarding unreadable metadata snapshot " + file, e);
+                snapshot = null;
+            }
+        }
+
+        if (snapshot != null && !revalidate) {
+            return snapshot.toMetadata(this, client, serviceRoot);
+        }
+
+        final ODataMetadataRequest<?, ?, ?, ?, ?, ?, ?, ?> req =
+                client.getRetrieveRequestFactory().getMetadataRequest(serviceRoot);
+        if (snapshot != null && StringUtils.isNotBlank(snapshot.etag)) {
+            req.setIfNoneMatch(snapshot.etag);
+        }
+
+        final ODataRetrieveResponse<?> res;
+        try {
+            res = req.execute();
+        } catch (HttpClientException e) {
+            if (snapshot == null) {
+                throw e;
+            }
+            LOG.warn("Could not validate metadata snapshot for " + serviceRoot + ", using it anyway", e);
+            return snapshot.toMetadata(this, client, serviceRoot);
+        }
+
+        final byte[] edmx;
+        try {
+            if (snapshot != null && res.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                LOG.debug("Metadata snapshot for {} not modified", serviceRoot);
+                return snapshot.toMetadata(this, client, serviceRoot);
+            }
+
+            edmx = IOUtils.toByteArray(res.getRawResponse());
+        } catch (IOException e) {
+            throw new HttpClientException(e);
+        } finally {
+            res.close();
+        }
+
+        final String hash = toHex(digest(edmx));
+        if (snapshot != null && hash.equals(snapshot.hash)) {
+            LOG.debug("Metadata for {} unchanged", serviceRoot);
+            return snapshot.toMetadata(this, client, serviceRoot);
+        }
+
+        final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata =
+                client.getReader().readMetadata(new ByteArrayInputStream(edmx));
+        if (metadata == null) {
+            throw new IllegalStateException("No metadata found at URI '" + serviceRoot + "'");
+        }
+
+        if (file != null) {
+            // metadata still loading schemas from the snapshot being replaced must get them all first
+            final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> previous = metadataByKey.get(key);
+            if (previous != null) {
+                detach(previous);
+            }
+
+            try {
+                Snapshot.write(file, metadata, res.getEtag(), hash);
+            } catch (IOException e) {
+                LOG.warn("Could not write metadata snapshot " + file, e);
+            }
+        }
+
+        return metadata;
+    }
+
+    /**
+     * Retrieves and parses again the metadata whose snapshot could not be read, replacing the snapshot.
+     *
+     * @param client OData client.
+     * @param serviceRoot service root.
+     * @param broken schemas of the snapshot that could not be read.
+     * @return freshly parsed metadata.
+     */
+    private AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> reload(
+            final ODataClient client, final String serviceRoot, final SnapshotSchemas broken) {
+
+        final String key = getKey(client, serviceRoot);
+
+        synchronized (getLock(key)) {
+            final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> current = metadataByKey.get(key);
+            if (current != null && current.getSchemas() != broken) {
+                // already reloaded
+                return current;
+            }
+
+            // the broken metadata must not be detached while loading its replacement
+            metadataByKey.remove(key);
+
+            final File snapshot = getSnapshotFile(key);
+            if (snapshot != null && snapshot.exists() && !snapshot.delete()) {
+                LOG.warn("Could not delete metadata snapshot {}", snapshot);
+            }
+
+            final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata = load(client, serviceRoot, key, false);
+            metadataByKey.put(key, metadata);
+            return metadata;
+        }
+    }
+
+    private static void detach(final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata) {
+        if (metadata.getSchemas() instanceof SnapshotSchemas) {
+            ((SnapshotSchemas) metadata.getSchemas()).loadAll();
+        }
+    }
+
+    private static byte[] digest(final byte[] input) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(input);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static byte[] serialize(final Object obj, final Object omitted, final Set<String> classNames)
+            throws IOException {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream oos = new OmittingObjectOutputStream(bytes, omitted, classNames);
+        try {
+            oos.writeObject(obj);
+        } finally {
+            oos.close();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(final byte[] bytes) throws IOException {
+        final ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        try {
+            return ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        } catch (RuntimeException e) {
+            // corrupt streams do not always fail with an IOException
+            throw new IOException(e);
+        } finally {
+            ois.close();
+        }
+    }
+
+    /**
+     * Hashes the serialized form of the given classes, as found in the running library: names, serial version UIDs
+     * and serializable fields.
+     *
+     * @param classNames names of the classes.
+     * @return hash of the serialized form of the classes.
+     * @throws IOException if any of the classes is not found.
+     */
+    private static String getStructureHash(final Set<String> classNames) throws IOException {
+        final StringBuilder structure = new StringBuilder();
+        for (String className : classNames) {
+            final ObjectStreamClass desc;
+            try {
+                desc = ObjectStreamClass.lookupAny(
+                        Class.forName(className, false, MetadataCache.class.getClassLoader()));
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+
+            structure.append(className).append(' ').append(desc.getSerialVersionUID());
+            for (ObjectStreamField field : desc.getFields()) {
+                structure.append(' ').append(field.getName()).append(':').append(field.getType().getName());
+            }
+            structure.append('\n');
+        }
+        return toHex(digest(structure.toString().getBytes("UTF-8")));
+    }
+
+    /**
+     * Object stream writing an empty list in place of a given object: used to store the EDMX document without its
+     * schemas, which are stored on their own. It also collects the names of the classes written.
+     */
+    private static class OmittingObjectOutputStream extends ObjectOutputStream {
+
+        private final Object omitted;
+
+        private final Set<String> classNames;
+
+        OmittingObjectOutputStream(final OutputStream out, final Object omitted, final Set<String> classNames)
+                throws IOException {
+
+            super(out);
+            this.omitted = omitted;
+            this.classNames = classNames;
+            enableReplaceObject(omitted != null);
+        }
+
+        @Override
+        protected void annotateClass(final Class<?> cl) throws IOException {
+            classNames.add(cl.getName());
+        }
+
+        @Override
+        protected Object replaceObject(final Object obj) throws IOException {
+            return obj == omitted ? new ArrayList<Object>() : obj;
+        }
+    }
+
+    /**
+     * Snapshot file.
+     * <p>
+     * Layout: magic number, format version, OData version, ETag, SHA-1 hash of the EDMX document, the names of the
+     * serialized classes and the hash of their structure, then for each schema its namespace, alias and length, then
+     * the length of the EDMX document without schemas; the EDMX document and the schemas follow, each one serialized
+     * on its own.
+     */
+    private static class Snapshot {
+
+        private final File file;
+
+        private String version;
+
+        private String etag;
+
+        private String hash;
+
+        private Object edmx;
+
+        private String[] namespaces;
+
+        private long[] offsets;
+
+        private int[] lengths;
+
+        private Map<String, Integer> schemaIndexByNsOrAlias;
+
+        private Snapshot(final File file) {
+            this.file = file;
+        }
+
+        static Snapshot open(final File file) throws IOException {
+            final Snapshot snapshot = new Snapshot(file);
+
+            final RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                snapshot.readHeader(raf);
+
+                final byte[] edmx = new byte[raf.readInt()];
+                raf.readFully(edmx);
+                snapshot.edmx = deserialize(edmx);
+
+                long offset = raf.getFilePointer();
+                for (int i = 0; i < snapshot.lengths.length; i++) {
+                    snapshot.offsets[i] = offset;
+                    offset += snapshot.lengths[i];
+                }
+                if (offset != raf.length()) {
+                    throw new IOException("Truncated metadata snapshot " + file);
+                }
+            } finally {
+                raf.close();
+            }
+
+            return snapshot;
+        }
+
+        private void readHeader(final RandomAccessFile raf) throws IOException {
+            if (raf.readInt() != MAGIC || raf.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a metadata snapshot: " + file);
+            }
+
+            version = raf.readUTF();
+            etag = raf.readUTF();
+            hash = raf.readUTF();
+
+            final Set<String> classNames = new TreeSet<String>();
+            for (int i = raf.readInt(); i > 0; i--) {
+                classNames.add(raf.readUTF());
+            }
+            if (!getStructureHash(classNames).equals(raf.readUTF())) {
+                throw new IOException("Metadata snapshot " + file + " was written by different EDM classes");
+            }
+
+            final int size = raf.readInt();
+            namespaces = new String[size];
+            offsets = new long[size];
+            lengths = new int[size];
+            schemaIndexByNsOrAlias = new HashMap<String, Integer>();
+            for (int i = 0; i < size; i++) {
+                namespaces[i] = raf.readUTF();
+                schemaIndexByNsOrAlias.put(namespaces[i], i);
+                final String alias = raf.readUTF();
+                if (StringUtils.isNotBlank(alias)) {
+                    schemaIndexByNsOrAlias.put(alias, i);
+                }
+                lengths[i] = raf.readInt();
+            }
+        }
+
+        static void write(final File file, final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata,
+                final String etag, final String hash) throws IOException {
+
+            final List<? extends AbstractSchema<?, ?, ?, ?>> schemas = metadata.getSchemas();
+
+            final Set<String> classNames = new TreeSet<String>();
+            final byte[][] blobs = new byte[schemas.size()][];
+            for (int i = 0; i < blobs.length; i++) {
+                blobs[i] = serialize(schemas.get(i), null, classNames);
+            }
+            final byte[] edmx = serialize(metadata.edmx, metadata.edmx.getDataServices().getSchemas(), classNames);
+
+            final File parent = file.getAbsoluteFile().getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Could not create directory " + parent);
+            }
+
+            // write aside, then move in place: readers never see a partial snapshot
+            final File tmp = File.createTempFile("edmx", ".tmp", parent);
+            final DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(metadata instanceof EdmV4Metadata ? ODataVersion.V4.name() : ODataVersion.V3.name());
+                out.writeUTF(StringUtils.defaultString(etag));
+                out.writeUTF(hash);
+
+                out.writeInt(classNames.size());
+                for (String className : classNames) {
+                    out.writeUTF(className);
+                }
+                out.writeUTF(getStructureHash(classNames));
+
+                out.writeInt(blobs.length);
+                for (int i = 0; i < blobs.length; i++) {
+                    out.writeUTF(schemas.get(i).getNamespace());
+                    out.writeUTF(StringUtils.defaultString(schemas.get(i).getAlias()));
+                    out.writeInt(blobs[i].length);
+                }
+
+                out.writeInt(edmx.length);
+                out.write(edmx);
+                for (byte[] blob : blobs) {
+                    out.write(blob);
+                }
+            } finally {
+                out.close();
+            }
+
+            if (!tmp.renameTo(file)) {
+                if (!file.delete() || !tmp.renameTo(file)) {
+                    tmp.delete();
+                    throw new IOException("Could not replace metadata snapshot " + file);
+                }
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> toMetadata(
+                final MetadataCache cache, final ODataClient client, final String serviceRoot) {
+
+            final SnapshotSchemas schemas = new SnapshotSchemas(this, cache, client, serviceRoot);
+            return client.getWorkingVersion() == ODataVersion.V4
+                    ? new EdmV4Metadata((com.msopentech.odatajclient.engine.data.metadata.edm.v4.Edmx) edmx,
+                            (List) schemas, schemaIndexByNsOrAlias)
+                    : new EdmV3Metadata((com.msopentech.odatajclient.engine.data.metadata.edm.v3.Edmx) edmx,
+                            (List) schemas, schemaIndexByNsOrAlias);
+        }
+
+        Object readSchema(final int index) throws IOException {
+            final RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                // make sure the file was not replaced in the meantime
+                raf.readInt();
+                raf.readInt();
+                raf.readUTF();
+                raf.readUTF();
+                if (!hash.equals(raf.readUTF())) {
+                    throw new IOException("Metadata snapshot " + file + " was replaced");
+                }
+
+                final byte[] blob = new byte[lengths[index]];
+                raf.seek(offsets[index]);
+                raf.readFully(blob);
+                return deserialize(blob);
+            } finally {
+                raf.close();
+            }
+        }
+    }
+
+    /**
+     * Schema list reading each schema from the snapshot on first access, or from freshly parsed metadata when the
+     * snapshot cannot be read.
+     */
+    private static class SnapshotSchemas extends AbstractList<Object> implements Serializable {
+
+        private static final long serialVersionUID = 4281379815542916025L;
+
+        private final transient Snapshot snapshot;
+
+        private final transient MetadataCache cache;
+
+        private final transient ODataClient client;
+
+        private final transient String serviceRoot;
+
+        private final Object[] schemas;
+
+        SnapshotSchemas(final Snapshot snapshot, final MetadataCache cache, final ODataClient client,
+                final String serviceRoot) {
+
+            this.snapshot = snapshot;
+            this.cache = cache;
+            this.client = client;
+            this.serviceRoot = serviceRoot;
+            this.schemas = new Object[snapshot.lengths.length];
+        }
+
+        @Override
+        public Object get(final int index) {
+            final IOException failure;
+            synchronized (this) {
+                if (schemas[index] != null) {
+                    return schemas[index];
+                }
+                try {
+                    schemas[index] = snapshot.readSchema(index);
+                    return schemas[index];
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+
+            // not holding this list's lock: reloading takes the cache lock, which is held while detaching
+            LOG.warn("Could not read schema " + index + " from metadata snapshot " + snapshot.file
+                    + ", retrieving metadata again", failure);
+            final List<? extends AbstractSchema<?, ?, ?, ?>> fresh =
+                    cache.reload(client, serviceRoot, this).getSchemas();
+
+            synchronized (this) {
+                if (fresh.size() != schemas.length) {
+                    throw new IllegalStateException("Metadata at " + serviceRoot + " changed", failure);
+                }
+                for (int i = 0; i < schemas.length; i++) {
+                    if (!snapshot.namespaces[i].equals(fresh.get(i).getNamespace())) {
+                        throw new IllegalStateException("Metadata at " + serviceRoot + " changed", failure);
+                    }
+                    if (schemas[i] == null) {
+                        schemas[i] = fresh.get(i);
+                    }
+                }
+                return schemas[index];
+            }
+        }
+
+        @Override
+        public int size() {
+            return schemas.length;
+        }
+
+        void loadAll() {
+            for (int i = 0; i < schemas.length; i++) {
+                get(i);
+            }
+        }
+
+        private Object writeReplace() {
+            return new ArrayList<Object>(this);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.data.metadata;
+
+import com.msopentech.odatajclient.engine.data.metadata.edm.AbstractComplexType;
+import com.msopentech.odatajclient.engine.data.metadata.edm.AbstractEntityContainer;
+import com.msopentech.odatajclient.engine.data.metadata.edm.AbstractEntitySet;
+import com.msopentech.odatajclient.engine.data.metadata.edm.AbstractEntityType;
+import com.msopentech.odatajclient.engine.data.metadata.edm.AbstractEnumType;
+import com.msopentech.odatajclient.engine.data.ODataPropertyShape;
+import com.msopentech.odatajclient.engine.data.metadata.edm.AbstractFunctionImport;
+import com.msopentech.odatajclient.engine.data.metadata.edm.AbstractProperty;
+import com.msopentech.odatajclient.engine.data.metadata.edm.AbstractSchema;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v3.AssociationSet;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v3.EntityContainer;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v4.EntitySet;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v4.NavigationPropertyBinding;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v4.Singleton;
+import com.msopentech.odatajclient.engine.utils.AssociationSetBindingDetails;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Lookup tables over EDM metadata: types and entity containers by qualified name (with either namespace or alias),
+ * then entity sets, association sets and function imports by name within their container, and navigation property
+ * bindings by path within their entity set or singleton; also property shapes of entity and complex types, base type
+ * properties included.
+ * <p>
+ * Tables are built on first use, one schema, container or binding target at a time: a qualified name only gets the
+ * schema of its namespace or alias indexed, so that schemas loaded on demand (see {@link MetadataCache}) are not all
+ * loaded at once. Only {@link #getAssociationSetBindingDetails(String)} needs all schemas. Instances are thread-safe;
+ * metadata is not expected to change once read.
+ *
+ * @see AbstractEdmMetadata#getIndex()
+ */
+public class MetadataIndex {
+
+    private final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata;
+
+    private final AtomicReferenceArray<SchemaIndex> schemaIndexes;
+
+    private final Map<AbstractEntityContainer<?>, ContainerIndex> containerIndexes =
+            Collections.synchronizedMap(new IdentityHashMap<AbstractEntityContainer<?>, ContainerIndex>());
+
+    private volatile Map<String, AssociationSetBindingDetails> associationSetBindings;
+
+    private final Map<Object, Map<String, NavigationPropertyBinding>> navigationBindings =
+            Collections.synchronizedMap(new IdentityHashMap<Object, Map<String, NavigationPropertyBinding>>());
+
+    private final Map<AbstractComplexType, ODataPropertyShape> propertyShapes =
+            Collections.synchronizedMap(new IdentityHashMap<AbstractComplexType, ODataPropertyShape>());
+
+    /**
+     * Lookup tables of a single schema, by unqualified name.
+     */
+    private static class SchemaIndex {
+
+        private final Map<String, AbstractEnumType> enumTypes = new HashMap<String, AbstractEnumType>();
+
+        private final Map<String, AbstractComplexType> complexTypes = new HashMap<String, AbstractComplexType>();
+
+        private final Map<String, AbstractEntityType> entityTypes = new HashMap<String, AbstractEntityType>();
+
+        private final Map<String, AbstractEntityContainer<?>> containers =
+                new HashMap<String, AbstractEntityContainer<?>>();
+
+        SchemaIndex(final AbstractSchema<?, ?, ?, ?> schema) {
+            for (AbstractEnumType type : schema.getEnumTypes()) {
+                enumTypes.put(type.getName(), type);
+            }
+            for (AbstractComplexType type : schema.getComplexTypes()) {
+                complexTypes.put(type.getName(), type);
+            }
+            for (AbstractEntityType type : schema.getEntityTypes()) {
+                entityTypes.put(type.getName(), type);
+            }
+            for (AbstractEntityContainer<?> container : schema.getEntityContainers()) {
+                putIfAbsent(containers, container.getName(), container);
+            }
+        }
+    }
+
+    /**
+     * Lookup tables of a single entity container.
+     */
+    private static class ContainerIndex {
+
+        private final Map<String, AbstractEntitySet> entitySets = new HashMap<String, AbstractEntitySet>();
+
+        private final Map<String, AbstractEntitySet> entitySetsIgnoreCase = new HashMap<String, AbstractEntitySet>();
+
+        private final Map<String, AssociationSet> associationSets = new HashMap<String, AssociationSet>();
+
+        private final Map<String, List<AbstractFunctionImport>> functionImports =
+                new HashMap<String, List<AbstractFunctionImport>>();
+
+        ContainerIndex(final AbstractEntityContainer<?> container) {
+            for (AbstractEntitySet entitySet : container.getEntitySets()) {
+                putIfAbsent(entitySets, entitySet.getName(), entitySet);
+                putIfAbsent(entitySetsIgnoreCase, entitySet.getName().toLowerCase(Locale.ENGLISH), entitySet);
+            }
+
+            for (AbstractFunctionImport functionImport : container.getFunctionImports()) {
+                List<AbstractFunctionImport> overloads = functionImports.get(functionImport.getName());
+                if (overloads == null) {
+                    overloads = new ArrayList<AbstractFunctionImport>(1);
+                    functionImports.put(functionImport.getName(), overloads);
+                }
+                overloads.add(functionImport);
+            }
+
+            if (container instanceof EntityContainer) {
+                for (AssociationSet associationSet : ((EntityContainer) container).getAssociationSets()) {
+                    putIfAbsent(associationSets, associationSet.getAssociation(), associationSet);
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param metadata metadata to be indexed.
+     */
+    public MetadataIndex(final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata) {
+        this.metadata = metadata;
+        this.schemaIndexes = new AtomicReferenceArray<SchemaIndex>(metadata.getSchemas().size());
+    }
+
+    /**
+     * Gets the lookup tables of the schema with the namespace or alias of the given qualified name.
+     *
+     * @param qualifiedName namespace or alias, dot, name.
+     * @return schema lookup tables, or null if there is no such schema.
+     */
+    private SchemaIndex getSchemaIndex(final String qualifiedName) {
+        final int lastDot = qualifiedName.lastIndexOf('.');
+        final Integer position = lastDot == -1
+                ? null
+                : metadata.schemaIndexByNsOrAlias.get(qualifiedName.substring(0, lastDot));
+        if (position == null) {
+            return null;
+        }
+
+        SchemaIndex index = schemaIndexes.get(position);
+        if (index == null) {
+            // concurrent builds of the same tables are harmless
+            index = new SchemaIndex(metadata.getSchema(position));
+            schemaIndexes.set(position, index);
+        }
+        return index;
+    }
+
+    private static String getName(final String qualifiedName) {
+        return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+    }
+
+    private ContainerIndex getContainerIndex(final AbstractEntityContainer<?> container) {
+        ContainerIndex index = containerIndexes.get(container);
+        if (index == null) {
+            index = new ContainerIndex(container);
+            containerIndexes.put(container, index);
+        }
+        return index;
+    }
+
+    private ODataPropertyShape getPropertyShape(final AbstractComplexType type) {
+        ODataPropertyShape shape = propertyShapes.get(type);
+        if (shape == null) {
+            final LinkedHashSet<String> names = new LinkedHashSet<String>();
+
+            // base type properties first, guarding against inheritance cycles
+            final List<AbstractComplexType> hierarchy = new ArrayList<AbstractComplexType>();
+            for (AbstractComplexType current = type; current != null && !hierarchy.contains(current);
+                    current = getBaseType(current)) {
+
+                hierarchy.add(0, current);
+            }
+            for (AbstractComplexType current : hierarchy) {
+                for (AbstractProperty property : current.getProperties()) {
+                    names.add(property.getName());
+                }
+            }
+
+            shape = new ODataPropertyShape(names);
+            propertyShapes.put(type, shape);
+        }
+        return shape;
+    }
+
+    private AbstractComplexType getBaseType(final AbstractComplexType type) {
+        final AbstractComplexType baseType;
+        if (type instanceof AbstractEntityType) {
+            baseType = StringUtils.isBlank(((AbstractEntityType) type).getBaseType())
+                    ? null
+                    : getEntityType(((AbstractEntityType) type).getBaseType());
+        } else if (type instanceof com.msopentech.odatajclient.engine.data.metadata.edm.v4.ComplexType) {
+            final String name = ((com.msopentech.odatajclient.engine.data.metadata.edm.v4.ComplexType) type).
+                    getBaseType();
+            baseType = StringUtils.isBlank(name) ? null : getComplexType(name);
+        } else {
+            baseType = null;
+        }
+        return baseType;
+    }
+
+    private Map<String, AssociationSetBindingDetails> getAssociationSetBindings() {
+        Map<String, AssociationSetBindingDetails> bindings = associationSetBindings;
+        if (bindings == null) {
+            bindings = new HashMap<String, AssociationSetBindingDetails>();
+            for (AbstractSchema<?, ?, ?, ?> schema : metadata.getSchemas()) {
+                for (AbstractEntityContainer<?> container : schema.getEntityContainers()) {
+                    if (container instanceof EntityContainer) {
+                        for (AssociationSet associationSet : ((EntityContainer) container).getAssociationSets()) {
+                            putIfAbsent(bindings, associationSet.getAssociation(),
+                                    new AssociationSetBindingDetails(associationSet, container, schema));
+                        }
+                    }
+                }
+            }
+            associationSetBindings = bindings;
+        }
+        return bindings;
+    }
+
+    private static <K, V> void putIfAbsent(final Map<K, V> map, final K key, final V value) {
+        if (!map.containsKey(key)) {
+            map.put(key, value);
+        }
+    }
+
+    /**
+     * Gets enum type with the given qualified name.
+     *
+     * @param qualifiedName namespace or alias, dot, name.
+     * @return enum type, or null if not found.
+     */
+    public AbstractEnumType getEnumType(final String qualifiedName) {
+        final SchemaIndex index = getSchemaIndex(qualifiedName);
+        return index == null ? null : index.enumTypes.get(getName(qualifiedName));
+    }
+
+    /**
+     * Gets complex type with the given qualified name.
+     *
+     * @param qualifiedName namespace or alias, dot, name.
+     * @return complex type, or null if not found.
+     */
+    public AbstractComplexType getComplexType(final String qualifiedName) {
+        final SchemaIndex index = getSchemaIndex(qualifiedName);
+        return index == null ? null : index.complexTypes.get(getName(qualifiedName));
+    }
+
+    /**
+     * Gets entity type with the given qualified name.
+     *
+     * @param qualifiedName namespace or alias, dot, name.
+     * @return entity type, or null if not found.
+     */
+    public AbstractEntityType getEntityType(final String qualifiedName) {
+        final SchemaIndex index = getSchemaIndex(qualifiedName);
+        return index == null ? null : index.entityTypes.get(getName(qualifiedName));
+    }
+
+    /**
+     * Gets the property shape of the entity or complex type with the given qualified name, to be shared by all
+     * entities and complex values of that type.
+     *
+     * @param qualifiedName namespace or alias, dot, name.
+     * @return property shape, or null if no such type is found.
+     */
+    public ODataPropertyShape getPropertyShape(final String qualifiedName) {
+        final SchemaIndex index = getSchemaIndex(qualifiedName);
+        if (index == null) {
+            return null;
+        }
+
+        AbstractComplexType type = index.entityTypes.get(getName(qualifiedName));
+        if (type == null) {
+            type = index.complexTypes.get(getName(qualifiedName));
+        }
+        return type == null ? null : getPropertyShape(type);
+    }
+
+    /**
+     * Gets entity container with the given qualified name.
+     *
+     * @param qualifiedName namespace or alias, dot, name.
+     * @return entity container, or null if not found.
+     */
+    public AbstractEntityContainer<?> getEntityContainer(final String qualifiedName) {
+        final SchemaIndex index = getSchemaIndex(qualifiedName);
+        return index == null ? null : index.containers.get(getName(qualifiedName));
+    }
+
+    /**
+     * Gets the first entity set with the given name in the given container.
+     *
+     * @param container entity container.
+     * @param name entity set name.
+     * @return entity set, or null if not found.
+     */
+    public AbstractEntitySet getEntitySet(final AbstractEntityContainer<?> container, final String name) {
+        return getContainerIndex(container).entitySets.get(name);
+    }
+
+    /**
+     * Gets the first entity set with the given name, ignoring case, in the given container.
+     *
+     * @param container entity container.
+     * @param name entity set name.
+     * @return entity set, or null if not found.
+     */
+    public AbstractEntitySet getEntitySetIgnoreCase(final AbstractEntityContainer<?> container, final String name) {
+        return getContainerIndex(container).entitySetsIgnoreCase.get(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Gets the first association set for the given association in the given container.
+     *
+     * @param container entity container.
+     * @param association qualified association name.
+     * @return association set, or null if not found.
+     */
+    public AssociationSet getAssociationSet(final AbstractEntityContainer<?> container, final String association) {
+        return getContainerIndex(container).associationSets.get(association);
+    }
+
+    /**
+     * Gets the first association set for the given association in any container, along with its container and schema.
+     * The first invocation indexes all schemas.
+     *
+     * @param association qualified association name.
+     * @return association set binding details, or null if not found.
+     */
+    public AssociationSetBindingDetails getAssociationSetBindingDetails(final String association) {
+        return getAssociationSetBindings().get(association);
+    }
+
+    /**
+     * Gets all function imports with the given name in the given container.
+     *
+     * @param container entity container.
+     * @param name function import name.
+     * @return function imports, possibly empty.
+     */
+    public List<AbstractFunctionImport> getFunctionImports(
+            final AbstractEntityContainer<?> container, final String name) {
+
+        final List<AbstractFunctionImport> overloads = getContainerIndex(container).functionImports.get(name);
+        return overloads == null
+                ? Collections.<AbstractFunctionImport>emptyList()
+                : Collections.unmodifiableList(overloads);
+    }
+
+    /**
+     * Gets the first navigation property binding with the given path in the given entity set or singleton.
+     *
+     * @param bindingTarget entity set or singleton.
+     * @param path navigation property path.
+     * @return navigation property binding, or null if not found.
+     */
+    public NavigationPropertyBinding getNavigationPropertyBinding(final Object bindingTarget, final String path) {
+        Map<String, NavigationPropertyBinding> byPath = navigationBindings.get(bindingTarget);
+        if (byPath == null) {
+            final List<NavigationPropertyBinding> bindings = bindingTarget instanceof EntitySet
+                    ? ((EntitySet) bindingTarget).getNavigationPropertyBindings()
+                    : bindingTarget instanceof Singleton
+                    ? ((Singleton) bindingTarget).getNavigationPropertyBindings()
+                    : Collections.<NavigationPropertyBinding>emptyList();
+
+            byPath = new HashMap<String, NavigationPropertyBinding>();
+            for (NavigationPropertyBinding binding : bindings) {
+                putIfAbsent(byPath, binding.getPath(), binding);
+            }
+            navigationBindings.put(bindingTarget, byPath);
+        }
+        return byPath.get(path);
+    }
+}
@@ -48,19 +48,13 @@ public class MetadataUtils {
     public static AssociationSetBindingDetails getAssociationSetBindingDetails(
             final Association association, final String associationNamespace, final EdmV3Metadata metadata) {
 
-        final StringBuilder associationName = new StringBuilder();
-        associationName.append(associationNamespace).append('.').append(association.getName());
-
-        for (Schema schema : metadata.getSchemas()) {
-            for (EntityContainer container : schema.getEntityContainers()) {
-                final AssociationSet associationSet = getAssociationSet(associationName.toString(), container);
-                if (associationSet != null) {
-                    return new AssociationSetBindingDetails(associationSet, container, schema);
-                }
-            }
+        final AssociationSetBindingDetails details = metadata.getIndex().
+                getAssociationSetBindingDetails(associationNamespace + '.' + association.getName());
+        if (details == null) {
+            throw new IllegalStateException("Association set not found");
         }
 
-        throw new IllegalStateException("Association set not found");
+        return details;
     }
 
     public static Association getAssociation(final Schema schema, final String relationship) {
@@ -80,19 +74,19 @@ public class MetadataUtils {
         return null;
     }
 
+    public static AssociationSet getAssociationSet(
+            final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata,
+            final String association,
+            final EntityContainer container) {
+
+        return metadata.getIndex().getAssociationSet(container, association);
+    }
+
     public static AbstractSchema<?, ?, ?, ?> getSchemaByNamespaceOrAlias(
             final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata,
             final String name) {
 
-        if (StringUtils.isNotBlank(name)) {
-            for (AbstractSchema<?, ?, ?, ?> schema : metadata.getSchemas()) {
-                if (name.equals(schema.getNamespace()) || name.equals(schema.getAlias())) {
-                    return schema;
-                }
-            }
-        }
-
-        return null;
+        return StringUtils.isBlank(name) ? null : metadata.getSchema(name);
     }
 
     public static AbstractEntityContainer<?> getContainerByName(
@@ -108,6 +102,14 @@ public class MetadataUtils {
         return null;
     }
 
+    public static AbstractEntityContainer<?> getContainerByName(
+            final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata,
+            final AbstractSchema<?, ?, ?, ?> schema,
+            final String name) {
+
+        return metadata.getIndex().getEntityContainer(schema.getNamespace() + '.' + name);
+    }
+
     public static AbstractEntitySet getEntitySet(
             final AssociationSetBindingDetails associationSetBindingDetails, final String name) {
 
@@ -122,27 +124,26 @@ public class MetadataUtils {
         return null;
     }
 
+    public static AbstractEntitySet getEntitySet(
+            final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata,
+            final AssociationSetBindingDetails associationSetBindingDetails,
+            final String name) {
+
+        final String entitySetName = getEntitySetName(associationSetBindingDetails.getAssociationSet(), name);
+        return entitySetName == null
+                ? null
+                : metadata.getIndex().getEntitySet(associationSetBindingDetails.getContainer(), entitySetName);
+    }
+
     public static AbstractEntitySet getEntitySet(
             final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata,
             final String namespace,
             final String containerName,
             final String name) {
 
-        for (AbstractSchema<?, ?, ?, ?> schema : metadata.getSchemas()) {
-            if (schema.getNamespace().equals(namespace)) {
-                for (AbstractEntityContainer<?> container : schema.getEntityContainers()) {
-                    if (containerName.equals(container.getName())) {
-                        for (AbstractEntitySet entitySet : container.getEntitySets()) {
-                            if (entitySet.getName().equals(name)) {
-                                return entitySet;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-        return null;
+        final AbstractEntityContainer<?> container =
+                metadata.getIndex().getEntityContainer(namespace + '.' + containerName);
+        return container == null ? null : metadata.getIndex().getEntitySet(container, name);
     }
 
     public static AbstractEntitySet getEntitySet(final AbstractEntityContainer<?> container, final String name) {
@@ -156,6 +157,14 @@ public class MetadataUtils {
         return null;
     }
 
+    public static AbstractEntitySet getEntitySet(
+            final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata,
+            final AbstractEntityContainer<?> container,
+            final String name) {
+
+        return metadata.getIndex().getEntitySetIgnoreCase(container, name);
+    }
+
     public static NavigationPropertyBinding getNavigationBindingByPath(
             final List<NavigationPropertyBinding> bindings,
             final String path) {
@@ -168,6 +177,22 @@ public class MetadataUtils {
         return null;
     }
 
+    /**
+     * Gets navigation property binding with the given path.
+     *
+     * @param metadata metadata.
+     * @param bindingTarget entity set or singleton declaring the binding.
+     * @param path navigation property path.
+     * @return navigation property binding, or null if not found.
+     */
+    public static NavigationPropertyBinding getNavigationBindingByPath(
+            final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata,
+            final Object bindingTarget,
+            final String path) {
+
+        return metadata.getIndex().getNavigationPropertyBinding(bindingTarget, path);
+    }
+
     public static String getEntitySetName(final AssociationSet associationSet, final String role) {
         for (AssociationSetEnd end : associationSet.getEnds()) {
             if (end.getRole().equals(role)) {
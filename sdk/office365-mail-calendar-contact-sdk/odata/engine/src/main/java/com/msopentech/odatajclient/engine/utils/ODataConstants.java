@@ -183,6 +183,10 @@ public class ODataConstants {
 
     public final static String JSON_MEDIAEDIT_LINK_SUFFIX = "@odata.mediaEditLink";
 
+    public final static String JSON_COUNT = "odata.count";
+
+    public final static String JSON_NEXT_LINK = "odata.nextLink";
+
     public final static String JSON_VALUE = "value";
 
     public final static String JSON_URL = "url";
@@ -0,0 +1,230 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.msopentech.odatajclient.engine.client.ODataClientFactory;
+import com.msopentech.odatajclient.engine.client.ODataV3Client;
+import com.msopentech.odatajclient.engine.client.http.DefaultAsyncHttpClientFactory;
+import com.msopentech.odatajclient.engine.communication.ODataClientErrorException;
+import com.msopentech.odatajclient.engine.communication.response.ODataEntityCreateResponse;
+import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import com.msopentech.org.apache.http.concurrent.FutureCallback;
+
+public class AsyncExecuteTest extends AbstractTest {
+
+    private static StubServer server;
+
+    private static byte[] customer;
+
+    private static final AtomicReference<String> posted = new AtomicReference<String>();
+
+    private ODataV3Client client;
+
+    private DefaultAsyncHttpClientFactory factory;
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        customer = IOUtils.toByteArray(AsyncExecuteTest.class.getResourceAsStream("Customer_-10.json"));
+
+        server = new StubServer();
+        server.serve("/Customer(-10)", ODataPubFormat.JSON_FULL_METADATA.toString(), customer);
+        server.handle("/Customer(-404)", new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        });
+        server.handle("/Customer", new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                posted.set(IOUtils.toString(exchange.getRequestBody()));
+
+                exchange.getResponseHeaders().add("Content-Type", ODataPubFormat.JSON_FULL_METADATA.toString());
+                exchange.sendResponseHeaders(201, customer.length);
+                exchange.getResponseBody().write(customer);
+            }
+        });
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop();
+    }
+
+    @Before
+    public void setUp() {
+        client = ODataClientFactory.getV3();
+        factory = new DefaultAsyncHttpClientFactory();
+        client.getConfiguration().setAsyncHttpClientFactory(factory);
+    }
+
+    @After
+    public void tearDown() {
+        factory.shutdown();
+    }
+
+    private static class LatchCallback<T> implements FutureCallback<T> {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        private T result;
+
+        private Exception failure;
+
+        @Override
+        public void completed(final T result) {
+            this.result = result;
+            latch.countDown();
+        }
+
+        @Override
+        public void failed(final Exception ex) {
+            this.failure = ex;
+            latch.countDown();
+        }
+
+        @Override
+        public void cancelled() {
+            latch.countDown();
+        }
+
+        public void await() throws InterruptedException {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void retrieve() throws Exception {
+        final LatchCallback<ODataRetrieveResponse<ODataEntity>> callback =
+                new LatchCallback<ODataRetrieveResponse<ODataEntity>>();
+
+        final Future<ODataRetrieveResponse<ODataEntity>> future = client.getRetrieveRequestFactory().
+                getEntityRequest(server.getURI("/Customer(-10)")).asyncExecute(callback);
+
+        callback.await();
+        assertNull(callback.failure);
+        assertEquals(200, future.get().getStatusCode());
+        assertEquals(-10, future.get().getBody().getProperty("CustomerId").getPrimitiveValue().toCastValue());
+        assertEquals(callback.result, future.get());
+    }
+
+    @Test
+    public void readsResponseOffDispatcherThread() throws Exception {
+        final AtomicReference<String> thread = new AtomicReference<String>();
+        final LatchCallback<ODataRetrieveResponse<ODataEntity>> callback =
+                new LatchCallback<ODataRetrieveResponse<ODataEntity>>() {
+
+                    @Override
+                    public void completed(final ODataRetrieveResponse<ODataEntity> result) {
+                        thread.set(Thread.currentThread().getName());
+                        super.completed(result);
+                    }
+                };
+
+        client.getRetrieveRequestFactory().getEntityRequest(server.getURI("/Customer(-10)")).asyncExecute(callback);
+
+        callback.await();
+        assertNull(callback.failure);
+        assertFalse(thread.get(), thread.get().startsWith("I/O dispatcher"));
+    }
+
+    @Test
+    public void retrieveWithoutCallback() throws Exception {
+        final Future<ODataRetrieveResponse<ODataEntity>> future = client.getRetrieveRequestFactory().
+                getEntityRequest(server.getURI("/Customer(-10)")).asyncExecute();
+
+        assertNotNull(future.get(10, TimeUnit.SECONDS).getBody());
+        assertEquals(1, factory.getPoolStats().getAvailable());
+    }
+
+    @Test
+    public void clientError() throws Exception {
+        final LatchCallback<ODataRetrieveResponse<ODataEntity>> callback =
+                new LatchCallback<ODataRetrieveResponse<ODataEntity>>();
+
+        final Future<ODataRetrieveResponse<ODataEntity>> future = client.getRetrieveRequestFactory().
+                getEntityRequest(server.getURI("/Customer(-404)")).asyncExecute(callback);
+
+        callback.await();
+        assertTrue(callback.failure instanceof ODataClientErrorException);
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals(404, ((ODataClientErrorException) e.getCause()).getStatusLine().getStatusCode());
+        }
+    }
+
+    @Test
+    public void create() throws Exception {
+        final ODataEntity entity = client.getReader().readEntity(
+                getClass().getResourceAsStream("Customer_-10.json"), ODataPubFormat.JSON_FULL_METADATA);
+        final URI uri = server.getURI("/Customer");
+
+        final Future<ODataEntityCreateResponse> future =
+                client.getCUDRequestFactory().getEntityCreateRequest(uri, entity).asyncExecute();
+
+        assertEquals(201, future.get(10, TimeUnit.SECONDS).getStatusCode());
+        assertTrue(posted.get().contains("CustomerId"));
+        assertNotNull(future.get().getBody());
+    }
+
+    @Test
+    public void viaExecutor() throws Exception {
+        client.getConfiguration().setAsyncHttpClientFactory(null);
+
+        final LatchCallback<ODataRetrieveResponse<ODataEntity>> callback =
+                new LatchCallback<ODataRetrieveResponse<ODataEntity>>();
+
+        final Future<ODataRetrieveResponse<ODataEntity>> future = client.getRetrieveRequestFactory().
+                getEntityRequest(server.getURI("/Customer(-10)")).asyncExecute(callback);
+
+        callback.await();
+        assertEquals(callback.result, future.get());
+        assertNotNull(future.get().getBody());
+        assertNull(factory.getPoolStats());
+    }
+}
@@ -0,0 +1,365 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.msopentech.odatajclient.engine.client.ODataClientFactory;
+import com.msopentech.odatajclient.engine.client.ODataV3Client;
+import com.msopentech.odatajclient.engine.client.http.HttpClientException;
+import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchLineIterator;
+import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchRequest;
+import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchResponseItem;
+import com.msopentech.odatajclient.engine.communication.request.batch.ODataChangeset;
+import com.msopentech.odatajclient.engine.communication.request.batch.ODataChangesetResponseItem;
+import com.msopentech.odatajclient.engine.communication.request.batch.ODataRetrieve;
+import com.msopentech.odatajclient.engine.communication.request.batch.ODataRetrieveResponseItem;
+import com.msopentech.odatajclient.engine.communication.response.ODataBatchResponse;
+import com.msopentech.odatajclient.engine.communication.response.ODataEntityCreateResponse;
+import com.msopentech.odatajclient.engine.communication.response.ODataResponse;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataObjectFactory;
+import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import com.msopentech.odatajclient.engine.utils.ODataBatchConstants;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class BatchTest extends AbstractTest {
+
+    private static final int OPERATIONS = 20;
+
+    private static StubServer server;
+
+    private static final AtomicReference<String> posted = new AtomicReference<String>();
+
+    private static final AtomicReference<String> contentLength = new AtomicReference<String>();
+
+    private static final AtomicReference<String> transferEncoding = new AtomicReference<String>();
+
+    private static volatile CountDownLatch received;
+
+    private static volatile CountDownLatch released;
+
+    private static byte[] customer;
+
+    private static byte[] binary;
+
+    private ODataV3Client client;
+
+    private static byte[] response() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(("--batchresponse_b\r\n"
+                + "Content-Type: multipart/mixed; boundary=changesetresponse_c\r\n\r\n").getBytes());
+        for (int i = 1; i <= 2; i++) {
+            output.write(("--changesetresponse_c\r\n"
+                    + "Content-Type: application/http\r\n"
+                    + "Content-Transfer-Encoding: binary\r\n\r\n"
+                    + "HTTP/1.1 201 Created\r\n"
+                    + "Content-ID: " + i + "\r\n"
+                    + "Content-Type: " + ODataPubFormat.JSON_FULL_METADATA + "\r\n\r\n").getBytes());
+            output.write(customer);
+            output.write("\r\n".getBytes());
+        }
+        output.write(("--changesetresponse_c--\r\n"
+                + "--batchresponse_b\r\n"
+                + "Content-Type: application/http\r\n"
+                + "Content-Transfer-Encoding: binary\r\n\r\n"
+                + "HTTP/1.1 200 OK\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes());
+        output.write(binary);
+        output.write("\r\n--batchresponse_b--\r\n".getBytes());
+        return output.toByteArray();
+    }
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        customer = IOUtils.toByteArray(BatchTest.class.getResourceAsStream("Customer_-10.json"));
+
+        // not valid UTF-8, with line breaks and boundary look-alikes
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (int i = 0; i < 64 * 1024; i++) {
+            output.write((i * 31) ^ (i >> 8));
+            if (i % 5000 == 0) {
+                output.write("\r\n--batchresponse\n--changesetresponse_c\r\n".getBytes());
+            }
+        }
+        binary = output.toByteArray();
+
+        server = new StubServer();
+        server.serve("/canned/$batch",
+                ODataBatchConstants.MULTIPART_CONTENT_TYPE + "; " + ODataBatchConstants.BOUNDARY + "=batchresponse_b",
+                response());
+        server.handle("/$batch", new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                contentLength.set(exchange.getRequestHeaders().getFirst("Content-Length"));
+                transferEncoding.set(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+                posted.set(IOUtils.toString(exchange.getRequestBody()));
+
+                exchange.getResponseHeaders().add("Content-Type",
+                        ODataBatchConstants.MULTIPART_CONTENT_TYPE + ";" + ODataBatchConstants.BOUNDARY + "=none");
+                exchange.sendResponseHeaders(202, -1);
+            }
+        });
+        server.handle("/held/$batch", new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                posted.set(IOUtils.toString(exchange.getRequestBody()));
+                received.countDown();
+                try {
+                    released.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                exchange.getResponseHeaders().add("Content-Type",
+                        ODataBatchConstants.MULTIPART_CONTENT_TYPE + ";" + ODataBatchConstants.BOUNDARY + "=none");
+                exchange.sendResponseHeaders(202, -1);
+            }
+        });
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop();
+    }
+
+    @Before
+    public void setUp() {
+        client = ODataClientFactory.getV3();
+        posted.set(null);
+        contentLength.set(null);
+        transferEncoding.set(null);
+        received = new CountDownLatch(1);
+        released = new CountDownLatch(1);
+    }
+
+    private ODataEntity newCustomer(final int id) {
+        final ODataEntity entity = ODataObjectFactory.
+                newEntity("Microsoft.Test.OData.Services.AstoriaDefaultService.Customer");
+        entity.addProperty(ODataObjectFactory.newPrimitiveProperty("CustomerId",
+                client.getPrimitiveValueBuilder().setValue(id).setType(EdmSimpleType.Int32).build()));
+        entity.addProperty(ODataObjectFactory.newPrimitiveProperty("Name",
+                client.getPrimitiveValueBuilder().setText("Customer " + id).setType(EdmSimpleType.String).build()));
+        return entity;
+    }
+
+    private ODataBatchResponse send() {
+        return send("", OPERATIONS);
+    }
+
+    private ODataBatchResponse send(final String serviceRoot, final int operations) {
+        return prepare(serviceRoot, operations).getResponse();
+    }
+
+    private ODataBatchRequest.BatchStreamManager prepare(final String serviceRoot, final int operations) {
+        final URI customers = server.getURI("/Customer");
+
+        final ODataBatchRequest request =
+                client.getBatchRequestFactory().getBatchRequest(server.getURI(serviceRoot).toString());
+        final ODataBatchRequest.BatchStreamManager payload = request.execute();
+
+        final ODataChangeset changeset = payload.addChangeset();
+        for (int i = 1; i <= operations; i++) {
+            changeset.addRequest(client.getCUDRequestFactory().getEntityCreateRequest(customers, newCustomer(i)));
+        }
+
+        final ODataRetrieve retrieve = payload.addRetrieve();
+        retrieve.setRequest(client.getRetrieveRequestFactory().getEntityRequest(server.getURI("/Customer(-10)")));
+
+        return payload;
+    }
+
+    private void assertBody(final String body) {
+        assertTrue(body.startsWith("\r\n--batch_"));
+        assertTrue(body.endsWith("--"));
+        // two items and the close delimiter
+        assertEquals(3, StringUtils.countMatches(body, "\r\n--batch_"));
+        assertEquals(OPERATIONS, StringUtils.countMatches(body, "POST " + server.getURI("/Customer") + " HTTP/1.1"));
+        assertEquals(1, StringUtils.countMatches(body, "GET " + server.getURI("/Customer(-10)") + " HTTP/1.1"));
+        for (int i = 1; i <= OPERATIONS; i++) {
+            assertTrue(body.contains("Content-ID: " + i + "\r\n"));
+            assertTrue(body.contains("Customer " + i + "\""));
+        }
+    }
+
+    @Test
+    public void chunked() {
+        assertEquals(202, send().getStatusCode());
+
+        assertEquals("chunked", transferEncoding.get());
+        assertNull(contentLength.get());
+        assertBody(posted.get());
+    }
+
+    @Test
+    public void contentLength() {
+        client.getConfiguration().setUseChuncked(false);
+        assertEquals(202, send().getStatusCode());
+
+        assertNull(transferEncoding.get());
+        assertEquals(String.valueOf(posted.get().length()), contentLength.get());
+        assertBody(posted.get());
+    }
+
+    @Test
+    public void asyncResponse() throws Exception {
+        final Future<ODataBatchResponse> future = prepare("/held", OPERATIONS).getAsyncResponse();
+
+        // sent without waiting for the response to be requested
+        assertTrue(received.await(10, TimeUnit.SECONDS));
+        assertBody(posted.get());
+        assertFalse(future.isDone());
+
+        try {
+            future.get(100, TimeUnit.MILLISECONDS);
+            fail("Response got while held by the server");
+        } catch (HttpClientException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        released.countDown();
+        assertEquals(202, future.get().getStatusCode());
+        assertTrue(future.isDone());
+    }
+
+    @Test
+    public void readResponse() throws IOException {
+        final ODataBatchResponse response = send("/canned", 2);
+        assertEquals(200, response.getStatusCode());
+
+        final Iterator<ODataBatchResponseItem> items = response.getBody();
+
+        final ODataChangesetResponseItem changeset = (ODataChangesetResponseItem) items.next();
+        for (int i = 1; i <= 2; i++) {
+            final ODataEntityCreateResponse created = (ODataEntityCreateResponse) changeset.next();
+            assertEquals(201, created.getStatusCode());
+            assertEquals(-10, created.getBody().getProperty("CustomerId").getPrimitiveValue().<Integer>toCastValue(),
+                    0);
+        }
+        assertFalse(changeset.hasNext());
+
+        final ODataRetrieveResponseItem retrieve = (ODataRetrieveResponseItem) items.next();
+        final ODataResponse retrieved = retrieve.next();
+        assertEquals(200, retrieved.getStatusCode());
+        assertEquals("application/octet-stream", retrieved.getContentType());
+        assertArrayEquals(binary, IOUtils.toByteArray(retrieved.getRawResponse()));
+
+        assertFalse(items.hasNext());
+    }
+
+    @Test
+    public void skipResponse() throws IOException {
+        final Iterator<ODataBatchResponseItem> items = send("/canned", 2).getBody();
+
+        // changeset items are not read
+        items.next();
+
+        final ODataResponse retrieved = items.next().next();
+        assertEquals(200, retrieved.getStatusCode());
+        assertArrayEquals(binary, IOUtils.toByteArray(retrieved.getRawResponse()));
+    }
+
+    private static void assertParts(final byte[][] bodies, final String lineBreak) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(("preamble" + lineBreak).getBytes());
+        for (int i = 0; i < bodies.length; i++) {
+            output.write(("--b" + lineBreak + "Item: " + i + lineBreak + lineBreak).getBytes());
+            output.write(bodies[i]);
+            output.write(lineBreak.getBytes());
+        }
+        output.write("--b--".getBytes());
+
+        // at most a few bytes per read
+        final Random random = new Random(bodies.length);
+        final ODataBatchLineIterator iterator = new ODataBatchLineIterator(
+                new ByteArrayInputStream(output.toByteArray()) {
+
+                    @Override
+                    public synchronized int read(final byte[] bytes, final int off, final int len) {
+                        return super.read(bytes, off, Math.min(len, 1 + random.nextInt(7)));
+                    }
+                });
+
+        assertEquals("preamble", iterator.nextLine());
+        assertEquals("--b", iterator.nextLine());
+        for (int i = 0; i < bodies.length; i++) {
+            assertEquals("Item: " + i, iterator.nextLine());
+            assertEquals("", iterator.nextLine());
+            assertArrayEquals(bodies[i], IOUtils.toByteArray(iterator.nextPart("--b")));
+            assertEquals(i == bodies.length - 1 ? "--b--" : "--b", iterator.getCurrent());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void parts() throws IOException {
+        final byte[] large = new byte[20000];
+        new Random(1).nextBytes(large);
+
+        assertParts(new byte[][] {
+            new byte[0], "\n".getBytes(), "-".getBytes(), "--".getBytes(), "\n--".getBytes(), "\n--a".getBytes(),
+            "text\r\n".getBytes(), large, new byte[0]}, "\r\n");
+        assertParts(new byte[][] {"\r".getBytes(), "\r\r".getBytes(), large}, "\r\n");
+        assertParts(new byte[][] {new byte[0], "\n--a".getBytes(), large}, "\n");
+    }
+
+    @Test
+    public void skipParts() throws IOException {
+        final ODataBatchLineIterator iterator = new ODataBatchLineIterator(new ByteArrayInputStream(
+                "--b\r\n\r\nfirst\r\n--b\r\n\r\nsecond\r\n--b--".getBytes()));
+
+        assertEquals("--b", iterator.nextLine());
+        assertEquals("", iterator.nextLine());
+        iterator.nextPart("--b");
+
+        // the part not read is skipped, up to the boundary line
+        assertTrue(iterator.hasNext());
+        assertEquals("--b", iterator.getCurrent());
+        assertEquals("", iterator.nextLine());
+        assertEquals("second", IOUtils.toString(iterator.nextPart("--b")));
+        assertEquals("--b--", iterator.getCurrent());
+    }
+}
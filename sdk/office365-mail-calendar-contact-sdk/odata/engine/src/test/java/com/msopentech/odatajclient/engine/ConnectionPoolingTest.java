@@ -0,0 +1,173 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.msopentech.odatajclient.engine.client.ODataClientFactory;
+import com.msopentech.odatajclient.engine.client.ODataV3Client;
+import com.msopentech.odatajclient.engine.client.http.DefaultHttpClientFactory;
+import com.msopentech.odatajclient.engine.client.http.PoolingHttpClientFactory;
+import com.msopentech.odatajclient.engine.communication.request.UpdateType;
+import com.msopentech.odatajclient.engine.communication.response.ODataEntityUpdateResponse;
+import com.msopentech.odatajclient.engine.communication.response.ODataLinkOperationResponse;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataObjectFactory;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import com.msopentech.org.apache.http.pool.PoolStats;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.net.URI;
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ConnectionPoolingTest extends AbstractTest {
+
+    private static final int REQUESTS = 20;
+
+    private static final int MAX_PER_ROUTE = 2;
+
+    private static StubServer server;
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        server = new StubServer();
+        server.serve("/Customer(-10)", ODataPubFormat.JSON_FULL_METADATA.toString(),
+                IOUtils.toByteArray(ConnectionPoolingTest.class.getResourceAsStream("Customer_-10.json")));
+        server.handle("/Empty", new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                // Content-Length: 0
+                exchange.sendResponseHeaders(200, -1);
+            }
+        });
+        server.serve("/Customer(-10)/$links/Orders", ODataPubFormat.JSON.toString(), "{}".getBytes("UTF-8"));
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop();
+    }
+
+    @Before
+    public void resetServer() {
+        server.reset();
+    }
+
+    private void retrieve(final ODataV3Client client) {
+        final URI uri = server.getURI("/Customer(-10)");
+        for (int i = 0; i < REQUESTS; i++) {
+            final ODataEntity entity = client.getRetrieveRequestFactory().getEntityRequest(uri).execute().getBody();
+            assertNotNull(entity);
+        }
+    }
+
+    @Test
+    public void defaultFactory() {
+        final ODataV3Client client = ODataClientFactory.getV3();
+        assertTrue(client.getConfiguration().getHttpClientFactory() instanceof DefaultHttpClientFactory);
+
+        retrieve(client);
+        assertEquals(REQUESTS, server.getRequestCount());
+        assertEquals(REQUESTS, server.getConnectionCount());
+    }
+
+    @Test
+    public void poolingFactory() {
+        final ODataV3Client client = ODataClientFactory.getV3();
+        client.getConfiguration().setUseConnectionPooling(true);
+
+        final PoolingHttpClientFactory factory =
+                (PoolingHttpClientFactory) client.getConfiguration().getHttpClientFactory();
+        assertSame(factory, client.getConfiguration().getHttpClientFactory());
+
+        retrieve(client);
+        assertEquals(REQUESTS, server.getRequestCount());
+        assertEquals(1, server.getConnectionCount());
+
+        final PoolStats stats = factory.getPoolStats();
+        assertEquals(0, stats.getLeased());
+        assertEquals(1, stats.getAvailable());
+        assertEquals(0, stats.getPending());
+
+        factory.shutdown();
+    }
+
+    private PoolingHttpClientFactory smallPool(final ODataV3Client client) {
+        final PoolingHttpClientFactory factory = new PoolingHttpClientFactory(MAX_PER_ROUTE, MAX_PER_ROUTE,
+                PoolingHttpClientFactory.DEFAULT_IDLE_TIMEOUT, PoolingHttpClientFactory.DEFAULT_KEEP_ALIVE);
+        client.getConfiguration().setHttpClientFactory(factory);
+        return factory;
+    }
+
+    @Test(timeout = 10000)
+    public void unclosedEmptyResponses() {
+        final ODataV3Client client = ODataClientFactory.getV3();
+        final PoolingHttpClientFactory factory = smallPool(client);
+
+        final URI uri = server.getURI("/Empty");
+        for (int i = 0; i < MAX_PER_ROUTE * 5; i++) {
+            // status-only callers never read nor close the response
+            final ODataEntityUpdateResponse res = client.getCUDRequestFactory().getEntityUpdateRequest(
+                    uri, UpdateType.PATCH, ODataObjectFactory.newEntity("Customer")).execute();
+            assertEquals(200, res.getStatusCode());
+        }
+        assertEquals(MAX_PER_ROUTE * 5, server.getRequestCount());
+        assertEquals(0, factory.getPoolStats().getLeased());
+
+        factory.shutdown();
+    }
+
+    @Test(timeout = 10000)
+    public void unclosedLinkResponses() {
+        final ODataV3Client client = ODataClientFactory.getV3();
+        final PoolingHttpClientFactory factory = smallPool(client);
+
+        final URI uri = server.getURI("/Customer(-10)/$links/Orders");
+        for (int i = 0; i < MAX_PER_ROUTE * 5; i++) {
+            // link operation responses never expose their payload
+            final ODataLinkOperationResponse res = client.getCUDRequestFactory().getLinkCreateRequest(uri,
+                    ODataObjectFactory.newAssociationLink(null, server.getURI("/Order(-10)"))).execute();
+            assertEquals(200, res.getStatusCode());
+        }
+        assertEquals(MAX_PER_ROUTE * 5, server.getRequestCount());
+        assertEquals(0, factory.getPoolStats().getLeased());
+
+        factory.shutdown();
+    }
+
+    @Test
+    public void explicitFactoryWins() {
+        final ODataV3Client client = ODataClientFactory.getV3();
+        final DefaultHttpClientFactory factory = new DefaultHttpClientFactory();
+        client.getConfiguration().setHttpClientFactory(factory);
+        client.getConfiguration().setUseConnectionPooling(true);
+
+        assertSame(factory, client.getConfiguration().getHttpClientFactory());
+    }
+}
@@ -21,12 +21,21 @@ package com.msopentech.odatajclient.engine;
 
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 
 import com.msopentech.odatajclient.engine.client.ODataV3Client;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
 import com.msopentech.odatajclient.engine.data.ODataEntitySet;
+import com.msopentech.odatajclient.engine.data.ODataEntitySetIterator;
+import com.msopentech.odatajclient.engine.data.atom.AtomEntry;
+import com.msopentech.odatajclient.engine.data.atom.AtomFeed;
 import com.msopentech.odatajclient.engine.format.ODataPubFormat;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 
 public class EntitySetTest extends AbstractTest {
@@ -58,4 +67,121 @@ public class EntitySetTest extends AbstractTest {
     public void fromJSON() throws IOException {
         read(ODataPubFormat.JSON);
     }
+
+    private void iterate(final ODataPubFormat format) throws IOException {
+        final ODataEntitySet entitySet = getClient().getReader().readEntitySet(
+                getClass().getResourceAsStream("Customer." + getSuffix(format)), format);
+
+        final ODataEntitySetIterator iterator = new ODataEntitySetIterator(
+                getClient(), getClass().getResourceAsStream("Customer." + getSuffix(format)), format);
+
+        final List<ODataEntity> entities = new ArrayList<ODataEntity>();
+        while (iterator.hasNext()) {
+            entities.add(iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+
+        assertEquals(entitySet.getEntities(), entities);
+        assertEquals(entitySet.getNext(), iterator.getNext());
+    }
+
+    @Test
+    public void iteratorFromAtom() throws IOException {
+        final AtomFeed feed = getClient().getDeserializer().toFeed(
+                getClass().getResourceAsStream("Customer.xml"), AtomFeed.class);
+
+        final ODataEntitySetIterator iterator = new ODataEntitySetIterator(
+                getClient(), getClass().getResourceAsStream("Customer.xml"), ODataPubFormat.ATOM);
+
+        // entries inherit xml:base from feed
+        for (AtomEntry entry : feed.getEntries()) {
+            assertEquals(getClient().getBinder().getODataEntity(entry, feed.getBaseURI()), iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+
+        assertEquals(feed.getNext(), iterator.getNext());
+    }
+
+    @Test
+    public void iteratorFromAtomWithFeedNamespaces() throws IOException {
+        final String feed = "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+                + "<feed xml:base=\"http://host/service.svc/\" xmlns=\"http://www.w3.org/2005/Atom\" "
+                + "xmlns:d=\"http://schemas.microsoft.com/ado/2007/08/dataservices\" "
+                + "xmlns:m=\"http://schemas.microsoft.com/ado/2007/08/dataservices/metadata\">"
+                + "<id>http://host/service.svc/Customer</id><m:count>2</m:count>"
+                + "<entry><id>http://host/service.svc/Customer(1)</id>"
+                + "<category term=\"Ns.Customer\" "
+                + "scheme=\"http://schemas.microsoft.com/ado/2007/08/dataservices/scheme\" />"
+                + "<link rel=\"edit\" title=\"Customer\" href=\"Customer(1)\" />"
+                + "<content type=\"application/xml\"><m:properties><d:Name>&lt;entry&gt;</d:Name>"
+                + "</m:properties></content></entry>"
+                + "<entry xml:base=\"http://other/service.svc/\"><id>http://other/service.svc/Customer(2)</id>"
+                + "<category term=\"Ns.Customer\" "
+                + "scheme=\"http://schemas.microsoft.com/ado/2007/08/dataservices/scheme\" />"
+                + "<link rel=\"edit\" title=\"Customer\" href=\"Customer(2)\" />"
+                + "<content type=\"application/xml\"><m:properties><d:Name><![CDATA[</entry>]]></d:Name>"
+                + "</m:properties></content></entry>"
+                + "<link rel=\"next\" href=\"Customer?$skiptoken=2\" /></feed>";
+
+        final ODataEntitySetIterator iterator = new ODataEntitySetIterator(
+                getClient(), IOUtils.toInputStream(feed), ODataPubFormat.ATOM);
+
+        ODataEntity entity = iterator.next();
+        assertEquals("<entry>", entity.getProperty("Name").getPrimitiveValue().toString());
+        assertEquals("http://host/service.svc/Customer(1)", entity.getEditLink().toASCIIString());
+
+        entity = iterator.next();
+        assertEquals("</entry>", entity.getProperty("Name").getPrimitiveValue().toString());
+        assertEquals("http://other/service.svc/Customer(2)", entity.getEditLink().toASCIIString());
+        assertFalse(iterator.hasNext());
+
+        assertEquals(Integer.valueOf(2), iterator.getCount());
+        assertEquals("http://host/service.svc/Customer?$skiptoken=2", iterator.getNext().toASCIIString());
+    }
+
+    @Test
+    public void iteratorFromJSON() throws IOException {
+        iterate(ODataPubFormat.JSON);
+    }
+
+    @Test
+    public void iteratorFromJSONWithBracesInValues() throws IOException {
+        final String feed = "{\"odata.metadata\":\"http://host/service.svc/$metadata#Customer\","
+                + "\"odata.count\":\"2\",\"value\":["
+                + "{\"odata.type\":\"Ns.Customer\",\"odata.id\":\"http://host/service.svc/Customer(1)\","
+                + "\"Name\":\"}{ [tricky\"},"
+                + "{\"odata.type\":\"Ns.Customer\",\"odata.id\":\"http://host/service.svc/Customer(2)\","
+                + "\"Name\":\"]\\\"}\"}],"
+                + "\"odata.nextLink\":\"Customer?$skiptoken=2\"}";
+
+        final ODataEntitySetIterator iterator = new ODataEntitySetIterator(
+                getClient(), IOUtils.toInputStream(feed), ODataPubFormat.JSON);
+
+        assertEquals("}{ [tricky", iterator.next().getProperty("Name").getPrimitiveValue().toString());
+        assertEquals("]\"}", iterator.next().getProperty("Name").getPrimitiveValue().toString());
+        assertFalse(iterator.hasNext());
+
+        assertEquals(Integer.valueOf(2), iterator.getCount());
+        assertEquals("http://host/service.svc/Customer?$skiptoken=2", iterator.getNext().toASCIIString());
+    }
+
+    @Test
+    public void iteratorFromEmptyJSON() throws IOException {
+        final ODataEntitySetIterator iterator = new ODataEntitySetIterator(
+                getClient(), IOUtils.toInputStream("{\"value\":[]}"), ODataPubFormat.JSON);
+
+        assertFalse(iterator.hasNext());
+        assertNull(iterator.getNext());
+        assertNull(iterator.getCount());
+    }
+
+    @Test
+    public void iteratorFromJSONWithEmptyKey() throws IOException {
+        final ODataEntitySetIterator iterator = new ODataEntitySetIterator(
+                getClient(), IOUtils.toInputStream("{\"\":{\"a\":1},\"odata.count\":0,\"value\":[]}"),
+                ODataPubFormat.JSON);
+
+        assertFalse(iterator.hasNext());
+        assertEquals(Integer.valueOf(0), iterator.getCount());
+    }
 }
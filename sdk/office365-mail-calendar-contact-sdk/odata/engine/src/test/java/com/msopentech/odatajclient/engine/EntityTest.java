@@ -20,12 +20,16 @@
 package com.msopentech.odatajclient.engine;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import com.msopentech.odatajclient.engine.client.ODataV3Client;
 import com.msopentech.odatajclient.engine.data.ODataEntity;
 import com.msopentech.odatajclient.engine.data.ODataLink;
+import com.msopentech.odatajclient.engine.data.ODataObjectFactory;
 import com.msopentech.odatajclient.engine.data.ODataOperation;
 import com.msopentech.odatajclient.engine.data.ODataProperty;
 import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
@@ -187,4 +191,58 @@ public class EntityTest extends AbstractTest {
     public void issue128FromJSON() {
         issue128(ODataPubFormat.JSON_FULL_METADATA);
     }
+
+    @Test
+    public void propertyLookup() {
+        final ODataEntity entity = ODataObjectFactory.newEntity("Test");
+        final ODataProperty first = ODataObjectFactory.newPrimitiveProperty("Name",
+                getClient().getPrimitiveValueBuilder().setText("first").setType(EdmSimpleType.String).build());
+        final ODataProperty second = ODataObjectFactory.newPrimitiveProperty("Name",
+                getClient().getPrimitiveValueBuilder().setText("second").setType(EdmSimpleType.String).build());
+
+        assertTrue(entity.addProperty(first));
+        assertFalse(entity.addProperty(first));
+        assertTrue(entity.addProperty(second));
+        assertSame(second, entity.getProperty("Name"));
+        assertNull(entity.getProperty("Other"));
+
+        entity.removeProperty(second);
+        assertSame(first, entity.getProperty("Name"));
+
+        entity.getProperties().clear();
+        assertNull(entity.getProperty("Name"));
+    }
+
+    private void compact(final ODataPubFormat format) {
+        final ODataEntity entity = getClient().getBinder().getODataEntity(getClient().getDeserializer().toEntry(
+                getClass().getResourceAsStream("Customer_-10." + getSuffix(format)),
+                getClient().getResourceFactory().entryClassForFormat(format)));
+
+        getClient().getConfiguration().setPropertyShapeMetadata(
+                getClient().getReader().readMetadata(getClass().getResourceAsStream("v3/metadata.xml")));
+        try {
+            final ODataEntity compact = getClient().getBinder().getODataEntity(getClient().getDeserializer().toEntry(
+                    getClass().getResourceAsStream("Customer_-10." + getSuffix(format)),
+                    getClient().getResourceFactory().entryClassForFormat(format)));
+
+            assertEquals(entity, compact);
+            for (ODataProperty property : entity.getProperties()) {
+                assertEquals(property, compact.getProperty(property.getName()));
+            }
+            assertEquals("PhoneNumber", compact.getProperty("PrimaryContactInfo").getComplexValue().
+                    get("HomePhone").getComplexValue().iterator().next().getName());
+        } finally {
+            getClient().getConfiguration().setPropertyShapeMetadata(null);
+        }
+    }
+
+    @Test
+    public void compactFromAtom() {
+        compact(ODataPubFormat.ATOM);
+    }
+
+    @Test
+    public void compactFromJSON() {
+        compact(ODataPubFormat.JSON_FULL_METADATA);
+    }
 }
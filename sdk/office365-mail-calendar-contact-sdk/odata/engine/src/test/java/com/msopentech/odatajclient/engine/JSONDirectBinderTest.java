@@ -0,0 +1,166 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.client.ODataClientFactory;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataEntitySet;
+import com.msopentech.odatajclient.engine.data.ODataEntitySetIterator;
+import com.msopentech.odatajclient.engine.data.ODataInlineEntity;
+import com.msopentech.odatajclient.engine.data.ODataInlineEntitySet;
+import com.msopentech.odatajclient.engine.data.json.JSONDirectBinder;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Checks that entities and entity sets bound directly from the JSON token stream equal those bound via the DOM tree.
+ */
+public class JSONDirectBinderTest extends AbstractTest {
+
+    private InputStream toStream(final String json) throws IOException {
+        return new ByteArrayInputStream(json.getBytes("UTF-8"));
+    }
+
+    private ODataEntity entity(final ODataClient client, final String json) throws IOException {
+        final ODataEntity expected = client.getBinder().getODataEntity(client.getDeserializer().toEntry(
+                toStream(json), client.getResourceFactory().entryClassForFormat(ODataPubFormat.JSON_FULL_METADATA)));
+
+        final ODataEntity actual = new JSONDirectBinder(client).readEntity(toStream(json));
+        assertNotNull(actual);
+        assertEquals(expected, actual);
+        return actual;
+    }
+
+    private void entity(final String resource) throws IOException {
+        entity(v3Client, IOUtils.toString(getClass().getResourceAsStream(resource), "UTF-8"));
+    }
+
+    @Test
+    public void customer() throws IOException {
+        entity("Customer_-10.json");
+    }
+
+    @Test
+    public void geospatial() throws IOException {
+        entity("AllGeoTypesSet_-5.json");
+        entity("AllGeoTypesSet_-8.json");
+        entity("AllGeoTypesSet_-10_Geom.json");
+    }
+
+    @Test
+    public void actions() throws IOException {
+        entity("ComputerDetail_-10.json");
+    }
+
+    @Test
+    public void mediaEntity() throws IOException {
+        entity("Car_16.json");
+    }
+
+    @Test
+    public void untyped() throws IOException {
+        entity(v3Client, "{\"odata.metadata\":\"http://host/service.svc/$metadata#Items/@Element\","
+                + "\"odata.editLink\":\"Items(1)\",\"Id\":1,\"Big\":12345678901,\"Price\":1.5,\"Name\":\"n\","
+                + "\"Flag\":true,\"Missing\":null,\"Empty\":{},\"Address\":{\"Street\":\"s\",\"Number\":3},"
+                + "\"Tags\":[\"a\",null,\"b\"],\"Lines\":[{\"Qty\":1},{}],\"NoTags\":[]}");
+    }
+
+    @Test
+    public void inline() throws IOException {
+        final ODataEntity entity = entity(v3Client,
+                "{\"odata.metadata\":\"http://host/service.svc/$metadata#Orders/@Element\","
+                + "\"odata.editLink\":\"Orders(1)\","
+                + "\"Customer@odata.navigationLinkUrl\":\"Orders(1)/Customer\","
+                + "\"Customer\":{\"odata.editLink\":\"Customers(2)\",\"Id\":2},"
+                + "\"Id\":1}");
+        assertEquals(1, entity.getProperties().size());
+
+        final ODataInlineEntity customer = (ODataInlineEntity) entity.getNavigationLinks().get(0);
+        assertEquals(URI.create("http://host/service.svc/Customers(2)"), customer.getEntity().getEditLink());
+    }
+
+    @Test
+    public void inlineEntitySet() throws IOException {
+        final ODataEntity entity = new JSONDirectBinder(v3Client).readEntity(toStream(
+                "{\"odata.metadata\":\"http://host/service.svc/$metadata#Orders/@Element\","
+                + "\"odata.editLink\":\"Orders(1)\","
+                + "\"Lines@odata.navigationLinkUrl\":\"Orders(1)/Lines\","
+                + "\"Lines\":[{\"Id\":3},{\"Id\":4}],"
+                + "\"Id\":1}"));
+        assertEquals(1, entity.getProperties().size());
+
+        final ODataInlineEntitySet lines = (ODataInlineEntitySet) entity.getNavigationLinks().get(0);
+        assertEquals(URI.create("http://host/service.svc/Orders(1)/Lines"), lines.getLink());
+        assertEquals(2, lines.getEntitySet().getEntities().size());
+        assertEquals(4, lines.getEntitySet().getEntities().get(1).getProperty("Id").getPrimitiveValue().
+                <Integer>toCastValue().intValue());
+    }
+
+    @Test
+    public void v4() throws IOException {
+        entity(v4Client, "{\"@odata.metadata\":\"http://host/service.svc/$metadata#Items/$entity\","
+                + "\"@odata.type\":\"#NS.Item\",\"@odata.editLink\":\"Items(1)\","
+                + "\"Id@odata.type\":\"Edm.Int64\",\"Id\":1,"
+                + "\"When@odata.type\":\"Edm.DateTimeOffset\",\"When\":\"2014-01-01T10:00:00Z\","
+                + "\"Address\":{\"@odata.type\":\"#NS.Address\",\"Street\":\"s\"},"
+                + "\"Tags@odata.type\":\"Collection(Edm.String)\",\"Tags\":[\"a\",\"b\"],"
+                + "\"Owner@odata.navigationLink\":\"Items(1)/Owner\"}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void misplacedAnnotation() throws IOException {
+        new JSONDirectBinder(v3Client).readEntity(toStream("{\"Id\":1,\"Id@odata.type\":\"Edm.Int64\"}"));
+    }
+
+    @Test
+    public void reader() {
+        final ODataClient client = ODataClientFactory.getV3();
+        client.getConfiguration().setDirectJSONBinding(true);
+
+        final ODataEntitySet expected = client.getBinder().getODataEntitySet(client.getDeserializer().toFeed(
+                getClass().getResourceAsStream("Customer.json"),
+                client.getResourceFactory().feedClassForFormat(ODataPubFormat.JSON)));
+        assertEquals(expected, client.getReader().readEntitySet(
+                getClass().getResourceAsStream("Customer.json"), ODataPubFormat.JSON));
+
+        final ODataEntitySetIterator iterator = new ODataEntitySetIterator(
+                client, getClass().getResourceAsStream("Customer.json"), ODataPubFormat.JSON);
+        final List<ODataEntity> entities = new ArrayList<ODataEntity>();
+        while (iterator.hasNext()) {
+            entities.add(iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+
+        assertEquals(expected.getEntities(), entities);
+        assertEquals(expected.getNext(), iterator.getNext());
+    }
+}
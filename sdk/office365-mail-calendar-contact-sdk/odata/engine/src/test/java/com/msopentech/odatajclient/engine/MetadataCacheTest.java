@@ -0,0 +1,263 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.msopentech.odatajclient.engine.data.metadata.AbstractEdmMetadata;
+import com.msopentech.odatajclient.engine.data.metadata.EdmV3Metadata;
+import com.msopentech.odatajclient.engine.data.metadata.EdmV4Metadata;
+import com.msopentech.odatajclient.engine.data.metadata.MetadataCache;
+import com.msopentech.odatajclient.engine.data.metadata.MetadataIndex;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v3.EntityType;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MetadataCacheTest extends AbstractTest {
+
+    /**
+     * Serves a metadata document, optionally with an ETag honoring <tt>If-None-Match</tt>.
+     */
+    private static class MetadataHandler implements HttpHandler {
+
+        private volatile byte[] body;
+
+        private volatile String etag;
+
+        private volatile int notModified = 0;
+
+        @Override
+        public void handle(final HttpExchange exchange) throws IOException {
+            if (etag != null) {
+                if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified++;
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().add("ETag", etag);
+            }
+
+            exchange.getResponseHeaders().add("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StubServer server;
+
+    private MetadataHandler v3Handler;
+
+    private MetadataHandler v4Handler;
+
+    @Before
+    public void startServer() throws Exception {
+        v3Handler = new MetadataHandler();
+        v3Handler.body = IOUtils.toByteArray(getClass().getResourceAsStream("v3/metadata.xml"));
+        v4Handler = new MetadataHandler();
+        v4Handler.body = IOUtils.toByteArray(getClass().getResourceAsStream("v4/metadata.xml"));
+
+        server = new StubServer();
+        server.handle("/v3", v3Handler);
+        server.handle("/v4", v4Handler);
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    private String getServiceRoot(final String version) {
+        return server.getURI("/" + version).toASCIIString();
+    }
+
+    /**
+     * Breaks the stream header of the last schema in a snapshot, which is only read on first access.
+     */
+    private static void corruptLastSchema(final File snapshot) throws IOException {
+        final byte[] bytes = FileUtils.readFileToByteArray(snapshot);
+        int last = -1;
+        for (int i = 0; i + 1 < bytes.length; i++) {
+            if (bytes[i] == (byte) 0xAC && bytes[i + 1] == (byte) 0xED) {
+                last = i;
+            }
+        }
+        bytes[last] = 0;
+        bytes[last + 1] = 0;
+        FileUtils.writeByteArrayToFile(snapshot, bytes);
+    }
+
+    private EdmV3Metadata parseV3(final String resource) throws IOException {
+        return v3Client.getReader().readMetadata(getClass().getResourceAsStream(resource));
+    }
+
+    @Test
+    public void memory() {
+        final MetadataCache cache = new MetadataCache();
+
+        final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata = cache.getMetadata(v3Client, getServiceRoot("v3"));
+        assertTrue(metadata instanceof EdmV3Metadata);
+        assertSame(metadata, cache.getMetadata(v3Client, getServiceRoot("v3")));
+        assertEquals(1, server.getRequestCount());
+        assertNull(cache.getSnapshotFile(v3Client, getServiceRoot("v3")));
+    }
+
+    @Test
+    public void snapshotWithETag() throws IOException {
+        v3Handler.etag = "\"1\"";
+
+        final File directory = folder.newFolder("metadata");
+        final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> cold =
+                new MetadataCache(directory).getMetadata(v3Client, getServiceRoot("v3"));
+        assertTrue(new MetadataCache(directory).getSnapshotFile(v3Client, getServiceRoot("v3")).isFile());
+
+        final EdmV3Metadata warm =
+                (EdmV3Metadata) new MetadataCache(directory).getMetadata(v3Client, getServiceRoot("v3"));
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, v3Handler.notModified);
+
+        assertEquals(cold.getSchemas().size(), warm.getSchemas().size());
+        assertTrue(warm.isNsOrAlias("Microsoft.Test.OData.Services.AstoriaDefaultService"));
+        final EntityType customer = warm.getSchema("Microsoft.Test.OData.Services.AstoriaDefaultService").
+                getEntityType("Customer");
+        assertNotNull(customer);
+        assertEquals(cold.getSchemas(), warm.getSchemas());
+    }
+
+    @Test
+    public void snapshotWithoutETag() throws IOException {
+        final File directory = folder.newFolder("metadata");
+        new MetadataCache(directory).getMetadata(v3Client, getServiceRoot("v3"));
+
+        final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> warm =
+                new MetadataCache(directory).getMetadata(v3Client, getServiceRoot("v3"));
+        assertEquals(2, server.getRequestCount());
+        assertEquals(parseV3("v3/metadata.xml").getSchemas(), warm.getSchemas());
+    }
+
+    @Test
+    public void changed() throws IOException {
+        final File directory = folder.newFolder("metadata");
+        new MetadataCache(directory).getMetadata(v3Client, getServiceRoot("v3"));
+
+        v3Handler.body = IOUtils.toByteArray(getClass().getResourceAsStream("v3/northwind-metadata.xml"));
+
+        final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> changed =
+                new MetadataCache(directory).getMetadata(v3Client, getServiceRoot("v3"));
+        assertEquals(parseV3("v3/northwind-metadata.xml").getSchemas(), changed.getSchemas());
+
+        // the new document replaced the old one on disk as well
+        final MetadataCache offline = new MetadataCache(directory);
+        offline.setRevalidate(false);
+        assertEquals(changed.getSchemas(), offline.getMetadata(v3Client, getServiceRoot("v3")).getSchemas());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void offline() throws IOException {
+        final File directory = folder.newFolder("metadata");
+        final String serviceRoot = getServiceRoot("v3");
+        new MetadataCache(directory).getMetadata(v3Client, serviceRoot);
+        server.stop();
+
+        final MetadataCache cache = new MetadataCache(directory);
+        assertEquals(parseV3("v3/metadata.xml").getSchemas(), cache.getMetadata(v3Client, serviceRoot).getSchemas());
+
+        cache.evict(v3Client, serviceRoot);
+        assertFalse(cache.getSnapshotFile(v3Client, serviceRoot).exists());
+    }
+
+    @Test
+    public void corruptSnapshot() throws IOException {
+        v3Handler.etag = "\"1\"";
+
+        final File directory = folder.newFolder("metadata");
+        final String serviceRoot = getServiceRoot("v3");
+        new MetadataCache(directory).getMetadata(v3Client, serviceRoot);
+
+        corruptLastSchema(new MetadataCache(directory).getSnapshotFile(v3Client, serviceRoot));
+
+        final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> warm =
+                new MetadataCache(directory).getMetadata(v3Client, serviceRoot);
+        assertEquals(1, v3Handler.notModified);
+        assertEquals(parseV3("v3/metadata.xml").getSchemas(), warm.getSchemas());
+        assertEquals(3, server.getRequestCount());
+
+        // the snapshot was replaced by a readable one
+        final MetadataCache offline = new MetadataCache(directory);
+        offline.setRevalidate(false);
+        assertEquals(warm.getSchemas(), offline.getMetadata(v3Client, serviceRoot).getSchemas());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void indexReadsReferencedSchemasOnly() throws IOException {
+        v3Handler.etag = "\"1\"";
+        v3Handler.body = IOUtils.toByteArray(getClass().getResourceAsStream("v3/two-schemas-metadata.xml"));
+
+        final File directory = folder.newFolder("metadata");
+        final String serviceRoot = getServiceRoot("v3");
+        new MetadataCache(directory).getMetadata(v3Client, serviceRoot);
+        corruptLastSchema(new MetadataCache(directory).getSnapshotFile(v3Client, serviceRoot));
+
+        final MetadataIndex index = new MetadataCache(directory).getMetadata(v3Client, serviceRoot).getIndex();
+        assertEquals("Item", index.getEntityType("Base.Item").getName());
+        assertEquals(Arrays.asList("Id", "Name"), index.getPropertyShape("Test.Base.Item").getNames());
+        assertNull(index.getEntityType("Test.Base.Product"));
+        // the schema of Test.Derived was not read
+        assertEquals(2, server.getRequestCount());
+
+        assertEquals(Arrays.asList("Id", "Name", "Price"), index.getPropertyShape("Test.Derived.Product").getNames());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void v4() throws IOException {
+        v4Handler.etag = "W/\"v4\"";
+
+        final File directory = folder.newFolder("metadata");
+        final EdmV4Metadata cold =
+                (EdmV4Metadata) new MetadataCache(directory).getMetadata(v4Client, getServiceRoot("v4"));
+
+        final EdmV4Metadata warm =
+                (EdmV4Metadata) new MetadataCache(directory).getMetadata(v4Client, getServiceRoot("v4"));
+        assertEquals(1, v4Handler.notModified);
+        assertEquals(cold.getReferences(), warm.getReferences());
+        assertEquals(cold.getSchema(0).getEnumType("ResponseType"), warm.getSchema(0).getEnumType("ResponseType"));
+        assertEquals(cold.getSchemas(), warm.getSchemas());
+    }
+}
@@ -109,6 +109,47 @@ public class PrimitiveValueTest extends AbstractTest {
         assertEquals(primitive, value.asPrimitive().<ODataTimestamp>toCastValue().toString());
     }
 
+    @Test
+    public void lazy() {
+        getClient().getConfiguration().setLazyPrimitiveValues(true);
+        try {
+            final ODataPrimitiveValue dateTime = getClient().getPrimitiveValueBuilder().
+                    setType(EdmSimpleType.DateTime).setText("2013-01-10T06:27:51.1667673").build();
+            final ODataPrimitiveValue decimal = getClient().getPrimitiveValueBuilder().
+                    setType(EdmSimpleType.Decimal).setValue(new BigDecimal("-7922816251426433759")).build();
+
+            // not parsed, not formatted yet: equal to eager values nonetheless
+            getClient().getConfiguration().setLazyPrimitiveValues(false);
+            assertEquals(getClient().getPrimitiveValueBuilder().
+                    setType(EdmSimpleType.DateTime).setText("2013-01-10T06:27:51.1667673").build(), dateTime);
+            assertEquals(getClient().getPrimitiveValueBuilder().
+                    setType(EdmSimpleType.DateTime).setText("2013-01-10T06:27:51.1667673").build().hashCode(),
+                    dateTime.hashCode());
+            assertEquals(getClient().getPrimitiveValueBuilder().
+                    setType(EdmSimpleType.Decimal).setValue(new BigDecimal("-7922816251426433759")).build(), decimal);
+            getClient().getConfiguration().setLazyPrimitiveValues(true);
+
+            assertEquals("2013-01-10T06:27:51.1667673", dateTime.toString());
+            assertEquals("2013-01-10T06:27:51.1667673", dateTime.<ODataTimestamp>toCastValue().toString());
+            assertTrue(dateTime.toValue() == dateTime.toValue());
+            assertEquals("-7922816251426433759", decimal.toString());
+            assertEquals(new BigDecimal("-7922816251426433759"), decimal.<BigDecimal>toCastValue());
+
+            // malformed text is only reported when parsed
+            final ODataPrimitiveValue malformed = getClient().getPrimitiveValueBuilder().
+                    setType(EdmSimpleType.Int32).setText("nine").build();
+            assertEquals("nine", malformed.toString());
+            try {
+                malformed.toValue();
+                fail();
+            } catch (NumberFormatException e) {
+                // ignore
+            }
+        } finally {
+            getClient().getConfiguration().setLazyPrimitiveValues(false);
+        }
+    }
+
     @Test
     public void manageTime() {
         // OData V3 only
@@ -0,0 +1,180 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+
+/**
+ * Minimal local HTTP server serving canned payloads, with optional artificial latency.
+ */
+public class StubServer {
+
+    static {
+        // avoid Nagle / delayed ACK interactions on kept-alive connections
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    public static final String THREAD_NAME_PREFIX = "stub-server-";
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private final Set<InetSocketAddress> connections =
+            Collections.synchronizedSet(new HashSet<InetSocketAddress>());
+
+    private volatile long latency = 0;
+
+    public StubServer() throws IOException {
+        this(16);
+    }
+
+    public StubServer(final int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new Thread(runnable, THREAD_NAME_PREFIX + count.incrementAndGet());
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Serves the given payload on the given path.
+     *
+     * @param path path.
+     * @param contentType response content type.
+     * @param body response payload.
+     */
+    public void serve(final String path, final String contentType, final byte[] body) {
+        handle(path, new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().add("Content-Type", contentType);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+        });
+    }
+
+    /**
+     * Registers a custom handler on the given path; request body is consumed and the exchange closed afterwards.
+     *
+     * @param path path.
+     * @param handler handler.
+     */
+    public void handle(final String path, final HttpHandler handler) {
+        server.createContext(path, new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                connections.add(exchange.getRemoteAddress());
+
+                final int current = inFlight.incrementAndGet();
+                int max;
+                while ((max = maxInFlight.get()) < current && !maxInFlight.compareAndSet(max, current)) {
+                    // retry
+                }
+
+                try {
+                    if (latency > 0) {
+                        Thread.sleep(latency);
+                    }
+
+                    handler.handle(exchange);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                    IOUtils.copy(exchange.getRequestBody(), NullOutputStream.NULL_OUTPUT_STREAM);
+                    exchange.close();
+                }
+            }
+        });
+    }
+
+    public void setLatency(final long latency) {
+        this.latency = latency;
+    }
+
+    public URI getURI(final String path) {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + path);
+    }
+
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Gets the number of distinct client connections served so far.
+     *
+     * @return number of distinct client connections.
+     */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Gets the highest number of requests being served at the same time so far.
+     *
+     * @return highest number of concurrent requests.
+     */
+    public int getMaxConcurrency() {
+        return maxInFlight.get();
+    }
+
+    public void reset() {
+        requests.set(0);
+        maxInFlight.set(0);
+        connections.clear();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
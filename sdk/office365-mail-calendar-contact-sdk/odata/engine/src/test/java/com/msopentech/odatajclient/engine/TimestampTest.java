@@ -0,0 +1,249 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.msopentech.odatajclient.engine.data.ODataTimestamp;
+import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+/**
+ * Checks <tt>ODataTimestamp</tt> against the plain <tt>SimpleDateFormat</tt> handling it used to have.
+ */
+public class TimestampTest extends AbstractTest {
+
+    private static final String[] DATES = {
+        "2013-01-10",
+        "2012-02-29",
+        "2013-02-29",
+        "2013-13-45",
+        "0001-01-01",
+        "9999-12-31",
+        "1582-10-10",
+        "2013-1-5",
+        "2013-01-10T06:27:51",
+        "2013-01-10junk",
+        "20130110",
+        ""
+    };
+
+    private static final String[] DATE_TIMES = {
+        "2013-01-10T06:27:51",
+        "2013-01-10T06:27:51.1667673",
+        "2013-01-10T06:27:51.0500000",
+        "2013-01-10T06:27:51.05",
+        "2013-01-10T06:27:51.0",
+        "2013-01-10T06:27:51.1",
+        "2013-01-10T06:27:51.999999999",
+        "2013-01-10T06:27:51.1234567890",
+        "2013-01-10T06:27:51.1045905+02:00",
+        "2013-01-10T06:27:51.1045905-08:00",
+        "2013-01-10T06:27:51.1045905+0200",
+        "2013-01-10T06:27:51.1045905Z",
+        "2013-01-10T06:27:51+02:00",
+        "2013-01-10T06:27:51Z",
+        "2013-01-10T06:27:51.",
+        "2013-01-10T06:27:51.12.34",
+        "2013-01-10T06:27:51.x",
+        "2013-01-10T24:00:00",
+        "2013-01-10T23:59:60",
+        "2013-03-31T02:30:00",
+        "2013-10-27T02:30:00",
+        "2013-03-10T02:30:00",
+        "2013-11-03T01:30:00",
+        "0001-01-01T00:00:00",
+        "1582-10-10T12:00:00",
+        "1969-12-31T23:59:59.9",
+        "9999-12-31T23:59:59.9999999",
+        "2013-01-10 06:27:51",
+        "2013-01-10",
+        ""
+    };
+
+    private static final String[] DATE_TIME_OFFSETS = {
+        "2013-01-10T02:00:00Z",
+        "2013-01-10T02:00:00",
+        "2013-01-10T02:00:00.123Z",
+        "2013-01-10T02:00:00+02:00",
+        "2013-01-10T02:00:00Zjunk",
+        "2013-03-31T02:30:00Z",
+        "0001-01-01T00:00:00Z",
+        "9999-12-31T23:59:59Z",
+        "2013-02-30T25:61:61Z",
+        ""
+    };
+
+    private static final String[] ZONES = {
+        "UTC", "Europe/Rome", "America/Los_Angeles", "Asia/Kolkata", "Pacific/Apia"
+    };
+
+    /**
+     * How <tt>ODataTimestamp</tt> used to parse and format values; fractional seconds are now formatted as found.
+     */
+    private static String[] legacy(final EdmSimpleType type, final String input) {
+        final String[] dateParts = input.split("\\.");
+        final SimpleDateFormat sdf = new SimpleDateFormat(type.pattern());
+
+        try {
+            final Timestamp timestamp = new Timestamp(sdf.parse(dateParts[0]).getTime());
+            String fraction = null;
+            String timezone = null;
+            if (dateParts.length > 1) {
+                int idx = dateParts[1].indexOf('+');
+                if (idx == -1) {
+                    idx = dateParts[1].indexOf('-');
+                }
+                if (idx == -1) {
+                    fraction = dateParts[1];
+                } else {
+                    fraction = dateParts[1].substring(0, idx);
+                    timezone = dateParts[1].substring(idx);
+                }
+                timestamp.setNanos(Integer.parseInt(fraction));
+            }
+
+            final StringBuilder formatted = new StringBuilder().append(sdf.format(timestamp));
+            if (fraction != null) {
+                formatted.append('.').append(fraction);
+            }
+            if (StringUtils.isNotBlank(timezone)) {
+                formatted.append(timezone);
+            }
+            return new String[] {
+                String.valueOf(timestamp.getTime()), String.valueOf(timestamp.getNanos()), timezone,
+                formatted.toString()
+            };
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static void check(final EdmSimpleType type, final String input) {
+        final String[] expected = legacy(type, input);
+
+        final ODataTimestamp actual;
+        try {
+            actual = ODataTimestamp.parse(type, input);
+        } catch (IllegalArgumentException e) {
+            if (expected != null) {
+                fail(type + " '" + input + "' in " + TimeZone.getDefault().getID() + ": " + e.getMessage());
+            }
+            return;
+        }
+
+        final String where = type + " '" + input + "' in " + TimeZone.getDefault().getID();
+        if (expected == null) {
+            fail(where + ": parsed as " + actual);
+        }
+        assertEquals(where, expected[0], String.valueOf(actual.getTimestamp().getTime()));
+        assertEquals(where, expected[1], String.valueOf(actual.getTimestamp().getNanos()));
+        assertEquals(where, expected[2], actual.getTimezone());
+        assertEquals(where, expected[3], actual.toString());
+        assertEquals(where, type == EdmSimpleType.DateTimeOffset, actual.isOffset());
+        assertEquals(where, actual, ODataTimestamp.parse(type, input));
+        if (actual.getTimezone() == null) {
+            assertEquals(where, actual, ODataTimestamp.getInstance(type, actual.getTimestamp()));
+        }
+    }
+
+    private static void checkAll() {
+        for (String input : DATES) {
+            check(EdmSimpleType.Date, input);
+        }
+        for (String input : DATE_TIMES) {
+            check(EdmSimpleType.DateTime, input);
+        }
+        for (String input : DATE_TIME_OFFSETS) {
+            check(EdmSimpleType.DateTimeOffset, input);
+        }
+    }
+
+    @Test
+    public void corpus() {
+        final TimeZone defaultZone = TimeZone.getDefault();
+        try {
+            for (String zone : ZONES) {
+                TimeZone.setDefault(TimeZone.getTimeZone(zone));
+                checkAll();
+            }
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @Test
+    public void roundTrip() {
+        for (String input : new String[] {
+            "2013-01-10T06:27:51", "2013-01-10T06:27:51.1667673", "2013-01-10T06:27:51.0500000",
+            "2013-01-10T06:27:51.1045905-08:00", "2013-01-10T06:27:51.0"
+        }) {
+            assertEquals(input, ODataTimestamp.parse(EdmSimpleType.DateTime, input).toString());
+        }
+        assertEquals("2013-01-10", ODataTimestamp.parse(EdmSimpleType.Date, "2013-01-10").toString());
+        assertEquals("2013-01-10T02:00:00Z",
+                ODataTimestamp.parse(EdmSimpleType.DateTimeOffset, "2013-01-10T02:00:00Z").toString());
+
+        final Timestamp timestamp = new Timestamp(new Date().getTime());
+        final ODataTimestamp instance = ODataTimestamp.getInstance(EdmSimpleType.DateTime, timestamp);
+        assertEquals(timestamp, instance.getTimestamp());
+        assertEquals(new SimpleDateFormat(EdmSimpleType.DateTime.pattern()).format(timestamp)
+                + (timestamp.getNanos() > 0 ? "." + timestamp.getNanos() : ""), instance.toString());
+    }
+
+    @Test
+    public void concurrent() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+
+                    @Override
+                    public Void call() {
+                        for (int j = 0; j < 50; j++) {
+                            checkAll();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.isShutdown());
+    }
+}
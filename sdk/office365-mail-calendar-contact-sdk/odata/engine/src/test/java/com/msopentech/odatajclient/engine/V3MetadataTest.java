@@ -22,6 +22,8 @@ package com.msopentech.odatajclient.engine;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import com.msopentech.odatajclient.engine.client.ODataV3Client;
@@ -29,11 +31,14 @@ import com.msopentech.odatajclient.engine.client.http.HttpMethod;
 import com.msopentech.odatajclient.engine.data.metadata.EdmType;
 import com.msopentech.odatajclient.engine.data.metadata.EdmV3Metadata;
 import com.msopentech.odatajclient.engine.data.metadata.EdmV3Type;
+import com.msopentech.odatajclient.engine.data.metadata.MetadataIndex;
 import com.msopentech.odatajclient.engine.data.metadata.edm.v3.ComplexType;
 import com.msopentech.odatajclient.engine.data.metadata.edm.v3.EntityContainer;
 import com.msopentech.odatajclient.engine.data.metadata.edm.v3.EntityType;
 import com.msopentech.odatajclient.engine.data.metadata.edm.v3.FunctionImport;
 import com.msopentech.odatajclient.engine.data.metadata.edm.v3.Schema;
+import com.msopentech.odatajclient.engine.utils.AssociationSetBindingDetails;
+import com.msopentech.odatajclient.engine.utils.MetadataUtils;
 import java.util.List;
 import org.junit.Test;
 
@@ -159,4 +164,34 @@ public class V3MetadataTest extends AbstractMetadataTest {
 
         assertNotNull(funcImp.getParameters().get(0));
     }
+
+    @Test
+    public void index() {
+        final EdmV3Metadata metadata = getClient().getReader().
+                readMetadata(getClass().getResourceAsStream(getPath("metadata.xml")));
+        final MetadataIndex index = metadata.getIndex();
+        final Schema schema = metadata.getSchema(0);
+        final EntityContainer container = schema.getEntityContainers().get(0);
+
+        assertSame(schema.getEntityType("Customer"), index.getEntityType(schema.getNamespace() + ".Customer"));
+        assertSame(schema.getComplexType("ContactDetails"),
+                index.getComplexType(schema.getNamespace() + ".ContactDetails"));
+        assertNull(index.getEntityType(schema.getNamespace() + ".ContactDetails"));
+
+        assertSame(container, MetadataUtils.getContainerByName(metadata, schema, "DefaultContainer"));
+        assertSame(container.getEntitySet("Customer"),
+                MetadataUtils.getEntitySet(metadata, schema.getNamespace(), "DefaultContainer", "Customer"));
+        assertSame(container.getEntitySet("Customer"), MetadataUtils.getEntitySet(metadata, container, "customer"));
+        assertSame(container.getFunctionImport("GetArgumentPlusOne"),
+                index.getFunctionImports(container, "GetArgumentPlusOne").get(0));
+
+        final String association = schema.getNamespace() + ".Customer_Orders";
+        final AssociationSetBindingDetails details = MetadataUtils.getAssociationSetBindingDetails(
+                MetadataUtils.getAssociation(schema, association), schema.getNamespace(), metadata);
+        assertSame(MetadataUtils.getAssociationSet(association, container), details.getAssociationSet());
+        assertSame(details.getAssociationSet(), MetadataUtils.getAssociationSet(metadata, association, container));
+        assertSame(container, details.getContainer());
+        assertSame(MetadataUtils.getEntitySet(details, "Customer"),
+                MetadataUtils.getEntitySet(metadata, details, "Customer"));
+    }
 }
@@ -22,11 +22,14 @@ package com.msopentech.odatajclient.engine;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import com.msopentech.odatajclient.engine.client.ODataV4Client;
 import com.msopentech.odatajclient.engine.data.metadata.EdmV4Metadata;
 import com.msopentech.odatajclient.engine.data.metadata.EdmV4Type;
+import com.msopentech.odatajclient.engine.data.metadata.MetadataIndex;
 import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
 import com.msopentech.odatajclient.engine.data.metadata.edm.StoreGeneratedPattern;
 import com.msopentech.odatajclient.engine.data.metadata.edm.v4.Action;
@@ -39,8 +42,10 @@ import com.msopentech.odatajclient.engine.data.metadata.edm.v4.EntityType;
 import com.msopentech.odatajclient.engine.data.metadata.edm.v4.EnumType;
 import com.msopentech.odatajclient.engine.data.metadata.edm.v4.Function;
 import com.msopentech.odatajclient.engine.data.metadata.edm.v4.FunctionImport;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v4.NavigationPropertyBinding;
 import com.msopentech.odatajclient.engine.data.metadata.edm.v4.Schema;
 import com.msopentech.odatajclient.engine.data.metadata.edm.v4.Singleton;
+import com.msopentech.odatajclient.engine.utils.MetadataUtils;
 import java.util.List;
 import org.junit.Test;
 
@@ -203,4 +208,29 @@ public class V4MetadataTest extends AbstractMetadataTest {
                 readMetadata(getClass().getResourceAsStream(getPath("fromdoc2-metadata.xml")));
         assertNotNull(metadata);
     }
+
+    @Test
+    public void index() {
+        final EdmV4Metadata metadata = getClient().getReader().
+                readMetadata(getClass().getResourceAsStream(getPath("metadata.xml")));
+        final MetadataIndex index = metadata.getIndex();
+        final Schema schema = metadata.getSchema(0);
+        final EntityContainer container = schema.getEntityContainers().get(0);
+
+        assertSame(schema.getEnumType("ResponseType"), index.getEnumType(schema.getNamespace() + ".ResponseType"));
+        assertSame(schema.getEntityType("User"), index.getEntityType(schema.getNamespace() + ".User"));
+
+        assertSame(container, index.getEntityContainer(schema.getNamespace() + ".EntityContainer"));
+        final EntitySet users = container.getEntitySet("Users");
+        assertSame(users, index.getEntitySet(container, "Users"));
+        assertSame(users, MetadataUtils.getEntitySet(metadata, container, "users"));
+
+        for (NavigationPropertyBinding binding : users.getNavigationPropertyBindings()) {
+            assertSame(
+                    MetadataUtils.getNavigationBindingByPath(users.getNavigationPropertyBindings(), binding.getPath()),
+                    MetadataUtils.getNavigationBindingByPath(metadata, users, binding.getPath()));
+        }
+        assertEquals("Folders", MetadataUtils.getNavigationBindingByPath(metadata, users, "Inbox").getTarget());
+        assertNull(MetadataUtils.getNavigationBindingByPath(metadata, users, "Attachments"));
+    }
 }
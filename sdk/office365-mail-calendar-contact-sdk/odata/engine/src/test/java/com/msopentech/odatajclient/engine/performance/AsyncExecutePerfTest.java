@@ -0,0 +1,144 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.performance;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.engine.AbstractTest;
+import com.msopentech.odatajclient.engine.StubServer;
+import com.msopentech.odatajclient.engine.client.ODataClientFactory;
+import com.msopentech.odatajclient.engine.client.ODataV3Client;
+import com.msopentech.odatajclient.engine.client.http.DefaultAsyncHttpClientFactory;
+import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Fires a burst of asynchronous requests against a slow local stub server, via the executor service (one blocked
+ * thread per in-flight request) and via non-blocking I/O (two I/O dispatcher threads): peak server-side concurrency
+ * and client thread count are checked, timings are collected by {@link PerfTestReporter}.
+ */
+@BenchmarkOptions(warmupRounds = 1, benchmarkRounds = 3)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class AsyncExecutePerfTest extends AbstractTest {
+
+    private static final int REQUESTS = 500;
+
+    private static final long LATENCY = 100L;
+
+    private static final int IO_THREADS = 2;
+
+    private static StubServer server;
+
+    private static ODataV3Client executorClient;
+
+    private static ODataV3Client nioClient;
+
+    private static DefaultAsyncHttpClientFactory factory;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        server = new StubServer(REQUESTS + 10);
+        server.setLatency(LATENCY);
+        server.serve("/Customer(-10)", ODataPubFormat.JSON_FULL_METADATA.toString(),
+                IOUtils.toByteArray(AsyncExecutePerfTest.class.getResourceAsStream("../Customer_-10.json")));
+
+        executorClient = ODataClientFactory.getV3();
+
+        factory = new DefaultAsyncHttpClientFactory(IO_THREADS, REQUESTS, REQUESTS);
+        nioClient = ODataClientFactory.getV3();
+        nioClient.getConfiguration().setAsyncHttpClientFactory(factory);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        factory.shutdown();
+        server.stop();
+    }
+
+    @Before
+    public void resetServer() {
+        server.reset();
+    }
+
+    /**
+     * Sends all requests at once, then waits for all responses.
+     *
+     * @param client client.
+     * @param threadNamePrefix name prefix of the client threads serving requests.
+     * @return number of live client threads once all requests were sent.
+     */
+    private int burst(final ODataV3Client client, final String threadNamePrefix) throws Exception {
+        final URI uri = server.getURI("/Customer(-10)");
+
+        final List<Future<ODataRetrieveResponse<ODataEntity>>> futures =
+                new ArrayList<Future<ODataRetrieveResponse<ODataEntity>>>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            futures.add(client.getRetrieveRequestFactory().getEntityRequest(uri).asyncExecute());
+        }
+
+        int threads = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith(threadNamePrefix)) {
+                threads++;
+            }
+        }
+
+        for (Future<ODataRetrieveResponse<ODataEntity>> future : futures) {
+            assertNotNull(future.get().getBody());
+        }
+
+        return threads;
+    }
+
+    @Test
+    public void executor() throws Exception {
+        final int threads = burst(executorClient, "pool-");
+
+        assertTrue(threads > IO_THREADS);
+    }
+
+    @Test
+    public void nonBlocking() throws Exception {
+        final int threads = burst(nioClient, "I/O dispatcher");
+
+        assertTrue(threads <= IO_THREADS);
+        assertTrue(server.getMaxConcurrency() > 10);
+    }
+}
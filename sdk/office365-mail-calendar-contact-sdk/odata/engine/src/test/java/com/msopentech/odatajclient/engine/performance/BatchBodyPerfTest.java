@@ -0,0 +1,166 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.performance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.engine.AbstractTest;
+import com.msopentech.odatajclient.engine.StubServer;
+import com.msopentech.odatajclient.engine.client.ODataClientFactory;
+import com.msopentech.odatajclient.engine.client.ODataV3Client;
+import com.msopentech.odatajclient.engine.client.http.HttpMethod;
+import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchRequest;
+import com.msopentech.odatajclient.engine.communication.request.batch.ODataChangeset;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataObjectFactory;
+import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
+import com.msopentech.odatajclient.engine.utils.ODataBatchConstants;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.URI;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+import com.msopentech.org.apache.http.HttpResponse;
+import com.msopentech.org.apache.http.client.HttpClient;
+import com.msopentech.org.apache.http.client.methods.HttpPost;
+import com.msopentech.org.apache.http.entity.InputStreamEntity;
+import com.msopentech.org.apache.http.util.EntityUtils;
+
+/**
+ * Sends a 500-operation changeset to a local stub server, gathering the body into a composite entity written straight
+ * onto the connection, and pushing the same body through a piped stream drained by an executor thread - as batch
+ * requests used to be sent.
+ */
+@BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 20)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class BatchBodyPerfTest extends AbstractTest {
+
+    private static final int OPERATIONS = 500;
+
+    private static final AtomicLong received = new AtomicLong();
+
+    private static StubServer server;
+
+    private static ODataV3Client client;
+
+    private static ODataEntity[] customers;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        server = new StubServer();
+        server.handle("/$batch", new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                received.set(IOUtils.copyLarge(exchange.getRequestBody(), NullOutputStream.NULL_OUTPUT_STREAM));
+
+                exchange.getResponseHeaders().add("Content-Type",
+                        ODataBatchConstants.MULTIPART_CONTENT_TYPE + ";" + ODataBatchConstants.BOUNDARY + "=none");
+                exchange.sendResponseHeaders(202, -1);
+            }
+        });
+
+        client = ODataClientFactory.getV3();
+
+        customers = new ODataEntity[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            customers[i] = ODataObjectFactory.
+                    newEntity("Microsoft.Test.OData.Services.AstoriaDefaultService.Customer");
+            customers[i].addProperty(ODataObjectFactory.newPrimitiveProperty("CustomerId",
+                    client.getPrimitiveValueBuilder().setValue(i).setType(EdmSimpleType.Int32).build()));
+            customers[i].addProperty(ODataObjectFactory.newPrimitiveProperty("Name",
+                    client.getPrimitiveValueBuilder().setText("Customer " + i).setType(EdmSimpleType.String).
+                    build()));
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        server.stop();
+    }
+
+    private static ODataBatchRequest.BatchStreamManager changeset() {
+        final URI target = server.getURI("/Customer");
+
+        final ODataBatchRequest request = client.getBatchRequestFactory().getBatchRequest(server.getURI("").toString());
+        final ODataBatchRequest.BatchStreamManager payload = request.execute();
+
+        final ODataChangeset changeset = payload.addChangeset();
+        for (ODataEntity customer : customers) {
+            changeset.addRequest(client.getCUDRequestFactory().getEntityCreateRequest(target, customer));
+        }
+        return payload;
+    }
+
+    @Test
+    public void composite() {
+        assertEquals(202, changeset().getResponse().getStatusCode());
+        assertTrue(received.get() > 0);
+    }
+
+    @Test
+    public void piped() throws Exception {
+        final ODataBatchRequest.BatchStreamManager payload = changeset();
+
+        final PipedOutputStream output = new PipedOutputStream();
+        final HttpPost post = new HttpPost(server.getURI("/$batch"));
+        final InputStreamEntity entity = new InputStreamEntity(new PipedInputStream(output), -1);
+        entity.setChunked(true);
+        post.setEntity(entity);
+
+        final HttpClient httpClient = client.getConfiguration().getHttpClientFactory().
+                createHttpClient(HttpMethod.POST, post.getURI());
+        final Future<HttpResponse> future = client.getConfiguration().getExecutor().submit(
+                new Callable<HttpResponse>() {
+
+                    @Override
+                    public HttpResponse call() throws Exception {
+                        return httpClient.execute(post);
+                    }
+                });
+
+        payload.getBodyEntity().writeTo(output);
+        output.close();
+
+        final HttpResponse response = future.get();
+        EntityUtils.consume(response.getEntity());
+        assertEquals(202, response.getStatusLine().getStatusCode());
+        assertTrue(received.get() > 0);
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.performance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.engine.AbstractTest;
+import com.msopentech.odatajclient.engine.StubServer;
+import com.msopentech.odatajclient.engine.client.ODataClientFactory;
+import com.msopentech.odatajclient.engine.client.ODataV3Client;
+import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchRequest;
+import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchResponseItem;
+import com.msopentech.odatajclient.engine.communication.response.ODataResponse;
+import com.msopentech.odatajclient.engine.utils.ODataBatchConstants;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Reads multi-MB batch responses from a local stub server - many small items and a few large ones - consuming every
+ * item body.
+ */
+@BenchmarkOptions(warmupRounds = 3, benchmarkRounds = 10)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class BatchResponsePerfTest extends AbstractTest {
+
+    private static StubServer server;
+
+    private static ODataV3Client client;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    private static byte[] response(final int items, final int itemSize) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        while (line.length() < 100) {
+            line.append("{\"odata.type\":\"Customer\",\"Name\":\"").append(line.length()).append("\"},");
+        }
+        line.append("\r\n");
+
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        while (body.size() < itemSize) {
+            body.write(line.toString().getBytes());
+        }
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (int i = 0; i < items; i++) {
+            output.write(("--batchresponse_b\r\n"
+                    + "Content-Type: application/http\r\n"
+                    + "Content-Transfer-Encoding: binary\r\n\r\n"
+                    + "HTTP/1.1 200 OK\r\n"
+                    + "Content-Type: application/json\r\n\r\n").getBytes());
+            body.writeTo(output);
+            output.write("\r\n".getBytes());
+        }
+        output.write("--batchresponse_b--\r\n".getBytes());
+        return output.toByteArray();
+    }
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        final String contentType =
+                ODataBatchConstants.MULTIPART_CONTENT_TYPE + "; " + ODataBatchConstants.BOUNDARY + "=batchresponse_b";
+
+        server = new StubServer();
+        server.serve("/small/$batch", contentType, response(1000, 4 * 1024));
+        server.serve("/large/$batch", contentType, response(4, 1024 * 1024));
+
+        client = ODataClientFactory.getV3();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        server.stop();
+    }
+
+    private static void read(final String serviceRoot, final int items, final int itemSize) throws IOException {
+        final ODataBatchRequest request =
+                client.getBatchRequestFactory().getBatchRequest(server.getURI(serviceRoot).toString());
+        final ODataBatchRequest.BatchStreamManager payload = request.execute();
+        for (int i = 0; i < items; i++) {
+            payload.addRetrieve().setRequest(
+                    client.getRetrieveRequestFactory().getEntityRequest(server.getURI("/Customer(" + i + ")")));
+        }
+
+        final Iterator<ODataBatchResponseItem> iterator = payload.getResponse().getBody();
+        for (int i = 0; i < items; i++) {
+            final ODataResponse response = iterator.next().next();
+            assertEquals(200, response.getStatusCode());
+
+            final long read = IOUtils.copyLarge(response.getRawResponse(), NullOutputStream.NULL_OUTPUT_STREAM);
+            assertEquals(itemSize, read, itemSize / 10);
+            response.close();
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void largeItems() throws IOException {
+        read("/large", 4, 1024 * 1024);
+    }
+
+    @Test
+    public void smallItems() throws IOException {
+        read("/small", 1000, 4 * 1024);
+    }
+}
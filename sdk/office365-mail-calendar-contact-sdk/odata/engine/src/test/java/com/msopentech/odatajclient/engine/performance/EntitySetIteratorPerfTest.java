@@ -0,0 +1,133 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.performance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.engine.AbstractTest;
+import com.msopentech.odatajclient.engine.data.ODataEntitySetIterator;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.apache.commons.io.IOUtils;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Iterates over large Atom feeds via <tt>ODataEntitySetIterator</tt> and via the byte-scanning, DOM-based iterator
+ * it replaced (<tt>LegacyEntitySetIterator</tt>).
+ */
+@BenchmarkOptions(warmupRounds = 2, benchmarkRounds = 5)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class EntitySetIteratorPerfTest extends AbstractTest {
+
+    private static byte[] feed1k;
+
+    private static byte[] feed10k;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        final String customers = IOUtils.toString(
+                EntitySetIteratorPerfTest.class.getResourceAsStream("../Customer.xml"), "UTF-8");
+
+        final int entryStart = customers.indexOf("<entry>");
+        final int entryEnd = customers.indexOf("</entry>") + "</entry>".length();
+        final int linkStart = customers.lastIndexOf("<link rel=\"next\"");
+
+        final String header = customers.substring(0, entryStart);
+        final String entry = customers.substring(entryStart, entryEnd);
+        final String footer = customers.substring(linkStart);
+
+        feed1k = buildFeed(header, entry, footer, 1000);
+        feed10k = buildFeed(header, entry, footer, 10000);
+    }
+
+    private static byte[] buildFeed(final String header, final String entry, final String footer, final int size)
+            throws IOException {
+
+        final ByteArrayOutputStream feed = new ByteArrayOutputStream();
+        feed.write(header.getBytes("UTF-8"));
+        final byte[] entryBytes = entry.getBytes("UTF-8");
+        for (int i = 0; i < size; i++) {
+            feed.write(entryBytes);
+        }
+        feed.write(footer.getBytes("UTF-8"));
+        return feed.toByteArray();
+    }
+
+    private void iterate(final byte[] feed, final int size) {
+        final ODataEntitySetIterator iterator =
+                new ODataEntitySetIterator(v3Client, new ByteArrayInputStream(feed), ODataPubFormat.ATOM);
+
+        int count = 0;
+        while (iterator.hasNext()) {
+            assertNotNull(iterator.next());
+            count++;
+        }
+
+        assertEquals(size, count);
+        assertNotNull(iterator.getNext());
+    }
+
+    private void iterateLegacy(final byte[] feed, final int size) {
+        final LegacyEntitySetIterator iterator =
+                new LegacyEntitySetIterator(v3Client, new ByteArrayInputStream(feed));
+
+        int count = 0;
+        while (iterator.hasNext()) {
+            assertNotNull(iterator.next());
+            count++;
+        }
+
+        assertEquals(size, count);
+        assertNotNull(iterator.getNext());
+    }
+
+    @Test
+    public void iterate1k() {
+        iterate(feed1k, 1000);
+    }
+
+    @Test
+    public void iterate10k() {
+        iterate(feed10k, 10000);
+    }
+
+    @Test
+    public void legacyIterate1k() {
+        iterateLegacy(feed1k, 1000);
+    }
+
+    @Test
+    public void legacyIterate10k() {
+        iterateLegacy(feed10k, 10000);
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.performance;
+
+import static org.junit.Assert.assertNotNull;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.engine.AbstractTest;
+import com.msopentech.odatajclient.engine.StubServer;
+import com.msopentech.odatajclient.engine.client.ODataClientFactory;
+import com.msopentech.odatajclient.engine.client.ODataV3Client;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import java.net.URI;
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Compares retrieving entities from a local stub server with and without HTTP connection pooling.
+ */
+@BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 20)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class HttpClientFactoryPerfTest extends AbstractTest {
+
+    private static final int REQUESTS = 100;
+
+    private static StubServer server;
+
+    private static ODataV3Client defaultClient;
+
+    private static ODataV3Client poolingClient;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        server = new StubServer();
+        server.serve("/Customer(-10)", ODataPubFormat.JSON_FULL_METADATA.toString(),
+                IOUtils.toByteArray(HttpClientFactoryPerfTest.class.getResourceAsStream("../Customer_-10.json")));
+
+        defaultClient = ODataClientFactory.getV3();
+
+        poolingClient = ODataClientFactory.getV3();
+        poolingClient.getConfiguration().setUseConnectionPooling(true);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        server.stop();
+    }
+
+    private void retrieve(final ODataV3Client client) {
+        final URI uri = server.getURI("/Customer(-10)");
+        for (int i = 0; i < REQUESTS; i++) {
+            assertNotNull(client.getRetrieveRequestFactory().getEntityRequest(uri).execute().getBody());
+        }
+    }
+
+    @Test
+    public void retrieveViaDefaultFactory() {
+        retrieve(defaultClient);
+    }
+
+    @Test
+    public void retrieveViaPoolingFactory() {
+        retrieve(poolingClient);
+    }
+}
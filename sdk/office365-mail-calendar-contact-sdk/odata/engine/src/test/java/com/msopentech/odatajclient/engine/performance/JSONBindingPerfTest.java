@@ -0,0 +1,113 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.performance;
+
+import static org.junit.Assert.assertEquals;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.engine.AbstractTest;
+import com.msopentech.odatajclient.engine.data.json.JSONDirectBinder;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import java.io.ByteArrayInputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Binds a JSON entity and a large JSON entity set via the DOM tree of their properties and directly from the JSON
+ * token stream; time and garbage collections per round are reported for all.
+ */
+@BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 20)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class JSONBindingPerfTest extends AbstractTest {
+
+    private static final int ITERATIONS = 200;
+
+    private static final int FEED_SIZE = 200;
+
+    private static final String TYPE = "Microsoft.Test.OData.Services.AstoriaDefaultService.Customer";
+
+    private static byte[] entry;
+
+    private static byte[] feed;
+
+    private static JSONDirectBinder directBinder;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        entry = IOUtils.toByteArray(JSONBindingPerfTest.class.getResourceAsStream("../Customer_-10.json"));
+
+        // the same entity with distinct keys, as entity sets do not hold equal entities
+        final String json = new String(entry, "UTF-8");
+        final StringBuilder builder = new StringBuilder("{\"odata.metadata\":")
+                .append("\"http://192.168.43.55:8080/DefaultService.svc/$metadata#Customer\",\"value\":[");
+        for (int i = 0; i < FEED_SIZE; i++) {
+            builder.append(i == 0 ? "" : ",").append(json.replace("Customer(-10)", "Customer(" + i + ")").
+                    replace("\"CustomerId\":-10", "\"CustomerId\":" + i));
+        }
+        feed = builder.append("]}").toString().getBytes("UTF-8");
+
+        directBinder = new JSONDirectBinder(v3Client);
+    }
+
+    @Test
+    public void entityDOM() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(TYPE, v3Client.getReader().readEntity(
+                    new ByteArrayInputStream(entry), ODataPubFormat.JSON_FULL_METADATA).getName());
+        }
+    }
+
+    @Test
+    public void entityDirect() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(TYPE, directBinder.readEntity(new ByteArrayInputStream(entry)).getName());
+        }
+    }
+
+    @Test
+    public void entitySetDOM() {
+        assertEquals(FEED_SIZE, v3Client.getReader().readEntitySet(
+                new ByteArrayInputStream(feed), ODataPubFormat.JSON_FULL_METADATA).getEntities().size());
+    }
+
+    @Test
+    public void entitySetDirect() {
+        assertEquals(FEED_SIZE, directBinder.readEntitySet(new ByteArrayInputStream(feed)).getEntities().size());
+    }
+
+    @Test
+    public void entitySetDirectLazy() {
+        v3Client.getConfiguration().setLazyPrimitiveValues(true);
+        try {
+            assertEquals(FEED_SIZE, directBinder.readEntitySet(new ByteArrayInputStream(feed)).getEntities().size());
+        } finally {
+            v3Client.getConfiguration().setLazyPrimitiveValues(false);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.performance;
+
+import static org.junit.Assert.assertEquals;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.InjectableValues;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.msopentech.odatajclient.engine.AbstractTest;
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.data.json.JSONV3Entry;
+import com.msopentech.odatajclient.engine.data.json.JSONV3Feed;
+import java.io.ByteArrayInputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Reads a JSON entry and a JSON feed with the mapper shared by the client deserializer and with a mapper built for
+ * each call, as done before mappers were cached.
+ */
+@BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 20)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class JacksonMapperPerfTest extends AbstractTest {
+
+    private static final int ITERATIONS = 200;
+
+    private static final String TYPE = "Microsoft.Test.OData.Services.AstoriaDefaultService.Customer";
+
+    private static byte[] entry;
+
+    private static byte[] feed;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        entry = IOUtils.toByteArray(JacksonMapperPerfTest.class.getResourceAsStream("../Customer_-10.json"));
+        feed = IOUtils.toByteArray(JacksonMapperPerfTest.class.getResourceAsStream("../Customer.json"));
+    }
+
+    private static ObjectMapper newObjectMapper() {
+        final ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        mapper.setInjectableValues(new InjectableValues.Std().addValue(ODataClient.class, v3Client));
+        return mapper;
+    }
+
+    @Test
+    public void entryPerCallMapper() throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(TYPE,
+                    newObjectMapper().readValue(new ByteArrayInputStream(entry), JSONV3Entry.class).getType());
+        }
+    }
+
+    @Test
+    public void entrySharedMapper() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(TYPE,
+                    v3Client.getDeserializer().toEntry(new ByteArrayInputStream(entry), JSONV3Entry.class).getType());
+        }
+    }
+
+    @Test
+    public void feedPerCallMapper() throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(2, newObjectMapper().readValue(new ByteArrayInputStream(feed), JSONV3Feed.class).
+                    getEntries().size());
+        }
+    }
+
+    @Test
+    public void feedSharedMapper() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(2, v3Client.getDeserializer().toFeed(new ByteArrayInputStream(feed), JSONV3Feed.class).
+                    getEntries().size());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.performance;
+
+import static org.junit.Assert.assertEquals;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.engine.AbstractTest;
+import com.msopentech.odatajclient.engine.data.json.JSONDirectBinder;
+import java.io.ByteArrayInputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Binds a JSON entity holding date-time and decimal properties, with primitive values built eagerly and lazily;
+ * none of them is read afterwards.
+ */
+@BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 20)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class LazyPrimitiveValuePerfTest extends AbstractTest {
+
+    private static final int ITERATIONS = 5000;
+
+    private static final String TYPE = "Microsoft.Test.OData.Services.AstoriaDefaultService.ComputerDetail";
+
+    private static byte[] entry;
+
+    private static JSONDirectBinder directBinder;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        entry = IOUtils.toByteArray(LazyPrimitiveValuePerfTest.class.getResourceAsStream("../ComputerDetail_-10.json"));
+        directBinder = new JSONDirectBinder(v3Client);
+    }
+
+    private void readEntity() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(TYPE, directBinder.readEntity(new ByteArrayInputStream(entry)).getName());
+        }
+    }
+
+    @Test
+    public void eager() {
+        readEntity();
+    }
+
+    @Test
+    public void lazy() {
+        v3Client.getConfiguration().setLazyPrimitiveValues(true);
+        try {
+            readEntity();
+        } finally {
+            v3Client.getConfiguration().setLazyPrimitiveValues(false);
+        }
+    }
+}
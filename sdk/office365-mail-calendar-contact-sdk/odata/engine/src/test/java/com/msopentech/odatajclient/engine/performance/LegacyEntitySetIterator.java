@@ -0,0 +1,189 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.performance;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataEntitySet;
+import com.msopentech.odatajclient.engine.data.atom.AtomEntry;
+import com.msopentech.odatajclient.engine.format.ODataPubFormat;
+import com.msopentech.odatajclient.engine.utils.ODataConstants;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Atom part of the <tt>ODataEntitySetIterator</tt> replaced by the StAX feed reader, kept as the baseline of
+ * <tt>EntitySetIteratorPerfTest</tt>: it scans the feed bytes for <tt>&lt;entry&gt;</tt> markers, deserializes each
+ * entry into a DOM, and parses the buffered rest of the feed once more at the end to get the next link.
+ */
+class LegacyEntitySetIterator implements Iterator<ODataEntity> {
+
+    private final ODataClient odataClient;
+
+    private final InputStream stream;
+
+    private AtomEntry cached;
+
+    private ODataEntitySet entitySet;
+
+    private final ByteArrayOutputStream osFeed;
+
+    private final String namespaces;
+
+    private boolean available = true;
+
+    LegacyEntitySetIterator(final ODataClient odataClient, final InputStream stream) {
+        this.odataClient = odataClient;
+        this.stream = stream;
+        this.osFeed = new ByteArrayOutputStream();
+        this.namespaces = getAllElementAttributes(stream, "feed", osFeed);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (available && cached == null) {
+            cached = nextAtomEntryFromFeed(stream, osFeed, namespaces);
+
+            if (cached == null) {
+                available = false;
+                entitySet = odataClient.getReader().
+                        readEntitySet(new ByteArrayInputStream(osFeed.toByteArray()), ODataPubFormat.ATOM);
+                IOUtils.closeQuietly(stream);
+            }
+        }
+
+        return available;
+    }
+
+    @Override
+    public ODataEntity next() {
+        if (hasNext()) {
+            final ODataEntity res = odataClient.getBinder().getODataEntity(cached);
+            cached = null;
+            return res;
+        }
+
+        throw new NoSuchElementException("No entity found");
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Operation not supported");
+    }
+
+    public URI getNext() {
+        if (entitySet == null) {
+            throw new IllegalStateException("Iteration must be completed in order to retrieve the link for next page");
+        }
+        return entitySet.getNext();
+    }
+
+    private AtomEntry nextAtomEntryFromFeed(final InputStream input, final OutputStream osFeed, final String namespaces) {
+        final ByteArrayOutputStream entry = new ByteArrayOutputStream();
+
+        AtomEntry entity = null;
+
+        try {
+            if (consume(input, "<entry>", osFeed, false) >= 0) {
+                entry.write("<entry ".getBytes(ODataConstants.UTF8));
+                entry.write(namespaces.getBytes(ODataConstants.UTF8));
+                entry.write(">".getBytes(ODataConstants.UTF8));
+
+                if (consume(input, "</entry>", entry, true) >= 0) {
+                    entity = odataClient.getDeserializer().
+                            toEntry(new ByteArrayInputStream(entry.toByteArray()), AtomEntry.class);
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+
+        return entity;
+    }
+
+    private String getAllElementAttributes(final InputStream input, final String name, final OutputStream os) {
+        final ByteArrayOutputStream attrs = new ByteArrayOutputStream();
+
+        String res;
+
+        try {
+            byte[] attrsDeclaration = null;
+
+            final String key = "<" + name + " ";
+            if (consume(input, key, os, true) >= 0 && consume(input, ">", attrs, false) >= 0) {
+                attrsDeclaration = attrs.toByteArray();
+                os.write(attrsDeclaration);
+                os.write('>');
+            }
+
+            res = attrsDeclaration == null
+                    ? StringUtils.EMPTY
+                    : new String(attrsDeclaration, ODataConstants.UTF8).trim();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+
+        return res.endsWith("/") ? res.substring(0, res.length() - 1) : res;
+    }
+
+    private int consume(
+            final InputStream input, final String end, final OutputStream os, final boolean includeEndKey)
+            throws IOException {
+
+        final char[] endKey = end.toCharArray();
+        final char[] endLowerKey = end.toLowerCase().toCharArray();
+        final char[] endUpperKey = end.toUpperCase().toCharArray();
+
+        int pos = 0;
+        int c = 0;
+        while (pos < endKey.length && (c = input.read()) >= 0) {
+            if (c == endLowerKey[pos] || c == endUpperKey[pos]) {
+                pos++;
+                if (includeEndKey && os != null) {
+                    os.write(c);
+                }
+            } else if (pos > 0) {
+                if (!includeEndKey && os != null) {
+                    for (int i = 0; i < pos; i++) {
+                        os.write(endKey[i]);
+                    }
+                }
+                if (os != null) {
+                    os.write(c);
+                }
+                pos = 0;
+            } else {
+                if (os != null) {
+                    os.write(c);
+                }
+            }
+        }
+
+        return c;
+    }
+}
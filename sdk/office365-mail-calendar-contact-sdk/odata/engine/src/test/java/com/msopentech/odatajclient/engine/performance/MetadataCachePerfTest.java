@@ -0,0 +1,117 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.performance;
+
+import static org.junit.Assert.assertNotNull;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.engine.AbstractTest;
+import com.msopentech.odatajclient.engine.StubServer;
+import com.msopentech.odatajclient.engine.data.metadata.AbstractEdmMetadata;
+import com.msopentech.odatajclient.engine.data.metadata.MetadataCache;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Compares the startup cost of getting metadata: parsing the EDMX document (cold), loading a snapshot from disk with
+ * all schemas or with a single schema (warm) and looking it up in memory.
+ */
+@BenchmarkOptions(warmupRounds = 20, benchmarkRounds = 200)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class MetadataCachePerfTest extends AbstractTest {
+
+    private static final String NAMESPACE = "Microsoft.Test.OData.Services.AstoriaDefaultService";
+
+    private static byte[] edmx;
+
+    private static StubServer server;
+
+    private static String serviceRoot;
+
+    private static File directory;
+
+    private static MetadataCache memory;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        edmx = IOUtils.toByteArray(MetadataCachePerfTest.class.getResourceAsStream("../v3/metadata.xml"));
+
+        server = new StubServer();
+        server.serve("/v3", "application/xml", edmx);
+        serviceRoot = server.getURI("/v3").toASCIIString();
+
+        directory = File.createTempFile("metadata", "");
+        directory.delete();
+        new MetadataCache(directory).getMetadata(v3Client, serviceRoot);
+
+        memory = new MetadataCache();
+        memory.getMetadata(v3Client, serviceRoot);
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        server.stop();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private static MetadataCache warm() {
+        final MetadataCache cache = new MetadataCache(directory);
+        cache.setRevalidate(false);
+        return cache;
+    }
+
+    @Test
+    public void coldParse() {
+        final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata =
+                v3Client.getReader().readMetadata(new ByteArrayInputStream(edmx));
+        assertNotNull(metadata.getSchema(NAMESPACE));
+    }
+
+    @Test
+    public void memory() {
+        assertNotNull(memory.getMetadata(v3Client, serviceRoot).getSchema(NAMESPACE));
+    }
+
+    @Test
+    public void warmSnapshot() {
+        final AbstractEdmMetadata<?, ?, ?, ?, ?, ?, ?> metadata = warm().getMetadata(v3Client, serviceRoot);
+        for (Object schema : metadata.getSchemas()) {
+            assertNotNull(schema);
+        }
+    }
+
+    @Test
+    public void warmSnapshotSingleSchema() {
+        assertNotNull(warm().getMetadata(v3Client, serviceRoot).getSchema(NAMESPACE));
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.performance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.engine.AbstractTest;
+import com.msopentech.odatajclient.engine.data.metadata.EdmV4Metadata;
+import com.msopentech.odatajclient.engine.data.metadata.MetadataIndex;
+import com.msopentech.odatajclient.engine.data.metadata.edm.AbstractEntitySet;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v4.EntityContainer;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v4.EntitySet;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v4.EntityType;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v4.NavigationProperty;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v4.NavigationPropertyBinding;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v4.Schema;
+import com.msopentech.odatajclient.engine.utils.MetadataUtils;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Resolves every navigation property of every entity set in the Exchange schema - binding, target entity set and
+ * target entity type - via linear scans over the metadata and via the metadata index.
+ */
+@BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 20)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class NavigationResolutionPerfTest extends AbstractTest {
+
+    private static final int ITERATIONS = 10000;
+
+    private static EdmV4Metadata metadata;
+
+    private static int expected;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUp() {
+        metadata = v4Client.getReader().readMetadata(
+                NavigationResolutionPerfTest.class.getResourceAsStream("../v4/metadata.xml"));
+        expected = linear();
+    }
+
+    private static String getTypeName(final String type) {
+        return type.startsWith("Collection(") ? type.substring(11, type.length() - 1) : type;
+    }
+
+    private static int linear() {
+        int resolved = 0;
+        for (Schema schema : metadata.getSchemas()) {
+            for (EntityContainer container : schema.getEntityContainers()) {
+                for (EntitySet entitySet : container.getEntitySets()) {
+                    final String typeName = entitySet.getEntityType();
+                    final EntityType type = ((Schema) MetadataUtils.getSchemaByNamespaceOrAlias(metadata,
+                            typeName.substring(0, typeName.lastIndexOf('.')))).
+                            getEntityType(typeName.substring(typeName.lastIndexOf('.') + 1));
+
+                    for (NavigationProperty property : type.getNavigationProperties()) {
+                        final NavigationPropertyBinding binding = MetadataUtils.getNavigationBindingByPath(
+                                entitySet.getNavigationPropertyBindings(), property.getName());
+                        if (binding != null) {
+                            final AbstractEntitySet target = MetadataUtils.getEntitySet(container, binding.getTarget());
+                            final String targetType = getTypeName(property.getType());
+                            if (target != null && schema.getEntityType(
+                                    targetType.substring(targetType.lastIndexOf('.') + 1)) != null) {
+
+                                resolved++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return resolved;
+    }
+
+    private static int indexed() {
+        final MetadataIndex index = metadata.getIndex();
+
+        int resolved = 0;
+        for (Schema schema : metadata.getSchemas()) {
+            for (EntityContainer container : schema.getEntityContainers()) {
+                for (EntitySet entitySet : container.getEntitySets()) {
+                    final EntityType type = (EntityType) index.getEntityType(entitySet.getEntityType());
+
+                    for (NavigationProperty property : type.getNavigationProperties()) {
+                        final NavigationPropertyBinding binding =
+                                MetadataUtils.getNavigationBindingByPath(metadata, entitySet, property.getName());
+                        if (binding != null) {
+                            final AbstractEntitySet target =
+                                    MetadataUtils.getEntitySet(metadata, container, binding.getTarget());
+                            if (target != null && index.getEntityType(getTypeName(property.getType())) != null) {
+                                resolved++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return resolved;
+    }
+
+    @Test
+    public void indexedLookup() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(expected, indexed());
+        }
+    }
+
+    @Test
+    public void linearScan() {
+        assertNotNull(metadata);
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(expected, linear());
+        }
+    }
+}
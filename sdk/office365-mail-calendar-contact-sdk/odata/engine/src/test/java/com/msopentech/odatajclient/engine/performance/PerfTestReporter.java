@@ -84,7 +84,11 @@ public final class PerfTestReporter {
 
 
         for (Map.Entry<String, Map<String, Double>> entry : testData.entrySet()) {
-            final Sheet sheet = workbook.getSheet(entry.getKey());
+            Sheet sheet = workbook.getSheet(entry.getKey());
+            if (sheet == null) {
+                // test class not in the template yet
+                sheet = workbook.createSheet(entry.getKey());
+            }
 
             int rows = 0;
 
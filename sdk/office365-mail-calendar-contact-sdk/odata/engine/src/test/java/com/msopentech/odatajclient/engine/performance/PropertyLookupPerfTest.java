@@ -0,0 +1,129 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.performance;
+
+import static org.junit.Assert.assertEquals;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.engine.AbstractTest;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataObjectFactory;
+import com.msopentech.odatajclient.engine.data.ODataProperty;
+import com.msopentech.odatajclient.engine.data.ODataPropertyShape;
+import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Looks up by name every property of an entity with as many properties as an Exchange message: via a linear scan
+ * over the property list, via the name index and via the compact, array-backed store.
+ */
+@BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 20)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class PropertyLookupPerfTest extends AbstractTest {
+
+    private static final int PROPERTIES = 45;
+
+    private static final int ITERATIONS = 20000;
+
+    private static final List<String> names = new ArrayList<String>(PROPERTIES);
+
+    private static ODataEntity indexed;
+
+    private static ODataEntity compact;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUp() {
+        for (int i = 0; i < PROPERTIES; i++) {
+            names.add("Property" + i);
+        }
+
+        indexed = ODataObjectFactory.newEntity("Message");
+        compact = ODataObjectFactory.newEntity("Message", null, new ODataPropertyShape(names));
+        for (String name : names) {
+            indexed.addProperty(newProperty(name));
+            compact.addProperty(newProperty(name));
+        }
+    }
+
+    private static ODataProperty newProperty(final String name) {
+        return ODataObjectFactory.newPrimitiveProperty(name,
+                v3Client.getPrimitiveValueBuilder().setText(name).setType(EdmSimpleType.String).build());
+    }
+
+    private static ODataProperty scan(final ODataEntity entity, final String name) {
+        ODataProperty result = null;
+        for (ODataProperty property : entity.getProperties()) {
+            if (name.equals(property.getName())) {
+                result = property;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void compactStore() {
+        int found = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (String name : names) {
+                if (compact.getProperty(name) != null) {
+                    found++;
+                }
+            }
+        }
+        assertEquals(ITERATIONS * PROPERTIES, found);
+    }
+
+    @Test
+    public void linearScan() {
+        int found = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (String name : names) {
+                if (scan(indexed, name) != null) {
+                    found++;
+                }
+            }
+        }
+        assertEquals(ITERATIONS * PROPERTIES, found);
+    }
+
+    @Test
+    public void nameIndex() {
+        int found = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (String name : names) {
+                if (indexed.getProperty(name) != null) {
+                    found++;
+                }
+            }
+        }
+        assertEquals(ITERATIONS * PROPERTIES, found);
+    }
+}
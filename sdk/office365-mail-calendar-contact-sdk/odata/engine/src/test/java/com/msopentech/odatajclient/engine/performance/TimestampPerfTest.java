@@ -0,0 +1,79 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.engine.performance;
+
+import static org.junit.Assert.assertEquals;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.engine.AbstractTest;
+import com.msopentech.odatajclient.engine.data.ODataTimestamp;
+import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Parses and formats date-time values via a new <tt>SimpleDateFormat</tt> each, as <tt>ODataTimestamp</tt> used to
+ * do, and via <tt>ODataTimestamp</tt>.
+ */
+@BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 20)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TimestampPerfTest extends AbstractTest {
+
+    private static final int ITERATIONS = 20000;
+
+    private static final String[] VALUES = new String[ITERATIONS];
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUp() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            VALUES[i] = String.format("20%02d-%02d-%02dT%02d:%02d:%02d.%07d",
+                    i % 30, i % 12 + 1, i % 28 + 1, i % 24, i % 60, (i * 7) % 60, i * 13);
+        }
+    }
+
+    @Test
+    public void simpleDateFormat() throws Exception {
+        for (String value : VALUES) {
+            final String[] dateParts = value.split("\\.");
+            final SimpleDateFormat sdf = new SimpleDateFormat(EdmSimpleType.DateTime.pattern());
+            final Timestamp timestamp = new Timestamp(sdf.parse(dateParts[0]).getTime());
+            timestamp.setNanos(Integer.parseInt(dateParts[1]));
+
+            assertEquals(value, sdf.format(timestamp) + "." + dateParts[1]);
+        }
+    }
+
+    @Test
+    public void timestamp() {
+        for (String value : VALUES) {
+            assertEquals(value, ODataTimestamp.parse(EdmSimpleType.DateTime, value).toString());
+        }
+    }
+}
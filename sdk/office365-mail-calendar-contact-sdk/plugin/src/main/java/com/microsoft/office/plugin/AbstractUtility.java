@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -161,6 +162,80 @@ public abstract class AbstractUtility {
         return res.toString();
     }
 
+    /**
+     * Gets how values of the given type are read by generated entity types and complex types.
+     * 
+     * @param typeExpression Type expression.
+     * @return <tt>Primitive</tt>, <tt>Enum</tt>, <tt>Complex</tt> or <tt>Stream</tt>, followed by
+     * <tt>Collection</tt> for collections.
+     */
+    public String getValueKind(final String typeExpression) {
+        final EdmType edmType = getEdmType(getMetadata(), typeExpression);
+
+        final String kind;
+        if ("Edm.Stream".equals(typeExpression)) {
+            kind = "Stream";
+        } else if (edmType.isSimpleType()) {
+            kind = "Primitive";
+        } else if (edmType.isEnumType()) {
+            kind = "Enum";
+        } else if (edmType.isComplexType()) {
+            kind = "Complex";
+        } else {
+            throw new IllegalArgumentException("Invalid property type expression '" + typeExpression + "'");
+        }
+
+        return edmType.isCollection() ? kind + "Collection" : kind;
+    }
+
+    /**
+     * Gets the name of the {@link com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType} constant for
+     * given simple type, or for the items of given collection type.
+     * 
+     * @param typeExpression Type expression.
+     * @return EdmSimpleType constant name.
+     */
+    public String getSimpleTypeName(final String typeExpression) {
+        return getEdmType(getMetadata(), typeExpression).getSimpleType().name();
+    }
+
+    /**
+     * Gets java type of the items of given collection type.
+     * 
+     * @param typeExpression Collection type expression.
+     * @return String containing package and class name of the items.
+     */
+    public String getItemJavaType(final String typeExpression) {
+        final String javaType = getJavaType(typeExpression);
+        return javaType.substring(javaType.indexOf('<') + 1, javaType.lastIndexOf('>'));
+    }
+
+    /**
+     * Gets names of the constants indexing given properties in generated entity types. Names are the upper case
+     * property names, words separated by underscores, prefixed by <tt>PROP_</tt> so that they never clash with
+     * other class members; a numeric suffix tells apart properties differing only by case or underscores, as
+     * <tt>Id</tt> and <tt>ID</tt>.
+     *
+     * @param properties Properties, in declaration order.
+     * @return Constant names by property name, in declaration order.
+     */
+    public Map<String, String> getPropertyConstants(final List<? extends AbstractProperty> properties) {
+        final Map<String, String> res = new LinkedHashMap<String, String>();
+        final Set<String> used = new HashSet<String>();
+
+        for (AbstractProperty property : properties) {
+            final String base = "PROP_" + property.getName().replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+
+            String name = base;
+            for (int i = 2; !used.add(name); i++) {
+                name = base + "_" + i;
+            }
+            res.put(property.getName(), name);
+        }
+
+        return res;
+    }
+
     /**
      * Gets {@link EdmType} for type of given entity set.
      * 
@@ -385,12 +460,12 @@ public abstract class AbstractUtility {
             final String containerName = target[0].substring(lastDot + 1);
 
             targetSchema = MetadataUtils.getSchemaByNamespaceOrAlias(getMetadata(), targetSchemaNamespace);
-            targetContainer = MetadataUtils.getContainerByName(targetSchema, containerName);
-            targetES = MetadataUtils.getEntitySet(targetContainer, target[1]);
+            targetContainer = MetadataUtils.getContainerByName(getMetadata(), targetSchema, containerName);
+            targetES = MetadataUtils.getEntitySet(getMetadata(), targetContainer, target[1]);
         } else {
             targetContainer = bindingInfoContainer;
             targetSchema = bindingInfoSchema;
-            targetES = MetadataUtils.getEntitySet(targetContainer, target[0]);
+            targetES = MetadataUtils.getEntitySet(getMetadata(), targetContainer, target[0]);
         }
         return new NavigationPropertyBindingDetails(property, targetES, targetContainer, targetSchema);
     }
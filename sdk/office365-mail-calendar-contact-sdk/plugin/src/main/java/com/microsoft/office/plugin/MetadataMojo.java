@@ -63,7 +63,8 @@ import com.msopentech.odatajclient.engine.utils.ODataVersion;
 public class MetadataMojo extends AbstractMetadataMojo {
     
     /**
-     * Targets to be generated.
+     * Targets to be generated: <tt>interfaces</tt>, <tt>classes</tt> delegating to proxies, or <tt>entities</tt>, as
+     * <tt>classes</tt> but with entity types generated as concrete classes, mapped directly from entities.
      */
     @Parameter(property = "generate", defaultValue = "interfaces,classes")
     private String generateTargets;
@@ -78,7 +79,7 @@ public class MetadataMojo extends AbstractMetadataMojo {
         return ODataVersion.V4.name().toLowerCase();
     }
 
-    private boolean generateInterfaces, generateClasses;
+    private boolean generateInterfaces, generateClasses, generateEntities;
 
     @Override
     public void execute() throws MojoExecutionException {
@@ -92,7 +93,8 @@ public class MetadataMojo extends AbstractMetadataMojo {
             Velocity.addProperty("class.resource.loader.class", ClasspathResourceLoader.class.getName());
 
             generateInterfaces = generateTargets.contains("interfaces");
-            generateClasses = generateTargets.contains("classes");
+            generateEntities = generateTargets.contains("entities");
+            generateClasses = generateTargets.contains("classes") || generateEntities;
             
             ODataV4Client client = ODataClientFactory.getV4();
             
@@ -124,6 +126,7 @@ public class MetadataMojo extends AbstractMetadataMojo {
             }
 
             final Set<String> complexTypeNames = new HashSet<String>();
+            final Set<String> entityTypeNames = new HashSet<String>();
             final File services = mkdir("META-INF/services");
 
             for (Schema schema : metadata.getSchemas()) {
@@ -199,7 +202,13 @@ public class MetadataMojo extends AbstractMetadataMojo {
                             parseObj(typesBaseDir, typesPkg,
                                     "entityCollection", "I" + utility.capitalize(entity.getName()) + "Collection.java", objs);
                         }
-                        if (generateClasses) {
+                        if (generateEntities) {
+                            entityTypeNames.add(typesPkg + "." + utility.capitalize(entity.getName()));
+                            parseObj(typesBaseDir, typesPkg, "entityTypeConcrete",
+                                    utility.capitalize(entity.getName()) + ".java", objs);
+                            parseObj(typesBaseDir, typesPkg, "entityCollectionImpl",
+                                    utility.capitalize(entity.getName()) + "Collection.java", objs);
+                        } else if (generateClasses) {
                             parseObj(typesBaseDir, typesPkg, "entityTypeImpl",
                                     utility.capitalize(entity.getName()) + ".java", objs);
                             parseObj(typesBaseDir, typesPkg, "entityCollectionImpl",
@@ -291,6 +300,11 @@ public class MetadataMojo extends AbstractMetadataMojo {
                 
                 parseObj(services, true, null, "services", "com.msopentech.odatajclient.proxy.api.AbstractComplexType",
                         Collections.singletonMap("services", (Object) complexTypeNames));
+
+                if (generateEntities) {
+                    parseObj(services, true, null, "services", "com.msopentech.odatajclient.proxy.api.AbstractEntityType",
+                            Collections.singletonMap("services", (Object) entityTypeNames));
+                }
             }
         } catch (Throwable t) {
             final StringWriter stringWriter = new StringWriter();
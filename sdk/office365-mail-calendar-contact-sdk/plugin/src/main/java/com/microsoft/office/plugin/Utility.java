@@ -225,7 +225,7 @@ public class Utility extends AbstractUtility {
             for (AbstractEntitySet es : container.getEntitySets()) {
                 if (es.getEntityType().equals(sourceEntityType)) {
                     final NavigationPropertyBinding binding = MetadataUtils.getNavigationBindingByPath(
-                            ((EntitySet) es).getNavigationPropertyBindings(), property.getName());
+                            getMetadata(), es, property.getName());
                     if (binding != null) {
                         return getNavigationBindingDetails(property, binding.getTarget(), schema, container);
                     }
@@ -0,0 +1,153 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.microsoft.office.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.msopentech.odatajclient.engine.client.ODataClientFactory;
+import com.msopentech.odatajclient.engine.data.metadata.EdmV4Metadata;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v4.ComplexType;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v4.EntityType;
+import com.msopentech.odatajclient.engine.data.metadata.edm.v4.Schema;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.apache.commons.io.FileUtils;
+import org.apache.velocity.app.Velocity;
+import org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs the <tt>entities</tt> templates on test metadata and compiles their output against the proxy API.
+ */
+public class EntityTypeConcreteTest {
+
+    private static final String BASE_PACKAGE = "com.microsoft.office.plugin.generated";
+
+    private static final String TYPES_PACKAGE = BASE_PACKAGE + ".test.mail.types";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUpVelocity() {
+        Velocity.addProperty(Velocity.RESOURCE_LOADER, "class");
+        Velocity.addProperty("class.resource.loader.class", ClasspathResourceLoader.class.getName());
+    }
+
+    private File generate() throws Exception {
+        final EdmV4Metadata metadata = ODataClientFactory.getV4().getReader().
+                readMetadata(getClass().getResourceAsStream("/entities-metadata.xml"));
+        final Schema schema = metadata.getSchemas().get(0);
+
+        final MetadataMojo mojo = new MetadataMojo();
+        mojo.outputDirectory = folder.newFolder("sources").getAbsolutePath();
+        mojo.basePackage = BASE_PACKAGE;
+        mojo.utility = new Utility(metadata, schema, BASE_PACKAGE);
+        mojo.namespaces.add(schema.getNamespace().toLowerCase());
+
+        final String schemaPath = schema.getNamespace().toLowerCase().replace('.', File.separatorChar);
+        mojo.parseObj(mojo.mkPkgDir(schemaPath), BASE_PACKAGE + ".test.mail", "package-info", "package-info.java");
+
+        final File types = mojo.mkPkgDir(schemaPath + File.separator + "types");
+        mojo.parseObj(types, TYPES_PACKAGE, "package-info", "package-info.java");
+
+        final Map<String, Object> objs = new HashMap<String, Object>();
+        for (ComplexType complex : schema.getComplexTypes()) {
+            objs.clear();
+            objs.put("complexType", complex);
+            mojo.parseObj(types, TYPES_PACKAGE, "complexType", complex.getName() + ".java", objs);
+        }
+        for (EntityType entity : schema.getEntityTypes()) {
+            objs.clear();
+            objs.put("entityType", entity);
+            if (entity.getBaseType() != null) {
+                objs.put("baseType", mojo.utility.getJavaType(entity.getBaseType()));
+            }
+            mojo.parseObj(types, TYPES_PACKAGE, "entityType", "I" + entity.getName() + ".java", objs);
+            mojo.parseObj(types, TYPES_PACKAGE, "entityTypeConcrete", entity.getName() + ".java", objs);
+        }
+
+        return new File(mojo.outputDirectory, MetadataMojo.TOOL_DIR);
+    }
+
+    private ClassLoader compile(final File sources) throws Exception {
+        final File classes = folder.newFolder("classes");
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("Tests must run on a JDK", compiler);
+
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        final StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        try {
+            final List<File> files = new ArrayList<File>(FileUtils.listFiles(sources, new String[] {"java"}, true));
+            final boolean compiled = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-d", classes.getAbsolutePath(), "-classpath", System.getProperty("java.class.path")),
+                    null, fileManager.getJavaFileObjectsFromFiles(files)).call();
+            assertTrue(diagnostics.getDiagnostics().toString(), compiled);
+        } finally {
+            fileManager.close();
+        }
+
+        return new URLClassLoader(new URL[] {classes.toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    private static int getConstant(final Class<?> clazz, final String name) throws Exception {
+        final Field field = clazz.getDeclaredField(name);
+        assertTrue(Modifier.isStatic(field.getModifiers()));
+        field.setAccessible(true);
+        return field.getInt(null);
+    }
+
+    @Test
+    public void compileGeneratedEntityTypes() throws Exception {
+        final ClassLoader loader = compile(generate());
+
+        final Class<?> message = loader.loadClass(TYPES_PACKAGE + ".Message");
+        assertEquals(9, getConstant(message, "PROPERTY_COUNT"));
+        assertEquals(0, getConstant(message, "PROP_ID"));
+        assertEquals(1, getConstant(message, "PROP_ID_2"));
+        assertEquals(2, getConstant(message, "PROP_PROPERTY_COUNT"));
+        assertEquals(3, getConstant(message, "PROP_PROPERTY_COUNT_2"));
+        assertEquals(5, getConstant(message, "PROP_DATE_TIME_RECEIVED"));
+
+        final Class<?> flagged = loader.loadClass(TYPES_PACKAGE + ".FlaggedMessage");
+        assertEquals(message, flagged.getSuperclass());
+        assertEquals(10, getConstant(flagged, "PROPERTY_COUNT"));
+        assertEquals(9, getConstant(flagged, "PROP_FLAG"));
+    }
+}
@@ -19,6 +19,9 @@
  */
 package com.msopentech.odatajclient.proxy.api;
 
+import com.msopentech.odatajclient.engine.data.ODataComplexValue;
+import com.msopentech.odatajclient.proxy.api.annotations.Property;
+import com.msopentech.odatajclient.proxy.utils.EngineUtils;
 import java.io.Serializable;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -29,6 +32,16 @@ public abstract class AbstractComplexType implements Serializable {
 
     private static final long serialVersionUID = 5894564747020768401L;
 
+    /**
+     * Reads field values from the given complex value, via reflection: generated complex types override this with
+     * direct mapping.
+     *
+     * @param value complex value.
+     */
+    public void readFrom(final ODataComplexValue value) {
+        EngineUtils.populate(null, this, Property.class, value.iterator());
+    }
+
     @Override
     public boolean equals(final Object obj) {
         return EqualsBuilder.reflectionEquals(this, obj);
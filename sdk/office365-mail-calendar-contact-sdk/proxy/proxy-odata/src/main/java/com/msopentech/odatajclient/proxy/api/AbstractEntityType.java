@@ -0,0 +1,186 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy.api;
+
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.proxy.api.context.EntityContext;
+import com.msopentech.odatajclient.proxy.api.impl.EntityContainerInvocationHandler;
+import com.msopentech.odatajclient.proxy.api.impl.EntityTypeInvocationHandler;
+import java.io.Serializable;
+import java.lang.reflect.Proxy;
+import java.util.BitSet;
+
+/**
+ * Base class of the entity type classes generated in <tt>entities</tt> mode: property values are held in plain
+ * fields, read straight from the entity got from the service, with no proxy and no reflection involved.
+ * <p>
+ * Property changes are recorded as dirty bits and handed over to an entity type handler, created on first change,
+ * so that they are flushed as any other change; navigation properties, operations and streams are delegated to a
+ * proxy over the same handler.
+ * <p>
+ * Generated classes are registered as services of this class, in order to be found via
+ * {@link java.util.ServiceLoader}.
+ */
+public abstract class AbstractEntityType implements Serializable {
+
+    private static final long serialVersionUID = -2437364627163530283L;
+
+    private final BitSet dirty = new BitSet();
+
+    private transient ODataEntity entity;
+
+    private transient EntityContainerInvocationHandler containerHandler;
+
+    private String entityContainerName;
+
+    private String entitySetName;
+
+    private transient EntityTypeInvocationHandler handler;
+
+    private transient Object proxy;
+
+    /**
+     * Gets the entity type interface implemented by this class.
+     *
+     * @return entity type interface.
+     */
+    public abstract Class<?> getTypeRef();
+
+    /**
+     * Creates a new instance of this class, not bound to any entity.
+     *
+     * @return new instance.
+     */
+    public abstract AbstractEntityType newInstance();
+
+    /**
+     * Reads property values from the given entity: overriding methods have to invoke this one first.
+     *
+     * @param entity entity.
+     */
+    protected void readFrom(final ODataEntity entity) {
+        // no properties defined at this level
+    }
+
+    /**
+     * Binds this instance to the given entity, got from the service, and reads property values from it.
+     *
+     * @param entity entity.
+     * @param containerHandler entity container handler.
+     * @param entityContainerName entity container name.
+     * @param entitySetName entity set name.
+     * @param handler entity type handler wrapping the given entity, if already available.
+     */
+    public final void bind(
+            final ODataEntity entity,
+            final EntityContainerInvocationHandler containerHandler,
+            final String entityContainerName,
+            final String entitySetName,
+            final EntityTypeInvocationHandler handler) {
+
+        this.entity = entity;
+        this.containerHandler = containerHandler;
+        this.entityContainerName = entityContainerName;
+        this.entitySetName = entitySetName;
+        this.handler = handler;
+        this.proxy = null;
+        this.dirty.clear();
+
+        readFrom(entity);
+    }
+
+    public ODataEntity getEntity() {
+        return entity;
+    }
+
+    /**
+     * Gets the handler tracking changes of this entity, created on first use unless an entity with the same key is
+     * already attached to the context.
+     *
+     * @return entity type handler.
+     */
+    public EntityTypeInvocationHandler getHandler() {
+        if (handler == null) {
+            if (entity == null) {
+                throw new IllegalStateException("Entity not bound");
+            }
+
+            EntityTypeInvocationHandler created = EntityTypeInvocationHandler.getInstance(
+                    entity, entityContainerName, entitySetName, getTypeRef(), containerHandler);
+
+            final EntityContext entityContext = EntityContainerFactory.getContext().entityContext();
+            if (entityContext.isAttached(created)) {
+                final EntityTypeInvocationHandler attached = entityContext.getEntity(created.getUUID());
+                if (attached != null) {
+                    created = attached;
+                }
+            }
+            handler = created;
+        }
+
+        return handler;
+    }
+
+    /**
+     * Gets a proxy over the handler of this entity.
+     *
+     * @return proxy implementing the entity type interface.
+     */
+    protected Object getProxy() {
+        if (proxy == null) {
+            proxy = Proxy.newProxyInstance(
+                    Thread.currentThread().getContextClassLoader(),
+                    new Class<?>[] {getTypeRef()},
+                    getHandler());
+        }
+        return proxy;
+    }
+
+    /**
+     * Records a property change.
+     *
+     * @param index property index, unique along the class hierarchy.
+     * @param name property name.
+     * @param value new property value.
+     */
+    protected void propertyChanged(final int index, final String name, final Object value) {
+        dirty.set(index);
+        getHandler().addAdditionalProperty(name, value);
+    }
+
+    /**
+     * Checks if a property has been changed since this instance was bound.
+     *
+     * @param index property index.
+     * @return <tt>true</tt> if changed; <tt>false</tt> otherwise.
+     */
+    protected boolean isDirty(final int index) {
+        return dirty.get(index);
+    }
+
+    /**
+     * Checks if any property has been changed since this instance was bound.
+     *
+     * @return <tt>true</tt> if changed; <tt>false</tt> otherwise.
+     */
+    public boolean isChanged() {
+        return !dirty.isEmpty();
+    }
+}
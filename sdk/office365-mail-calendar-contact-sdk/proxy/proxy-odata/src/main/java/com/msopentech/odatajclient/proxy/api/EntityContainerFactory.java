@@ -22,6 +22,7 @@ package com.msopentech.odatajclient.proxy.api;
 import java.lang.reflect.Proxy;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -31,9 +32,12 @@ import com.msopentech.odatajclient.engine.client.ODataClientFactory;
 import com.msopentech.odatajclient.engine.communication.request.retrieve.ODataMetadataRequest;
 import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
 import com.msopentech.odatajclient.engine.data.metadata.AbstractEdmMetadata;
+import com.msopentech.odatajclient.engine.data.metadata.MetadataCache;
 import com.msopentech.odatajclient.engine.uri.filter.FilterFactory;
 import com.msopentech.odatajclient.proxy.api.context.Context;
+import com.msopentech.odatajclient.proxy.api.context.ContextMode;
 import com.msopentech.odatajclient.proxy.api.impl.EntityContainerInvocationHandler;
+import com.msopentech.odatajclient.proxy.api.impl.RetrieveCoalescer;
 
 /**
  * Entry point for ODataJClient proxy mode, gives access to entity container instances.
@@ -42,7 +46,23 @@ public class EntityContainerFactory {
 
     protected static final Object MONITOR = new Object();
 
-    protected static Context context = null;
+    protected static volatile Context context = null;
+
+    protected static volatile ContextMode contextMode = ContextMode.SHARED;
+
+    protected static volatile boolean generatedEntityTypes = true;
+
+    /**
+     * Contexts of threads, in <tt>THREAD</tt> mode, until cleared.
+     *
+     * @see #clearThreadContext()
+     */
+    protected static final ThreadLocal<Context> THREAD_CONTEXT = new ThreadLocal<Context>();
+
+    /**
+     * Contexts explicitly bound to threads, in any mode.
+     */
+    protected static final ThreadLocal<Context> BOUND_CONTEXT = new ThreadLocal<Context>();
 
     /**
      * Factories singletons.
@@ -62,14 +82,104 @@ public class EntityContainerFactory {
 
     protected AbstractEdmMetadata metadata;
 
+    protected volatile RetrieveCoalescer retrieveCoalescer = null;
+
+    /**
+     * Gets the context tracking local changes for the current thread: the one bound via {@link #bindContext(Context)},
+     * if any, otherwise the one picked according to the current context mode.
+     *
+     * @return context for the current thread.
+     * @see #setContextMode(ContextMode)
+     */
     public static Context getContext() {
-        synchronized (MONITOR) {
-            if (context == null) {
-                context = new Context();
+        final Context bound = BOUND_CONTEXT.get();
+        if (bound != null) {
+            return bound;
+        }
+
+        if (contextMode == ContextMode.THREAD) {
+            Context threadContext = THREAD_CONTEXT.get();
+            if (threadContext == null) {
+                threadContext = new Context();
+                THREAD_CONTEXT.set(threadContext);
             }
+            return threadContext;
+        }
+
+        Context shared = context;
+        if (shared == null) {
+            synchronized (MONITOR) {
+                if (context == null) {
+                    context = new Context(contextMode == ContextMode.CONCURRENT);
+                }
+                shared = context;
+            }
+        }
+
+        return shared;
+    }
+
+    /**
+     * Sets how contexts are picked for threads with no context bound; changes tracked by the shared context, if any,
+     * are discarded.
+     *
+     * @param mode context mode.
+     */
+    public static void setContextMode(final ContextMode mode) {
+        synchronized (MONITOR) {
+            contextMode = mode;
+            context = null;
         }
+    }
 
-        return context;
+    public static ContextMode getContextMode() {
+        return contextMode;
+    }
+
+    /**
+     * Sets whether entities read from the service are returned as instances of the generated entity type classes
+     * registered as {@link AbstractEntityType} services, if any, rather than as proxies.
+     *
+     * @param enabled whether generated entity type classes have to be used.
+     */
+    public static void setGeneratedEntityTypes(final boolean enabled) {
+        generatedEntityTypes = enabled;
+    }
+
+    public static boolean isGeneratedEntityTypes() {
+        return generatedEntityTypes;
+    }
+
+    /**
+     * Binds the given context to the current thread, as an explicit session: proxies created and containers flushed
+     * by this thread will use it, whatever the context mode, until another context is bound.
+     * <p>
+     * A session can move across threads, as long as it is used by one thread at a time; bind a concurrent context
+     * to share it between threads running at the same time.
+     *
+     * @param session context to be bound, or null to unbind the current one.
+     * @return the context previously bound to the current thread, if any.
+     */
+    public static Context bindContext(final Context session) {
+        final Context previous = BOUND_CONTEXT.get();
+        if (session == null) {
+            BOUND_CONTEXT.remove();
+        } else {
+            BOUND_CONTEXT.set(session);
+        }
+        return previous;
+    }
+
+    /**
+     * Discards the context of the current thread, in <tt>THREAD</tt> mode, along with the changes it tracks, and
+     * unbinds the context bound to the current thread, if any.
+     * <p>
+     * Pooled threads must call this once done with each task: otherwise the next task run by the same thread gets the
+     * context left by the previous one, and the context is only released with the thread.
+     */
+    public static void clearThreadContext() {
+        THREAD_CONTEXT.remove();
+        BOUND_CONTEXT.remove();
     }
 
     public static EntityContainerFactory getInstance(final ODataClient client, final String serviceRoot) {
@@ -105,12 +215,46 @@ public class EntityContainerFactory {
         return serviceRoot;
     }
 
+    /**
+     * Sets whether entities retrieved by key, or via single-valued navigation properties, by different threads within
+     * the given window are fetched together via a single <tt>$batch</tt> request. Once the service rejects a
+     * <tt>$batch</tt> request, each entity is fetched via its own request again.
+     * <p>
+     * Disabled by default: each retrieve waits up to the given window for others, which pays off when concurrent
+     * retrieves outnumber the connections available to the service.
+     *
+     * @param maxRequests maximum number of retrieve requests per <tt>$batch</tt>; 0 disables coalescing.
+     * @param window time the first retrieve request of each <tt>$batch</tt> waits for others.
+     * @param unit time unit of the window.
+     */
+    public void setRetrieveCoalescing(final int maxRequests, final long window, final TimeUnit unit) {
+        retrieveCoalescer = maxRequests == 0
+                ? null
+                : new RetrieveCoalescer(client, serviceRoot, maxRequests, window, unit);
+    }
+
+    /**
+     * Gets the object coalescing retrieve requests, if enabled.
+     *
+     * @return retrieve coalescer, or null if retrieve requests are not coalesced.
+     * @see #setRetrieveCoalescing(int, long, TimeUnit)
+     */
+    public RetrieveCoalescer getRetrieveCoalescer() {
+        return retrieveCoalescer;
+    }
+
     public AbstractEdmMetadata getMetadata() {
         synchronized (this) {
             if (metadata == null) {
-                final ODataMetadataRequest req = client.getRetrieveRequestFactory().getMetadataRequest(serviceRoot);
-                final ODataRetrieveResponse<AbstractEdmMetadata> res = req.execute();
-                metadata = res.getBody();
+                final MetadataCache cache = client.getConfiguration().getMetadataCache();
+                if (cache == null) {
+                    final ODataMetadataRequest req =
+                            client.getRetrieveRequestFactory().getMetadataRequest(serviceRoot);
+                    final ODataRetrieveResponse<AbstractEdmMetadata> res = req.execute();
+                    metadata = res.getBody();
+                } else {
+                    metadata = cache.getMetadata(client, serviceRoot);
+                }
                 if (metadata == null) {
                     throw new IllegalStateException("No metadata found at URI '" + serviceRoot + "'");
                 }
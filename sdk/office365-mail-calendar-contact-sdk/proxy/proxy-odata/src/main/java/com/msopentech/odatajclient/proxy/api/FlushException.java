@@ -0,0 +1,86 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy.api;
+
+import com.msopentech.odatajclient.proxy.api.context.FlushResult;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown by <tt>AbstractContainer.flush()</tt> when some changes could not be pushed to the service; changes of the
+ * other entities were pushed anyway.
+ *
+ * @see AbstractContainer#flush()
+ */
+public class FlushException extends RuntimeException {
+
+    private static final long serialVersionUID = 2830431245412950713L;
+
+    private final List<FlushResult> results;
+
+    public FlushException(final List<FlushResult> results) {
+        super(buildMessage(results), firstError(results));
+        this.results = Collections.unmodifiableList(new ArrayList<FlushResult>(results));
+    }
+
+    private static String buildMessage(final List<FlushResult> results) {
+        int failed = 0;
+        for (FlushResult result : results) {
+            if (!result.isSucceeded()) {
+                failed++;
+            }
+        }
+        return failed + " out of " + results.size() + " operations failed";
+    }
+
+    private static RuntimeException firstError(final List<FlushResult> results) {
+        for (FlushResult result : results) {
+            if (!result.isSucceeded()) {
+                return result.getError();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the outcome of every operation, in the order operations were planned.
+     *
+     * @return per-operation results.
+     */
+    public List<FlushResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Gets the outcome of failed operations only.
+     *
+     * @return results of failed operations.
+     */
+    public List<FlushResult> getFailures() {
+        final List<FlushResult> failures = new ArrayList<FlushResult>();
+        for (FlushResult result : results) {
+            if (!result.isSucceeded()) {
+                failures.add(result);
+            }
+        }
+        return failures;
+    }
+}
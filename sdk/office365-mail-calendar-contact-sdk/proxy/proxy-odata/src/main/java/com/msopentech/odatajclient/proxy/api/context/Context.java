@@ -19,20 +19,54 @@
  */
 package com.msopentech.odatajclient.proxy.api.context;
 
+import java.util.Collection;
+
+/**
+ * Unit of work: tracks local changes until they are pushed by a container flush.
+ * <p>
+ * A context can be bound to a thread as an explicit session, via
+ * {@link com.msopentech.odatajclient.proxy.api.EntityContainerFactory#bindContext(Context)}.
+ */
 public class Context {
 
     private final EntityContext entities;
 
+    /**
+     * Constructor: the new context is not safe for concurrent use.
+     */
     public Context() {
-        this.entities = new EntityContext();
+        this(false);
+    }
 
+    /**
+     * Constructor.
+     *
+     * @param concurrent whether the new context has to be safe for concurrent use.
+     */
+    public Context(final boolean concurrent) {
+        this.entities = new EntityContext(concurrent);
     }
 
     public EntityContext entityContext() {
         return entities;
     }
 
+    public boolean isConcurrent() {
+        return entities.isConcurrent();
+    }
+
     public void detachAll() {
         entities.detachAll();
     }
+
+    /**
+     * Detaches the given entities only, leaving anything attached meanwhile.
+     *
+     * @param attached entities to be detached.
+     */
+    public void detachAll(final Collection<AttachedEntity> attached) {
+        for (AttachedEntity attachedEntity : attached) {
+            entities.detach(attachedEntity.getEntity());
+        }
+    }
 }
@@ -0,0 +1,48 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy.api.context;
+
+/**
+ * How <tt>EntityContainerFactory.getContext()</tt> picks the context tracking local changes, unless a context has been
+ * explicitly bound to the current thread.
+ *
+ * @see com.msopentech.odatajclient.proxy.api.EntityContainerFactory#setContextMode(ContextMode)
+ * @see com.msopentech.odatajclient.proxy.api.EntityContainerFactory#bindContext(Context)
+ */
+public enum ContextMode {
+
+    /**
+     * A single context, shared by all threads and not synchronized: proxies must be used by one thread at a time.
+     */
+    SHARED,
+    /**
+     * A single context, shared by all threads and safe for concurrent use; changes made by any thread are pushed by
+     * any flush.
+     */
+    CONCURRENT,
+    /**
+     * A context per thread: each thread tracks and flushes its own changes only. Pooled threads have to clear their
+     * context after each task.
+     *
+     * @see com.msopentech.odatajclient.proxy.api.EntityContainerFactory#clearThreadContext()
+     */
+    THREAD
+
+}
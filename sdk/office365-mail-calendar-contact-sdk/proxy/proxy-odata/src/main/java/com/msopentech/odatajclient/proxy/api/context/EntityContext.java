@@ -21,14 +21,22 @@ package com.msopentech.odatajclient.proxy.api.context;
 
 import com.msopentech.odatajclient.proxy.api.impl.EntityTypeInvocationHandler;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Entity context.
+ * <p>
+ * Concurrent contexts are backed by concurrent maps, and keep attachment order via a sequence number; others by plain
+ * maps, to be used by one thread at a time.
  */
 public class EntityContext implements Iterable<AttachedEntity> {
 
@@ -37,16 +45,118 @@ public class EntityContext implements Iterable<AttachedEntity> {
      * <p>
      * This map have to be used to search for entities by key.
      */
-    private final Map<EntityUUID, EntityTypeInvocationHandler> searchableEntities =
-            new HashMap<EntityUUID, EntityTypeInvocationHandler>();
+    private final Map<EntityUUID, EntityTypeInvocationHandler> searchableEntities;
 
     /**
-     * All attached entities (new entities included).
+     * All attached entities (new entities included), by identity: handlers' hash code changes once the service
+     * assigns a key to a new entity.
      * <p>
      * Attachment order will be maintained.
      */
-    private final Map<EntityTypeInvocationHandler, AttachedEntityStatus> allAttachedEntities =
-            new LinkedHashMap<EntityTypeInvocationHandler, AttachedEntityStatus>();
+    private final Map<IdentityKey, AttachedEntityStatus> allAttachedEntities;
+
+    /**
+     * Attachment order of entities, for concurrent contexts only.
+     */
+    private final ConcurrentMap<IdentityKey, Long> attachmentOrder;
+
+    private final AtomicLong attachments = new AtomicLong();
+
+    /**
+     * Wraps an entity handler so that it is compared by identity.
+     */
+    private static final class IdentityKey {
+
+        private final EntityTypeInvocationHandler entity;
+
+        IdentityKey(final EntityTypeInvocationHandler entity) {
+            this.entity = entity;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof IdentityKey && ((IdentityKey) obj).entity == entity;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(entity);
+        }
+    }
+
+    /**
+     * Constructor: the new context is not safe for concurrent use.
+     */
+    public EntityContext() {
+        this(false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param concurrent whether the new context has to be safe for concurrent use.
+     */
+    public EntityContext(final boolean concurrent) {
+        if (concurrent) {
+            searchableEntities = new ConcurrentHashMap<EntityUUID, EntityTypeInvocationHandler>();
+            allAttachedEntities = new ConcurrentHashMap<IdentityKey, AttachedEntityStatus>();
+            attachmentOrder = new ConcurrentHashMap<IdentityKey, Long>();
+        } else {
+            searchableEntities = new HashMap<EntityUUID, EntityTypeInvocationHandler>();
+            allAttachedEntities = new LinkedHashMap<IdentityKey, AttachedEntityStatus>();
+            attachmentOrder = null;
+        }
+    }
+
+    public boolean isConcurrent() {
+        return attachmentOrder != null;
+    }
+
+    private static <K, V> V putIfAbsent(final Map<K, V> map, final K key, final V value) {
+        if (map instanceof ConcurrentMap) {
+            return ((ConcurrentMap<K, V>) map).putIfAbsent(key, value);
+        }
+
+        final V current = map.get(key);
+        if (current == null) {
+            map.put(key, value);
+        }
+        return current;
+    }
+
+    private static <K, V> boolean replace(final Map<K, V> map, final K key, final V oldValue, final V newValue) {
+        if (map instanceof ConcurrentMap) {
+            return ((ConcurrentMap<K, V>) map).replace(key, oldValue, newValue);
+        }
+
+        map.put(key, newValue);
+        return true;
+    }
+
+    /**
+     * Gets the handler attached for the given one: itself, or the one attached with the same key.
+     */
+    private EntityTypeInvocationHandler resolve(final EntityTypeInvocationHandler entity) {
+        if (!allAttachedEntities.containsKey(new IdentityKey(entity)) && entity.getUUID().getKey() != null) {
+            final EntityTypeInvocationHandler searchable = searchableEntities.get(entity.getUUID());
+            if (searchable != null) {
+                return searchable;
+            }
+        }
+        return entity;
+    }
+
+    private void putStatus(final EntityTypeInvocationHandler entity, final AttachedEntityStatus status,
+            final String message) {
+
+        final IdentityKey key = new IdentityKey(entity);
+        if (attachmentOrder != null) {
+            attachmentOrder.putIfAbsent(key, attachments.incrementAndGet());
+        }
+        if (putIfAbsent(allAttachedEntities, key, status) != null) {
+            throw new IllegalStateException(message);
+        }
+    }
 
     /**
      * Attaches an entity with status <tt>NEW</tt>.
@@ -57,10 +167,7 @@ public class EntityContext implements Iterable<AttachedEntity> {
      * @param entity entity to be attached.
      */
     public void attachNew(final EntityTypeInvocationHandler entity) {
-        if (allAttachedEntities.containsKey(entity)) {
-            throw new IllegalStateException("An entity with the same key has already been attached");
-        }
-        allAttachedEntities.put(entity, AttachedEntityStatus.NEW);
+        putStatus(entity, AttachedEntityStatus.NEW, "An entity with the same key has already been attached");
     }
 
     /**
@@ -85,14 +192,22 @@ public class EntityContext implements Iterable<AttachedEntity> {
      * @param status status.
      */
     public void attach(final EntityTypeInvocationHandler entity, final AttachedEntityStatus status) {
-        if (isAttached(entity)) {
-            throw new IllegalStateException("An entity with the same profile has already been attached");
-        }
+        final String message = "An entity with the same profile has already been attached";
 
-        allAttachedEntities.put(entity, status);
+        final EntityUUID uuid = entity.getUUID();
+        if (uuid.getKey() != null) {
+            if (putIfAbsent(searchableEntities, uuid, entity) != null) {
+                throw new IllegalStateException(message);
+            }
 
-        if (entity.getUUID().getKey() != null) {
-            searchableEntities.put(entity.getUUID(), entity);
+            try {
+                putStatus(entity, status, message);
+            } catch (IllegalStateException e) {
+                searchableEntities.remove(uuid);
+                throw e;
+            }
+        } else {
+            putStatus(entity, status, message);
         }
     }
 
@@ -102,10 +217,13 @@ public class EntityContext implements Iterable<AttachedEntity> {
      * @param entity entity to be detached.
      */
     public void detach(final EntityTypeInvocationHandler entity) {
-        if (searchableEntities.containsKey(entity.getUUID())) {
+        if (searchableEntities.get(entity.getUUID()) == entity) {
             searchableEntities.remove(entity.getUUID());
         }
-        allAttachedEntities.remove(entity);
+        allAttachedEntities.remove(new IdentityKey(entity));
+        if (attachmentOrder != null) {
+            attachmentOrder.remove(new IdentityKey(entity));
+        }
     }
 
     /**
@@ -116,6 +234,9 @@ public class EntityContext implements Iterable<AttachedEntity> {
     public void detachAll() {
         allAttachedEntities.clear();
         searchableEntities.clear();
+        if (attachmentOrder != null) {
+            attachmentOrder.clear();
+        }
     }
 
     /**
@@ -135,11 +256,12 @@ public class EntityContext implements Iterable<AttachedEntity> {
      * @return attached entity status.
      */
     public AttachedEntityStatus getStatus(final EntityTypeInvocationHandler entity) {
-        if (!isAttached(entity)) {
+        final AttachedEntityStatus status = allAttachedEntities.get(new IdentityKey(resolve(entity)));
+        if (status == null && !isAttached(entity)) {
             throw new IllegalStateException("Entity is not in the context");
         }
 
-        return allAttachedEntities.get(entity);
+        return status;
     }
 
     /**
@@ -149,26 +271,41 @@ public class EntityContext implements Iterable<AttachedEntity> {
      * @param status new status.
      */
     public void setStatus(final EntityTypeInvocationHandler entity, final AttachedEntityStatus status) {
-        if (!isAttached(entity)) {
-            throw new IllegalStateException("Entity is not in the context");
-        }
+        while (true) {
+            if (!isAttached(entity)) {
+                throw new IllegalStateException("Entity is not in the context");
+            }
 
-        final AttachedEntityStatus current = allAttachedEntities.get(entity);
+            final IdentityKey key = new IdentityKey(resolve(entity));
+            final AttachedEntityStatus current = allAttachedEntities.get(key);
 
-        // Previously deleted object cannot be modified anymore.
-        if (current == AttachedEntityStatus.DELETED) {
-            throw new IllegalStateException("Entity has been previously deleted");
-        }
+            // Previously deleted object cannot be modified anymore.
+            if (current == AttachedEntityStatus.DELETED) {
+                throw new IllegalStateException("Entity has been previously deleted");
+            }
 
-        if (status == AttachedEntityStatus.NEW || status == AttachedEntityStatus.ATTACHED) {
-            throw new IllegalStateException("Entity status has already been initialized");
-        }
+            if (status == AttachedEntityStatus.NEW || status == AttachedEntityStatus.ATTACHED) {
+                throw new IllegalStateException("Entity status has already been initialized");
+            }
 
-        if ((status == AttachedEntityStatus.LINKED && current == AttachedEntityStatus.ATTACHED)
-                || (status == AttachedEntityStatus.CHANGED && current == AttachedEntityStatus.ATTACHED)
-                || (status == AttachedEntityStatus.CHANGED && current == AttachedEntityStatus.LINKED)
-                || (status == AttachedEntityStatus.DELETED)) {
-            allAttachedEntities.put(entity, status);
+            if (!((status == AttachedEntityStatus.LINKED && current == AttachedEntityStatus.ATTACHED)
+                    || (status == AttachedEntityStatus.CHANGED && current == AttachedEntityStatus.ATTACHED)
+                    || (status == AttachedEntityStatus.CHANGED && current == AttachedEntityStatus.LINKED)
+                    || (status == AttachedEntityStatus.DELETED))) {
+                return;
+            }
+
+            // retry if the status was changed meanwhile by another thread
+            if (current == null) {
+                if (attachmentOrder != null) {
+                    attachmentOrder.putIfAbsent(key, attachments.incrementAndGet());
+                }
+                if (putIfAbsent(allAttachedEntities, key, status) == null) {
+                    return;
+                }
+            } else if (replace(allAttachedEntities, key, current, status)) {
+                return;
+            }
         }
     }
 
@@ -179,22 +316,47 @@ public class EntityContext implements Iterable<AttachedEntity> {
      * @return <tt>true</tt> if is attached; <tt>false</tt> otherwise.
      */
     public boolean isAttached(final EntityTypeInvocationHandler entity) {
-        return allAttachedEntities.containsKey(entity)
+        return allAttachedEntities.containsKey(new IdentityKey(entity))
                 || (entity.getUUID().getKey() != null && searchableEntities.containsKey(entity.getUUID()));
     }
 
+    /**
+     * Checks if no entity is attached.
+     *
+     * @return <tt>true</tt> if no entity is attached; <tt>false</tt> otherwise.
+     */
+    public boolean isEmpty() {
+        return allAttachedEntities.isEmpty() && searchableEntities.isEmpty();
+    }
+
     /**
      * Iterator.
+     * <p>
+     * Iterates over a snapshot of attached entities, in attachment order.
      *
      * @return attached entities iterator.
      */
     @Override
     public Iterator<AttachedEntity> iterator() {
         final List<AttachedEntity> res = new ArrayList<AttachedEntity>();
-        for (Map.Entry<EntityTypeInvocationHandler, AttachedEntityStatus> attachedEntity : allAttachedEntities.
-                entrySet()) {
-            res.add(new AttachedEntity(attachedEntity.getKey(), attachedEntity.getValue()));
+        for (Map.Entry<IdentityKey, AttachedEntityStatus> attachedEntity : allAttachedEntities.entrySet()) {
+            res.add(new AttachedEntity(attachedEntity.getKey().entity, attachedEntity.getValue()));
+        }
+
+        if (attachmentOrder != null) {
+            Collections.sort(res, new Comparator<AttachedEntity>() {
+
+                @Override
+                public int compare(final AttachedEntity entity1, final AttachedEntity entity2) {
+                    return getOrder(entity1).compareTo(getOrder(entity2));
+                }
+            });
         }
         return res.iterator();
     }
+
+    private Long getOrder(final AttachedEntity attachedEntity) {
+        final Long order = attachmentOrder.get(new IdentityKey(attachedEntity.getEntity()));
+        return order == null ? Long.MAX_VALUE : order;
+    }
 }
@@ -20,6 +20,7 @@
 package com.msopentech.odatajclient.proxy.api.context;
 
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
@@ -27,6 +28,11 @@ public class EntityUUID implements Serializable {
 
     private static final long serialVersionUID = 4855025769803086495L;
 
+    /**
+     * Sequence of temporary keys, telling apart new entities (with no key yet) of the same entity set.
+     */
+    private static final AtomicInteger TEMP_KEYS = new AtomicInteger();
+
     private final int tempKey;
 
     private final String schemaName;
@@ -58,7 +64,7 @@ public class EntityUUID implements Serializable {
         this.entitySetName = entitySetName;
         this.name = name;
         this.key = key;
-        this.tempKey = (int) (Math.random() * 1000000);
+        this.tempKey = TEMP_KEYS.incrementAndGet();
     }
 
     public String getSchemaName() {
@@ -96,7 +102,9 @@ public class EntityUUID implements Serializable {
      */
     @Override
     public int hashCode() {
-        return HashCodeBuilder.reflectionHashCode(this, "tempKey");
+        return key == null
+                ? HashCodeBuilder.reflectionHashCode(this)
+                : HashCodeBuilder.reflectionHashCode(this, "tempKey");
     }
 
     /**
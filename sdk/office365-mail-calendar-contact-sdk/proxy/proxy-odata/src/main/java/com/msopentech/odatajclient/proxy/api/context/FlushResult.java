@@ -0,0 +1,88 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy.api.context;
+
+import com.msopentech.odatajclient.proxy.api.impl.EntityTypeInvocationHandler;
+
+/**
+ * Outcome of pushing to the service the changes of an attached entity, or the links of an entity scheduled after all
+ * entities were pushed.
+ */
+public class FlushResult {
+
+    private final EntityTypeInvocationHandler entity;
+
+    private final AttachedEntityStatus status;
+
+    private final boolean linkUpdate;
+
+    private final RuntimeException error;
+
+    public FlushResult(final EntityTypeInvocationHandler entity, final AttachedEntityStatus status,
+            final boolean linkUpdate, final RuntimeException error) {
+
+        this.entity = entity;
+        this.status = status;
+        this.linkUpdate = linkUpdate;
+        this.error = error;
+    }
+
+    public EntityTypeInvocationHandler getEntity() {
+        return entity;
+    }
+
+    /**
+     * Gets the status of the entity when changes were pushed.
+     *
+     * @return entity status.
+     */
+    public AttachedEntityStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Tells whether this is the outcome of a link update, scheduled after all entities were pushed.
+     *
+     * @return whether this is the outcome of a link update.
+     */
+    public boolean isLinkUpdate() {
+        return linkUpdate;
+    }
+
+    public boolean isSucceeded() {
+        return error == null;
+    }
+
+    /**
+     * Gets the error raised while pushing changes, or telling that changes were not pushed because an operation they
+     * depend on failed.
+     *
+     * @return error, or null if changes were pushed.
+     */
+    public RuntimeException getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return (linkUpdate ? "links of " : "") + entity + " (" + status + "): "
+                + (error == null ? "OK" : error.getMessage());
+    }
+}
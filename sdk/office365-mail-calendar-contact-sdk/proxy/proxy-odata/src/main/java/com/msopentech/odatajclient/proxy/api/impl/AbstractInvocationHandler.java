@@ -63,9 +63,11 @@ import com.msopentech.odatajclient.engine.data.metadata.edm.v4.Function;
 import com.msopentech.odatajclient.engine.data.metadata.edm.v4.Schema;
 import com.msopentech.odatajclient.engine.uri.URIBuilder;
 import com.msopentech.odatajclient.proxy.api.AbstractContainer;
+import com.msopentech.odatajclient.proxy.api.AbstractEntityType;
 import com.msopentech.odatajclient.proxy.api.EntityContainerFactory;
 import com.msopentech.odatajclient.proxy.api.annotations.Operation;
 import com.msopentech.odatajclient.proxy.api.annotations.Parameter;
+import com.msopentech.odatajclient.proxy.api.context.EntityContext;
 import com.msopentech.odatajclient.proxy.utils.ClassUtils;
 import com.msopentech.odatajclient.proxy.utils.EngineUtils;
 
@@ -150,16 +152,28 @@ abstract class AbstractInvocationHandler implements InvocationHandler {
             final String eTag,
             final boolean checkInTheContext) {
 
-        EntityTypeInvocationHandler handler = EntityTypeInvocationHandler.getInstance(
-                entity, entityContainerName, entitySetName, type, containerHandler);
-
         if (StringUtils.isNotBlank(eTag)) {
             // override ETag into the wrapped object.
-            handler.setETag(eTag);
+            entity.setETag(eTag);
         }
 
-        if (checkInTheContext && EntityContainerFactory.getContext().entityContext().isAttached(handler)) {
-            handler = EntityContainerFactory.getContext().entityContext().getEntity(handler.getUUID());
+        final EntityContext entityContext = EntityContainerFactory.getContext().entityContext();
+
+        // generated entity types need no handler, unless an entity with the same key might be in the context
+        final AbstractEntityType generated = GeneratedEntityTypes.newInstance(type);
+        if (generated != null && (!checkInTheContext || entityContext.isEmpty())) {
+            generated.bind(entity, containerHandler, entityContainerName, entitySetName, null);
+            return (T) generated;
+        }
+
+        EntityTypeInvocationHandler handler = EntityTypeInvocationHandler.getInstance(
+                entity, entityContainerName, entitySetName, type, containerHandler);
+
+        if (checkInTheContext && entityContext.isAttached(handler)) {
+            handler = entityContext.getEntity(handler.getUUID());
+        } else if (generated != null) {
+            generated.bind(entity, containerHandler, entityContainerName, entitySetName, handler);
+            return (T) generated;
         }
 
         return (T) Proxy.newProxyInstance(
@@ -264,6 +278,18 @@ abstract class AbstractInvocationHandler implements InvocationHandler {
         throw new IllegalArgumentException("Could not process the functionImport information");
     }
 
+    /**
+     * Retrieves the entity at the given URI, along with other retrieve requests if coalescing is enabled.
+     *
+     * @param uri entity URI.
+     * @return entity, with its ETag.
+     * @see EntityContainerFactory#setRetrieveCoalescing(int, long, java.util.concurrent.TimeUnit)
+     */
+    protected ODataEntity retrieveEntity(final URI uri) {
+        final RetrieveCoalescer coalescer = containerHandler.getFactory().getRetrieveCoalescer();
+        return coalescer == null ? RetrieveCoalescer.execute(client, uri) : coalescer.getEntity(uri);
+    }
+
     /**
      * Gets container to communicate with endpoint.
      *
@@ -0,0 +1,237 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy.api.impl;
+
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
+import com.msopentech.odatajclient.proxy.api.annotations.NavigationProperty;
+import com.msopentech.odatajclient.proxy.api.annotations.Operation;
+import com.msopentech.odatajclient.proxy.api.annotations.Property;
+import com.msopentech.odatajclient.proxy.utils.ClassUtils;
+
+/**
+ * What a method of an entity type interface does once invoked on its proxy, resolved via reflection on first
+ * invocation and then looked up from a per-interface dispatch table.
+ *
+ * @see EntityTypeInvocationHandler#invoke(Object, Method, Object[])
+ */
+final class AccessorDescriptor {
+
+    enum Kind {
+
+        /**
+         * Method implemented by the invocation handler itself.
+         */
+        SELF,
+        /**
+         * Bound operation.
+         */
+        OPERATION,
+        PROPERTY_GETTER,
+        PROPERTY_SETTER,
+        NAVIGATION_GETTER,
+        NAVIGATION_SETTER,
+        /**
+         * Getter or setter with neither property nor navigation property annotation.
+         */
+        UNSUPPORTED,
+        /**
+         * Any other method: it depends on the entity set of the invoked entity.
+         */
+        OTHER
+
+    }
+
+    /**
+     * Dispatch tables, per entity type interface.
+     */
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<Method, AccessorDescriptor>> DISPATCH =
+            new ConcurrentHashMap<Class<?>, ConcurrentMap<Method, AccessorDescriptor>>();
+
+    private final Kind kind;
+
+    private final Method method;
+
+    private final Annotation[] annotations;
+
+    private final Property property;
+
+    private final NavigationProperty navigationProperty;
+
+    private final Method getter;
+
+    private final Type type;
+
+    private final boolean streamed;
+
+    private final EdmSimpleType simpleType;
+
+    private AccessorDescriptor(final Kind kind, final Method method, final Annotation[] annotations,
+            final Property property, final NavigationProperty navigationProperty, final Method getter) {
+
+        this.kind = kind;
+        this.method = method;
+        this.annotations = annotations;
+        this.property = property;
+        this.navigationProperty = navigationProperty;
+        this.getter = getter;
+        this.type = getter == null ? null : getter.getGenericReturnType();
+        this.streamed = type != null && !(type instanceof ParameterizedType) && (Class<?>) type == InputStream.class;
+
+        EdmSimpleType edmSimpleType = null;
+        if (property != null) {
+            try {
+                edmSimpleType = EdmSimpleType.fromValue(property.type());
+            } catch (RuntimeException e) {
+                // not a simple type
+            }
+        }
+        this.simpleType = edmSimpleType;
+    }
+
+    /**
+     * Gets the descriptor of the given method of the given entity type interface.
+     *
+     * @param typeRef entity type interface.
+     * @param method method invoked on a proxy of <tt>typeRef</tt>.
+     * @return method descriptor.
+     * @throws NoSuchMethodException if there is no getter for the given getter or setter.
+     */
+    static AccessorDescriptor get(final Class<?> typeRef, final Method method) throws NoSuchMethodException {
+        ConcurrentMap<Method, AccessorDescriptor> table = DISPATCH.get(typeRef);
+        if (table == null) {
+            table = new ConcurrentHashMap<Method, AccessorDescriptor>();
+            final ConcurrentMap<Method, AccessorDescriptor> existing = DISPATCH.putIfAbsent(typeRef, table);
+            if (existing != null) {
+                table = existing;
+            }
+        }
+
+        AccessorDescriptor descriptor = table.get(method);
+        if (descriptor == null) {
+            descriptor = resolve(typeRef, method);
+            table.put(method, descriptor);
+        }
+        return descriptor;
+    }
+
+    private static boolean isSelfMethod(final Method method) {
+        for (Method selfMethod : EntityTypeInvocationHandler.class.getMethods()) {
+            if (method.getName().equals(selfMethod.getName())
+                    && Arrays.equals(method.getParameterTypes(), selfMethod.getParameterTypes())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static AccessorDescriptor resolve(final Class<?> typeRef, final Method method)
+            throws NoSuchMethodException {
+
+        final Annotation[] methodAnnots = method.getAnnotations();
+
+        if (isSelfMethod(method)) {
+            return new AccessorDescriptor(Kind.SELF,
+                    EntityTypeInvocationHandler.class.getMethod(method.getName(), method.getParameterTypes()),
+                    null, null, null, null);
+        } else if (!ArrayUtils.isEmpty(methodAnnots) && methodAnnots[0] instanceof Operation) {
+            return new AccessorDescriptor(Kind.OPERATION, method, methodAnnots, null, null, null);
+        } else if (method.getName().startsWith("get") || method.getName().startsWith("set")) {
+            final boolean isGetter = method.getName().startsWith("get");
+            final Method getter = typeRef.getMethod(isGetter
+                    ? method.getName()
+                    : method.getName().replaceFirst("set", "get"));
+
+            final Property property = ClassUtils.getAnnotation(Property.class, getter);
+            if (property != null) {
+                return new AccessorDescriptor(isGetter ? Kind.PROPERTY_GETTER : Kind.PROPERTY_SETTER,
+                        method, null, property, null, getter);
+            }
+
+            final NavigationProperty navProp = ClassUtils.getAnnotation(NavigationProperty.class, getter);
+            if (navProp != null) {
+                return new AccessorDescriptor(isGetter ? Kind.NAVIGATION_GETTER : Kind.NAVIGATION_SETTER,
+                        method, null, null, navProp, getter);
+            }
+
+            return new AccessorDescriptor(Kind.UNSUPPORTED, method, null, null, null, getter);
+        }
+
+        return new AccessorDescriptor(Kind.OTHER, method, null, null, null, null);
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the invoked method or, for <tt>SELF</tt>, the invocation handler method to be invoked instead.
+     */
+    Method getMethod() {
+        return method;
+    }
+
+    Annotation[] getAnnotations() {
+        return annotations;
+    }
+
+    Property getProperty() {
+        return property;
+    }
+
+    NavigationProperty getNavigationProperty() {
+        return navigationProperty;
+    }
+
+    /**
+     * @return getter of the accessed property: the invoked method itself, or the one matching the invoked setter.
+     */
+    Method getGetter() {
+        return getter;
+    }
+
+    /**
+     * @return generic return type of the getter.
+     */
+    Type getType() {
+        return type;
+    }
+
+    boolean isStreamed() {
+        return streamed;
+    }
+
+    /**
+     * @return EDM simple type of the property, or null if not a simple type.
+     */
+    EdmSimpleType getSimpleType() {
+        return simpleType;
+    }
+}
@@ -20,7 +20,6 @@
 package com.msopentech.odatajclient.proxy.api.impl;
 
 import java.io.InputStream;
-import java.lang.reflect.Proxy;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -84,7 +83,13 @@ public class BatchContainer extends Container {
         // what is this?
         int pos = 0;
 
-        for (AttachedEntity attachedEntity : EntityContainerFactory.getContext().entityContext()) {
+        // only entities attached up to now are pushed, and then detached
+        final List<AttachedEntity> attached = new ArrayList<AttachedEntity>();
+        for (AttachedEntity attachedEntity : context.entityContext()) {
+            attached.add(attachedEntity);
+        }
+
+        for (AttachedEntity attachedEntity : attached) {
             final AttachedEntityStatus status = attachedEntity.getStatus();
             if (((status != AttachedEntityStatus.ATTACHED
                     && status != AttachedEntityStatus.LINKED) || attachedEntity.getEntity().isChanged())
@@ -138,13 +143,13 @@ public class BatchContainer extends Container {
             }
         }
 
-        EntityContainerFactory.getContext().detachAll();
+        context.detachAll(attached);
     }
 
     private void batch(
             final EntityTypeInvocationHandler handler, final ODataEntity entity, final ODataChangeset changeset) {
 
-        switch (EntityContainerFactory.getContext().entityContext().getStatus(handler)) {
+        switch (context.entityContext().getStatus(handler)) {
             case NEW:
                 batchCreate(handler, entity, changeset);
                 break;
@@ -282,7 +287,7 @@ public class BatchContainer extends Container {
 
         entity.getNavigationLinks().clear();
 
-        final AttachedEntityStatus currentStatus = EntityContainerFactory.getContext().entityContext().
+        final AttachedEntityStatus currentStatus = context.entityContext().
                 getStatus(handler);
 
         if (AttachedEntityStatus.DELETED != currentStatus) {
@@ -301,13 +306,12 @@ public class BatchContainer extends Container {
             for (Object proxy : type == ODataLinkType.ENTITY_SET_NAVIGATION
                     ? (Collection) property.getValue() : Collections.singleton(property.getValue())) {
 
-                final EntityTypeInvocationHandler target =
-                        (EntityTypeInvocationHandler) Proxy.getInvocationHandler(proxy);
+                final EntityTypeInvocationHandler target = EntityTypeInvocationHandler.getHandler(proxy);
 
                 final AttachedEntityStatus status;
 
                 try {
-                    status = EntityContainerFactory.getContext().entityContext().getStatus(target);
+                    status = context.entityContext().getStatus(target);
                 } catch (IllegalStateException e) {
                     // this case takes place if we iterate through collection and current item does not have any changes
                     // TODO find another way to look for changes in collection
@@ -36,6 +36,7 @@ import com.msopentech.odatajclient.engine.utils.URIUtils;
 import com.msopentech.odatajclient.proxy.api.AbstractContainer;
 import com.msopentech.odatajclient.proxy.api.EntityContainerFactory;
 import com.msopentech.odatajclient.proxy.api.context.AttachedEntityStatus;
+import com.msopentech.odatajclient.proxy.api.context.Context;
 import com.msopentech.odatajclient.proxy.api.context.EntityLinkDesc;
 
 // TODO: This has been a dependency for Batch request.
@@ -63,9 +64,15 @@ public abstract class Container implements AbstractContainer {
 
     protected final EntityContainerFactory factory;
 
+    /**
+     * Context whose changes are pushed: the one of the thread creating this container.
+     */
+    protected final Context context;
+
     protected Container(final ODataClient client, final EntityContainerFactory factory) {
         this.client = client;
         this.factory = factory;
+        this.context = EntityContainerFactory.getContext();
     }
 
     protected ODataLink buildNavigationLink(final String name, final URI uri, final ODataLinkType type) {
@@ -85,7 +92,7 @@ public abstract class Container implements AbstractContainer {
         ++pos;
         items.put(delayedUpdate.getSource(), pos);
         AttachedEntityStatus status =
-                EntityContainerFactory.getContext().entityContext().getStatus(delayedUpdate.getSource());
+                context.entityContext().getStatus(delayedUpdate.getSource());
 
         final URI sourceURI;
         if (status == AttachedEntityStatus.CHANGED) {
@@ -98,7 +105,7 @@ public abstract class Container implements AbstractContainer {
         }
 
         for (EntityTypeInvocationHandler target : delayedUpdate.getTargets()) {
-            status = EntityContainerFactory.getContext().entityContext().getStatus(target);
+            status = context.entityContext().getStatus(target);
 
             final URI targetURI;
             if (status == AttachedEntityStatus.CHANGED) {
@@ -350,12 +350,8 @@ class EntitySetInvocationHandler<
 
                 LOG.debug("Execute query '{}'", uriBuilder.toString());
 
-                final ODataRetrieveResponse<ODataEntity> res =
-                        client.getRetrieveRequestFactory().getEntityRequest(uriBuilder.build()).execute();
-
-                handler = EntityTypeInvocationHandler.getInstance(res.getBody(), containerHandler.getEntityContainerName(), this.entitySetName,
-                        typeRef, containerHandler);
-                handler.setETag(res.getEtag());
+                return getEntityProxy(retrieveEntity(uriBuilder.build()), containerHandler.getEntityContainerName(),
+                        this.entitySetName, typeRef, false);
             } catch (Exception e) {
                 LOG.info("Entity '" + uuid + "' not found", e);
             }
@@ -380,15 +376,8 @@ class EntitySetInvocationHandler<
 
         final List<S> items = new ArrayList<S>(entitySet.getEntities().size());
         for (ODataEntity entity : entitySet.getEntities()) {
-            final EntityTypeInvocationHandler handler = EntityTypeInvocationHandler.getInstance(entity, this, typeRef);
-
-            final EntityTypeInvocationHandler handlerInTheContext =
-                    EntityContainerFactory.getContext().entityContext().getEntity(handler.getUUID());
-
-            items.add((S) Proxy.newProxyInstance(
-                    Thread.currentThread().getContextClassLoader(),
-                    new Class<?>[] {typeRef},
-                    handlerInTheContext == null ? handler : handlerInTheContext));
+            items.add((S) getEntityProxy(
+                    entity, containerHandler.getEntityContainerName(), this.entitySetName, typeRef, true));
         }
 
         return new AbstractMap.SimpleEntry<List<S>, URI>(items, entitySet.getNext());
@@ -456,7 +445,7 @@ class EntitySetInvocationHandler<
         if (entity == null) {
             // search for entity
             final T searched = get(key);
-            entity = (EntityTypeInvocationHandler) Proxy.getInvocationHandler(searched);
+            entity = EntityTypeInvocationHandler.getHandler(searched);
             entityContext.attach(entity, AttachedEntityStatus.DELETED);
         } else {
             entityContext.setStatus(entity, AttachedEntityStatus.DELETED);
@@ -468,7 +457,7 @@ class EntitySetInvocationHandler<
         final EntityContext entityContext = EntityContainerFactory.getContext().entityContext();
 
         for (T en : entities) {
-            final EntityTypeInvocationHandler entity = (EntityTypeInvocationHandler) Proxy.getInvocationHandler(en);
+            final EntityTypeInvocationHandler entity = EntityTypeInvocationHandler.getHandler(en);
             if (entityContext.isAttached(entity)) {
                 entityContext.setStatus(entity, AttachedEntityStatus.DELETED);
             } else {
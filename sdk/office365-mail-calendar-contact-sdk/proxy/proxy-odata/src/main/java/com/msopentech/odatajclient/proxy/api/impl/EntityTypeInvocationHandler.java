@@ -35,7 +35,6 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
-import com.msopentech.org.apache.commons.codec.binary.Base64;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ArrayUtils;
@@ -45,19 +44,17 @@ import org.slf4j.LoggerFactory;
 
 import com.msopentech.odatajclient.engine.communication.request.invoke.AbstractOperation;
 import com.msopentech.odatajclient.engine.communication.request.retrieve.ODataMediaRequest;
-import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
 import com.msopentech.odatajclient.engine.data.ODataEntity;
 import com.msopentech.odatajclient.engine.data.ODataInlineEntity;
 import com.msopentech.odatajclient.engine.data.ODataInlineEntitySet;
 import com.msopentech.odatajclient.engine.data.ODataLink;
 import com.msopentech.odatajclient.engine.data.ODataProperty;
-import com.msopentech.odatajclient.engine.data.ODataTimestamp;
 import com.msopentech.odatajclient.engine.data.metadata.AbstractEdmMetadata;
 import com.msopentech.odatajclient.engine.data.metadata.EdmV4Metadata;
-import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
 import com.msopentech.odatajclient.engine.format.ODataMediaFormat;
 import com.msopentech.odatajclient.engine.utils.URIUtils;
 import com.msopentech.odatajclient.proxy.api.AbstractEntityCollection;
+import com.msopentech.odatajclient.proxy.api.AbstractEntityType;
 import com.msopentech.odatajclient.proxy.api.AbstractOpenType;
 import com.msopentech.odatajclient.proxy.api.EntityContainerFactory;
 import com.msopentech.odatajclient.proxy.api.annotations.EntityType;
@@ -130,7 +127,7 @@ public class EntityTypeInvocationHandler extends AbstractInvocationHandler imple
                 entitySet.containerHandler);
     }
 
-    static EntityTypeInvocationHandler getInstance(
+    public static EntityTypeInvocationHandler getInstance(
             final ODataEntity entity,
             final String entityContainerName,
             final String entitySetName,
@@ -140,6 +137,26 @@ public class EntityTypeInvocationHandler extends AbstractInvocationHandler imple
         return new EntityTypeInvocationHandler(entity, entityContainerName, entitySetName, typeRef, containerHandler);
     }
 
+    /**
+     * Gets the handler of the given entity: the invocation handler of a proxy, or the handler tracking changes of a
+     * generated entity type instance.
+     *
+     * @param entity entity.
+     * @return entity type handler.
+     * @throws IllegalArgumentException if the given object is not an entity.
+     */
+    static EntityTypeInvocationHandler getHandler(final Object entity) {
+        if (entity instanceof AbstractEntityType) {
+            return ((AbstractEntityType) entity).getHandler();
+        }
+
+        final InvocationHandler handler = Proxy.getInvocationHandler(entity);
+        if (!(handler instanceof EntityTypeInvocationHandler)) {
+            throw new IllegalArgumentException("Invalid argument type");
+        }
+        return (EntityTypeInvocationHandler) handler;
+    }
+
     private EntityTypeInvocationHandler(
             final ODataEntity entity,
             final String entityContainerName,
@@ -249,78 +266,77 @@ public class EntityTypeInvocationHandler extends AbstractInvocationHandler imple
     @Override
     @SuppressWarnings("unchecked")
     public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
-        final Annotation[] methodAnnots = method.getAnnotations();
-
-        if (isSelfMethod(method, args)) {
-            return invokeSelfMethod(method, args);
-        } else if (!ArrayUtils.isEmpty(methodAnnots) && methodAnnots[0] instanceof Operation) {
-            // search for operation in metadata
-            EdmV4Metadata meta = (EdmV4Metadata) containerHandler.getFactory().getMetadata();
-            Operation annot = (Operation) methodAnnots[0];
-            // if current entity is not created on server side yet, flush
-            if (getEntity().getEditLink() == null) {
-                getContainer().flush();
-            }
-
-            final AbstractOperation abstractOperation = getOperation(method, args, methodAnnots, meta, annot,
-                    ClassUtils.getNamespace(typeRef) + "." + ClassUtils.getEntityTypeName(typeRef), getEntity().getEditLink().toASCIIString());
+        // annotations, getters and EDM types are looked up via reflection once per method, then from the cache
+        final AccessorDescriptor descriptor = AccessorDescriptor.get(typeRef, method);
+
+        switch (descriptor.getKind()) {
+            case SELF:
+                LOG.debug("Invoking {}", method);
+                return descriptor.getMethod().invoke(this, args);
+
+            case OPERATION: {
+                // search for operation in metadata
+                final Annotation[] methodAnnots = descriptor.getAnnotations();
+                EdmV4Metadata meta = (EdmV4Metadata) containerHandler.getFactory().getMetadata();
+                Operation annot = (Operation) methodAnnots[0];
+                // if current entity is not created on server side yet, flush
+                if (getEntity().getEditLink() == null) {
+                    getContainer().flush();
+                }
 
-            return functionImport((Operation) methodAnnots[0], method, args, abstractOperation);
-        } // Assumption: for each getter will always exist a setter and viceversa. THIS IS WRONG FOR EXCHANGE - SOME FIELDS ARE READ-ONLY!
-        else if (method.getName().startsWith("get")) {
-            // get method annotation and check if it exists as expected
-            final Object res;
+                final AbstractOperation abstractOperation = getOperation(method, args, methodAnnots, meta, annot,
+                        ClassUtils.getNamespace(typeRef) + "." + ClassUtils.getEntityTypeName(typeRef), getEntity().getEditLink().toASCIIString());
 
-            final Method getter = typeRef.getMethod(method.getName());
+                return functionImport(annot, method, args, abstractOperation);
+            }
 
-            final Property property = ClassUtils.getAnnotation(Property.class, getter);
-            if (property == null) {
-                final NavigationProperty navProp = ClassUtils.getAnnotation(NavigationProperty.class, getter);
-                if (navProp == null) {
-                    throw new UnsupportedOperationException("Unsupported method " + method.getName());
-                } else {
-                    // if the getter refers to a navigation property ... navigate and follow link if necessary
-                    res = getNavigationPropertyValue(navProp, getter, containerHandler.getFactory().getMetadata());
-                }
-            } else {
+            // Assumption: for each getter will always exist a setter and viceversa. THIS IS WRONG FOR EXCHANGE - SOME FIELDS ARE READ-ONLY!
+            case PROPERTY_GETTER: {
                 // if the getter refers to a property .... get property from wrapped entity
-                res = getPropertyValue(property, getter.getGenericReturnType());
+                final Object res = getPropertyValue(descriptor);
+
+                // attach the current handler - FIXME is this mandatory?
+                attach();
+
+                return res;
             }
 
-            // attach the current handler - FIXME is this mandatory?
-            attach();
+            case NAVIGATION_GETTER: {
+                // if the getter refers to a navigation property ... navigate and follow link if necessary
+                final Object res = getNavigationPropertyValue(descriptor.getNavigationProperty(),
+                        descriptor.getGetter(), containerHandler.getFactory().getMetadata());
 
-            return res;
-        } else if (method.getName().startsWith("set")) {
-            // get the corresponding getter method (see assumption above). Correct for Exchange, if we have setter, getter always exists.
-            final String getterName = method.getName().replaceFirst("set", "get");
-            final Method getter = typeRef.getMethod(getterName);
-
-            final Property property = ClassUtils.getAnnotation(Property.class, getter);
-            if (property == null) {
-                final NavigationProperty navProp = ClassUtils.getAnnotation(NavigationProperty.class, getter);
-                if (navProp == null) {
-                    throw new UnsupportedOperationException("Unsupported method " + method.getName());
-                } else {
-                    // if the getter refers to a navigation property ...
-                    if (ArrayUtils.isEmpty(args) || args.length != 1) {
-                        throw new IllegalArgumentException("Invalid argument");
-                    }
+                // attach the current handler - FIXME is this mandatory?
+                attach();
 
-                    setNavigationPropertyValue(navProp, args[0]);
-                }
-            } else {
-                setPropertyValue(property, args[0]);
+                return res;
             }
 
-            return proxy;
-        } else if (method.getName().equalsIgnoreCase(getEntitySetName())) {
-            // returns top level entity set by its name in container
-            Method getter = containerHandler.getInterfaceType()
-                    .getDeclaredMethod("get" + StringUtils.capitalize(method.getName()), (Class<?>[]) null);
-            return containerHandler.invoke(null, getter, null);
-        } else {
-            throw new UnsupportedOperationException("Method not found: " + method);
+            case PROPERTY_SETTER:
+                setPropertyValue(descriptor.getProperty(), args[0]);
+                return proxy;
+
+            case NAVIGATION_SETTER:
+                // if the getter refers to a navigation property ...
+                if (ArrayUtils.isEmpty(args) || args.length != 1) {
+                    throw new IllegalArgumentException("Invalid argument");
+                }
+
+                setNavigationPropertyValue(descriptor.getNavigationProperty(), args[0]);
+                return proxy;
+
+            case UNSUPPORTED:
+                throw new UnsupportedOperationException("Unsupported method " + method.getName());
+
+            default:
+                if (method.getName().equalsIgnoreCase(getEntitySetName())) {
+                    // returns top level entity set by its name in container
+                    Method getter = containerHandler.getInterfaceType()
+                            .getDeclaredMethod("get" + StringUtils.capitalize(method.getName()), (Class<?>[]) null);
+                    return containerHandler.invoke(null, getter, null);
+                } else {
+                    throw new UnsupportedOperationException("Method not found: " + method);
+                }
         }
     }
 
@@ -384,15 +400,14 @@ public class EntityTypeInvocationHandler extends AbstractInvocationHandler imple
                                 true);
                     }
                 } else {
-                    final ODataRetrieveResponse<ODataEntity> res =
-                            client.getRetrieveRequestFactory().getEntityRequest(uri).execute();
+                    final ODataEntity target = retrieveEntity(uri);
 
                     navPropValue = getEntityProxy(
-                            res.getBody(),
+                            target,
                             property.targetContainer(),
                             property.targetEntitySet(),
                             type,
-                            res.getEtag(),
+                            target.getETag(),
                             true);
                 }
             }
@@ -451,42 +466,14 @@ public class EntityTypeInvocationHandler extends AbstractInvocationHandler imple
         }
     }
 
-    private Object getPropertyValue(final Property property, final Type type) {
-        if (!(type instanceof ParameterizedType) && (Class<?>) type == InputStream.class) {
-            return getStreamedProperty(property);
+    private Object getPropertyValue(final AccessorDescriptor descriptor) {
+        if (descriptor.isStreamed()) {
+            return getStreamedProperty(descriptor.getProperty());
         } else {
-            return convertValue(property.type(), getPropertyValue(property.name(), type));
-            
+            return EngineUtils.convertValue(descriptor.getSimpleType(),
+                    getPropertyValue(descriptor.getProperty().name(), descriptor.getType()));
         }
     }
-    
-    /**
-     * Performs additional manipulation on data before return them.
-     * 
-     * @param type Return type.
-     * @param value Value to make operations.
-     * @return Processed value.
-     */
-    private Object convertValue(String type, Object value) {
-        try {
-            EdmSimpleType simpleType = EdmSimpleType.fromValue(type);
-            // If we need to return Edm.Binary but now have String, this string is base64 encoded.
-            if (simpleType == EdmSimpleType.Binary && 
-                    value instanceof String &&
-                    Base64.isBase64((String) value)) {
-                return Base64.decodeBase64((String) value);
-            } // if we need to return ODataTimeStamp but have String, just parse it
-            else if (simpleType.javaType().equals(ODataTimestamp.class) &&
-                     value instanceof String) {
-                return ODataTimestamp.parse(EdmSimpleType.fromValue(type), (String) value);
-            }
-        
-        // handle other types here if needed
-        
-        } catch (Exception e) {/* this is not simple type */}
-            
-        return value;
-    }
 
     public Object getAdditionalProperty(final String name) {
         return getPropertyValue(name, null);
@@ -524,12 +511,7 @@ public class EntityTypeInvocationHandler extends AbstractInvocationHandler imple
         for (Object link : AbstractEntityCollection.class.isAssignableFrom(value.getClass())
                 ? (AbstractEntityCollection) value : Collections.singleton(value)) {
 
-            final InvocationHandler etih = Proxy.getInvocationHandler(link);
-            if (!(etih instanceof EntityTypeInvocationHandler)) {
-                throw new IllegalArgumentException("Invalid argument type");
-            }
-
-            final EntityTypeInvocationHandler handler = (EntityTypeInvocationHandler) etih;
+            final EntityTypeInvocationHandler handler = getHandler(link);
             if (!handler.getTypeRef().isAnnotationPresent(EntityType.class)) {
                 throw new IllegalArgumentException(
                         "Invalid argument type " + handler.getTypeRef().getSimpleName());
@@ -675,6 +657,9 @@ public class EntityTypeInvocationHandler extends AbstractInvocationHandler imple
         if (obj instanceof EntityTypeInvocationHandler) {
             return ((EntityTypeInvocationHandler) obj).getUUID().equals(uuid);
         }
+        if (obj instanceof AbstractEntityType) {
+            return ((AbstractEntityType) obj).getHandler().getUUID().equals(uuid);
+        }
         if (Proxy.getInvocationHandler(obj) != null &&
                     Proxy.getInvocationHandler(obj) instanceof EntityTypeInvocationHandler) {
             return ((EntityTypeInvocationHandler) Proxy.getInvocationHandler(obj)).getUUID().equals(uuid);
@@ -0,0 +1,67 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy.api.impl;
+
+import com.msopentech.odatajclient.proxy.api.AbstractEntityType;
+import com.msopentech.odatajclient.proxy.api.EntityContainerFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Generated entity type classes, registered as {@link AbstractEntityType} services, by entity type interface.
+ */
+final class GeneratedEntityTypes {
+
+    private static volatile Map<Class<?>, AbstractEntityType> prototypes;
+
+    private GeneratedEntityTypes() {
+        // Empty private constructor for static utility classes
+    }
+
+    private static Map<Class<?>, AbstractEntityType> getPrototypes() {
+        Map<Class<?>, AbstractEntityType> res = prototypes;
+        if (res == null) {
+            res = new HashMap<Class<?>, AbstractEntityType>();
+            for (AbstractEntityType prototype : ServiceLoader.load(AbstractEntityType.class)) {
+                res.put(prototype.getTypeRef(), prototype);
+            }
+            prototypes = res;
+        }
+        return res;
+    }
+
+    /**
+     * Creates a new instance of the generated class for the given entity type interface.
+     *
+     * @param typeRef entity type interface.
+     * @return new instance, or null if no class has been generated for the given interface or generated classes are
+     * disabled.
+     * @see EntityContainerFactory#setGeneratedEntityTypes(boolean)
+     */
+    static AbstractEntityType newInstance(final Class<?> typeRef) {
+        if (!EntityContainerFactory.isGeneratedEntityTypes()) {
+            return null;
+        }
+
+        final AbstractEntityType prototype = getPrototypes().get(typeRef);
+        return prototype == null ? null : prototype.newInstance();
+    }
+}
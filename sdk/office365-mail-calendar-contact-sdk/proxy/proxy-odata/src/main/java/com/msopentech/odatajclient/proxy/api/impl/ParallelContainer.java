@@ -0,0 +1,461 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy.api.impl;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataLinkType;
+import com.msopentech.odatajclient.engine.data.ODataObjectFactory;
+import com.msopentech.odatajclient.engine.utils.URIUtils;
+import com.msopentech.odatajclient.proxy.api.EntityContainerFactory;
+import com.msopentech.odatajclient.proxy.api.FlushException;
+import com.msopentech.odatajclient.proxy.api.annotations.NavigationProperty;
+import com.msopentech.odatajclient.proxy.api.context.AttachedEntity;
+import com.msopentech.odatajclient.proxy.api.context.AttachedEntityStatus;
+import com.msopentech.odatajclient.proxy.api.context.EntityLinkDesc;
+import com.msopentech.odatajclient.proxy.api.context.FlushResult;
+import com.msopentech.odatajclient.proxy.utils.EngineUtils;
+
+/**
+ * Pushes local changes to server in their own requests, as {@link SequentialContainer}, but running independent
+ * requests concurrently.
+ * <p>
+ * Requests are planned first, as a dependency graph: an entity linking to an entity created or changed in the same
+ * flush is pushed after its target, and links closing a cycle are updated once all entities involved have been pushed.
+ * Then requests whose dependencies are satisfied are sent, up to the given parallelism level at a time, via the
+ * executor service of the client configuration.
+ * <p>
+ * Operations depending on a failed operation are not run. Entities whose changes were all pushed are detached;
+ * the others are left attached, and a {@link FlushException} reports the outcome of every operation. Entities
+ * created by the service are left attached as <tt>CHANGED</tt>, so that flushing again does not create them twice.
+ */
+public class ParallelContainer extends SequentialContainer {
+
+    private static final long serialVersionUID = -3725094409470498384L;
+
+    /**
+     * Link from the entity being pushed to an entity created or changed in the same flush: the link URI is known
+     * once the target has been pushed.
+     */
+    private static class PendingLink {
+
+        private final String name;
+
+        private final EntityTypeInvocationHandler target;
+
+        private final ODataLinkType type;
+
+        PendingLink(final String name, final EntityTypeInvocationHandler target, final ODataLinkType type) {
+            this.name = name;
+            this.target = target;
+            this.type = type;
+        }
+    }
+
+    /**
+     * Node of the dependency graph: either pushes the changes of an entity, or updates links closing a cycle.
+     */
+    private static class Operation {
+
+        private final EntityTypeInvocationHandler handler;
+
+        private final AttachedEntityStatus status;
+
+        private final ODataEntity entity;
+
+        private final EntityLinkDesc delayedUpdate;
+
+        private final List<PendingLink> pendingLinks = new ArrayList<PendingLink>();
+
+        private final Set<Operation> dependencies = Collections.newSetFromMap(new IdentityHashMap<Operation, Boolean>());
+
+        private final List<Operation> dependents = new ArrayList<Operation>();
+
+        private boolean planned;
+
+        private volatile boolean created;
+
+        private int unresolved;
+
+        private FlushResult result;
+
+        Operation(final EntityTypeInvocationHandler handler, final AttachedEntityStatus status,
+                final ODataEntity entity, final EntityLinkDesc delayedUpdate) {
+
+            this.handler = handler;
+            this.status = status;
+            this.entity = entity;
+            this.delayedUpdate = delayedUpdate;
+        }
+
+        void dependsOn(final Operation operation) {
+            if (operation != this && dependencies.add(operation)) {
+                operation.dependents.add(this);
+                unresolved++;
+            }
+        }
+    }
+
+    private final int parallelism;
+
+    private List<FlushResult> results = Collections.<FlushResult>emptyList();
+
+    public ParallelContainer(final ODataClient client, final EntityContainerFactory factory, final int parallelism) {
+        super(client, factory);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism level " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Gets the outcome of every operation run by the last flush, in the order operations were planned.
+     *
+     * @return per-operation results.
+     */
+    public List<FlushResult> getResults() {
+        return results;
+    }
+
+    @Override
+    public void flush() {
+        // only entities attached up to now are pushed, and then detached
+        final List<AttachedEntity> attached = new ArrayList<AttachedEntity>();
+        for (AttachedEntity attachedEntity : context.entityContext()) {
+            attached.add(attachedEntity);
+        }
+
+        final Map<EntityTypeInvocationHandler, Operation> operations =
+                new LinkedHashMap<EntityTypeInvocationHandler, Operation>();
+        final List<EntityLinkDesc> delayedUpdates = new ArrayList<EntityLinkDesc>();
+
+        for (AttachedEntity attachedEntity : attached) {
+            final AttachedEntityStatus status = attachedEntity.getStatus();
+            if (((status != AttachedEntityStatus.ATTACHED
+                    && status != AttachedEntityStatus.LINKED) || attachedEntity.getEntity().isChanged())
+                    && !operations.containsKey(attachedEntity.getEntity())) {
+                plan(attachedEntity.getEntity(), operations, delayedUpdates);
+            }
+        }
+
+        final List<Operation> plan = new ArrayList<Operation>(operations.values());
+        for (EntityLinkDesc delayedUpdate : delayedUpdates) {
+            final Operation operation = new Operation(delayedUpdate.getSource(),
+                    context.entityContext().getStatus(delayedUpdate.getSource()), null, delayedUpdate);
+            operation.dependsOn(operations.get(delayedUpdate.getSource()));
+            for (EntityTypeInvocationHandler target : delayedUpdate.getTargets()) {
+                final Operation targetOperation = operations.get(target);
+                if (targetOperation != null) {
+                    operation.dependsOn(targetOperation);
+                }
+            }
+            plan.add(operation);
+        }
+
+        try {
+            run(plan);
+        } finally {
+            for (Operation operation : plan) {
+                if (operation.created) {
+                    // no longer new, whatever happened to the steps after the creation
+                    context.entityContext().detach(operation.handler);
+                    context.entityContext().attach(operation.handler, AttachedEntityStatus.CHANGED);
+                }
+            }
+        }
+
+        final Set<EntityTypeInvocationHandler> failed = new HashSet<EntityTypeInvocationHandler>();
+        final List<FlushResult> outcome = new ArrayList<FlushResult>(plan.size());
+        for (Operation operation : plan) {
+            outcome.add(operation.result);
+            if (!operation.result.isSucceeded()) {
+                failed.add(operation.handler);
+            }
+        }
+        results = Collections.unmodifiableList(outcome);
+
+        final List<AttachedEntity> pushed = new ArrayList<AttachedEntity>(attached.size());
+        for (AttachedEntity attachedEntity : attached) {
+            if (!failed.contains(attachedEntity.getEntity())) {
+                pushed.add(attachedEntity);
+            }
+        }
+        context.detachAll(pushed);
+
+        if (!failed.isEmpty()) {
+            throw new FlushException(outcome);
+        }
+    }
+
+    private Operation plan(final EntityTypeInvocationHandler handler,
+            final Map<EntityTypeInvocationHandler, Operation> operations, final List<EntityLinkDesc> delayedUpdates) {
+
+        Operation operation = operations.get(handler);
+        if (operation != null) {
+            return operation;
+        }
+
+        LOG.debug("Plan '{}'", handler);
+
+        final AttachedEntityStatus currentStatus = context.entityContext().getStatus(handler);
+
+        final ODataEntity entity = handler.getEntity();
+        entity.getNavigationLinks().clear();
+
+        operation = new Operation(handler, currentStatus, entity, null);
+        operations.put(handler, operation);
+
+        if (AttachedEntityStatus.DELETED != currentStatus) {
+            entity.getProperties().clear();
+            EngineUtils.addProperties(client, factory.getMetadata(), handler.getPropertyChanges(), entity);
+        }
+
+        for (Map.Entry<NavigationProperty, Object> property : handler.getLinkChanges().entrySet()) {
+            final ODataLinkType type = Collection.class.isAssignableFrom(property.getValue().getClass())
+                    ? ODataLinkType.ENTITY_SET_NAVIGATION
+                    : ODataLinkType.ENTITY_NAVIGATION;
+
+            final Set<EntityTypeInvocationHandler> toBeLinked = new HashSet<EntityTypeInvocationHandler>();
+
+            for (Object proxy : type == ODataLinkType.ENTITY_SET_NAVIGATION
+                    ? (Collection) property.getValue() : Collections.singleton(property.getValue())) {
+
+                final EntityTypeInvocationHandler target = EntityTypeInvocationHandler.getHandler(proxy);
+
+                final AttachedEntityStatus status;
+                try {
+                    status = context.entityContext().getStatus(target);
+                } catch (IllegalStateException e) {
+                    // same as SequentialContainer: collection items with no changes are not in the context
+                    continue;
+                }
+
+                if ((status == AttachedEntityStatus.ATTACHED || status == AttachedEntityStatus.LINKED)
+                        && !target.isChanged()) {
+                    entity.addLink(buildNavigationLink(property.getKey().name(), getEditLink(target), type));
+                } else {
+                    final Operation targetOperation = plan(target, operations, delayedUpdates);
+                    if (!targetOperation.planned) {
+                        // the target depends on the current object: schedule the link update
+                        LOG.debug("Schedule '{}' from '{}' to '{}'", type.name(), handler, target);
+                        toBeLinked.add(target);
+                    } else if (status == AttachedEntityStatus.CHANGED) {
+                        entity.addLink(buildNavigationLink(property.getKey().name(), getEditLink(target), type));
+                    } else {
+                        operation.pendingLinks.add(new PendingLink(property.getKey().name(), target, type));
+                        operation.dependsOn(targetOperation);
+                    }
+                }
+            }
+
+            if (!toBeLinked.isEmpty()) {
+                delayedUpdates.add(new EntityLinkDesc(property.getKey().name(), handler, toBeLinked, type));
+            }
+        }
+
+        operation.planned = true;
+        return operation;
+    }
+
+    private URI getEditLink(final EntityTypeInvocationHandler handler) {
+        return URIUtils.getURI(factory.getServiceRoot(), handler.getEntity().getEditLink().toASCIIString());
+    }
+
+    /**
+     * Runs planned operations, each one as soon as all its dependencies succeeded.
+     *
+     * @param plan operations, in planning order.
+     */
+    private void run(final List<Operation> plan) {
+        final Queue<Operation> ready = new ArrayDeque<Operation>();
+        for (Operation operation : plan) {
+            if (operation.unresolved == 0) {
+                ready.add(operation);
+            }
+        }
+
+        final CompletionService<Operation> completion =
+                new ExecutorCompletionService<Operation>(client.getConfiguration().getExecutor());
+        final List<Future<Operation>> submitted = new ArrayList<Future<Operation>>(plan.size());
+        boolean completed = false;
+        try {
+            int running = 0;
+            while (!ready.isEmpty() || running > 0) {
+                while (!ready.isEmpty() && running < parallelism) {
+                    final Operation operation = ready.poll();
+                    submitted.add(completion.submit(new Callable<Operation>() {
+
+                        @Override
+                        public Operation call() {
+                            execute(operation);
+                            return operation;
+                        }
+                    }));
+                    running++;
+                }
+
+                final Operation done;
+                try {
+                    done = completion.take().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while flushing", e);
+                } catch (ExecutionException e) {
+                    // execute() catches all runtime exceptions: only errors get here
+                    throw new IllegalStateException(e.getCause());
+                }
+                running--;
+
+                for (Operation dependent : done.dependents) {
+                    if (dependent.result != null) {
+                        continue;
+                    }
+                    if (done.result.isSucceeded()) {
+                        if (--dependent.unresolved == 0) {
+                            ready.add(dependent);
+                        }
+                    } else {
+                        skip(dependent, done);
+                    }
+                }
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                for (Future<Operation> future : submitted) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    private void skip(final Operation operation, final Operation failed) {
+        LOG.debug("Skip '{}', depending on failed '{}'", operation.handler, failed.handler);
+        operation.result = new FlushResult(operation.handler, operation.status, operation.delayedUpdate != null,
+                new IllegalStateException("Not pushed: depends on failed operation on " + failed.handler,
+                failed.result.getError()));
+
+        for (Operation dependent : operation.dependents) {
+            if (dependent.result == null) {
+                skip(dependent, failed);
+            }
+        }
+    }
+
+    private void execute(final Operation operation) {
+        RuntimeException error = null;
+        try {
+            if (operation.delayedUpdate == null) {
+                push(operation);
+            } else {
+                updateLinks(operation.delayedUpdate);
+            }
+        } catch (RuntimeException e) {
+            LOG.error("While pushing '{}'", operation.handler, e);
+            error = e;
+        }
+
+        operation.result =
+                new FlushResult(operation.handler, operation.status, operation.delayedUpdate != null, error);
+    }
+
+    private void push(final Operation operation) {
+        final EntityTypeInvocationHandler handler = operation.handler;
+        final ODataEntity entity = operation.entity;
+
+        for (PendingLink link : operation.pendingLinks) {
+            LOG.debug("'{}' from '{}' to '{}'", link.type.name(), handler, link.target);
+            entity.addLink(buildNavigationLink(link.name, getEditLink(link.target), link.type));
+        }
+
+        LOG.debug("Send '{}' to service", handler);
+        switch (operation.status) {
+            case NEW:
+                create(handler, entity);
+                operation.created = true;
+                break;
+
+            case CHANGED:
+                update(handler, entity);
+                break;
+
+            case DELETED:
+                delete(handler, entity);
+                break;
+
+            default:
+                if (handler.isChanged()) {
+                    update(handler, entity);
+                }
+        }
+
+        // new entities were given their edit link by the service
+        if (handler.getEntity().isMediaEntity()) {
+            if (!handler.getPropertyChanges().isEmpty()) {
+                update(handler, getEditLink(handler), entity);
+            }
+
+            if (handler.getStreamChanges() != null) {
+                updateMediaEntity(handler, URIUtils.getURI(factory.getServiceRoot(),
+                        handler.getEntity().getEditLink().toASCIIString() + "/$value"), handler.getStreamChanges());
+            }
+        }
+
+        for (Map.Entry<String, InputStream> streamedChanges : handler.getStreamedPropertyChanges().entrySet()) {
+            updateMediaResource(handler, URIUtils.getURI(factory.getServiceRoot(),
+                    EngineUtils.getEditMediaLink(streamedChanges.getKey(), handler.getEntity()).toASCIIString()),
+                    streamedChanges.getValue());
+        }
+    }
+
+    private void updateLinks(final EntityLinkDesc delayedUpdate) {
+        final ODataEntity changes = ODataObjectFactory.newEntity(delayedUpdate.getSource().getEntity().getName());
+
+        for (EntityTypeInvocationHandler target : delayedUpdate.getTargets()) {
+            changes.addLink(buildNavigationLink(delayedUpdate.getSourceName(), getEditLink(target),
+                    delayedUpdate.getType()));
+        }
+
+        update(delayedUpdate.getSource(), getEditLink(delayedUpdate.getSource()), changes);
+    }
+}
@@ -0,0 +1,335 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy.api.impl;
+
+import com.msopentech.odatajclient.engine.client.ODataClient;
+import com.msopentech.odatajclient.engine.communication.ODataClientErrorException;
+import com.msopentech.odatajclient.engine.communication.ODataServerErrorException;
+import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchRequest;
+import com.msopentech.odatajclient.engine.communication.request.batch.ODataBatchResponseItem;
+import com.msopentech.odatajclient.engine.communication.response.ODataBatchResponse;
+import com.msopentech.odatajclient.engine.communication.response.ODataResponse;
+import com.msopentech.odatajclient.engine.communication.response.ODataRetrieveResponse;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.org.apache.http.HttpVersion;
+import com.msopentech.org.apache.http.StatusLine;
+import com.msopentech.org.apache.http.message.BasicStatusLine;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces entity retrieve requests issued by different threads within a short window - or up to a maximum number
+ * of them - into a single <tt>$batch</tt> request, each caller getting the entity from its own response item.
+ * <p>
+ * The first caller of each batch waits for the window to elapse, or for the batch to be full, and then sends it,
+ * on behalf of all callers. Whenever a <tt>$batch</tt> request fails, its callers send their own requests; once the
+ * service tells that it does not support <tt>$batch</tt> at all, every caller does.
+ */
+public class RetrieveCoalescer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RetrieveCoalescer.class);
+
+    /**
+     * <tt>$batch</tt> response status codes telling that the service does not support <tt>$batch</tt> requests.
+     */
+    private static final Set<Integer> BATCH_UNSUPPORTED = new HashSet<Integer>(Arrays.asList(400, 404, 405, 501));
+
+    private final ODataClient client;
+
+    private final String serviceRoot;
+
+    private final int maxRequests;
+
+    private final long windowMillis;
+
+    private volatile boolean batchSupported = true;
+
+    /**
+     * Batch being collected, if any.
+     */
+    private Batch current = null;
+
+    /**
+     * Requests collected to be sent together.
+     */
+    private static class Batch {
+
+        private final List<Pending> requests = new ArrayList<Pending>();
+
+        boolean isFull(final int maxRequests) {
+            return requests.size() >= maxRequests;
+        }
+    }
+
+    /**
+     * Retrieve request waiting for its entity.
+     */
+    private static class Pending {
+
+        private final URI uri;
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private ODataEntity entity;
+
+        private RuntimeException failure;
+
+        /**
+         * Whether the caller has to send its own request.
+         */
+        private boolean individual = false;
+
+        Pending(final URI uri) {
+            this.uri = uri;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param client client instance.
+     * @param serviceRoot service root, <tt>$batch</tt> requests are sent to.
+     * @param maxRequests maximum number of requests per batch.
+     * @param window time the first request of each batch waits for others.
+     * @param unit time unit of the window.
+     */
+    public RetrieveCoalescer(final ODataClient client, final String serviceRoot,
+            final int maxRequests, final long window, final TimeUnit unit) {
+
+        if (maxRequests < 1) {
+            throw new IllegalArgumentException("Invalid maximum number of requests per batch: " + maxRequests);
+        }
+        if (window < 0) {
+            throw new IllegalArgumentException("Invalid window: " + window);
+        }
+
+        this.client = client;
+        this.serviceRoot = serviceRoot;
+        this.maxRequests = maxRequests;
+        this.windowMillis = unit.toMillis(window);
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * Checks whether retrieve requests are still coalesced, i.e. the service has not told that it does not
+     * support <tt>$batch</tt> requests.
+     *
+     * @return <tt>true</tt> if no <tt>$batch</tt> request has been answered 400, 404, 405 or 501 so far.
+     */
+    public boolean isBatchSupported() {
+        return batchSupported;
+    }
+
+    /**
+     * Retrieves the entity at the given URI via a single request.
+     *
+     * @param client client instance.
+     * @param uri entity URI.
+     * @return entity, with its ETag.
+     */
+    static ODataEntity execute(final ODataClient client, final URI uri) {
+        final ODataRetrieveResponse<ODataEntity> res = client.getRetrieveRequestFactory().getEntityRequest(uri).execute();
+        final ODataEntity entity = res.getBody();
+        entity.setETag(res.getEtag());
+        return entity;
+    }
+
+    /**
+     * Retrieves the entity at the given URI, along with the requests issued by other threads meanwhile.
+     *
+     * @param uri entity URI.
+     * @return entity, with its ETag.
+     */
+    public ODataEntity getEntity(final URI uri) {
+        if (!batchSupported || maxRequests == 1) {
+            return execute(client, uri);
+        }
+
+        final Pending request = new Pending(uri);
+
+        Batch toBeSent = null;
+        synchronized (this) {
+            if (current == null || current.isFull(maxRequests)) {
+                current = new Batch();
+                toBeSent = current;
+            }
+            current.requests.add(request);
+
+            if (toBeSent == null) {
+                if (current.isFull(maxRequests)) {
+                    notifyAll();
+                }
+            } else {
+                // first request: waits for others
+                final long deadline = System.currentTimeMillis() + windowMillis;
+                try {
+                    for (long left = windowMillis; left > 0 && !toBeSent.isFull(maxRequests);
+                            left = deadline - System.currentTimeMillis()) {
+
+                        wait(left);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                if (current == toBeSent) {
+                    current = null;
+                }
+            }
+        }
+
+        if (toBeSent != null) {
+            send(toBeSent.requests);
+        }
+
+        try {
+            request.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+
+        if (request.individual) {
+            return execute(client, uri);
+        }
+        if (request.failure != null) {
+            throw request.failure;
+        }
+        return request.entity;
+    }
+
+    /**
+     * Sends the given requests as a single <tt>$batch</tt> request, if more than one.
+     *
+     * @param requests requests to be sent.
+     */
+    private void send(final List<Pending> requests) {
+        try {
+            if (requests.size() > 1 && batchSupported) {
+                LOG.debug("Coalescing {} retrieve requests into $batch", requests.size());
+
+                ODataBatchResponse response = null;
+                try {
+                    final ODataBatchRequest request = client.getBatchRequestFactory().getBatchRequest(serviceRoot);
+                    final ODataBatchRequest.BatchStreamManager streamManager = request.execute();
+                    for (Pending pending : requests) {
+                        streamManager.addRetrieve().setRequest(
+                                client.getRetrieveRequestFactory().getEntityRequest(pending.uri));
+                    }
+                    response = streamManager.getResponse();
+                } catch (RuntimeException e) {
+                    if (BATCH_UNSUPPORTED.contains(getStatusCode(e))) {
+                        LOG.warn("$batch not supported by {}: sending requests individually", serviceRoot, e);
+                        batchSupported = false;
+                    } else {
+                        LOG.warn("Error sending $batch to {}: sending requests individually", serviceRoot, e);
+                    }
+                }
+
+                if (response != null) {
+                    try {
+                        read(response, requests);
+                    } finally {
+                        response.close();
+                    }
+                }
+            }
+        } finally {
+            for (Pending pending : requests) {
+                if (pending.entity == null && pending.failure == null) {
+                    pending.individual = true;
+                }
+                pending.done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Gets the status code of the response the given exception - or any of its causes - was thrown for.
+     *
+     * @param e exception.
+     * @return status code, or -1 if not thrown for an error response.
+     */
+    private static int getStatusCode(final Throwable e) {
+        final Throwable[] throwables = ExceptionUtils.getThrowables(e);
+
+        int index = ExceptionUtils.indexOfType(e, ODataClientErrorException.class);
+        StatusLine statusLine = index < 0 ? null : ((ODataClientErrorException) throwables[index]).getStatusLine();
+        if (statusLine == null) {
+            index = ExceptionUtils.indexOfType(e, ODataServerErrorException.class);
+            statusLine = index < 0 ? null : ((ODataServerErrorException) throwables[index]).getStatusLine();
+        }
+
+        return statusLine == null ? -1 : statusLine.getStatusCode();
+    }
+
+    /**
+     * Completes the given requests from the items of the given <tt>$batch</tt> response.
+     *
+     * @param response batch response.
+     * @param requests requests, in the same order as response items; those without item are left to be sent
+     * individually.
+     */
+    @SuppressWarnings("unchecked")
+    private void read(final ODataBatchResponse response, final List<Pending> requests) {
+        final Iterator<ODataBatchResponseItem> items = response.getBody();
+        for (Pending pending : requests) {
+            final ODataResponse res;
+            try {
+                res = items.next().next();
+            } catch (RuntimeException e) {
+                LOG.warn("$batch response from {} has fewer items than requests", serviceRoot, e);
+                return;
+            }
+
+            try {
+                if (res.getStatusCode() >= 400) {
+                    final StatusLine statusLine =
+                            new BasicStatusLine(HttpVersion.HTTP_1_1, res.getStatusCode(), res.getStatusMessage());
+                    pending.failure = res.getStatusCode() >= 500
+                            ? new ODataServerErrorException(statusLine)
+                            : new ODataClientErrorException(statusLine);
+                } else {
+                    pending.entity = ((ODataRetrieveResponse<ODataEntity>) res).getBody();
+                    pending.entity.setETag(res.getEtag());
+                }
+            } catch (RuntimeException e) {
+                pending.failure = e;
+            }
+        }
+    }
+}
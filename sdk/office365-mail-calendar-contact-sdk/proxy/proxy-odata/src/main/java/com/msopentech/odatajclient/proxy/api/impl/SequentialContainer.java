@@ -20,7 +20,6 @@
 package com.msopentech.odatajclient.proxy.api.impl;
 
 import java.io.InputStream;
-import java.lang.reflect.Proxy;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -71,7 +70,13 @@ public class SequentialContainer extends Container {
 
         int pos = 0;
 
-        for (AttachedEntity attachedEntity : EntityContainerFactory.getContext().entityContext()) {
+        // only entities attached up to now are pushed, and then detached
+        final List<AttachedEntity> attached = new ArrayList<AttachedEntity>();
+        for (AttachedEntity attachedEntity : context.entityContext()) {
+            attached.add(attachedEntity);
+        }
+
+        for (AttachedEntity attachedEntity : attached) {
             final AttachedEntityStatus status = attachedEntity.getStatus();
             if (((status != AttachedEntityStatus.ATTACHED
                     && status != AttachedEntityStatus.LINKED) || attachedEntity.getEntity().isChanged())
@@ -83,7 +88,7 @@ public class SequentialContainer extends Container {
 
         processDelayedUpdates(delayedUpdates, pos, items);
 
-        EntityContainerFactory.getContext().detachAll();
+        context.detachAll(attached);
     }
 
     private void processDelayedUpdates(List<EntityLinkDesc> delayedUpdates, int pos, TransactionItems items) {
@@ -104,7 +109,7 @@ public class SequentialContainer extends Container {
         final ODataEntity entity = handler.getEntity();
         entity.getNavigationLinks().clear();
 
-        final AttachedEntityStatus currentStatus = EntityContainerFactory.getContext().entityContext().
+        final AttachedEntityStatus currentStatus = context.entityContext().
                 getStatus(handler);
 
         if (AttachedEntityStatus.DELETED != currentStatus) {
@@ -123,13 +128,12 @@ public class SequentialContainer extends Container {
             for (Object proxy : type == ODataLinkType.ENTITY_SET_NAVIGATION
                     ? (Collection) property.getValue() : Collections.singleton(property.getValue())) {
 
-                final EntityTypeInvocationHandler target =
-                        (EntityTypeInvocationHandler) Proxy.getInvocationHandler(proxy);
+                final EntityTypeInvocationHandler target = EntityTypeInvocationHandler.getHandler(proxy);
 
                 final AttachedEntityStatus status;
 
                 try {
-                    status = EntityContainerFactory.getContext().entityContext().getStatus(target);
+                    status = context.entityContext().getStatus(target);
                 } catch (IllegalStateException e) {
                     // this case takes place if we iterate through collection and current item does not have any changes
                     // TODO find another way to look for changes in collection
@@ -224,7 +228,7 @@ public class SequentialContainer extends Container {
     }
 
     private void send(EntityTypeInvocationHandler handler, ODataEntity entity) {
-        switch (EntityContainerFactory.getContext().entityContext().getStatus(handler)) {
+        switch (context.entityContext().getStatus(handler)) {
             case NEW:
                 create(handler, entity);
                 break;
@@ -244,7 +248,7 @@ public class SequentialContainer extends Container {
         }
     }
 
-    private void delete(EntityTypeInvocationHandler handler, ODataEntity entity) {
+    protected void delete(EntityTypeInvocationHandler handler, ODataEntity entity) {
         LOG.debug("Delete '{}'", entity.getEditLink());
 
         final ODataDeleteRequest req = client.getCUDRequestFactory().getDeleteRequest(URIUtils.getURI(
@@ -257,7 +261,7 @@ public class SequentialContainer extends Container {
         req.execute();
     }
 
-    private void update(EntityTypeInvocationHandler handler, ODataEntity changes) {
+    protected void update(EntityTypeInvocationHandler handler, ODataEntity changes) {
         LOG.debug("Update '{}'", changes.getEditLink());
 
         final ODataEntityUpdateRequest req =
@@ -271,7 +275,7 @@ public class SequentialContainer extends Container {
         handler.setEntity(req.execute().getBody());
     }
 
-    private void create(EntityTypeInvocationHandler handler, ODataEntity entity) {
+    protected void create(EntityTypeInvocationHandler handler, ODataEntity entity) {
         LOG.debug("Create '{}'", handler);
 
         final URIBuilder uriBuilder = client.getURIBuilder(factory.getServiceRoot()).
@@ -279,7 +283,7 @@ public class SequentialContainer extends Container {
         handler.setEntity(client.getCUDRequestFactory().getEntityCreateRequest(uriBuilder.build(), entity).execute().getBody());
     }
 
-    private void updateMediaResource(EntityTypeInvocationHandler handler, URI uri, InputStream input) {
+    protected void updateMediaResource(EntityTypeInvocationHandler handler, URI uri, InputStream input) {
         LOG.debug("Update media entity '{}'", uri);
 
         final ODataStreamUpdateRequest req = client.getStreamedRequestFactory().getStreamUpdateRequest(uri, input);
@@ -291,7 +295,7 @@ public class SequentialContainer extends Container {
         req.execute();
     }
 
-    private void updateMediaEntity(EntityTypeInvocationHandler handler, URI uri, InputStream input) {
+    protected void updateMediaEntity(EntityTypeInvocationHandler handler, URI uri, InputStream input) {
         LOG.debug("Update media entity '{}'", uri);
 
         final ODataMediaEntityUpdateRequest req =
@@ -308,7 +312,7 @@ public class SequentialContainer extends Container {
         req.execute();
     }
 
-    private void update(EntityTypeInvocationHandler handler, URI uri, ODataEntity entity) {
+    protected void update(EntityTypeInvocationHandler handler, URI uri, ODataEntity entity) {
         LOG.debug("Update '{}'", uri);
 
         final ODataEntityUpdateRequest req =
@@ -47,6 +47,7 @@ import com.msopentech.odatajclient.engine.data.ODataLinkType;
 import com.msopentech.odatajclient.engine.data.ODataObjectFactory;
 import com.msopentech.odatajclient.engine.data.ODataPrimitiveValue;
 import com.msopentech.odatajclient.engine.data.ODataProperty;
+import com.msopentech.odatajclient.engine.data.ODataTimestamp;
 import com.msopentech.odatajclient.engine.data.ODataValue;
 import com.msopentech.odatajclient.engine.data.metadata.AbstractEdmMetadata;
 import com.msopentech.odatajclient.engine.data.metadata.EdmType;
@@ -65,6 +66,7 @@ import com.msopentech.odatajclient.proxy.api.annotations.CompoundKeyElement;
 import com.msopentech.odatajclient.proxy.api.annotations.EnumType;
 import com.msopentech.odatajclient.proxy.api.annotations.Key;
 import com.msopentech.odatajclient.proxy.api.annotations.Property;
+import com.msopentech.org.apache.commons.codec.binary.Base64;
 
 public final class EngineUtils {
 
@@ -77,6 +79,141 @@ public final class EngineUtils {
         // Empty private constructor for static utility classes
     }
 
+    /**
+     * Performs additional manipulation on data before return them.
+     * 
+     * @param simpleType EDM simple type of the property, null if not a simple type.
+     * @param value Value to make operations.
+     * @return Processed value.
+     */
+    public static Object convertValue(final EdmSimpleType simpleType, final Object value) {
+        if (simpleType == null || !(value instanceof String)) {
+            return value;
+        }
+
+        try {
+            // If we need to return Edm.Binary but now have String, this string is base64 encoded.
+            if (simpleType == EdmSimpleType.Binary && Base64.isBase64((String) value)) {
+                return Base64.decodeBase64((String) value);
+            } // if we need to return ODataTimeStamp but have String, just parse it
+            else if (simpleType.javaType().equals(ODataTimestamp.class)) {
+                return ODataTimestamp.parse(simpleType, (String) value);
+            }
+
+        // handle other types here if needed
+
+        } catch (Exception e) {/* value cannot be converted */}
+
+        return value;
+    }
+
+    /**
+     * Gets the value of a primitive property, as the proxies do: used by generated entity and complex types.
+     *
+     * @param <T> Java type of the property.
+     * @param property property, possibly null.
+     * @param simpleType EDM simple type of the property.
+     * @return property value, or null if the property is missing or null.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T getPrimitiveValue(final ODataProperty property, final EdmSimpleType simpleType) {
+        return property == null || !property.hasPrimitiveValue()
+                ? null
+                : (T) convertValue(simpleType, property.getPrimitiveValue().toValue());
+    }
+
+    /**
+     * Gets the value of an enum property: used by generated entity and complex types.
+     *
+     * @param <E> enum type.
+     * @param property property, possibly null.
+     * @param reference enum class.
+     * @return property value, or null if the property is missing or null.
+     */
+    public static <E extends Enum<E>> E getEnumValue(final ODataProperty property, final Class<E> reference) {
+        final E res;
+
+        if (property == null) {
+            res = null;
+        } else if (property.hasEnumValue()) {
+            res = Enum.valueOf(reference, property.getEnumValue().getValue().name());
+        } else if (property.hasPrimitiveValue()) {
+            res = Enum.valueOf(reference, property.getPrimitiveValue().toString());
+        } else {
+            res = null;
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets the value of a complex property: used by generated entity and complex types.
+     *
+     * @param <C> complex type.
+     * @param property property, possibly null.
+     * @param complex complex type instance to be populated.
+     * @return the given instance, populated, or null if the property is missing or null.
+     */
+    public static <C extends AbstractComplexType> C getComplexValue(final ODataProperty property, final C complex) {
+        if (property == null || !property.hasComplexValue()) {
+            return null;
+        }
+
+        complex.readFrom(property.getComplexValue());
+        return complex;
+    }
+
+    /**
+     * Gets the value of a collection property of primitive items: used by generated entity and complex types.
+     *
+     * @param <T> Java type of the items.
+     * @param property property, possibly null.
+     * @param simpleType EDM simple type of the items.
+     * @return property value, or null if the property is missing or null.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Collection<T> getPrimitiveCollectionValue(
+            final ODataProperty property, final EdmSimpleType simpleType) {
+
+        if (property == null || !property.hasCollectionValue()) {
+            return null;
+        }
+
+        final Collection<T> res = new ArrayList<T>(property.getCollectionValue().size());
+        for (ODataValue value : property.getCollectionValue()) {
+            if (value.isPrimitive()) {
+                res.add((T) convertValue(simpleType, value.asPrimitive().toValue()));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Gets the value of a collection property of enum items: used by generated entity and complex types.
+     *
+     * @param <E> enum type.
+     * @param property property, possibly null.
+     * @param reference enum class.
+     * @return property value, or null if the property is missing or null.
+     */
+    public static <E extends Enum<E>> Collection<E> getEnumCollectionValue(
+            final ODataProperty property, final Class<E> reference) {
+
+        if (property == null || !property.hasCollectionValue()) {
+            return null;
+        }
+
+        final Collection<E> res = new ArrayList<E>(property.getCollectionValue().size());
+        for (ODataValue value : property.getCollectionValue()) {
+            if (value.isEnum()) {
+                res.add(Enum.valueOf(reference, value.asEnum().getValue().name()));
+            } else if (value.isPrimitive()) {
+                res.add(Enum.valueOf(reference, value.asPrimitive().toString()));
+            }
+        }
+        return res;
+    }
+
     public static ODataLink getNavigationLink(final String name, final ODataEntity entity) {
         ODataLink res = null;
         final List<ODataLink> links = entity.getNavigationLinks();
@@ -0,0 +1,482 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * In-process OData V3 service exposing the <tt>Customer</tt> and <tt>Message</tt> entity sets of {@link com.msopentech.odatajclient.proxy.model.DefaultContainer}, with
+ * configurable latency and failures; it records every request it gets.
+ */
+public final class CustomerService implements HttpHandler {
+
+    private static final String NAMESPACE = "Microsoft.Test.OData.Services.AstoriaDefaultService";
+
+    private static final Pattern ENTITY = Pattern.compile(".*/Customer\\((-?\\d+)\\)");
+
+    private static final Pattern MESSAGE = Pattern.compile(".*/Message\\((-?\\d+)\\)");
+
+    private static final Pattern BATCH_GET = Pattern.compile("^GET (\\S+) HTTP/1\\.1\r?$", Pattern.MULTILINE);
+
+    private static final String BATCH_BOUNDARY = "batchresponse_customers";
+
+    private static final Pattern SKIP_TOKEN = Pattern.compile(".*\\$skiptoken=(\\d+).*");
+
+    private static final int PAGE_SIZE = 100;
+
+    private static CustomerService instance;
+
+    /**
+     * Request received by the service.
+     */
+    public static class Request {
+
+        private final String method;
+
+        private final String path;
+
+        private final String body;
+
+        private final int started;
+
+        private int completed;
+
+        Request(final String method, final String path, final String body, final int started) {
+            this.method = method;
+            this.path = path;
+            this.body = body;
+            this.started = started;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        /**
+         * @return sequence number of the event of receiving this request.
+         */
+        public int getStarted() {
+            return started;
+        }
+
+        /**
+         * @return sequence number of the event of answering this request.
+         */
+        public int getCompleted() {
+            return completed;
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + path + " " + body;
+        }
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final HttpServer server;
+
+    private final byte[] metadata;
+
+    private final Map<Integer, ObjectNode> customers = new ConcurrentHashMap<Integer, ObjectNode>();
+
+    private final Map<Integer, ObjectNode> messages = new ConcurrentHashMap<Integer, ObjectNode>();
+
+    private final List<Request> requests = Collections.synchronizedList(new ArrayList<Request>());
+
+    private final Set<String> failingNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final Set<Integer> failingUpdates = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+    private final AtomicInteger events = new AtomicInteger();
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    private volatile long latency;
+
+    private volatile int batchStatus = 202;
+
+    private volatile int batchItems = Integer.MAX_VALUE;
+
+    /**
+     * Gets the service, started on first use and then shared by all tests.
+     *
+     * @return service.
+     */
+    public static synchronized CustomerService getInstance() {
+        if (instance == null) {
+            try {
+                instance = new CustomerService();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return instance;
+    }
+
+    private CustomerService() throws IOException {
+        final InputStream input = getClass().getResourceAsStream("/customers-metadata.xml");
+        try {
+            metadata = IOUtils.toByteArray(input);
+        } finally {
+            IOUtils.closeQuietly(input);
+        }
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/Static.svc", this);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    public String getServiceRoot() {
+        return "http://localhost:" + server.getAddress().getPort() + "/Static.svc";
+    }
+
+    /**
+     * Forgets recorded requests, stored customers and messages, and configured latency and failures; answers
+     * <tt>$batch</tt> requests in full again.
+     */
+    public void reset() {
+        requests.clear();
+        customers.clear();
+        messages.clear();
+        failingNames.clear();
+        failingUpdates.clear();
+        maxRunning.set(0);
+        latency = 0;
+        batchStatus = 202;
+        batchItems = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Sets the time taken to answer each request.
+     *
+     * @param millis latency in milliseconds.
+     */
+    public void setLatency(final long millis) {
+        latency = millis;
+    }
+
+    /**
+     * Sets the status <tt>$batch</tt> requests - made of retrieve requests only - are answered with: 202 answers them,
+     * any other rejects them.
+     *
+     * @param status <tt>$batch</tt> response status code.
+     */
+    public void setBatchStatus(final int status) {
+        batchStatus = status;
+    }
+
+    /**
+     * Sets the maximum number of items <tt>$batch</tt> responses are made of: further retrieve requests are not
+     * answered.
+     *
+     * @param items maximum number of <tt>$batch</tt> response items.
+     */
+    public void setBatchItems(final int items) {
+        batchItems = items;
+    }
+
+    /**
+     * Makes requests pushing a customer with the given name fail.
+     *
+     * @param name customer name.
+     */
+    public void failOn(final String name) {
+        failingNames.add(name);
+    }
+
+    /**
+     * Makes requests updating the customer with the given key fail.
+     *
+     * @param id customer key.
+     */
+    public void failUpdatesOf(final int id) {
+        failingUpdates.add(id);
+    }
+
+    /**
+     * Stores messages with keys from 1 to the given count, served in pages of 100: each has a sender, two
+     * recipients and two categories.
+     *
+     * @param count number of messages.
+     */
+    public void addMessages(final int count) {
+        for (int id = 1; id <= count; id++) {
+            final ObjectNode message = mapper.createObjectNode();
+            message.put("Subject", "Message " + id);
+            message.put("IsRead", id % 2 == 0);
+            message.put("DateTimeReceived", "2014-03-" + (10 + id % 20) + "T10:15:30");
+            message.set("From", recipient("Sender " + id));
+            message.putArray("ToRecipients").add(recipient("To " + id)).add(recipient("Cc " + id));
+            message.putArray("Categories").add("Inbox").add("Category " + id % 10);
+            messages.put(id, message);
+        }
+    }
+
+    private ObjectNode recipient(final String name) {
+        final ObjectNode recipient = mapper.createObjectNode();
+        recipient.put("Name", name);
+        recipient.put("Address", name.toLowerCase().replace(' ', '.') + "@contoso.com");
+        return recipient;
+    }
+
+    public ObjectNode getMessage(final int id) {
+        return messages.get(id);
+    }
+
+    public List<Request> getRequests() {
+        synchronized (requests) {
+            return new ArrayList<Request>(requests);
+        }
+    }
+
+    /**
+     * @return highest number of requests being answered at the same time.
+     */
+    public int getMaxRunning() {
+        return maxRunning.get();
+    }
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+        final int now = running.incrementAndGet();
+        int max = maxRunning.get();
+        while (now > max && !maxRunning.compareAndSet(max, now)) {
+            max = maxRunning.get();
+        }
+
+        try {
+            final Request request = new Request(
+                    exchange.getRequestMethod(),
+                    exchange.getRequestURI().getPath(),
+                    IOUtils.toString(exchange.getRequestBody(), "UTF-8"),
+                    events.incrementAndGet());
+
+            if (request.getPath().endsWith("/$metadata")) {
+                send(exchange, 200, "application/xml", metadata);
+                return;
+            }
+
+            requests.add(request);
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+
+            answer(exchange, request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            send(exchange, 500, null, null);
+        } finally {
+            running.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private void answer(final HttpExchange exchange, final Request request) throws IOException {
+        if (request.getPath().endsWith("/$batch")) {
+            request.completed = events.incrementAndGet();
+            if (batchStatus == 202) {
+                send(exchange, 202, "multipart/mixed; boundary=" + BATCH_BOUNDARY, toBatchResponse(request.getBody()));
+            } else {
+                send(exchange, batchStatus, null, null);
+            }
+            return;
+        }
+
+        final ObjectNode customer = request.getBody().isEmpty()
+                ? null
+                : (ObjectNode) mapper.readTree(request.getBody());
+        if (customer != null && customer.has("Name") && failingNames.contains(customer.get("Name").asText())) {
+            request.completed = events.incrementAndGet();
+            send(exchange, 500, null, null);
+            return;
+        }
+
+        final Matcher updated = ENTITY.matcher(request.getPath());
+        if (updated.matches() && !"GET".equals(request.getMethod()) && !"DELETE".equals(request.getMethod())
+                && failingUpdates.contains(Integer.valueOf(updated.group(1)))) {
+            request.completed = events.incrementAndGet();
+            send(exchange, 500, null, null);
+            return;
+        }
+
+        final Matcher message = MESSAGE.matcher(request.getPath());
+        if ("GET".equals(request.getMethod()) && request.getPath().endsWith("/Message")) {
+            request.completed = events.incrementAndGet();
+            final Matcher skipToken = SKIP_TOKEN.matcher(String.valueOf(exchange.getRequestURI().getQuery()));
+            send(exchange, 200, "application/json;odata=fullmetadata",
+                    toJSON(skipToken.matches() ? Integer.parseInt(skipToken.group(1)) : 0));
+            return;
+        } else if (message.matches() && messages.containsKey(Integer.valueOf(message.group(1)))) {
+            final int id = Integer.parseInt(message.group(1));
+            if (customer != null) {
+                messages.get(id).setAll(customer);
+            }
+            request.completed = events.incrementAndGet();
+            send(exchange, 200, "application/json;odata=fullmetadata", mapper.writeValueAsBytes(toMessage(id, true)));
+            return;
+        }
+
+        final Matcher matcher = ENTITY.matcher(request.getPath());
+        if ("POST".equals(request.getMethod()) && request.getPath().endsWith("/Customer")) {
+            final int id = customer.get("CustomerId").asInt();
+            customers.put(id, customer);
+            request.completed = events.incrementAndGet();
+            send(exchange, 201, "application/json;odata=fullmetadata", toJSON(id, customer));
+        } else if (matcher.matches() && "DELETE".equals(request.getMethod())) {
+            customers.remove(Integer.valueOf(matcher.group(1)));
+            request.completed = events.incrementAndGet();
+            send(exchange, 204, null, null);
+        } else if (matcher.matches()) {
+            final int id = Integer.parseInt(matcher.group(1));
+            final ObjectNode stored = customers.containsKey(id) ? customers.get(id) : mapper.createObjectNode();
+            if (customer != null) {
+                stored.setAll(customer);
+            }
+            stored.put("CustomerId", id);
+            customers.put(id, stored);
+            request.completed = events.incrementAndGet();
+            send(exchange, 200, "application/json;odata=fullmetadata", toJSON(id, stored));
+        } else {
+            request.completed = events.incrementAndGet();
+            send(exchange, 404, null, null);
+        }
+    }
+
+    /**
+     * Answers each customer retrieve request of the given <tt>$batch</tt> body, in order, up to the configured
+     * number of items; any other is not found.
+     */
+    private byte[] toBatchResponse(final String body) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final Matcher get = BATCH_GET.matcher(body);
+        for (int items = 0; items < batchItems && get.find(); items++) {
+            output.write(("--" + BATCH_BOUNDARY + "\r\n"
+                    + "Content-Type: application/http\r\n"
+                    + "Content-Transfer-Encoding: binary\r\n\r\n").getBytes("UTF-8"));
+
+            final Matcher matcher = ENTITY.matcher(get.group(1));
+            if (matcher.matches()) {
+                final int id = Integer.parseInt(matcher.group(1));
+                ObjectNode stored = customers.get(id);
+                if (stored == null) {
+                    stored = mapper.createObjectNode();
+                    stored.put("CustomerId", id);
+                    customers.put(id, stored);
+                }
+                output.write(("HTTP/1.1 200 OK\r\n"
+                        + "Content-Type: application/json;odata=fullmetadata\r\n\r\n").getBytes("UTF-8"));
+                output.write(toJSON(id, stored));
+            } else {
+                output.write("HTTP/1.1 404 Not Found\r\n\r\n".getBytes("UTF-8"));
+            }
+            output.write("\r\n".getBytes("UTF-8"));
+        }
+        output.write(("--" + BATCH_BOUNDARY + "--\r\n").getBytes("UTF-8"));
+        return output.toByteArray();
+    }
+
+    private byte[] toJSON(final int id, final ObjectNode customer) throws IOException {
+        final ObjectNode entity = mapper.createObjectNode();
+        entity.put("odata.metadata", getServiceRoot() + "/$metadata#Customer/@Element");
+        entity.put("odata.type", NAMESPACE + ".Customer");
+        entity.put("odata.id", getServiceRoot() + "/Customer(" + id + ")");
+        entity.put("odata.editLink", "Customer(" + id + ")");
+        entity.put("CustomerId", id);
+        if (customer.has("Name")) {
+            entity.put("Name", customer.get("Name").asText());
+        }
+        return mapper.writeValueAsBytes(entity);
+    }
+
+    private ObjectNode toMessage(final int id, final boolean element) {
+        final ObjectNode entity = mapper.createObjectNode();
+        if (element) {
+            entity.put("odata.metadata", getServiceRoot() + "/$metadata#Message/@Element");
+        }
+        entity.put("odata.type", NAMESPACE + ".Message");
+        entity.put("odata.id", getServiceRoot() + "/Message(" + id + ")");
+        entity.put("odata.editLink", "Message(" + id + ")");
+        entity.put("MessageId", id);
+        entity.setAll(messages.get(id));
+        entity.put("DateTimeReceived@odata.type", "Edm.DateTime");
+        entity.put("From@odata.type", NAMESPACE + ".Recipient");
+        entity.put("ToRecipients@odata.type", "Collection(" + NAMESPACE + ".Recipient)");
+        entity.put("Categories@odata.type", "Collection(Edm.String)");
+        return entity;
+    }
+
+    private byte[] toJSON(final int skip) throws IOException {
+        final ObjectNode feed = mapper.createObjectNode();
+        feed.put("odata.metadata", getServiceRoot() + "/$metadata#Message");
+        final ArrayNode value = feed.putArray("value");
+        final int last = Math.min(skip + PAGE_SIZE, messages.size());
+        for (int id = skip + 1; id <= last; id++) {
+            value.add(toMessage(id, false));
+        }
+        if (last < messages.size()) {
+            feed.put("odata.nextLink", getServiceRoot() + "/Message?$skiptoken=" + last);
+        }
+        return mapper.writeValueAsBytes(feed);
+    }
+
+    private static void send(final HttpExchange exchange, final int status, final String contentType,
+            final byte[] body) throws IOException {
+
+        if (contentType != null) {
+            exchange.getResponseHeaders().add("Content-Type", contentType);
+        }
+        exchange.sendResponseHeaders(status, body == null ? -1 : body.length);
+        if (body != null) {
+            exchange.getResponseBody().write(body);
+        }
+    }
+}
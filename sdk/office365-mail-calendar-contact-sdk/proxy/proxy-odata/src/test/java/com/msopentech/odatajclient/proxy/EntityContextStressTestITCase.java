@@ -0,0 +1,260 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.msopentech.odatajclient.proxy.api.EntityContainerFactory;
+import com.msopentech.odatajclient.proxy.api.context.AttachedEntity;
+import com.msopentech.odatajclient.proxy.api.context.Context;
+import com.msopentech.odatajclient.proxy.api.context.ContextMode;
+import com.msopentech.odatajclient.proxy.model.Customer;
+import com.msopentech.odatajclient.proxy.model.DefaultContainer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Creates and modifies entities from many threads at once, checking that each thread, session or shared concurrent
+ * context tracks exactly the entities it was given.
+ */
+public class EntityContextStressTestITCase {
+
+    private static final int THREADS = 16;
+
+    private static final int ENTITIES = 500;
+
+    private static DefaultContainer container;
+
+    @BeforeClass
+    public static void setUpContainer() {
+        container = EntityContainerFactory.getV3Instance(CustomerService.getInstance().getServiceRoot()).
+                getEntityContainer(DefaultContainer.class);
+    }
+
+    @After
+    public void resetContext() {
+        EntityContainerFactory.bindContext(null);
+        EntityContainerFactory.setContextMode(ContextMode.SHARED);
+    }
+
+    private static int count(final Context context) {
+        int count = 0;
+        for (AttachedEntity attached : context.entityContext()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Creates the given number of new customers, in whatever context the current thread is using.
+     */
+    private static void createCustomers(final int first, final int howMany) {
+        for (int i = first; i < first + howMany; i++) {
+            final Customer customer = container.getCustomer().newCustomer();
+            customer.setCustomerId(i);
+            customer.setName("Customer " + i);
+        }
+    }
+
+    private static <T> List<T> runAll(final List<Callable<T>> tasks) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            final List<T> results = new ArrayList<T>(tasks.size());
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    @Test
+    public void threadContexts() throws Exception {
+        EntityContainerFactory.setContextMode(ContextMode.THREAD);
+
+        final List<Callable<Context>> tasks = new ArrayList<Callable<Context>>();
+        for (int i = 0; i < THREADS; i++) {
+            final int first = i * ENTITIES;
+            tasks.add(new Callable<Context>() {
+
+                @Override
+                public Context call() {
+                    final Context context = EntityContainerFactory.getContext();
+                    assertSame(context, EntityContainerFactory.getContext());
+                    assertFalse(context.isConcurrent());
+
+                    createCustomers(first, ENTITIES);
+                    assertEquals(ENTITIES, count(context));
+                    return context;
+                }
+            });
+        }
+
+        final List<Context> contexts = runAll(tasks);
+        for (int i = 0; i < contexts.size(); i++) {
+            for (int j = i + 1; j < contexts.size(); j++) {
+                assertNotSame(contexts.get(i), contexts.get(j));
+            }
+        }
+
+        // the test thread got a context of its own, untouched by the others
+        assertEquals(0, count(EntityContainerFactory.getContext()));
+    }
+
+    @Test
+    public void clearedThreadContext() throws Exception {
+        EntityContainerFactory.setContextMode(ContextMode.THREAD);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Context first = executor.submit(new Callable<Context>() {
+
+                @Override
+                public Context call() {
+                    try {
+                        createCustomers(0, ENTITIES);
+                        return EntityContainerFactory.getContext();
+                    } finally {
+                        EntityContainerFactory.clearThreadContext();
+                    }
+                }
+            }).get();
+            assertEquals(ENTITIES, count(first));
+
+            // the same pool thread starts the next task with a new, empty context
+            final Context second = executor.submit(new Callable<Context>() {
+
+                @Override
+                public Context call() {
+                    return EntityContainerFactory.getContext();
+                }
+            }).get();
+            assertNotSame(first, second);
+            assertEquals(0, count(second));
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    @Test
+    public void sessions() throws Exception {
+        final Context session = new Context();
+
+        final Context previous = EntityContainerFactory.bindContext(session);
+        try {
+            createCustomers(0, ENTITIES);
+        } finally {
+            EntityContainerFactory.bindContext(previous);
+        }
+
+        assertEquals(ENTITIES, count(session));
+        assertNotSame(session, EntityContainerFactory.getContext());
+        assertEquals(0, count(EntityContainerFactory.getContext()));
+
+        // the same session, resumed by another thread
+        final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        tasks.add(new Callable<Integer>() {
+
+            @Override
+            public Integer call() {
+                EntityContainerFactory.bindContext(session);
+                try {
+                    createCustomers(ENTITIES, ENTITIES);
+                    return count(EntityContainerFactory.getContext());
+                } finally {
+                    EntityContainerFactory.bindContext(null);
+                }
+            }
+        });
+        assertEquals(Integer.valueOf(2 * ENTITIES), runAll(tasks).get(0));
+
+        session.detachAll();
+        assertEquals(0, count(session));
+    }
+
+    @Test
+    public void concurrentContext() throws Exception {
+        EntityContainerFactory.setContextMode(ContextMode.CONCURRENT);
+        final Context shared = EntityContainerFactory.getContext();
+        assertTrue(shared.isConcurrent());
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Callable<Context>> tasks = new ArrayList<Callable<Context>>();
+        for (int i = 0; i < THREADS; i++) {
+            final int first = i * ENTITIES;
+            tasks.add(new Callable<Context>() {
+
+                @Override
+                public Context call() throws InterruptedException {
+                    start.await();
+                    createCustomers(first, ENTITIES);
+                    return EntityContainerFactory.getContext();
+                }
+            });
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<Context>> futures = new ArrayList<Future<Context>>();
+            for (Callable<Context> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+
+            for (Future<Context> future : futures) {
+                assertSame(shared, future.get());
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        assertEquals(THREADS * ENTITIES, count(shared));
+
+        // detaching only part of the entities, as flush does, leaves the others in place
+        final List<AttachedEntity> half = new ArrayList<AttachedEntity>();
+        for (AttachedEntity attached : shared.entityContext()) {
+            if (half.size() < THREADS * ENTITIES / 2) {
+                half.add(attached);
+            }
+        }
+        shared.detachAll(half);
+        assertEquals(THREADS * ENTITIES - half.size(), count(shared));
+
+        shared.detachAll();
+        assertEquals(0, count(shared));
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy;
+
+import static org.junit.Assert.assertEquals;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.engine.client.ODataClientFactory;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataEntitySet;
+import com.msopentech.odatajclient.proxy.api.EntityContainerFactory;
+import com.msopentech.odatajclient.proxy.api.context.Context;
+import com.msopentech.odatajclient.proxy.api.impl.EntityContainerInvocationHandler;
+import com.msopentech.odatajclient.proxy.api.impl.EntityTypeInvocationHandler;
+import com.msopentech.odatajclient.proxy.model.DefaultContainer;
+import com.msopentech.odatajclient.proxy.model.IMessage;
+import com.msopentech.odatajclient.proxy.model.Message;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Materializes 10k messages, read once from the service, and reads their properties: as generated entity type
+ * classes and as proxies, the same way entity sets do.
+ */
+@BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 20)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class GeneratedEntityTypePerfTestITCase {
+
+    private static final int MESSAGES = 10000;
+
+    private static final List<ODataEntity> entities = new ArrayList<ODataEntity>(MESSAGES);
+
+    private static EntityContainerInvocationHandler containerHandler;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUp() {
+        final CustomerService service = CustomerService.getInstance();
+        service.reset();
+        service.addMessages(MESSAGES);
+
+        final DefaultContainer container = EntityContainerFactory.getV3Instance(service.getServiceRoot()).
+                getEntityContainer(DefaultContainer.class);
+        containerHandler = (EntityContainerInvocationHandler) Proxy.getInvocationHandler(container);
+
+        URI next = URI.create(service.getServiceRoot() + "/Message");
+        while (next != null) {
+            final ODataEntitySet entitySet =
+                    ODataClientFactory.getV3().getRetrieveRequestFactory().getEntitySetRequest(next).execute().getBody();
+            entities.addAll(entitySet.getEntities());
+            next = entitySet.getNext();
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        EntityContainerFactory.bindContext(null);
+    }
+
+    private static int read(final IMessage message) {
+        message.getSubject();
+        message.getDateTimeReceived();
+        message.getFrom().getAddress();
+        message.getToRecipients().size();
+        message.getCategories().size();
+        return message.getIsRead() ? 1 : 0;
+    }
+
+    @Test
+    public void generated() {
+        EntityContainerFactory.bindContext(new Context());
+
+        int read = 0;
+        for (ODataEntity entity : entities) {
+            final Message message = new Message();
+            message.bind(entity, containerHandler, "DefaultContainer", "Message", null);
+            read += read(message);
+        }
+        assertEquals(MESSAGES / 2, read);
+    }
+
+    @Test
+    public void proxies() {
+        EntityContainerFactory.bindContext(new Context());
+
+        int read = 0;
+        for (ODataEntity entity : entities) {
+            final IMessage message = (IMessage) Proxy.newProxyInstance(
+                    Thread.currentThread().getContextClassLoader(),
+                    new Class<?>[] {IMessage.class},
+                    EntityTypeInvocationHandler.getInstance(
+                            entity, "DefaultContainer", "Message", IMessage.class, containerHandler));
+            read += read(message);
+        }
+        assertEquals(MESSAGES / 2, read);
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.msopentech.odatajclient.proxy.api.EntityContainerFactory;
+import com.msopentech.odatajclient.proxy.api.context.AttachedEntityStatus;
+import com.msopentech.odatajclient.proxy.api.context.Context;
+import com.msopentech.odatajclient.proxy.model.DefaultContainer;
+import com.msopentech.odatajclient.proxy.model.IMessage;
+import com.msopentech.odatajclient.proxy.model.Message;
+import com.msopentech.odatajclient.proxy.model.Recipient;
+import java.lang.reflect.Proxy;
+import java.util.Calendar;
+import java.util.Iterator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class GeneratedEntityTypeTestITCase {
+
+    private static CustomerService service;
+
+    private static DefaultContainer container;
+
+    private Context session;
+
+    @BeforeClass
+    public static void setUpContainer() {
+        service = CustomerService.getInstance();
+        container = EntityContainerFactory.getV3Instance(service.getServiceRoot()).
+                getEntityContainer(DefaultContainer.class);
+    }
+
+    @Before
+    public void setUp() {
+        service.reset();
+        service.addMessages(3);
+        session = new Context();
+        EntityContainerFactory.bindContext(session);
+    }
+
+    @After
+    public void tearDown() {
+        EntityContainerFactory.setGeneratedEntityTypes(true);
+        EntityContainerFactory.bindContext(null);
+    }
+
+    @Test
+    public void get() {
+        final IMessage message = container.getMessage().get(2);
+        assertTrue(message instanceof Message);
+        assertFalse(session.entityContext().iterator().hasNext());
+
+        assertEquals(Integer.valueOf(2), message.getMessageId());
+        assertEquals("Message 2", message.getSubject());
+        assertEquals(Boolean.TRUE, message.getIsRead());
+
+        final Calendar received = Calendar.getInstance();
+        received.setTime(message.getDateTimeReceived().getTimestamp());
+        assertEquals(12, received.get(Calendar.DAY_OF_MONTH));
+
+        assertEquals("Sender 2", message.getFrom().getName());
+        assertEquals("sender.2@contoso.com", message.getFrom().getAddress());
+
+        assertEquals(2, message.getToRecipients().size());
+        final Iterator<Recipient> recipients = message.getToRecipients().iterator();
+        assertEquals("To 2", recipients.next().getName());
+        assertEquals("cc.2@contoso.com", recipients.next().getAddress());
+
+        assertEquals(2, message.getCategories().size());
+        assertTrue(message.getCategories().contains("Category 2"));
+    }
+
+    @Test
+    public void getAll() {
+        int count = 0;
+        for (IMessage message : container.getMessage().getAll()) {
+            assertTrue(message instanceof Message);
+            assertNotNull(message.getFrom());
+            count++;
+        }
+        assertEquals(3, count);
+    }
+
+    @Test
+    public void change() {
+        final IMessage message = container.getMessage().get(1);
+        assertFalse(((Message) message).isChanged());
+
+        message.setIsRead(true);
+        assertTrue(((Message) message).isChanged());
+        assertEquals(Boolean.TRUE, message.getIsRead());
+        assertEquals(AttachedEntityStatus.CHANGED,
+                session.entityContext().getStatus(((Message) message).getHandler()));
+
+        container.flush();
+
+        final CustomerService.Request update = service.getRequests().get(service.getRequests().size() - 1);
+        assertEquals("/Static.svc/Message(1)", update.getPath());
+        assertEquals("PATCH", update.getMethod());
+        // only changed properties are sent
+        assertTrue(update.getBody().contains("\"IsRead\""));
+        assertFalse(update.getBody().contains("\"Subject\""));
+        assertTrue(service.getMessage(1).get("IsRead").asBoolean());
+        assertEquals("Message 1", service.getMessage(1).get("Subject").asText());
+    }
+
+    @Test
+    public void attached() {
+        final IMessage message = container.getMessage().get(1);
+        message.setSubject("Changed");
+
+        // an entity with the same key is in the context already: its pending changes are not to be lost
+        final IMessage again = container.getMessage().getAll().iterator().next();
+        assertEquals("Changed", again.getSubject());
+        assertSame(((Message) message).getHandler(), Proxy.getInvocationHandler(again));
+    }
+
+    @Test
+    public void proxies() {
+        EntityContainerFactory.setGeneratedEntityTypes(false);
+
+        final IMessage message = container.getMessage().get(3);
+        assertTrue(Proxy.isProxyClass(message.getClass()));
+        assertEquals("Message 3", message.getSubject());
+        assertEquals("Sender 3", message.getFrom().getName());
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.msopentech.odatajclient.engine.client.ODataClientFactory;
+import com.msopentech.odatajclient.proxy.api.EntityContainerFactory;
+import com.msopentech.odatajclient.proxy.api.FlushException;
+import com.msopentech.odatajclient.proxy.api.context.AttachedEntity;
+import com.msopentech.odatajclient.proxy.api.context.Context;
+import com.msopentech.odatajclient.proxy.api.context.FlushResult;
+import com.msopentech.odatajclient.proxy.api.impl.ParallelContainer;
+import com.msopentech.odatajclient.proxy.model.Customer;
+import com.msopentech.odatajclient.proxy.model.DefaultContainer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParallelContainerTestITCase {
+
+    private static final int PARALLELISM = 4;
+
+    private static CustomerService service;
+
+    private static EntityContainerFactory factory;
+
+    private static DefaultContainer container;
+
+    private Context session;
+
+    @BeforeClass
+    public static void setUpContainer() {
+        service = CustomerService.getInstance();
+        factory = EntityContainerFactory.getV3Instance(service.getServiceRoot());
+        container = factory.getEntityContainer(DefaultContainer.class);
+    }
+
+    @Before
+    public void setUp() {
+        service.reset();
+        session = new Context();
+        EntityContainerFactory.bindContext(session);
+    }
+
+    @After
+    public void tearDown() {
+        EntityContainerFactory.bindContext(null);
+    }
+
+    private static Customer newCustomer(final int id, final String name) {
+        final Customer customer = container.getCustomer().newCustomer();
+        customer.setCustomerId(id);
+        customer.setName(name);
+        return customer;
+    }
+
+    private static ParallelContainer flush() {
+        final ParallelContainer parallel =
+                new ParallelContainer(ODataClientFactory.getV3(), factory, PARALLELISM);
+        parallel.flush();
+        return parallel;
+    }
+
+    private CustomerService.Request getCreate(final String name) {
+        for (CustomerService.Request request : service.getRequests()) {
+            if ("POST".equals(request.getMethod()) && request.getBody().contains("\"" + name + "\"")) {
+                return request;
+            }
+        }
+        return null;
+    }
+
+    private int count() {
+        int count = 0;
+        for (AttachedEntity attached : session.entityContext()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void independent() {
+        for (int i = 1; i <= 20; i++) {
+            newCustomer(i, "Customer " + i);
+        }
+
+        final ParallelContainer parallel = flush();
+        assertEquals(20, parallel.getResults().size());
+        for (FlushResult result : parallel.getResults()) {
+            assertTrue(result.isSucceeded());
+        }
+
+        assertEquals(20, service.getRequests().size());
+        assertTrue(service.getMaxRunning() <= PARALLELISM);
+        assertEquals(0, count());
+    }
+
+    @Test
+    public void linkToCreated() {
+        for (int i = 1; i <= 10; i++) {
+            final Customer wife = newCustomer(i, "Wife " + i);
+            wife.setHusband(newCustomer(100 + i, "Husband " + i));
+        }
+
+        final ParallelContainer parallel = flush();
+        assertEquals(20, parallel.getResults().size());
+
+        for (int i = 1; i <= 10; i++) {
+            final CustomerService.Request wife = getCreate("Wife " + i);
+            final CustomerService.Request husband = getCreate("Husband " + i);
+            assertNotNull(wife);
+            assertNotNull(husband);
+
+            // the wife is created once the husband exists, and links to it
+            assertTrue(wife.getStarted() > husband.getCompleted());
+            assertTrue(wife.getBody(), wife.getBody().contains("Customer(" + (100 + i) + ")"));
+        }
+        assertTrue(service.getMaxRunning() <= PARALLELISM);
+        assertEquals(0, count());
+    }
+
+    @Test
+    public void cycle() {
+        final Customer first = newCustomer(1, "First");
+        final Customer second = newCustomer(2, "Second");
+        first.setHusband(second);
+        second.setHusband(first);
+
+        final ParallelContainer parallel = flush();
+        assertEquals(3, parallel.getResults().size());
+        assertTrue(parallel.getResults().get(2).isLinkUpdate());
+
+        // the link closing the cycle is updated once both entities exist
+        final CustomerService.Request update = service.getRequests().get(2);
+        assertEquals("PATCH", update.getMethod());
+        assertTrue(update.getStarted() > getCreate("First").getCompleted());
+        assertTrue(update.getStarted() > getCreate("Second").getCompleted());
+        assertTrue(update.getBody().contains("Customer("));
+        assertEquals(0, count());
+    }
+
+    @Test
+    public void retryAfterFailedLinkUpdate() {
+        service.failUpdatesOf(1);
+        service.failUpdatesOf(2);
+
+        final Customer first = newCustomer(1, "First");
+        final Customer second = newCustomer(2, "Second");
+        first.setHusband(second);
+        second.setHusband(first);
+
+        try {
+            flush();
+            fail("Flush should have failed");
+        } catch (FlushException e) {
+            assertEquals(1, e.getFailures().size());
+            assertTrue(e.getFailures().get(0).isLinkUpdate());
+        }
+        assertNotNull(getCreate("First"));
+        assertNotNull(getCreate("Second"));
+        assertEquals(1, count());
+
+        // the entity left attached was created already: flushing again updates it
+        service.reset();
+        flush();
+        assertNull(getCreate("First"));
+        assertNull(getCreate("Second"));
+        assertFalse(service.getRequests().isEmpty());
+        assertEquals(0, count());
+    }
+
+    @Test
+    public void failure() {
+        service.failOn("Husband");
+
+        final Customer wife = newCustomer(1, "Wife");
+        wife.setHusband(newCustomer(2, "Husband"));
+        newCustomer(3, "Single");
+
+        try {
+            flush();
+            fail("Flush should have failed");
+        } catch (FlushException e) {
+            assertEquals(3, e.getResults().size());
+            assertEquals(2, e.getFailures().size());
+            for (FlushResult result : e.getFailures()) {
+                assertFalse(result.isSucceeded());
+                assertNotNull(result.getError());
+            }
+        }
+
+        // the wife was not even tried
+        assertNotNull(getCreate("Husband"));
+        assertNotNull(getCreate("Single"));
+        assertNull(getCreate("Wife"));
+
+        // entities not pushed are still there, to be flushed again
+        assertEquals(2, count());
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy;
+
+import static org.junit.Assert.assertEquals;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.engine.client.ODataClientFactory;
+import com.msopentech.odatajclient.proxy.api.EntityContainerFactory;
+import com.msopentech.odatajclient.proxy.api.context.Context;
+import com.msopentech.odatajclient.proxy.api.impl.ParallelContainer;
+import com.msopentech.odatajclient.proxy.api.impl.SequentialContainer;
+import com.msopentech.odatajclient.proxy.model.Customer;
+import com.msopentech.odatajclient.proxy.model.DefaultContainer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Flushes new customers, half of them linked to another new customer, to a service answering each request after
+ * a fixed latency: one request at a time, and with a few requests at a time.
+ */
+@BenchmarkOptions(warmupRounds = 1, benchmarkRounds = 5)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ParallelFlushPerfTestITCase {
+
+    private static final int CUSTOMERS = 100;
+
+    private static final long LATENCY = 20;
+
+    private static CustomerService service;
+
+    private static EntityContainerFactory factory;
+
+    private static DefaultContainer container;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUpContainer() {
+        service = CustomerService.getInstance();
+        factory = EntityContainerFactory.getV3Instance(service.getServiceRoot());
+        container = factory.getEntityContainer(DefaultContainer.class);
+    }
+
+    @Before
+    public void setUp() {
+        service.reset();
+        service.setLatency(LATENCY);
+        EntityContainerFactory.bindContext(new Context());
+
+        for (int i = 0; i < CUSTOMERS; i += 2) {
+            final Customer wife = newCustomer(i);
+            wife.setHusband(newCustomer(i + 1));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        assertEquals(CUSTOMERS, service.getRequests().size());
+        EntityContainerFactory.bindContext(null);
+    }
+
+    private static Customer newCustomer(final int id) {
+        final Customer customer = container.getCustomer().newCustomer();
+        customer.setCustomerId(id);
+        customer.setName("Customer " + id);
+        return customer;
+    }
+
+    @Test
+    public void parallel4() {
+        new ParallelContainer(ODataClientFactory.getV3(), factory, 4).flush();
+    }
+
+    @Test
+    public void parallel16() {
+        new ParallelContainer(ODataClientFactory.getV3(), factory, 16).flush();
+    }
+
+    @Test
+    public void sequential() {
+        new SequentialContainer(ODataClientFactory.getV3(), factory).flush();
+    }
+}
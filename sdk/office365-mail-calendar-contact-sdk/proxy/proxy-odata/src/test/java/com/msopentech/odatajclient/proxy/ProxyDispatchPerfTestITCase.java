@@ -0,0 +1,91 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy;
+
+import static org.junit.Assert.assertEquals;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.proxy.api.EntityContainerFactory;
+import com.msopentech.odatajclient.proxy.api.context.Context;
+import com.msopentech.odatajclient.proxy.model.Customer;
+import com.msopentech.odatajclient.proxy.model.DefaultContainer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Calls getters and setters of an entity proxy, read from the service, one million times.
+ */
+@BenchmarkOptions(warmupRounds = 3, benchmarkRounds = 10)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ProxyDispatchPerfTestITCase {
+
+    private static final int CALLS = 1000000;
+
+    private static Customer customer;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUp() {
+        final CustomerService service = CustomerService.getInstance();
+        service.reset();
+        EntityContainerFactory.bindContext(new Context());
+
+        final DefaultContainer container = EntityContainerFactory.getV3Instance(service.getServiceRoot()).
+                getEntityContainer(DefaultContainer.class);
+
+        final Customer created = container.getCustomer().newCustomer();
+        created.setCustomerId(1);
+        created.setName("Customer 1");
+        container.flush();
+
+        customer = container.getCustomer().get(1);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        EntityContainerFactory.bindContext(null);
+    }
+
+    @Test
+    public void getters() {
+        int total = 0;
+        for (int i = 0; i < CALLS; i++) {
+            total += customer.getCustomerId();
+            total += customer.getName().length();
+        }
+        assertEquals(CALLS * 11, total);
+    }
+
+    @Test
+    public void setters() {
+        for (int i = 0; i < CALLS; i++) {
+            customer.setName("Customer 1");
+        }
+        assertEquals("Customer 1", customer.getName());
+    }
+}
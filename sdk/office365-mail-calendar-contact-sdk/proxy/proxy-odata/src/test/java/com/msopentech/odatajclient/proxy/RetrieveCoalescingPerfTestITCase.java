@@ -0,0 +1,148 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy;
+
+import static org.junit.Assert.assertEquals;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.msopentech.odatajclient.engine.client.http.HttpClientFactory;
+import com.msopentech.odatajclient.engine.client.http.PoolingHttpClientFactory;
+import com.msopentech.odatajclient.proxy.api.EntityContainerFactory;
+import com.msopentech.odatajclient.proxy.api.context.Context;
+import com.msopentech.odatajclient.proxy.model.DefaultContainer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Gets customers by key from a few threads at a time, over a few pooled connections, from a service answering each
+ * request after a fixed latency: each via its own request, coalesced into <tt>$batch</tt> requests, and falling back to individual requests once
+ * <tt>$batch</tt> is rejected.
+ */
+@BenchmarkOptions(warmupRounds = 1, benchmarkRounds = 5)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class RetrieveCoalescingPerfTestITCase {
+
+    private static final int CUSTOMERS = 200;
+
+    private static final int CALLERS = 20;
+
+    private static final int CONNECTIONS = 4;
+
+    private static final long LATENCY = 20;
+
+    private static CustomerService service;
+
+    private static EntityContainerFactory factory;
+
+    private static DefaultContainer container;
+
+    private static ExecutorService executor;
+
+    private static HttpClientFactory defaultHttpClientFactory;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUpContainer() {
+        service = CustomerService.getInstance();
+        factory = EntityContainerFactory.getV3Instance(service.getServiceRoot());
+        container = factory.getEntityContainer(DefaultContainer.class);
+        executor = Executors.newFixedThreadPool(CALLERS);
+
+        defaultHttpClientFactory = factory.getConfiguration().getHttpClientFactory();
+        factory.getConfiguration().setHttpClientFactory(new PoolingHttpClientFactory(
+                CONNECTIONS, CONNECTIONS, PoolingHttpClientFactory.DEFAULT_IDLE_TIMEOUT,
+                PoolingHttpClientFactory.DEFAULT_KEEP_ALIVE));
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        factory.getConfiguration().setHttpClientFactory(defaultHttpClientFactory);
+        executor.shutdown();
+    }
+
+    @Before
+    public void setUp() {
+        service.reset();
+        service.setLatency(LATENCY);
+    }
+
+    @After
+    public void tearDown() {
+        factory.setRetrieveCoalescing(0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    private static void getAll() throws Exception {
+        final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            final int key = i;
+            futures.add(executor.submit(new Callable<Integer>() {
+
+                @Override
+                public Integer call() throws Exception {
+                    EntityContainerFactory.bindContext(new Context());
+                    try {
+                        return container.getCustomer().get(key).getCustomerId();
+                    } finally {
+                        EntityContainerFactory.bindContext(null);
+                    }
+                }
+            }));
+        }
+
+        for (int i = 0; i < CUSTOMERS; i++) {
+            assertEquals(Integer.valueOf(i), futures.get(i).get());
+        }
+    }
+
+    @Test
+    public void coalesced() throws Exception {
+        factory.setRetrieveCoalescing(CALLERS, 5, TimeUnit.MILLISECONDS);
+        getAll();
+    }
+
+    @Test
+    public void fallback() throws Exception {
+        service.setBatchStatus(404);
+        factory.setRetrieveCoalescing(CALLERS, 5, TimeUnit.MILLISECONDS);
+        getAll();
+    }
+
+    @Test
+    public void individual() throws Exception {
+        getAll();
+    }
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.msopentech.odatajclient.engine.communication.ODataClientErrorException;
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.proxy.api.EntityContainerFactory;
+import com.msopentech.odatajclient.proxy.api.context.Context;
+import com.msopentech.odatajclient.proxy.api.impl.RetrieveCoalescer;
+import com.msopentech.odatajclient.proxy.model.Customer;
+import com.msopentech.odatajclient.proxy.model.DefaultContainer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class RetrieveCoalescingTestITCase {
+
+    private static final int CALLERS = 10;
+
+    private static CustomerService service;
+
+    private static EntityContainerFactory factory;
+
+    private static DefaultContainer container;
+
+    private static ExecutorService executor;
+
+    @BeforeClass
+    public static void setUpContainer() {
+        service = CustomerService.getInstance();
+        factory = EntityContainerFactory.getV3Instance(service.getServiceRoot());
+        container = factory.getEntityContainer(DefaultContainer.class);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        executor.shutdown();
+    }
+
+    @Before
+    public void setUp() {
+        service.reset();
+        factory.setRetrieveCoalescing(CALLERS, 1, TimeUnit.SECONDS);
+    }
+
+    @After
+    public void tearDown() {
+        factory.setRetrieveCoalescing(0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets customers with the given keys, each from its own thread, all at once.
+     */
+    private static List<Customer> getAll(final int... keys) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Customer>> futures = new ArrayList<Future<Customer>>();
+        for (final int key : keys) {
+            futures.add(executor.submit(new Callable<Customer>() {
+
+                @Override
+                public Customer call() throws Exception {
+                    EntityContainerFactory.bindContext(new Context());
+                    try {
+                        start.await();
+                        return container.getCustomer().get(key);
+                    } finally {
+                        EntityContainerFactory.bindContext(null);
+                    }
+                }
+            }));
+        }
+        start.countDown();
+
+        final List<Customer> customers = new ArrayList<Customer>();
+        for (Future<Customer> future : futures) {
+            customers.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return customers;
+    }
+
+    private static int[] keys(final int from, final int count) {
+        final int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = from + i;
+        }
+        return keys;
+    }
+
+    private static int count(final String pathSuffix) {
+        int count = 0;
+        for (CustomerService.Request request : service.getRequests()) {
+            if (request.getPath().endsWith(pathSuffix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void coalesced() throws Exception {
+        final List<Customer> customers = getAll(keys(1, CALLERS));
+
+        for (int i = 0; i < CALLERS; i++) {
+            assertEquals(Integer.valueOf(i + 1), customers.get(i).getCustomerId());
+        }
+        // the batch is sent as soon as full, without waiting for the window to elapse
+        assertEquals(1, service.getRequests().size());
+        assertEquals("POST", service.getRequests().get(0).getMethod());
+        assertEquals(1, count("/$batch"));
+        assertTrue(factory.getRetrieveCoalescer().isBatchSupported());
+    }
+
+    @Test
+    public void moreThanMaxRequests() throws Exception {
+        final List<Customer> customers = getAll(keys(1, CALLERS * 2 + 1));
+
+        for (int i = 0; i < customers.size(); i++) {
+            assertEquals(Integer.valueOf(i + 1), customers.get(i).getCustomerId());
+        }
+        // at most CALLERS threads retrieve at a time
+        assertTrue(service.getRequests().size() < customers.size());
+    }
+
+    @Test
+    public void single() throws Exception {
+        factory.setRetrieveCoalescing(CALLERS, 10, TimeUnit.MILLISECONDS);
+
+        assertEquals(Integer.valueOf(7), getAll(7).get(0).getCustomerId());
+
+        assertEquals(1, service.getRequests().size());
+        assertEquals("GET", service.getRequests().get(0).getMethod());
+        assertTrue(service.getRequests().get(0).getPath().endsWith("/Customer(7)"));
+    }
+
+    @Test
+    public void batchRejected() throws Exception {
+        service.setBatchStatus(404);
+
+        final List<Customer> customers = getAll(keys(1, CALLERS));
+
+        for (int i = 0; i < CALLERS; i++) {
+            assertEquals(Integer.valueOf(i + 1), customers.get(i).getCustomerId());
+        }
+        assertEquals(1, count("/$batch"));
+        assertEquals(CALLERS + 1, service.getRequests().size());
+        assertFalse(factory.getRetrieveCoalescer().isBatchSupported());
+
+        // no more $batch requests
+        service.reset();
+        getAll(keys(1, CALLERS));
+        assertEquals(0, count("/$batch"));
+        assertEquals(CALLERS, service.getRequests().size());
+    }
+
+    @Test
+    public void batchNotImplemented() throws Exception {
+        service.setBatchStatus(501);
+
+        getAll(keys(1, CALLERS));
+        assertEquals(1, count("/$batch"));
+        assertFalse(factory.getRetrieveCoalescer().isBatchSupported());
+    }
+
+    @Test
+    public void batchFailed() throws Exception {
+        service.setBatchStatus(503);
+
+        final List<Customer> customers = getAll(keys(1, CALLERS));
+
+        for (int i = 0; i < CALLERS; i++) {
+            assertEquals(Integer.valueOf(i + 1), customers.get(i).getCustomerId());
+        }
+        assertEquals(1, count("/$batch"));
+        assertEquals(CALLERS + 1, service.getRequests().size());
+        assertTrue(factory.getRetrieveCoalescer().isBatchSupported());
+
+        // next requests are coalesced again
+        service.reset();
+        getAll(keys(1, CALLERS));
+        assertEquals(1, count("/$batch"));
+        assertEquals(1, service.getRequests().size());
+    }
+
+    @Test
+    public void fewerItemsThanRequests() throws Exception {
+        service.setBatchItems(4);
+
+        final List<Customer> customers = getAll(keys(1, CALLERS));
+
+        for (int i = 0; i < CALLERS; i++) {
+            assertEquals(Integer.valueOf(i + 1), customers.get(i).getCustomerId());
+        }
+        // callers without item send their own request
+        assertEquals(1, count("/$batch"));
+        assertEquals(CALLERS - 4 + 1, service.getRequests().size());
+        assertTrue(factory.getRetrieveCoalescer().isBatchSupported());
+    }
+
+    @Test
+    public void itemNotFound() throws Exception {
+        final RetrieveCoalescer coalescer = factory.getRetrieveCoalescer();
+        final List<Future<ODataEntity>> futures = new ArrayList<Future<ODataEntity>>();
+        for (int i = 0; i < CALLERS; i++) {
+            final URI uri = URI.create(service.getServiceRoot() + (i == 3 ? "/Missing(3)" : "/Customer(" + i + ")"));
+            futures.add(executor.submit(new Callable<ODataEntity>() {
+
+                @Override
+                public ODataEntity call() throws Exception {
+                    return coalescer.getEntity(uri);
+                }
+            }));
+        }
+
+        for (int i = 0; i < CALLERS; i++) {
+            try {
+                final ODataEntity entity = futures.get(i).get(10, TimeUnit.SECONDS);
+                assertEquals(Integer.valueOf(i),
+                        entity.getProperty("CustomerId").getPrimitiveValue().<Integer>toCastValue());
+                assertFalse(i == 3);
+            } catch (ExecutionException e) {
+                assertEquals(3, i);
+                if (!(e.getCause() instanceof ODataClientErrorException)) {
+                    fail("Unexpected exception " + e.getCause());
+                }
+            }
+        }
+        assertEquals(1, service.getRequests().size());
+        assertTrue(coalescer.isBatchSupported());
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy.model;
+
+import com.msopentech.odatajclient.proxy.api.annotations.EntityType;
+import com.msopentech.odatajclient.proxy.api.annotations.Key;
+import com.msopentech.odatajclient.proxy.api.annotations.Namespace;
+import com.msopentech.odatajclient.proxy.api.annotations.NavigationProperty;
+import com.msopentech.odatajclient.proxy.api.annotations.Property;
+import java.io.Serializable;
+
+@Namespace("Microsoft.Test.OData.Services.AstoriaDefaultService")
+@EntityType(name = "Customer")
+public interface Customer extends Serializable {
+
+    @Key
+    @Property(name = "CustomerId", type = "Edm.Int32", nullable = false)
+    Integer getCustomerId();
+
+    void setCustomerId(Integer customerId);
+
+    @Property(name = "Name", type = "Edm.String")
+    String getName();
+
+    void setName(String name);
+
+    @NavigationProperty(name = "Husband",
+            type = "Microsoft.Test.OData.Services.AstoriaDefaultService.Customer",
+            targetSchema = "Microsoft.Test.OData.Services.AstoriaDefaultService",
+            targetContainer = "DefaultContainer",
+            targetEntitySet = "Customer")
+    Customer getHusband();
+
+    void setHusband(Customer husband);
+}
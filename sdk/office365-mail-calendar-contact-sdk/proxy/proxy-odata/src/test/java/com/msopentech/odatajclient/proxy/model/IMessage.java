@@ -0,0 +1,70 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy.model;
+
+import com.msopentech.odatajclient.engine.data.ODataTimestamp;
+import com.msopentech.odatajclient.proxy.api.annotations.EntityType;
+import com.msopentech.odatajclient.proxy.api.annotations.Key;
+import com.msopentech.odatajclient.proxy.api.annotations.Namespace;
+import com.msopentech.odatajclient.proxy.api.annotations.Property;
+import java.io.Serializable;
+import java.util.Collection;
+
+@Namespace("Microsoft.Test.OData.Services.AstoriaDefaultService")
+@EntityType(name = "Message")
+public interface IMessage extends Serializable {
+
+    @Key
+    @Property(name = "MessageId", type = "Edm.Int32", nullable = false)
+    Integer getMessageId();
+
+    IMessage setMessageId(Integer messageId);
+
+    @Property(name = "Subject", type = "Edm.String")
+    String getSubject();
+
+    IMessage setSubject(String subject);
+
+    @Property(name = "IsRead", type = "Edm.Boolean")
+    Boolean getIsRead();
+
+    IMessage setIsRead(Boolean isRead);
+
+    @Property(name = "DateTimeReceived", type = "Edm.DateTime")
+    ODataTimestamp getDateTimeReceived();
+
+    IMessage setDateTimeReceived(ODataTimestamp dateTimeReceived);
+
+    @Property(name = "From", type = "Microsoft.Test.OData.Services.AstoriaDefaultService.Recipient")
+    Recipient getFrom();
+
+    IMessage setFrom(Recipient from);
+
+    @Property(name = "ToRecipients",
+            type = "Collection(Microsoft.Test.OData.Services.AstoriaDefaultService.Recipient)")
+    Collection<Recipient> getToRecipients();
+
+    IMessage setToRecipients(Collection<Recipient> toRecipients);
+
+    @Property(name = "Categories", type = "Collection(Edm.String)")
+    Collection<String> getCategories();
+
+    IMessage setCategories(Collection<String> categories);
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy.model;
+
+import com.msopentech.odatajclient.engine.data.ODataEntity;
+import com.msopentech.odatajclient.engine.data.ODataProperty;
+import com.msopentech.odatajclient.engine.data.ODataTimestamp;
+import com.msopentech.odatajclient.engine.data.ODataValue;
+import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
+import com.msopentech.odatajclient.proxy.api.AbstractEntityType;
+import com.msopentech.odatajclient.proxy.api.annotations.Namespace;
+import com.msopentech.odatajclient.proxy.utils.EngineUtils;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * IMessage implementation, as generated in <tt>entities</tt> mode (the templates themselves are rendered and
+ * compiled by the plugin's EntityTypeConcreteTest).
+ */
+@Namespace("Microsoft.Test.OData.Services.AstoriaDefaultService")
+public class Message extends AbstractEntityType implements IMessage {
+
+    private static final long serialVersionUID = 1L;
+
+    protected static final int PROPERTY_COUNT = 7;
+
+    private static final int PROP_MESSAGE_ID = 0;
+
+    private static final int PROP_SUBJECT = 1;
+
+    private static final int PROP_IS_READ = 2;
+
+    private static final int PROP_DATE_TIME_RECEIVED = 3;
+
+    private static final int PROP_FROM = 4;
+
+    private static final int PROP_TO_RECIPIENTS = 5;
+
+    private static final int PROP_CATEGORIES = 6;
+
+    private Integer _messageId;
+
+    private String _subject;
+
+    private Boolean _isRead;
+
+    private ODataTimestamp _dateTimeReceived;
+
+    private Recipient _from;
+
+    private Collection<Recipient> _toRecipients;
+
+    private Collection<String> _categories;
+
+    @Override
+    public Class<?> getTypeRef() {
+        return IMessage.class;
+    }
+
+    @Override
+    public AbstractEntityType newInstance() {
+        return new Message();
+    }
+
+    @Override
+    protected void readFrom(final ODataEntity entity) {
+        super.readFrom(entity);
+
+        _messageId = EngineUtils.getPrimitiveValue(entity.getProperty("MessageId"), EdmSimpleType.Int32);
+        _subject = EngineUtils.getPrimitiveValue(entity.getProperty("Subject"), EdmSimpleType.String);
+        _isRead = EngineUtils.getPrimitiveValue(entity.getProperty("IsRead"), EdmSimpleType.Boolean);
+        _dateTimeReceived = EngineUtils.getPrimitiveValue(
+                entity.getProperty("DateTimeReceived"), EdmSimpleType.DateTime);
+        _from = EngineUtils.getComplexValue(entity.getProperty("From"), new Recipient());
+        _toRecipients = readToRecipients(entity.getProperty("ToRecipients"));
+        _categories = EngineUtils.getPrimitiveCollectionValue(entity.getProperty("Categories"), EdmSimpleType.String);
+    }
+
+    private static Collection<Recipient> readToRecipients(final ODataProperty property) {
+        if (property == null || !property.hasCollectionValue()) {
+            return null;
+        }
+
+        final Collection<Recipient> res = new ArrayList<Recipient>(property.getCollectionValue().size());
+        for (ODataValue value : property.getCollectionValue()) {
+            if (value.isComplex()) {
+                final Recipient item = new Recipient();
+                item.readFrom(value.asComplex());
+                res.add(item);
+            }
+        }
+        return res;
+    }
+
+    public Integer getMessageId() {
+        return _messageId;
+    }
+
+    public IMessage setMessageId(final Integer _messageId) {
+        this._messageId = _messageId;
+        propertyChanged(PROP_MESSAGE_ID, "MessageId", _messageId);
+        return this;
+    }
+
+    public String getSubject() {
+        return _subject;
+    }
+
+    public IMessage setSubject(final String _subject) {
+        this._subject = _subject;
+        propertyChanged(PROP_SUBJECT, "Subject", _subject);
+        return this;
+    }
+
+    public Boolean getIsRead() {
+        return _isRead;
+    }
+
+    public IMessage setIsRead(final Boolean _isRead) {
+        this._isRead = _isRead;
+        propertyChanged(PROP_IS_READ, "IsRead", _isRead);
+        return this;
+    }
+
+    public ODataTimestamp getDateTimeReceived() {
+        return _dateTimeReceived;
+    }
+
+    public IMessage setDateTimeReceived(final ODataTimestamp _dateTimeReceived) {
+        this._dateTimeReceived = _dateTimeReceived;
+        propertyChanged(PROP_DATE_TIME_RECEIVED, "DateTimeReceived", _dateTimeReceived);
+        return this;
+    }
+
+    public Recipient getFrom() {
+        return _from;
+    }
+
+    public IMessage setFrom(final Recipient _from) {
+        this._from = _from;
+        propertyChanged(PROP_FROM, "From", _from);
+        return this;
+    }
+
+    public Collection<Recipient> getToRecipients() {
+        return _toRecipients;
+    }
+
+    public IMessage setToRecipients(final Collection<Recipient> _toRecipients) {
+        this._toRecipients = _toRecipients;
+        propertyChanged(PROP_TO_RECIPIENTS, "ToRecipients", _toRecipients);
+        return this;
+    }
+
+    public Collection<String> getCategories() {
+        return _categories;
+    }
+
+    public IMessage setCategories(final Collection<String> _categories) {
+        this._categories = _categories;
+        propertyChanged(PROP_CATEGORIES, "Categories", _categories);
+        return this;
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright © Microsoft Open Technologies, Inc.
+ *
+ * All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * THIS CODE IS PROVIDED *AS IS* BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION
+ * ANY IMPLIED WARRANTIES OR CONDITIONS OF TITLE, FITNESS FOR A
+ * PARTICULAR PURPOSE, MERCHANTABILITY OR NON-INFRINGEMENT.
+ *
+ * See the Apache License, Version 2.0 for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.msopentech.odatajclient.proxy.model;
+
+import com.msopentech.odatajclient.engine.data.ODataComplexValue;
+import com.msopentech.odatajclient.engine.data.metadata.edm.EdmSimpleType;
+import com.msopentech.odatajclient.proxy.api.AbstractComplexType;
+import com.msopentech.odatajclient.proxy.api.annotations.ComplexType;
+import com.msopentech.odatajclient.proxy.api.annotations.Namespace;
+import com.msopentech.odatajclient.proxy.api.annotations.Property;
+import com.msopentech.odatajclient.proxy.utils.EngineUtils;
+
+/**
+ * Represents Recipient complex type, as generated.
+ */
+@Namespace("Microsoft.Test.OData.Services.AstoriaDefaultService")
+@ComplexType("Recipient")
+public class Recipient extends AbstractComplexType {
+
+    private static final long serialVersionUID = 1L;
+
+    private String _name;
+
+    private String _address;
+
+    @Property(name = "Name", type = "Edm.String", nullable = true)
+    public String getName() {
+        return _name;
+    }
+
+    public Recipient setName(final String _name) {
+        this._name = _name;
+        return this;
+    }
+
+    @Property(name = "Address", type = "Edm.String", nullable = true)
+    public String getAddress() {
+        return _address;
+    }
+
+    public Recipient setAddress(final String _address) {
+        this._address = _address;
+        return this;
+    }
+
+    @Override
+    public void readFrom(final ODataComplexValue value) {
+        _name = EngineUtils.getPrimitiveValue(value.get("Name"), EdmSimpleType.String);
+        _address = EngineUtils.getPrimitiveValue(value.get("Address"), EdmSimpleType.String);
+    }
+}
@@ -32,6 +32,11 @@ public enum ContainerType {
     /**
      * Indicates that each change will be sent in its own request.
      */
-    SEQUENTIAL;
+    SEQUENTIAL,
+
+    /**
+     * Indicates that each change will be sent in its own request, running independent requests concurrently.
+     */
+    PARALLEL;
 
 }
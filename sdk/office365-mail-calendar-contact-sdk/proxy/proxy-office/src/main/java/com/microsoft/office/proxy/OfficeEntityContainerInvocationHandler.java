@@ -24,6 +24,7 @@ import com.msopentech.odatajclient.proxy.api.AbstractContainer;
 import com.msopentech.odatajclient.proxy.api.EntityContainerFactory;
 import com.msopentech.odatajclient.proxy.api.impl.BatchContainer;
 import com.msopentech.odatajclient.proxy.api.impl.EntityContainerInvocationHandler;
+import com.msopentech.odatajclient.proxy.api.impl.ParallelContainer;
 import com.msopentech.odatajclient.proxy.api.impl.SequentialContainer;
 
 /**
@@ -36,6 +37,11 @@ public class OfficeEntityContainerInvocationHandler extends EntityContainerInvoc
      */
     protected static ContainerType sContainerType = ContainerType.SEQUENTIAL;
 
+    /**
+     * Maximum number of requests sent at a time by {@link ContainerType#PARALLEL} containers.
+     */
+    protected static int sParallelism = 4;
+
     /**
      * Creates a new instance of {@link OfficeEntityContainerInvocationHandler} class.
      *
@@ -58,6 +64,9 @@ public class OfficeEntityContainerInvocationHandler extends EntityContainerInvoc
 
             case SEQUENTIAL:
                 return new SequentialContainer(client, factory);
+
+            case PARALLEL:
+                return new ParallelContainer(client, factory, getParallelism());
         }
 
         throw new IllegalStateException("Unknown container type is set");
@@ -81,6 +90,27 @@ public class OfficeEntityContainerInvocationHandler extends EntityContainerInvoc
         sContainerType = containerType;
     }
 
+    /**
+     * Gets the maximum number of requests sent at a time when flushing with {@link ContainerType#PARALLEL}.
+     *
+     * @return Parallelism level.
+     */
+    public static int getParallelism() {
+        return sParallelism;
+    }
+
+    /**
+     * Sets the maximum number of requests sent at a time when flushing with {@link ContainerType#PARALLEL}.
+     *
+     * @param parallelism parallelism level, at least 1.
+     */
+    public static void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism level " + parallelism);
+        }
+        sParallelism = parallelism;
+    }
+
     /**
      * Gets an instance of {@link OfficeEntityContainerInvocationHandler} class.
      *